@@ -1907,6 +1907,7 @@ public class AnalysisManagerController implements Initializable, AnalysisManager
 
                         List<UserFunction> functionsToAdd = analysis.getUserFunctions().stream()
                                 .filter(UserFunction::isTreatAsCustomExpression)
+                                .map(UserFunction::copy)
                                 .toList();
 
                         analysisProposed.getUserFunctions().addAll(functionsToAdd);
@@ -2385,6 +2386,7 @@ public class AnalysisManagerController implements Initializable, AnalysisManager
         userFunctions.add(newFunction);
 
         analysis.getMassSpecExtractedData().populateCycleDataForCustomExpression(expressionTree);
+        analysis.getUserFunctionValueCache().invalidate(expressionName);
         
         // Refresh the two user functions ComboBoxes to include the new custom expression
         refreshTwoUserFunctionsComboBoxes();
@@ -2489,6 +2491,7 @@ public class AnalysisManagerController implements Initializable, AnalysisManager
 
         userFunctions.remove(customExpression);
         analysis.getMassSpecExtractedData().removeCycleDataForDeletedExpression(customExpression.getCustomExpression());
+        analysis.getUserFunctionValueCache().invalidate(customExpression.getName());
         
         // Refresh the two user functions ComboBoxes to remove the deleted custom expression
         refreshTwoUserFunctionsComboBoxes();
@@ -35,6 +35,8 @@ import org.apache.commons.math3.random.RandomDataGenerator;
 import org.cirdles.tripoli.sessions.analysis.imports.OgTripoliImporter;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.phoenix.PhoenixLiveData;
 import org.cirdles.tripoli.utilities.file.FileWatcher;
+import org.cirdles.tripoli.utilities.file.SessionContainerFile;
+import org.cirdles.tripoli.utilities.file.SessionFileUtilities;
 import org.cirdles.tripoli.Tripoli;
 import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
 import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
@@ -59,7 +61,6 @@ import org.cirdles.tripoli.utilities.DelegateActionSet;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 import org.cirdles.tripoli.utilities.stateUtilities.AnalysisMethodPersistance;
 import org.cirdles.tripoli.utilities.stateUtilities.TripoliPersistentState;
-import org.cirdles.tripoli.utilities.stateUtilities.TripoliSerializer;
 import org.jetbrains.annotations.Nullable;
 import org.cirdles.tripoli.reports.Report;
 
@@ -80,7 +81,6 @@ import static org.cirdles.tripoli.gui.utilities.fileUtilities.FileHandlerUtil.*;
 import static org.cirdles.tripoli.sessions.SessionBuiltinFactory.TRIPOLI_DEMONSTRATION_SESSION;
 import static org.cirdles.tripoli.sessions.analysis.AnalysisInterface.initializeNewAnalysis;
 import static org.cirdles.tripoli.utilities.comparators.LiveDataEntryComparator.blockCycleComparator;
-import static org.cirdles.tripoli.utilities.stateUtilities.TripoliSerializer.serializeObjectToFile;
 import static org.cirdles.tripoli.gui.SessionManagerController.listOfSelectedAnalyses;
 
 /**
@@ -162,7 +162,7 @@ public class TripoliGUIController implements Initializable {
 
     public static void quit() {
         try {
-            TripoliPersistentState.getExistingPersistentState().updateTripoliPersistentState();
+            TripoliPersistentState.getExistingPersistentState().flushTripoliPersistentState();
         } catch (TripoliException squidException) {
             TripoliMessageDialog.showWarningDialog(squidException.getMessage(), primaryStageWindow);
         }
@@ -461,7 +461,7 @@ public class TripoliGUIController implements Initializable {
             File sessionFile = new File(sessionFileName);
 //            Session.setSessionChanged(true);
             confirmSaveOnProjectClose();
-            tripoliSession = (Session) TripoliSerializer.getSerializedObjectFromFile(sessionFileName, true);
+            tripoliSession = SessionFileUtilities.readTripoliSession(sessionFileName);
 
             if (null != tripoliSession) {
                 SessionManagerController.tripoliSession = tripoliSession;
@@ -580,7 +580,8 @@ public class TripoliGUIController implements Initializable {
 
                 List<UserFunction> customExpressionInAnalysisMethod = analysisMethodPersistance.getExpressionUserFunctionList();
 
-                analysisSingleton.getUserFunctions().addAll(customExpressionInAnalysisMethod);
+                // each analysis gets its own copies, as AnalysisMethod.createUserFunctions makes, since reductions set their stats
+                customExpressionInAnalysisMethod.forEach(customExpression -> analysisSingleton.getUserFunctions().add(customExpression.copy()));
 
                 tripoliSession.setExpressionRefreshed(true);
             }
@@ -600,8 +601,7 @@ public class TripoliGUIController implements Initializable {
     public void saveSessionMenuItemAction() {
         if (null != tripoliSession) {
             try {
-                serializeObjectToFile(tripoliSession, tripoliPersistentState.getMRUSessionFile().getAbsolutePath());
-                Session.setSessionChanged(false);
+                SessionFileUtilities.serializeTripoliSession(tripoliSession, tripoliPersistentState.getMRUSessionFile().getAbsolutePath());
 //                squidProjectOriginalHash = squidProject.hashCode();
             } catch (TripoliException ex) {
                 TripoliMessageDialog.showWarningDialog(ex.getMessage(), null);
@@ -685,6 +685,13 @@ public class TripoliGUIController implements Initializable {
     // ++++++++++++++++++++++++++++++++++++++++++++++++++ analyses ++++++++++++++++++++++++++++++++++++++++++++++++++
     private void launchAnalysesManager() throws IOException, TripoliException {
         if (analysis != null) {
+            try {
+                // read the analysis data now so a moved session file is reported here rather than by a plot
+                SessionContainerFile.loadAnalysisSections(analysis);
+            } catch (TripoliException e) {
+                TripoliMessageDialog.showWarningDialog(e.getMessage(), primaryStageWindow);
+                return;
+            }
             removeAllManagers();
 
             analysesManagerUI = FXMLLoader.load(getClass().getResource("AnalysesManager.fxml"));
@@ -1009,10 +1016,12 @@ public class TripoliGUIController implements Initializable {
         });
 
         liveDataLogWatcher = new FileWatcher(liveDataFolderPath, (filePath, kind) -> {
-            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
-                liveDataAnalysis.set(phoenixLiveData.readLiveDataFile(filePath));
-                if (liveDataAnalysis.get() != null) {
-                    Platform.runLater(() -> onLiveDataUpdated(liveDataAnalysis.get()));
+            // files are tailed, so appends to an existing file are read as they land
+            if ((kind == StandardWatchEventKinds.ENTRY_CREATE) || (kind == StandardWatchEventKinds.ENTRY_MODIFY)) {
+                AnalysisInterface updatedAnalysis = phoenixLiveData.readLiveDataFile(filePath);
+                if (updatedAnalysis != null) {
+                    liveDataAnalysis.set(updatedAnalysis);
+                    Platform.runLater(() -> onLiveDataUpdated(updatedAnalysis));
                 }
             }
         });
@@ -50,6 +50,7 @@ import org.cirdles.tripoli.plots.histograms.RatioHistogramBuilder;
 import org.cirdles.tripoli.plots.linePlots.*;
 import org.cirdles.tripoli.sessions.analysis.Analysis;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.MCMCBlockScheduler;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.MCMCProcess;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.AllBlockInitForMCMC;
 import org.cirdles.tripoli.utilities.IntuitiveStringComparator;
@@ -208,9 +209,12 @@ public class MCMCPlotsController implements MCMCPlotsControllerInterface {
             activeServices.add(blockIndex);
         }
 
+        // blocks are independent - run them concurrently, bounded by the analysis parameters
+        MCMCBlockScheduler mcmcBlockScheduler = MCMCBlockScheduler.getSharedScheduler(analysis.getParameters().getMcmcBlockParallelism());
         int indexOfFirstRunningBlockProcess = MAX_BLOCK_COUNT;
         for (int blockIndex = 0; blockIndex < countOfBlocks; blockIndex++) {
             services[blockIndex] = new MCMCUpdatesService(blocksToProcess.get(blockIndex));
+            services[blockIndex].setExecutor(mcmcBlockScheduler.getExecutor());
 
             if (analysis.getMapOfBlockIdToProcessStatus().get(blocksToProcess.get(blockIndex)) == RUN) {
                 indexOfFirstRunningBlockProcess = Math.min(indexOfFirstRunningBlockProcess, blockIndex);
@@ -256,7 +260,7 @@ public class MCMCPlotsController implements MCMCPlotsControllerInterface {
                 if (null != newValue) {
                     String[] data = newValue.split(">%");
                     try {
-                        double percent = Double.parseDouble(data[0]) / MCMCProcess.getModelCount();
+                        double percent = Double.parseDouble(data[0]) / MCMCProcess.getModelCount(analysis.getParameters());
                         progressBar.setProgress(percent);
                     } catch (NumberFormatException e) {
                     }
@@ -53,7 +53,6 @@ import static java.util.Arrays.binarySearch;
 import static java.util.Map.entry;
 import static org.cirdles.tripoli.sessions.analysis.GeometricMeanStatsRecord.generateGeometricMeanStats;
 import static org.cirdles.tripoli.utilities.mathUtilities.FormatterForSigFigN.countOfTrailingDigitsForSigFig;
-import static org.cirdles.tripoli.utilities.mathUtilities.MathUtilities.applyChauvenetsCriterion;
 
 /**
  * @author James F. Bowring
@@ -983,7 +982,8 @@ public class AnalysisBlockCyclesPlotOG extends AbstractPlot implements AnalysisB
         if (blockMode) {
             for (int i = 0; i < mapBlockIdToBlockCyclesRecord.size(); i++) {
                 int blockID = i + 1;
-                PlotBlockCyclesRecord plotBlockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(blockID).performChauvenets(analysis.getParameters());
+                PlotBlockCyclesRecord plotBlockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(blockID).performChauvenets(
+                        analysis.getParameters(), userFunction.getChauvenetsCriterionAccumulator(blockID));
                 mapBlockIdToBlockCyclesRecord.put(blockID, plotBlockCyclesRecord);
                 analysis.getMapOfBlockIdToRawDataLiteOne().put(blockID,
                         analysis.getMapOfBlockIdToRawDataLiteOne().get(i + 1).recordChauvenets(userFunction, plotBlockCyclesRecord.cyclesIncluded()));
@@ -998,7 +998,7 @@ public class AnalysisBlockCyclesPlotOG extends AbstractPlot implements AnalysisB
             boolean[] cycleModeIncluded = analysisStatsRecord.cycleModeIncluded();
             double[] cycleModeData = analysisStatsRecord.cycleModeData();
 //            if (Booleans.countTrue(cycleModeIncluded) == cycleModeIncluded.length) {
-                boolean[] chauvenets = applyChauvenetsCriterion(
+                boolean[] chauvenets = userFunction.getChauvenetsCriterionAccumulator(0).applyChauvenetsCriterion(
                         cycleModeData,
                         cycleModeIncluded,
                         analysis.getParameters());
@@ -1010,8 +1010,8 @@ public class AnalysisBlockCyclesPlotOG extends AbstractPlot implements AnalysisB
                             blockStatsRecords[i].cyclesIncluded(), 0, blockStatsRecords[i].cyclesIncluded().length);
                     countOfProcessedCycles += blockStatsRecords[i].cyclesIncluded().length;
                     int blockID = i + 1;
-                    PlotBlockCyclesRecord plotBlockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(blockID);
-                    plotBlockCyclesRecord.updateCyclesIncluded(blockStatsRecords[i].cyclesIncluded());
+                    PlotBlockCyclesRecord plotBlockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(blockID)
+                            .updateCyclesIncluded(blockStatsRecords[i].cyclesIncluded());
                     mapBlockIdToBlockCyclesRecord.put(blockID, plotBlockCyclesRecord);
                     analysis.getMapOfBlockIdToRawDataLiteOne().put(blockID,
                             analysis.getMapOfBlockIdToRawDataLiteOne().get(i + 1).recordChauvenets(userFunction, plotBlockCyclesRecord.cyclesIncluded()));
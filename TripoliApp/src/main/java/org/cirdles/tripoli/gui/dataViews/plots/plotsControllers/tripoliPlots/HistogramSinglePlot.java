@@ -17,6 +17,7 @@
 package org.cirdles.tripoli.gui.dataViews.plots.plotsControllers.tripoliPlots;
 
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.MenuItem;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Rectangle;
@@ -30,6 +31,7 @@ import org.cirdles.tripoli.plots.histograms.HistogramRecord;
  */
 public class HistogramSinglePlot extends AbstractPlot {
 
+    private static final int MIN_BIN_COUNT = 5;
     private final PlotWallPane parentWallPane;
     protected HistogramRecord histogramRecord;
     protected double binWidth;
@@ -46,6 +48,8 @@ public class HistogramSinglePlot extends AbstractPlot {
         this.parentWallPane = parentWallPane;
         // these can be changed by user in plot
         binWidth = histogramRecord.binWidth();
+
+        extendPlotContextMenuWithBinning();
     }
 
     public static AbstractPlot generatePlot(Rectangle bounds, HistogramRecord histogramRecord, PlotWallPane parentWallPane) {
@@ -56,6 +60,34 @@ public class HistogramSinglePlot extends AbstractPlot {
         return parentWallPane;
     }
 
+    private void extendPlotContextMenuWithBinning() {
+        // histograms keep a fine-grained histogram rather than the ensembles, so re-binning needs no data
+        if (null == histogramRecord.streamingHistogram()) {
+            return;
+        }
+        MenuItem moreBinsMenuItem = new MenuItem("More bins");
+        moreBinsMenuItem.setOnAction((mouseEvent) -> {
+            rebinHistograms(Math.min(histogramRecord.binCount() * 2, histogramRecord.streamingHistogram().getFineBinCount()));
+            refreshPanel(true, true);
+        });
+
+        MenuItem fewerBinsMenuItem = new MenuItem("Fewer bins");
+        fewerBinsMenuItem.setOnAction((mouseEvent) -> {
+            rebinHistograms(Math.max(histogramRecord.binCount() / 2, MIN_BIN_COUNT));
+            refreshPanel(true, true);
+        });
+
+        plotContextMenu.getItems().addAll(moreBinsMenuItem, fewerBinsMenuItem);
+    }
+
+    /**
+     * @param binCount count of bins spanning the range of the data
+     */
+    protected void rebinHistograms(int binCount) {
+        histogramRecord = histogramRecord.rebin(binCount);
+        binWidth = histogramRecord.binWidth();
+    }
+
     @Override
     public void preparePanel(boolean reScaleX, boolean reScaleY) {
         xAxisData = histogramRecord.binCenters();
@@ -32,9 +32,9 @@ import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
  */
 public class RatioHistogramPlot extends HistogramSinglePlot {
 
-    private final HistogramRecord invertedRatioHistogramRecord;
-    private final HistogramRecord logRatioHistogramRecord;
-    private final HistogramRecord invertedLogRatioHistogramRecord;
+    private HistogramRecord invertedRatioHistogramRecord;
+    private HistogramRecord logRatioHistogramRecord;
+    private HistogramRecord invertedLogRatioHistogramRecord;
     private final AnalysisMethod analysisMethod;
     private HistogramRecord histogramRecordActive;
     private boolean logMode;
@@ -87,6 +87,14 @@ public class RatioHistogramPlot extends HistogramSinglePlot {
         plotContextMenu.getItems().addAll(plotContextMenuItem5, plotContextMenuItem6);
     }
 
+    @Override
+    protected void rebinHistograms(int binCount) {
+        super.rebinHistograms(binCount);
+        invertedRatioHistogramRecord = invertedRatioHistogramRecord.rebin(binCount);
+        logRatioHistogramRecord = logRatioHistogramRecord.rebin(binCount);
+        invertedLogRatioHistogramRecord = invertedLogRatioHistogramRecord.rebin(binCount);
+    }
+
     public void toggleRatioInverse() {
         boolean inverted = analysisMethod.getMapOfRatioNamesToInvertedFlag().get(histogramRecord.title()[0]);
         if (inverted) {
@@ -121,6 +129,7 @@ public class RatioHistogramPlot extends HistogramSinglePlot {
                 + "  " + "x\u0304" + "=" + String.format("%8.5g", histogramRecordActive.mean()).trim()
                 , "\u00B1" + String.format("%8.5g", histogramRecordActive.standardDeviation()).trim()};
         plotAxisLabelX = histogramRecordActive.xAxisLabel();
+        binWidth = histogramRecordActive.binWidth();
         xAxisData = histogramRecordActive.binCenters();
         minX = xAxisData[0];
         maxX = xAxisData[xAxisData.length - 1];
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// JMH harness for the TripoliCore hot paths; run with ./gradlew :TripoliBenchmarks:jmh
+// A subset can be selected with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=MCMC
+plugins {
+    java
+    id("common-build") // Plugin calls common gradle build from buildSrc
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    jmh(project(":TripoliCore"))
+    jmh("com.github.cirdles:commons:bc38781605")
+    jmh("org.apache.commons:commons-math3:3.6.1")
+    jmh("com.github.topobyte:jama:1.1.0")
+    jmh("org.ojalgo:ojalgo:52.0.1")
+    jmh("jakarta.xml.bind:jakarta.xml.bind-api:4.0.0")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(project.layout.buildDirectory.file("reports/jmh/results.json"))
+    if (project.hasProperty("jmhIncludes")) {
+        includes.set(listOf(project.property("jmhIncludes").toString()))
+    }
+}
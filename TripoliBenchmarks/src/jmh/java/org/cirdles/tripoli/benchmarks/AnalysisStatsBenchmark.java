@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.benchmarks;
+
+import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.AnalysisStatsRecord;
+import org.cirdles.tripoli.sessions.analysis.BlockStatsRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block and analysis statistics over every user function of the Phoenix TIMSDP dataset, as
+ * <code>UserFunction.calculateAnalysisStatsRecord</code> recomputes them after each cycle or block selection.
+ *
+ * @author James F. Bowring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnalysisStatsBenchmark {
+
+    private List<UserFunction> userFunctions;
+    private BlockStatsRecord[][] blockStatsRecordsByUserFunction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        AnalysisInterface analysis = BenchmarkResources.initializeAnalysisWithDataLiteOne(
+                BenchmarkResources.extractResource(BenchmarkResources.PHOENIX_TIMSDP_DATASET));
+        userFunctions = analysis.getUserFunctions();
+        blockStatsRecordsByUserFunction = new BlockStatsRecord[userFunctions.size()][];
+        for (int i = 0; i < userFunctions.size(); i++) {
+            UserFunction userFunction = userFunctions.get(i);
+            blockStatsRecordsByUserFunction[i] =
+                    AnalysisStatsRecord.generateAnalysisBlockStatsRecords(userFunction, userFunction.getMapBlockIdToBlockCyclesRecord());
+        }
+    }
+
+    @Benchmark
+    public void generateAnalysisBlockStatsRecords(Blackhole blackhole) {
+        for (UserFunction userFunction : userFunctions) {
+            blackhole.consume(AnalysisStatsRecord.generateAnalysisBlockStatsRecords(userFunction, userFunction.getMapBlockIdToBlockCyclesRecord()));
+        }
+    }
+
+    @Benchmark
+    public void generateAnalysisStatsRecord(Blackhole blackhole) {
+        for (BlockStatsRecord[] blockStatsRecords : blockStatsRecordsByUserFunction) {
+            blackhole.consume(AnalysisStatsRecord.generateAnalysisStatsRecord(blockStatsRecords));
+        }
+    }
+}
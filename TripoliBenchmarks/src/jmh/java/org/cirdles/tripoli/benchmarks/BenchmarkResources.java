@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.benchmarks;
+
+import org.cirdles.commons.util.ResourceExtractor;
+import org.cirdles.tripoli.Tripoli;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
+
+import java.nio.file.Path;
+
+/**
+ * Locates the datasets shipped in TripoliCore resources and builds analyses from them the way the tests do.
+ *
+ * @author James F. Bowring
+ */
+public enum BenchmarkResources {
+    ;
+
+    public static final long BENCHMARK_SEED = 20221L;
+
+    static final String SYNTHETIC_DATASETS_FOLDER =
+            "/org/cirdles/tripoli/dataSourceProcessors/dataSources/synthetic/twoIsotopeSyntheticData/";
+    static final String PHOENIX_TIMSDP_DATASET =
+            "/org/cirdles/tripoli/dataSourceProcessors/dataSources/ogTripoli/isotopxPhoenixTIMS/kU_IGL/isolinxVersion1/NBS981_210325b-392.TIMSDP";
+
+    private static final ResourceExtractor RESOURCE_EXTRACTOR = new ResourceExtractor(Tripoli.class);
+
+    static Path extractResource(String resourcePath) {
+        return RESOURCE_EXTRACTOR.extractResourceAsFile(resourcePath).toPath();
+    }
+
+    static Path syntheticDataset(String datasetFileName) {
+        return extractResource(SYNTHETIC_DATASETS_FOLDER + datasetFileName);
+    }
+
+    static AnalysisInterface initializeAnalysis(Path dataFilePath) throws Exception {
+        AnalysisInterface analysis = AnalysisInterface.initializeNewAnalysis(0);
+        analysis.setAnalysisName(analysis.extractMassSpecDataFromPath(dataFilePath));
+        return analysis;
+    }
+
+    static AnalysisInterface initializeAnalysisWithDataLiteOne(Path dataFilePath) throws Exception {
+        AnalysisInterface analysis = initializeAnalysis(dataFilePath);
+        AllBlockInitForDataLiteOne.initBlockModels(analysis);
+        return analysis;
+    }
+}
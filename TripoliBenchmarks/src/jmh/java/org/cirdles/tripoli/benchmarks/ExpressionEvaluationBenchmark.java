@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.benchmarks;
+
+import org.cirdles.tripoli.expressions.expressionTrees.ExpressionTree;
+import org.cirdles.tripoli.expressions.expressionTrees.ExpressionTreeInterface;
+import org.cirdles.tripoli.expressions.parsing.ShuntingYard;
+import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and evaluation of a user function expression over the Phoenix TIMSDP dataset; the expression is the
+ * operator-precedence case of <code>ExpressionTreeTest</code>.
+ *
+ * @author James F. Bowring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExpressionEvaluationBenchmark {
+
+    private AnalysisInterface analysis;
+    private List<String> infixList;
+    private ExpressionTree expressionTree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        analysis = BenchmarkResources.initializeAnalysisWithDataLiteOne(
+                BenchmarkResources.extractResource(BenchmarkResources.PHOENIX_TIMSDP_DATASET));
+        List<UserFunction> ufList = analysis.getUserFunctions();
+
+        // 204Pb + 205Pb * 206Pb - 207Pb * ( 208Pb + 204/206 )
+        infixList = new ArrayList<>(List.of(
+                ufList.get(0).getName(), "+", ufList.get(1).getName(), "*", ufList.get(2).getName(), "-",
+                ufList.get(3).getName(), "*", "(", ufList.get(4).getName(), "+", ufList.get(5).getName(), ")"));
+        expressionTree = (ExpressionTree) ExpressionTree.buildTree(ShuntingYard.infixToPostfix(infixList));
+    }
+
+    @Benchmark
+    public ExpressionTreeInterface buildTree() {
+        return ExpressionTree.buildTree(ShuntingYard.infixToPostfix(infixList));
+    }
+
+    @Benchmark
+    public Double[][] eval() {
+        return expressionTree.eval(analysis);
+    }
+}
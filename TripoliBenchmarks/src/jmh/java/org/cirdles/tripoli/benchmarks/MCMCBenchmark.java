@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.benchmarks;
+
+import jama.Matrix;
+import org.cirdles.tripoli.plots.PlotBuilder;
+import org.cirdles.tripoli.sessions.analysis.Analysis;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.MCMCProcess;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.SingleBlockModelDriver;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.SingleBlockRawDataSetRecord;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.SingleBlockModelInitForMCMC;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordFull;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
+import org.cirdles.tripoli.utilities.mathUtilities.MatLabCholesky;
+import org.cirdles.tripoli.utilities.mathUtilities.SplineBasisModel;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * The per-block MCMC hot paths on the first block of a synthetic dataset: the forward model, proposal draws,
+ * the knot basis and a short seeded adaptive MCMC run.
+ *
+ * @author James F. Bowring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MCMCBenchmark {
+
+    @Param({"SyntheticDataset_05.txt"})
+    public String syntheticDataset;
+
+    // maxcnt of the short MCMC run; each saved model is MCMC_DEFAULT_SAVE_INTERVAL iterations
+    @Param({"100"})
+    public int maxSavedModelCount;
+
+    private AnalysisInterface analysis;
+    private MassSpecOutputBlockRecordFull massSpecOutputBlockRecordFull;
+    private SingleBlockRawDataSetRecord singleBlockRawDataSetRecord;
+    private SingleBlockModelInitForMCMC.SingleBlockModelRecordWithCov singleBlockInitialModelRecordWithCov;
+    private double[][] covarianceMatrix_C0;
+    private RandomGenerator randomGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        analysis = BenchmarkResources.initializeAnalysis(BenchmarkResources.syntheticDataset(syntheticDataset));
+        analysis.getParameters().setMcmcMaxSavedModelCount(maxSavedModelCount);
+        analysis.getParameters().setMcmcRandomSeed(BenchmarkResources.BENCHMARK_SEED);
+
+        int blockID = analysis.getMassSpecExtractedData().getBlocksDataFull().keySet().iterator().next();
+        massSpecOutputBlockRecordFull = analysis.getMassSpecExtractedData().getBlocksDataFull().get(blockID);
+        singleBlockRawDataSetRecord = SingleBlockModelDriver.prepareSingleBlockDataForMCMC(
+                blockID, analysis.getMassSpecExtractedData(), analysis.getAnalysisMethod());
+        ((Analysis) analysis).getMapOfBlockIdToIncludedIntensities().putIfAbsent(blockID, singleBlockRawDataSetRecord.blockIncludedIntensitiesArray());
+        singleBlockInitialModelRecordWithCov = SingleBlockModelInitForMCMC.initializeModelForSingleBlockMCMC(
+                analysis, analysis.getAnalysisMethod(), singleBlockRawDataSetRecord, true);
+        covarianceMatrix_C0 = singleBlockInitialModelRecordWithCov.covarianceMatrix_C0().getArray();
+        randomGenerator = MCMCRandomStreams.streamFor(BenchmarkResources.BENCHMARK_SEED, blockID);
+    }
+
+    @Benchmark
+    public double[] modelInitData() {
+        return SingleBlockModelInitForMCMC.modelInitData(
+                singleBlockInitialModelRecordWithCov.singleBlockModelRecord(), singleBlockRawDataSetRecord);
+    }
+
+    @Benchmark
+    public Matrix mvnrndTripoli() {
+        // the delx_adapt draw of each MCMC iteration
+        return MatLabCholesky.mvnrndTripoli(
+                new double[covarianceMatrix_C0.length], covarianceMatrix_C0, 1, randomGenerator);
+    }
+
+    @Benchmark
+    public Primitive64Store bBase() {
+        double[] timeStamps = massSpecOutputBlockRecordFull.onPeakTimeStamps();
+        int basisDegree = 3;
+        int knotCount = massSpecOutputBlockRecordFull.onPeakStartingIndicesOfCycles().length + 1;
+        return SplineBasisModel.bBase(
+                Primitive64Store.FACTORY.rows(timeStamps),
+                timeStamps[0],
+                timeStamps[timeStamps.length - 1],
+                knotCount - basisDegree,
+                basisDegree);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PlotBuilder[][] applyInversionWithAdaptiveMCMC() {
+        MCMCProcess mcmcProcess = MCMCProcess.createMCMCProcess(analysis, singleBlockRawDataSetRecord, singleBlockInitialModelRecordWithCov);
+        mcmcProcess.initializeMCMCProcess();
+        return mcmcProcess.applyInversionWithAdaptiveMCMC(loggingSnippet -> {
+        });
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.benchmarks;
+
+import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of mass spec data files into <code>MassSpecExtractedData</code>.
+ * <p>
+ * <code>dataFile</code> is either a TripoliCore resource path or a file on disk, so Phoenix full 1.2 exports
+ * (<code>PhoenixMassSpec.extractMetaAndBlockDataFromFileVersion_1_2</code>, not shipped in resources) can be timed with <code>-p dataFile=/path/to/export.txt</code>.
+ * The parser is chosen by the same context detection the analysis uses.
+ *
+ * @author James F. Bowring
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MassSpecParsingBenchmark {
+
+    @Param({
+            BenchmarkResources.SYNTHETIC_DATASETS_FOLDER + "SyntheticDataset_05.txt",
+            BenchmarkResources.PHOENIX_TIMSDP_DATASET})
+    public String dataFile;
+
+    private Path dataFilePath;
+    private Method parserMethod;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataFilePath = Path.of(dataFile);
+        if (!Files.exists(dataFilePath)) {
+            dataFilePath = BenchmarkResources.extractResource(dataFile);
+        }
+        MassSpectrometerContextEnum massSpectrometerContext = AnalysisInterface.determineMassSpectrometerContextFromDataFile(dataFilePath);
+        if (0 == massSpectrometerContext.compareTo(MassSpectrometerContextEnum.UNKNOWN)) {
+            throw new IllegalArgumentException("Unrecognized mass spec data file: " + dataFile);
+        }
+        parserMethod = massSpectrometerContext.getClazz().getMethod(massSpectrometerContext.getMethodName(), Path.class);
+    }
+
+    @Benchmark
+    public MassSpecExtractedData extractMassSpecData() throws Exception {
+        return (MassSpecExtractedData) parserMethod.invoke(null, dataFilePath);
+    }
+
+    @Benchmark
+    public MassSpectrometerContextEnum detectMassSpectrometerContext() throws Exception {
+        return AnalysisInterface.determineMassSpectrometerContextFromDataFile(dataFilePath);
+    }
+}
@@ -90,6 +90,14 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// headless batch reduction, e.g. ./gradlew :TripoliCore:runBatch --args="<data folder> --output <folder>"
+tasks.register<JavaExec>("runBatch") {
+    group = "application"
+    description = "Reduces a folder of data files and exports their reports without the GUI."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.cirdles.tripoli.sessions.batch.TripoliBatch")
+}
+
 val timestamp = {
     SimpleDateFormat("dd MMMM yyyy").format(Date())
 }
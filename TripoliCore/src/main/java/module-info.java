@@ -66,6 +66,7 @@ module Tripoli.TripoliCore {
     exports org.cirdles.tripoli.plots.compoundPlotBuilders;
     exports org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers;
     exports org.cirdles.tripoli.utilities.mathUtilities.weightedMeans;
+    exports org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics;
     exports org.cirdles.tripoli.expressions.userFunctions;
     exports org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers;
     exports org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne;
@@ -84,4 +85,5 @@ module Tripoli.TripoliCore {
     exports org.cirdles.tripoli.expressions.constants;
     exports org.cirdles.tripoli.utilities.comparators;
     exports org.cirdles.tripoli.sessions.analysis.imports;
+    exports org.cirdles.tripoli.sessions.batch;
 }
\ No newline at end of file
@@ -16,11 +16,13 @@
 
 package org.cirdles.tripoli.constants;
 
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.DelimitedLineReader;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.neptune.NeptuneMassSpec;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.nu.NuMassSpec;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.phoenix.PhoenixMassSpec;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.triton.TritonMassSpec;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
 
@@ -82,6 +84,37 @@ public enum MassSpectrometerContextEnum {
         return Arrays.asList(keyWordsList.split(","));
     }
 
+    /**
+     * @return the number of leading lines of a data file that format detection needs to read
+     */
+    public static int getDetectionHeaderLineCount() {
+        int headerLineCount = 0;
+        for (MassSpectrometerContextEnum massSpecContext : values()) {
+            headerLineCount = Math.max(headerLineCount, massSpecContext.getKeyWordsList().size());
+        }
+        return headerLineCount;
+    }
+
+    /**
+     * @param headerLines leading lines of a text data file, at most getDetectionHeaderLineCount() are used
+     * @return the first context whose keywords start the header lines in order, otherwise UNKNOWN
+     */
+    public static MassSpectrometerContextEnum detectFromHeaderLines(List<String> headerLines) {
+        MassSpectrometerContextEnum retVal = UNKNOWN;
+        for (MassSpectrometerContextEnum massSpecContext : values()) {
+            List<String> keyWordList = massSpecContext.getKeyWordsList();
+            boolean keywordsMatch = keyWordList.size() <= headerLines.size();
+            for (int keyWordIndex = 0; keywordsMatch && (keyWordIndex < keyWordList.size()); keyWordIndex++) {
+                keywordsMatch = headerLines.get(keyWordIndex).startsWith(keyWordList.get(keyWordIndex).trim());
+            }
+            if (keywordsMatch) {
+                retVal = massSpecContext;
+                break;
+            }
+        }
+        return retVal;
+    }
+
     public Class<?> getClazz() {
         return clazz;
     }
@@ -90,6 +123,22 @@ public enum MassSpectrometerContextEnum {
         return methodName;
     }
 
+    /**
+     * @return the parser overload that continues from an open <code>DelimitedLineReader</code>, or null if this
+     * context's parser only reads from a path
+     */
+    public Method getReaderParserMethod() {
+        Method readerParserMethod = null;
+        if (null != clazz) {
+            try {
+                readerParserMethod = clazz.getMethod(methodName, DelimitedLineReader.class);
+            } catch (NoSuchMethodException e) {
+                // parser reads from a path
+            }
+        }
+        return readerParserMethod;
+    }
+
     public int getCaseNumber() {
         return caseNumber;
     }
@@ -96,6 +96,18 @@ public enum TripoliConstants {
     public static final double SCALING_DOT_DEFAULT_MIN_SIZE = 5.0;
     public static final double SCALING_DOT_DEFAULT_MAX_SIZE = 20.0;
 
+    // MCMC block scheduler default - leave one core for the UI
+    public static final int MCMC_DEFAULT_BLOCK_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // MCMC random seed of zero means not fixed by the user: streams are freshly seeded each run
+    public static final long MCMC_RANDOM_SEED_UNSEEDED = 0L;
+    // MCMC chain length defaults: maxcnt saved models, one saved every datsav iterations
+    public static final int MCMC_DEFAULT_MAX_SAVED_MODEL_COUNT = 10000;
+    public static final int MCMC_DEFAULT_SAVE_INTERVAL = 10;
+    // MCMC adaptive proposal covariance is refactored every this many iterations
+    public static final int MCMC_PROPOSAL_REFACTOR_INTERVAL = 10;
+    // MCMC chains per block - one reproduces the single-chain split Gelman-Rubin test
+    public static final int MCMC_DEFAULT_CHAIN_COUNT = 1;
+
     public enum DetectorPlotFlavor {
 
         FARADAY_DATA("Faraday Data"),
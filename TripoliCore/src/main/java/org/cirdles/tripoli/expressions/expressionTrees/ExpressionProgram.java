@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.expressions.expressionTrees;
+
+import org.cirdles.tripoli.expressions.constants.ConstantNode;
+import org.cirdles.tripoli.expressions.operations.*;
+import org.cirdles.tripoli.expressions.userFunctions.UserFunctionNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A custom expression compiled against the column headers of the cycle data, for evaluation over primitive rows.
+ * <p>
+ * Compilation flattens the tree into a register program in evaluation order. Nodes whose operands are all constants
+ * are folded, and structurally identical sub-expressions, such as a column used twice, share one register. Evaluation
+ * runs the whole program once per cycle row, so there are no intermediate columns and nothing is boxed. The results
+ * equal those of <code>ExpressionTree.eval(columnHeaders, blocksDataLite)</code>, which uses the same
+ * <code>StrictMath</code> functions.
+ *
+ * @author James F. Bowring
+ */
+public final class ExpressionProgram {
+
+    private static final int LOAD = 0;
+    private static final int ADD = 1;
+    private static final int SUBTRACT = 2;
+    private static final int MULTIPLY = 3;
+    private static final int DIVIDE = 4;
+    private static final int POWER = 5;
+    private static final int LOG = 6;
+    private static final int EXP = 7;
+    private static final int SQRT = 8;
+
+    // constants are preset; instruction i writes register targets[i]
+    private final double[] initialRegisters;
+    private final int[] opcodes;
+    private final int[] targets;
+    private final int[] leftOperands;
+    private final int[] rightOperands;
+    private final int resultRegister;
+
+    private ExpressionProgram(double[] initialRegisters, int[] opcodes, int[] targets, int[] leftOperands, int[] rightOperands, int resultRegister) {
+        this.initialRegisters = initialRegisters;
+        this.opcodes = opcodes;
+        this.targets = targets;
+        this.leftOperands = leftOperands;
+        this.rightOperands = rightOperands;
+        this.resultRegister = resultRegister;
+    }
+
+    /**
+     * @param expressionTree custom expression built by <code>ExpressionTree.buildTree</code>
+     * @param columnHeaders  headers of the cycle data; the first two, cycle and time, have no column
+     * @return the compiled program
+     * @throws IllegalArgumentException if the expression names an unknown column or is incomplete
+     */
+    public static ExpressionProgram compile(ExpressionTreeInterface expressionTree, String[] columnHeaders) {
+        Compiler compiler = new Compiler(columnHeaders);
+        int resultRegister = compiler.compileNode(expressionTree);
+        int countOfInstructions = compiler.opcodes.size();
+        int[] opcodes = new int[countOfInstructions];
+        int[] targets = new int[countOfInstructions];
+        int[] leftOperands = new int[countOfInstructions];
+        int[] rightOperands = new int[countOfInstructions];
+        for (int i = 0; i < countOfInstructions; i++) {
+            opcodes[i] = compiler.opcodes.get(i);
+            targets[i] = compiler.targets.get(i);
+            leftOperands[i] = compiler.leftOperands.get(i);
+            rightOperands[i] = compiler.rightOperands.get(i);
+        }
+        return new ExpressionProgram(
+                Arrays.copyOf(compiler.constants, compiler.registerCount), opcodes, targets, leftOperands, rightOperands, resultRegister);
+    }
+
+    /**
+     * @param cycleData one block's cycle data, without the cycle and time columns
+     * @return the expression's value for each cycle row; a row too short for a column reads it as 0.0
+     */
+    public double[] evaluate(double[][] cycleData) {
+        double[] registers = initialRegisters.clone();
+        double[] values = new double[cycleData.length];
+        for (int row = 0; row < cycleData.length; row++) {
+            double[] cycleRow = cycleData[row];
+            for (int i = 0; i < opcodes.length; i++) {
+                if (LOAD == opcodes[i]) {
+                    registers[targets[i]] = (leftOperands[i] < cycleRow.length) ? cycleRow[leftOperands[i]] : 0.0;
+                } else {
+                    registers[targets[i]] = apply(opcodes[i], registers[leftOperands[i]], registers[rightOperands[i]]);
+                }
+            }
+            values[row] = registers[resultRegister];
+        }
+        return values;
+    }
+
+    public int getCountOfInstructions() {
+        return opcodes.length;
+    }
+
+    private static double apply(int opcode, double left, double right) {
+        return switch (opcode) {
+            case ADD -> left + right;
+            case SUBTRACT -> left - right;
+            case MULTIPLY -> left * right;
+            case DIVIDE -> left / right;
+            case POWER -> StrictMath.pow(left, right);
+            case LOG -> StrictMath.log10(left);
+            case EXP -> StrictMath.exp(left);
+            case SQRT -> StrictMath.sqrt(left);
+            default -> throw new IllegalStateException("Unknown opcode " + opcode);
+        };
+    }
+
+    private static int opcodeOf(Operation operation) {
+        if (operation instanceof Add) return ADD;
+        if (operation instanceof Subtract) return SUBTRACT;
+        if (operation instanceof Multiply) return MULTIPLY;
+        if (operation instanceof Divide) return DIVIDE;
+        if (operation instanceof Power) return POWER;
+        if (operation instanceof Log) return LOG;
+        if (operation instanceof Exp) return EXP;
+        if (operation instanceof Sqrt) return SQRT;
+        throw new IllegalArgumentException("Operation cannot be compiled: " + operation.getName());
+    }
+
+    private static final class Compiler {
+        private final String[] columnHeaders;
+        private final Map<NodeKey, Integer> mapOfNodesToRegisters = new HashMap<>();
+        private final List<Integer> opcodes = new ArrayList<>();
+        private final List<Integer> targets = new ArrayList<>();
+        private final List<Integer> leftOperands = new ArrayList<>();
+        private final List<Integer> rightOperands = new ArrayList<>();
+        private double[] constants = new double[16];
+        private boolean[] isConstant = new boolean[16];
+        private int registerCount;
+
+        private Compiler(String[] columnHeaders) {
+            this.columnHeaders = columnHeaders;
+        }
+
+        private int compileNode(ExpressionTreeInterface node) {
+            if (node instanceof ConstantNode constantNode) {
+                return constantRegister(constantNode.getValue());
+            }
+            if (node instanceof UserFunctionNode userFunctionNode) {
+                // persisted expressions may hold the bare column name that tree evaluation wrote back
+                String columnName = userFunctionNode.getValue();
+                if (columnName.startsWith("[") && columnName.endsWith("]")) {
+                    columnName = columnName.substring(1, columnName.length() - 1);
+                }
+                int columnIndex = Arrays.asList(columnHeaders).indexOf(columnName) - 2;
+                if (0 > columnIndex) {
+                    throw new IllegalArgumentException("No cycle data column for " + columnName);
+                }
+                return instructionRegister(new NodeKey(LOAD, columnIndex, -1, 0L));
+            }
+            if ((node instanceof ExpressionTree expressionTree) && (null != expressionTree.getOperation())) {
+                int opcode = opcodeOf(expressionTree.getOperation());
+                int leftRegister = compileNode(expressionTree.getLeft());
+                boolean singleArg = expressionTree.getOperation().isSingleArg();
+                int rightRegister = singleArg ? leftRegister : compileNode(expressionTree.getRight());
+                if (isConstant[leftRegister] && isConstant[rightRegister]) {
+                    return constantRegister(apply(opcode, constants[leftRegister], constants[rightRegister]));
+                }
+                return instructionRegister(new NodeKey(opcode, leftRegister, singleArg ? -1 : rightRegister, 0L));
+            }
+            throw new IllegalArgumentException("Incomplete expression " + ((null == node) ? "" : node.getName()));
+        }
+
+        private int constantRegister(double value) {
+            NodeKey nodeKey = new NodeKey(-1, -1, -1, Double.doubleToRawLongBits(value));
+            Integer register = mapOfNodesToRegisters.get(nodeKey);
+            if (null == register) {
+                register = newRegister();
+                constants[register] = value;
+                isConstant[register] = true;
+                mapOfNodesToRegisters.put(nodeKey, register);
+            }
+            return register;
+        }
+
+        private int instructionRegister(NodeKey nodeKey) {
+            Integer register = mapOfNodesToRegisters.get(nodeKey);
+            if (null == register) {
+                register = newRegister();
+                opcodes.add(nodeKey.opcode());
+                targets.add(register);
+                leftOperands.add(nodeKey.left());
+                rightOperands.add((0 > nodeKey.right()) ? nodeKey.left() : nodeKey.right());
+                mapOfNodesToRegisters.put(nodeKey, register);
+            }
+            return register;
+        }
+
+        private int newRegister() {
+            if (registerCount == constants.length) {
+                constants = Arrays.copyOf(constants, registerCount * 2);
+                isConstant = Arrays.copyOf(isConstant, registerCount * 2);
+            }
+            return registerCount++;
+        }
+    }
+
+    /**
+     * @param opcode        instruction, or -1 for a constant
+     * @param left          left operand register, or column index for <code>LOAD</code>
+     * @param right         right operand register, -1 if none
+     * @param constantBits  raw bits of a constant
+     */
+    private record NodeKey(int opcode, int left, int right, long constantBits) {
+    }
+}
@@ -154,13 +154,13 @@ public class ExpressionTree implements ExpressionTreeInterface, Serializable {
         return "";
     }
 
-    private ExpressionTreeInterface getLeft() {
+    ExpressionTreeInterface getLeft() {
         return this.leftChildET;
     }
-    private ExpressionTreeInterface getRight() {
+    ExpressionTreeInterface getRight() {
         return this.rightChildET;
     }
-    private Operation getOperation() {return this.rootOperator;}
+    Operation getOperation() {return this.rootOperator;}
 
     @Override
     public int getOperationPrecedence() {
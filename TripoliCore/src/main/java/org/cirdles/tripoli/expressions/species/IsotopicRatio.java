@@ -30,8 +30,9 @@ public class IsotopicRatio implements Serializable, Comparable {
     private static final long serialVersionUID = 676151940943728743L;
     private final SpeciesRecordInterface numerator;
     private final SpeciesRecordInterface denominator;
-    private double[] ratioValuesForBlockEnsembles;
-    private double[] logRatioValuesForBlockEnsembles;
+    // inputs to the ensemble histograms, which do not keep them; not saved with sessions
+    private transient double[] ratioValuesForBlockEnsembles;
+    private transient double[] logRatioValuesForBlockEnsembles;
     private boolean displayed;
 
     public IsotopicRatio(SpeciesRecordInterface numerator, SpeciesRecordInterface denominator, boolean displayed) {
@@ -93,7 +94,7 @@ public class IsotopicRatio implements Serializable, Comparable {
     }
 
     public double[] getRatioValuesForBlockEnsembles() {
-        return ratioValuesForBlockEnsembles;
+        return (null == ratioValuesForBlockEnsembles) ? new double[0] : ratioValuesForBlockEnsembles;
     }
 
     public void setRatioValuesForBlockEnsembles(double[] ratioValuesForBlockEnsembles) {
@@ -101,7 +102,7 @@ public class IsotopicRatio implements Serializable, Comparable {
     }
 
     public double[] getLogRatioValuesForBlockEnsembles() {
-        return logRatioValuesForBlockEnsembles;
+        return (null == logRatioValuesForBlockEnsembles) ? new double[0] : logRatioValuesForBlockEnsembles;
     }
 
     public void setLogRatioValuesForBlockEnsembles(double[] logRatioValuesForBlockEnsembles) {
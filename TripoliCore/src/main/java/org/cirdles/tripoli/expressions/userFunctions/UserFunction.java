@@ -20,12 +20,16 @@ import org.cirdles.tripoli.constants.TripoliConstants;
 import org.cirdles.tripoli.expressions.expressionTrees.ExpressionTreeInterface;
 import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.AnalysisStatsAccumulator;
 import org.cirdles.tripoli.sessions.analysis.AnalysisStatsRecord;
 import org.cirdles.tripoli.sessions.analysis.BlockStatsRecord;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.SingleBlockRawDataLiteSetRecord;
+import org.cirdles.tripoli.utilities.mathUtilities.ChauvenetsCriterionAccumulator;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -49,6 +53,9 @@ public class UserFunction implements Comparable, Serializable {
     private boolean displayed;
     private boolean inverted;
     private AnalysisStatsRecord analysisStatsRecord;
+    private transient AnalysisStatsAccumulator analysisStatsAccumulator;
+    private transient Map<Integer, SingleBlockRawDataLiteSetRecord> mapBlockIdToSynchronizedRawDataLite;
+    private transient Map<Integer, ChauvenetsCriterionAccumulator> mapBlockIdToChauvenetsCriterionAccumulator;
     private ExpressionTreeInterface customExpression;
     private Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord = new TreeMap<>();
     private int[] concatenatedBlockCounts;
@@ -112,13 +119,27 @@ public class UserFunction implements Comparable, Serializable {
             treatAsIsotopicRatio = allPositive;
         }
 
-        analysisStatsRecord = generateAnalysisStatsRecord(generateAnalysisBlockStatsRecords(this, mapBlockIdToBlockCyclesRecord));
+        if (null == analysisStatsAccumulator) {
+            analysisStatsAccumulator = new AnalysisStatsAccumulator();
+        }
+        AnalysisStatsRecord previousAnalysisStatsRecord = analysisStatsRecord;
+        analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(treatAsIsotopicRatio, inverted, mapBlockIdToBlockCyclesRecord);
+        if ((null == mapBlockIdToSynchronizedRawDataLite) || (analysisStatsRecord != previousAnalysisStatsRecord)) {
+            mapBlockIdToSynchronizedRawDataLite = new HashMap<>();
+        }
+        // record the included cycles unless this block's raw data is still the record written here last time;
+        // a record replaced since, e.g. by block processing or another user function, is written again
+        Map<Integer, SingleBlockRawDataLiteSetRecord> mapOfBlockIdToRawDataLiteOne = analysis.getMapOfBlockIdToRawDataLiteOne();
         for (int i = 0; i < analysisStatsRecord.blockStatsRecords().length; i++) {
             BlockStatsRecord blockStatsRecord = analysisStatsRecord.blockStatsRecords()[i];
             int blockID = blockStatsRecord.blockID();
-            boolean[] cyclesIncluded = blockStatsRecord.cyclesIncluded();
-            analysis.getMapOfBlockIdToRawDataLiteOne().put(blockID,
-                    analysis.getMapOfBlockIdToRawDataLiteOne().get(blockID).updateIncludedCycles(this, cyclesIncluded));
+            SingleBlockRawDataLiteSetRecord singleBlockRawDataLiteSetRecord = mapOfBlockIdToRawDataLiteOne.get(blockID);
+            if (singleBlockRawDataLiteSetRecord != mapBlockIdToSynchronizedRawDataLite.get(blockID)) {
+                boolean[] cyclesIncluded = blockStatsRecord.cyclesIncluded();
+                singleBlockRawDataLiteSetRecord = singleBlockRawDataLiteSetRecord.updateIncludedCycles(this, cyclesIncluded);
+                mapOfBlockIdToRawDataLiteOne.put(blockID, singleBlockRawDataLiteSetRecord);
+                mapBlockIdToSynchronizedRawDataLite.put(blockID, singleBlockRawDataLiteSetRecord);
+            }
         }
         return analysisStatsRecord;
     }
@@ -222,6 +243,17 @@ public class UserFunction implements Comparable, Serializable {
         this.analysisStatsRecord = analysisStatsRecord;
     }
 
+    /**
+     * @param blockID block whose cycles are tested, or 0 for the cycles of all blocks in cycle mode
+     * @return the accumulator that applies Chauvenet's criterion to those cycles as they change
+     */
+    public ChauvenetsCriterionAccumulator getChauvenetsCriterionAccumulator(int blockID) {
+        if (null == mapBlockIdToChauvenetsCriterionAccumulator) {
+            mapBlockIdToChauvenetsCriterionAccumulator = new HashMap<>();
+        }
+        return mapBlockIdToChauvenetsCriterionAccumulator.computeIfAbsent(blockID, id -> new ChauvenetsCriterionAccumulator());
+    }
+
     public Map<Integer, PlotBlockCyclesRecord> getMapBlockIdToBlockCyclesRecord() {
         return mapBlockIdToBlockCyclesRecord;
     }
@@ -17,15 +17,10 @@
 package org.cirdles.tripoli.expressions.userFunctions;
 
 import org.cirdles.tripoli.expressions.expressionTrees.ExpressionTree;
-import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
-import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordLite;
 
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 public class UserFunctionNode extends ExpressionTree {
     private static final long serialVersionUID = -8842667140841645591L;
@@ -39,28 +34,8 @@ public class UserFunctionNode extends ExpressionTree {
     }
 
     public Double[][] eval(AnalysisInterface analysis) {
-        AllBlockInitForDataLiteOne.initBlockModels(analysis);
-        List<UserFunction> ufList = analysis.getUserFunctions();
-
-        Optional<UserFunction> maybeUserFunction = ufList.stream()
-                .filter(uf -> uf.getName().equals(value))
-                .findFirst();
-
-        if (maybeUserFunction.isEmpty()) {
-            return null;
-        }
-
-        UserFunction targetFunction = maybeUserFunction.get();
-        Map<Integer, PlotBlockCyclesRecord> cycleRecordMap = targetFunction.getMapBlockIdToBlockCyclesRecord();
-
-        Double[][] retVal = new Double[cycleRecordMap.size()][];
-        cycleRecordMap.forEach((k, v) ->
-                retVal[k-1] = Arrays.stream(v.cycleMeansData())
-                        .boxed()
-                        .toArray(Double[]::new)
-        );
-
-        return retVal;
+        // each user function is read once per change of its blocks, however often expressions name it
+        return analysis.getUserFunctionValueCache().cycleMeans(value, analysis);
     }
 
     @Override
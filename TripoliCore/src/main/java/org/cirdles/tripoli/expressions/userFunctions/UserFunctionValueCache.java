@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.expressions.userFunctions;
+
+import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-analysis cache of the cycle means that <code>UserFunctionNode</code> leaves evaluate to, so an expression that
+ * names a user function several times, or a chain of custom expressions, reads each user function's values once.
+ * <p>
+ * A cached entry remembers the block cycles map and the cycle means arrays it was boxed from, and is reused only
+ * while the user function still holds those same arrays: rebuilding the blocks after a column or cycle selection
+ * change replaces them and so invalidates the entry without notification. A custom expression is cached like any
+ * other user function, from its own block cycles map, so it is current exactly as long as that map is; the values of
+ * the user functions it reads do not enter its entry.
+ *
+ * @author James F. Bowring
+ */
+public final class UserFunctionValueCache {
+
+    private final Map<String, CachedValues> mapOfNamesToCachedValues = new HashMap<>();
+    private final Map<String, Integer> mapOfNamesToListIndices = new HashMap<>();
+    private List<UserFunction> indexedUserFunctions;
+
+    /**
+     * @param userFunctionName name of the user function
+     * @param analysis         analysis holding the user function
+     * @return the user function's cycle means, indexed by blockID - 1; shared, so callers must not modify it, or null
+     * if the analysis has no such user function
+     */
+    public synchronized Double[][] cycleMeans(String userFunctionName, AnalysisInterface analysis) {
+        UserFunction userFunction = findUserFunction(userFunctionName, analysis.getUserFunctions());
+        if (null != userFunction) {
+            CachedValues cachedValues = mapOfNamesToCachedValues.get(userFunctionName);
+            if ((null != cachedValues) && cachedValues.isCurrentFor(userFunction)) {
+                return cachedValues.cycleMeans();
+            }
+        }
+
+        // a miss: the blocks may need building, as on every evaluation before this cache
+        AllBlockInitForDataLiteOne.initBlockModels(analysis);
+        userFunction = findUserFunction(userFunctionName, analysis.getUserFunctions());
+        if (null == userFunction) {
+            return null;
+        }
+        CachedValues cachedValues = CachedValues.boxCycleMeans(userFunction);
+        mapOfNamesToCachedValues.put(userFunctionName, cachedValues);
+        return cachedValues.cycleMeans();
+    }
+
+    /**
+     * Drops the cached values of a user function, as when a custom expression is added or deleted.
+     *
+     * @param userFunctionName name of the user function
+     */
+    public synchronized void invalidate(String userFunctionName) {
+        mapOfNamesToCachedValues.remove(userFunctionName);
+    }
+
+    public synchronized void clear() {
+        mapOfNamesToCachedValues.clear();
+        mapOfNamesToListIndices.clear();
+        indexedUserFunctions = null;
+    }
+
+    private UserFunction findUserFunction(String userFunctionName, List<UserFunction> userFunctions) {
+        Integer listIndex = mapOfNamesToListIndices.get(userFunctionName);
+        if ((userFunctions != indexedUserFunctions) || (null == listIndex) || (listIndex >= userFunctions.size())
+                || !userFunctions.get(listIndex).getName().equals(userFunctionName)) {
+            // user functions were added, removed or renamed since the index was built
+            mapOfNamesToListIndices.clear();
+            for (int i = userFunctions.size() - 1; i >= 0; i--) {
+                mapOfNamesToListIndices.put(userFunctions.get(i).getName(), i);
+            }
+            indexedUserFunctions = userFunctions;
+            listIndex = mapOfNamesToListIndices.get(userFunctionName);
+        }
+        return (null == listIndex) ? null : userFunctions.get(listIndex);
+    }
+
+    /**
+     * @param mapBlockIdToBlockCyclesRecord the map the values were boxed from
+     * @param countOfBlocks                 size of the map when boxed
+     * @param cycleMeansArrays              each block's cycle means array when boxed, in map order
+     * @param cycleMeans                    boxed values
+     */
+    private record CachedValues(
+            Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord,
+            int countOfBlocks,
+            double[][] cycleMeansArrays,
+            Double[][] cycleMeans) {
+
+        static CachedValues boxCycleMeans(UserFunction userFunction) {
+            Map<Integer, PlotBlockCyclesRecord> cycleRecordMap = userFunction.getMapBlockIdToBlockCyclesRecord();
+            double[][] cycleMeansArrays = new double[cycleRecordMap.size()][];
+            Double[][] cycleMeans = new Double[cycleRecordMap.size()][];
+            int mapIndex = 0;
+            for (Map.Entry<Integer, PlotBlockCyclesRecord> entry : cycleRecordMap.entrySet()) {
+                if (null != entry.getValue()) {
+                    double[] cycleMeansData = entry.getValue().cycleMeansData();
+                    cycleMeansArrays[mapIndex] = cycleMeansData;
+                    Double[] blockCycleMeans = new Double[cycleMeansData.length];
+                    for (int i = 0; i < cycleMeansData.length; i++) {
+                        blockCycleMeans[i] = cycleMeansData[i];
+                    }
+                    cycleMeans[entry.getKey() - 1] = blockCycleMeans;
+                }
+                mapIndex++;
+            }
+            return new CachedValues(cycleRecordMap, cycleRecordMap.size(), cycleMeansArrays, cycleMeans);
+        }
+
+        boolean isCurrentFor(UserFunction userFunction) {
+            Map<Integer, PlotBlockCyclesRecord> cycleRecordMap = userFunction.getMapBlockIdToBlockCyclesRecord();
+            if ((cycleRecordMap != mapBlockIdToBlockCyclesRecord) || (cycleRecordMap.size() != countOfBlocks)) {
+                return false;
+            }
+            int mapIndex = 0;
+            for (PlotBlockCyclesRecord plotBlockCyclesRecord : cycleRecordMap.values()) {
+                double[] cycleMeansData = (null == plotBlockCyclesRecord) ? null : plotBlockCyclesRecord.cycleMeansData();
+                if (cycleMeansData != cycleMeansArrays[mapIndex]) {
+                    return false;
+                }
+                mapIndex++;
+            }
+            return 0 < countOfBlocks;
+        }
+    }
+}
@@ -20,6 +20,9 @@ import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 import org.cirdles.tripoli.utilities.stateUtilities.TripoliPersistentState;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 
 import static org.cirdles.tripoli.constants.TripoliConstants.*;
@@ -37,12 +40,24 @@ public class Parameters implements Serializable {
     private double scalingDotMinSize;
     private double scalingDotMaxSize;
 
+    // MCMC scheduling parameters
+    private int mcmcBlockParallelism;
+    private long mcmcRandomSeed;
+    private int mcmcMaxSavedModelCount;
+    private int mcmcSaveInterval;
+    private int mcmcChainCount;
+
     public Parameters() {
         this.chauvenetRejectionProbability = CHAUVENETS_DEFAULT_REJECT_PROBABILITY;
         this.requiredMinDatumCount = CHAUVENETS_DEFAULT_MIN_DATUM_COUNT;
         this.massSpectrometerContext = MassSpectrometerContextEnum.UNKNOWN;
         this.scalingDotMinSize = SCALING_DOT_DEFAULT_MIN_SIZE;
         this.scalingDotMaxSize = SCALING_DOT_DEFAULT_MAX_SIZE;
+        this.mcmcBlockParallelism = MCMC_DEFAULT_BLOCK_PARALLELISM;
+        this.mcmcRandomSeed = MCMC_RANDOM_SEED_UNSEEDED;
+        this.mcmcMaxSavedModelCount = MCMC_DEFAULT_MAX_SAVED_MODEL_COUNT;
+        this.mcmcSaveInterval = MCMC_DEFAULT_SAVE_INTERVAL;
+        this.mcmcChainCount = MCMC_DEFAULT_CHAIN_COUNT;
     }
 
     // Copy Constructor
@@ -52,6 +67,35 @@ public class Parameters implements Serializable {
         this.massSpectrometerContext = other.massSpectrometerContext;
         this.scalingDotMinSize = other.getScalingDotMinSize();
         this.scalingDotMaxSize = other.getScalingDotMaxSize();
+        this.mcmcBlockParallelism = other.getMcmcBlockParallelism();
+        this.mcmcRandomSeed = other.getMcmcRandomSeed();
+        this.mcmcMaxSavedModelCount = other.getMcmcMaxSavedModelCount();
+        this.mcmcSaveInterval = other.getMcmcSaveInterval();
+        this.mcmcChainCount = other.getMcmcChainCount();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        // legacy persisted parameters lack the later fields, which deserialize as 0
+        if (scalingDotMinSize <= 0.0) {
+            scalingDotMinSize = SCALING_DOT_DEFAULT_MIN_SIZE;
+        }
+        if (scalingDotMaxSize <= 0.0) {
+            scalingDotMaxSize = SCALING_DOT_DEFAULT_MAX_SIZE;
+        }
+        if (mcmcBlockParallelism <= 0) {
+            mcmcBlockParallelism = MCMC_DEFAULT_BLOCK_PARALLELISM;
+        }
+        if (mcmcMaxSavedModelCount <= 0) {
+            mcmcMaxSavedModelCount = MCMC_DEFAULT_MAX_SAVED_MODEL_COUNT;
+        }
+        if (mcmcSaveInterval <= 0) {
+            mcmcSaveInterval = MCMC_DEFAULT_SAVE_INTERVAL;
+        }
+        if (mcmcChainCount <= 0) {
+            mcmcChainCount = MCMC_DEFAULT_CHAIN_COUNT;
+        }
     }
 
     // Provides a deep copy of this instance
@@ -82,10 +126,6 @@ public class Parameters implements Serializable {
     }
 
     public double getScalingDotMinSize() {
-        // Guard against legacy persisted values that may have defaulted to 0.0
-        if (scalingDotMinSize <= 0.0) {
-            scalingDotMinSize = SCALING_DOT_DEFAULT_MIN_SIZE;
-        }
         return scalingDotMinSize;
     }
 
@@ -94,14 +134,62 @@ public class Parameters implements Serializable {
     }
 
     public double getScalingDotMaxSize() {
-        // Guard against legacy persisted values that may have defaulted to 0.0
-        if (scalingDotMaxSize <= 0.0) {
-            scalingDotMaxSize = SCALING_DOT_DEFAULT_MAX_SIZE;
-        }
         return scalingDotMaxSize;
     }
 
     public void setScalingDotMaxSize(double scalingDotMaxSize) {
         this.scalingDotMaxSize = scalingDotMaxSize;
     }
+
+    public int getMcmcBlockParallelism() {
+        return mcmcBlockParallelism;
+    }
+
+    public void setMcmcBlockParallelism(int mcmcBlockParallelism) {
+        this.mcmcBlockParallelism = mcmcBlockParallelism;
+    }
+
+    /**
+     * @return the user seed for MCMC random streams, or MCMC_RANDOM_SEED_UNSEEDED for a fresh seed each run
+     */
+    public long getMcmcRandomSeed() {
+        return mcmcRandomSeed;
+    }
+
+    public void setMcmcRandomSeed(long mcmcRandomSeed) {
+        this.mcmcRandomSeed = mcmcRandomSeed;
+    }
+
+    /**
+     * @return maximum number of models saved per chain; the chain stops earlier when Gelman-Rubin converges
+     */
+    public int getMcmcMaxSavedModelCount() {
+        return mcmcMaxSavedModelCount;
+    }
+
+    public void setMcmcMaxSavedModelCount(int mcmcMaxSavedModelCount) {
+        this.mcmcMaxSavedModelCount = mcmcMaxSavedModelCount;
+    }
+
+    /**
+     * @return number of MCMC iterations between saved models
+     */
+    public int getMcmcSaveInterval() {
+        return mcmcSaveInterval;
+    }
+
+    public void setMcmcSaveInterval(int mcmcSaveInterval) {
+        this.mcmcSaveInterval = mcmcSaveInterval;
+    }
+
+    /**
+     * @return number of independent MCMC chains run per block; more than one enables the cross-chain Gelman-Rubin test
+     */
+    public int getMcmcChainCount() {
+        return mcmcChainCount;
+    }
+
+    public void setMcmcChainCount(int mcmcChainCount) {
+        this.mcmcChainCount = mcmcChainCount;
+    }
 }
@@ -17,11 +17,11 @@
 package org.cirdles.tripoli.plots.compoundPlotBuilders;
 
 import org.cirdles.tripoli.parameters.Parameters;
+import org.cirdles.tripoli.utilities.mathUtilities.ChauvenetsCriterionAccumulator;
 
 import java.io.Serializable;
 
 import static com.google.common.primitives.Booleans.countTrue;
-import static org.cirdles.tripoli.utilities.mathUtilities.MathUtilities.applyChauvenetsCriterion;
 
 public record PlotBlockCyclesRecord(
         int blockID,
@@ -60,7 +60,16 @@ public record PlotBlockCyclesRecord(
     }
 
     public PlotBlockCyclesRecord performChauvenets(Parameters parameters) {
-        boolean[] cyclesIncludedChauvenet = applyChauvenetsCriterion(
+        return performChauvenets(parameters, new ChauvenetsCriterionAccumulator());
+    }
+
+    /**
+     * @param parameters                     Chauvenet's parameters
+     * @param chauvenetsCriterionAccumulator accumulator kept for this block, which updates from its last application
+     * @return the record with the rejected cycles excluded
+     */
+    public PlotBlockCyclesRecord performChauvenets(Parameters parameters, ChauvenetsCriterionAccumulator chauvenetsCriterionAccumulator) {
+        boolean[] cyclesIncludedChauvenet = chauvenetsCriterionAccumulator.applyChauvenetsCriterion(
                     cycleMeansData,
                     cyclesIncluded,
                     parameters);
@@ -16,7 +16,6 @@
 
 package org.cirdles.tripoli.plots.histograms;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.cirdles.tripoli.plots.PlotBuilder;
 
 import java.io.Serial;
@@ -43,42 +42,18 @@ public class HistogramBuilder extends PlotBuilder {
     }
 
     protected HistogramRecord generateHistogram(int blockID, double[] data, int binCount, String[] title, String xAxisLabel) {
-        DescriptiveStatistics descriptiveStatisticsData = new DescriptiveStatistics();
-        for (int index = 0; index < data.length; index++) {
-            descriptiveStatisticsData.addValue(data[index]);
-        }
-        double dataMax = descriptiveStatisticsData.getMax();
-        double dataMin = descriptiveStatisticsData.getMin();
-
-        double[] binCounts = new double[binCount];
-        double binWidth = (dataMax - dataMin) / binCount;
-
-        for (int index = 0; index < data.length; index++) {
-            double datum = data[index];
-            if (0.0 != datum) { //ignore 0s here
-                int binNum = Math.min((int) Math.floor(Math.abs((datum - dataMin * 1.000000001) / binWidth)), binCount - 1);
-                try {
-                    binCounts[binNum]++;
-                } catch (Exception eHist) {
-                    System.err.println(eHist.getMessage());
-                }
-            }
-        }
-
-        double[] binCenters = new double[binCount];
-        for (int binIndex = 0; binIndex < binCount; binIndex++) {
-            binCenters[binIndex] = dataMin + (binIndex + 0.5) * binWidth;
-        }
+        // the record keeps a fine-grained histogram for re-binning instead of the data
+        StreamingHistogram streamingHistogram = StreamingHistogram.of(data, binCount * StreamingHistogram.FINE_BINS_PER_BIN);
 
         return new HistogramRecord(
                 blockID,
-                data,
-                descriptiveStatisticsData.getMean(),
-                descriptiveStatisticsData.getStandardDeviation(),
+                streamingHistogram,
+                streamingHistogram.getMean(),
+                streamingHistogram.getStandardDeviation(),
                 binCount,
-                binCounts,
-                binWidth,
-                binCenters,
+                streamingHistogram.binCounts(binCount),
+                streamingHistogram.binWidth(binCount),
+                streamingHistogram.binCenters(binCount),
                 title,
                 xAxisLabel,
                 yAxisLabel
@@ -18,9 +18,13 @@ package org.cirdles.tripoli.plots.histograms;
 
 import java.io.Serializable;
 
+/**
+ * A histogram for display, with the fine-grained histogram it was binned from in place of the data, so that it can be
+ * re-binned without the data.
+ */
 public record HistogramRecord(
         int blockID,
-        double[] data,
+        StreamingHistogram streamingHistogram,
         double mean,
         double standardDeviation,
         int binCount,
@@ -31,4 +35,28 @@ public record HistogramRecord(
         String xAxisLabel,
         String yAxisLabel
 ) implements Serializable {
+
+    /**
+     * @param binCount count of bins spanning the range of the data
+     * @return this histogram with the data re-binned into binCount bins, or this histogram itself if it was saved
+     * with its data by an earlier version and has no fine-grained histogram
+     */
+    public HistogramRecord rebin(int binCount) {
+        if (null == streamingHistogram) {
+            return this;
+        }
+        return new HistogramRecord(
+                blockID,
+                streamingHistogram,
+                mean,
+                standardDeviation,
+                binCount,
+                streamingHistogram.binCounts(binCount),
+                streamingHistogram.binWidth(binCount),
+                streamingHistogram.binCenters(binCount),
+                title,
+                xAxisLabel,
+                yAxisLabel
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.plots.histograms;
+
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Fine-grained histogram of a stream of values over a fixed range, with the values' mean and standard deviation, built
+ * in one pass without keeping the values.
+ * <p>
+ * The range is either given up front or taken from a first pass over an array. Values outside it are counted in the
+ * edge bins. Exact zeros, which mark unfilled values in ensemble and cycle data, count toward the moments but are not
+ * binned, as <code>HistogramBuilder</code> has always done. Histograms for display are re-binned from the fine bins:
+ * exactly when the count of fine bins is a multiple of the count of display bins, and otherwise by apportioning each
+ * fine bin across the display bins it overlaps.
+ *
+ * @author James F. Bowring
+ */
+public final class StreamingHistogram implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -6093914371240585164L;
+
+    /**
+     * Fine bins kept per display bin.
+     */
+    public static final int FINE_BINS_PER_BIN = 40;
+
+    private final double rangeMin;
+    private final double rangeMax;
+    private final int[] fineBinCounts;
+    private final StreamingMoments moments = new StreamingMoments();
+
+    /**
+     * @param rangeMin     lower edge of the first bin
+     * @param rangeMax     upper edge of the last bin
+     * @param fineBinCount count of fine bins
+     */
+    public StreamingHistogram(double rangeMin, double rangeMax, int fineBinCount) {
+        if (0 >= fineBinCount) {
+            throw new IllegalArgumentException("Count of bins must be positive: " + fineBinCount);
+        }
+        this.rangeMin = rangeMin;
+        this.rangeMax = rangeMax;
+        fineBinCounts = new int[fineBinCount];
+    }
+
+    /**
+     * @param data         values to bin; the range spans their minimum to maximum
+     * @param fineBinCount count of fine bins
+     * @return the histogram of the values
+     */
+    public static StreamingHistogram of(double[] data, int fineBinCount) {
+        double dataMin = Double.POSITIVE_INFINITY;
+        double dataMax = Double.NEGATIVE_INFINITY;
+        for (double datum : data) {
+            dataMin = Math.min(dataMin, datum);
+            dataMax = Math.max(dataMax, datum);
+        }
+        StreamingHistogram streamingHistogram = (0 == data.length)
+                ? new StreamingHistogram(Double.NaN, Double.NaN, fineBinCount)
+                : new StreamingHistogram(dataMin, dataMax, fineBinCount);
+        for (double datum : data) {
+            streamingHistogram.add(datum);
+        }
+        return streamingHistogram;
+    }
+
+    public void add(double datum) {
+        moments.add(datum);
+        if (0.0 != datum) {
+            fineBinCounts[fineBinIndex(datum)]++;
+        }
+    }
+
+    private int fineBinIndex(double datum) {
+        double position = (datum - rangeMin) / (rangeMax - rangeMin) * fineBinCounts.length;
+        if (!(position > 0.0)) {
+            // below the range, on its lower edge, or a degenerate range
+            return 0;
+        }
+        return (int) Math.min(position, fineBinCounts.length - 1);
+    }
+
+    /**
+     * @param binCount count of display bins spanning the range
+     * @return count of binned values in each display bin
+     */
+    public double[] binCounts(int binCount) {
+        double[] binCounts = new double[binCount];
+        int fineBinCount = fineBinCounts.length;
+        if (0 == fineBinCount % binCount) {
+            int fineBinsPerBin = fineBinCount / binCount;
+            for (int fineBin = 0; fineBin < fineBinCount; fineBin++) {
+                binCounts[fineBin / fineBinsPerBin] += fineBinCounts[fineBin];
+            }
+            return binCounts;
+        }
+        // apportion by overlap, measured in units of 1 / (fineBinCount * binCount) of the range
+        for (int fineBin = 0; fineBin < fineBinCount; fineBin++) {
+            if (0 != fineBinCounts[fineBin]) {
+                long fineStart = (long) fineBin * binCount;
+                long fineEnd = fineStart + binCount;
+                int bin = (int) (fineStart / fineBinCount);
+                while ((bin < binCount) && ((long) bin * fineBinCount < fineEnd)) {
+                    long overlap = Math.min(fineEnd, (long) (bin + 1) * fineBinCount) - Math.max(fineStart, (long) bin * fineBinCount);
+                    binCounts[bin] += fineBinCounts[fineBin] * (double) overlap / binCount;
+                    bin++;
+                }
+            }
+        }
+        return binCounts;
+    }
+
+    /**
+     * @param binCount count of display bins spanning the range
+     * @return center of each display bin
+     */
+    public double[] binCenters(int binCount) {
+        double binWidth = binWidth(binCount);
+        double[] binCenters = new double[binCount];
+        for (int binIndex = 0; binIndex < binCount; binIndex++) {
+            binCenters[binIndex] = rangeMin + (binIndex + 0.5) * binWidth;
+        }
+        return binCenters;
+    }
+
+    public double binWidth(int binCount) {
+        return (rangeMax - rangeMin) / binCount;
+    }
+
+    public int getFineBinCount() {
+        return fineBinCounts.length;
+    }
+
+    public double getRangeMin() {
+        return rangeMin;
+    }
+
+    public double getRangeMax() {
+        return rangeMax;
+    }
+
+    public long getN() {
+        return moments.getN();
+    }
+
+    public double getMean() {
+        return moments.getMean();
+    }
+
+    public double getStandardDeviation() {
+        return moments.getStandardDeviation();
+    }
+}
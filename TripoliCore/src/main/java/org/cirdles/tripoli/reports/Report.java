@@ -18,9 +18,7 @@ package org.cirdles.tripoli.reports;
 
 import org.cirdles.tripoli.Tripoli;
 import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
-import org.cirdles.tripoli.sessions.analysis.Analysis;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
-import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 import org.cirdles.tripoli.utilities.stateUtilities.AnalysisMethodPersistance;
 import org.cirdles.tripoli.utilities.stateUtilities.TripoliPersistentState;
@@ -201,77 +199,25 @@ public class Report implements Serializable, Comparable<Report> {
     }
     /**
      * Generates a CSV output and creates it at the report directory. Creates a row in the file for each analysis given.
-     * Internally filters out analyses that don't match the report.
+     * Internally filters out analyses that don't match the report. Rows are evaluated in parallel by a
+     * <code>ReportEngine</code> and written in the order of the analyses.
      * @param listOfAnalyses List of all loaded analyses
      * @return File of the created CSV. Null if process failed.
      */
     public File generateCSVFile(List<AnalysisInterface> listOfAnalyses, String sessionName) {
-        File reportCSVFile = getReportCSVFile(listOfAnalyses, sessionName);
+        return generateCSVFile(listOfAnalyses, getReportCSVFile(listOfAnalyses, sessionName));
+    }
 
+    /**
+     * Generates a CSV output at the given location, as <code>generateCSVFile(listOfAnalyses, sessionName)</code> does
+     * at the report directory.
+     * @param listOfAnalyses List of all loaded analyses
+     * @param reportCSVFile File to be created or overwritten
+     * @return File of the created CSV. Null if process failed.
+     */
+    public File generateCSVFile(List<AnalysisInterface> listOfAnalyses, File reportCSVFile) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(reportCSVFile))) {
-            Set<ReportCategory> categories = this.getCategories().stream()
-                    .filter(ReportCategory::isVisible)
-                    .sorted(Comparator.comparingInt(ReportCategory::getPositionIndex))
-                    .collect(Collectors.toCollection(LinkedHashSet::new));
-
-            // Collect all unique columns across categories
-            List<ReportColumn> visibleColumns = categories.stream()
-                    .flatMap(category -> category.getColumns().stream())
-                    .filter(ReportColumn::isVisible)
-                    .map(column -> {
-                        String name = column.getColumnName();
-                        if (name.contains(" = ( ")) {
-                            name = name.split("\\( = ")[0];
-                        }
-
-                        // Create a new ReportColumn if needed, or mutate if allowed
-                        ReportColumn updatedColumn = new ReportColumn(column);
-                        updatedColumn.setColumnName(name);
-
-                        return updatedColumn;
-                    })
-                    .toList();
-
-            // Header row with proper naming for user function columns
-            List<String> headers = new ArrayList<>();
-            for (ReportColumn column : visibleColumns) {
-                if (column.isUserFunction() && column.isRatio()) {
-                    headers.add(column.getColumnName() + " Mean");
-                    headers.add("%StdErr");
-                    headers.add("%StdDev");
-                } else if (column.isUserFunction()){
-                    headers.add(column.getColumnName() + " Mean");
-                    headers.add("StdErr");
-                    headers.add("StdDev");
-                } else {
-                    headers.add(column.getColumnName());
-                }
-            }
-            writer.write(String.join(",", headers));
-            writer.newLine();
-
-            // Write each analysis row
-            for (AnalysisInterface analysis : listOfAnalyses) {
-                if (analysis.getMethod().getMethodName().equals(methodName)) {
-                    AllBlockInitForDataLiteOne.initBlockModels(analysis);
-                    Analysis thisAnalysis = (Analysis) analysis;
-                    List<String> rowValues = new ArrayList<>();
-
-                    for (ReportColumn column : visibleColumns) {
-                        String columnData = column.retrieveData(thisAnalysis);
-
-                        if (column.isUserFunction()) {
-                            String[] splitData = columnData.split(",");
-                            rowValues.addAll(Arrays.asList(splitData));
-                        } else {
-                            rowValues.add(columnData);
-                        }
-                    }
-
-                    writer.write(String.join(",", rowValues));
-                    writer.newLine();
-                }
-            }
+            new ReportEngine(this).writeCSV(listOfAnalyses, writer);
 
             if (!supressContents) {
                 for (int i = 0; i < 10; i++) {
@@ -25,9 +25,11 @@ import org.cirdles.tripoli.utilities.mathUtilities.MathUtilities;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -90,67 +92,93 @@ public class ReportColumn implements Serializable, Comparable<ReportColumn>{
      * @return The data based on the analysis, a null result represents a misconfigured column
      */
     public String retrieveData(Analysis analysis) {
+        List<String> values = new ArrayList<>(3);
+        compileAccessor().appendValues(analysis, values);
+        return String.join(",", values);
+    }
+
+    /**
+     * Resolves the column once, so that reading it from each analysis needs neither a reflective lookup nor the
+     * formatting and splitting of its values.
+     * @return accessor appending the column's values, three for a user function column, to a row
+     */
+    ReportColumnAccessor compileAccessor() {
         if (isUserFunction) {
-            return retrieveUserFunctionData(analysis.getUserFunctions());
+            return compileUserFunctionAccessor();
         }
         if (methodName == null) {
-            return "null";
+            return (analysis, rowValues) -> rowValues.add("null");
         }
 
-        return invokeAnalysisMethod(analysis);
+        return compileAnalysisMethodAccessor();
     }
 
-    private String retrieveUserFunctionData(List<UserFunction> userFunctions) {
+    private ReportColumnAccessor compileUserFunctionAccessor() {
         String baseColumnName = columnName.contains(" ( = ")
                 ? columnName.split(" \\( = ")[0]
                 : columnName;
 
-        return userFunctions.stream()
-                .filter(f -> f.getName().equals(baseColumnName))
-                .findFirst()
-                .map(userFunction -> {
-                    AnalysisStatsRecord stats = userFunction.getAnalysisStatsRecord();
-                    GeometricMeanStatsRecord geoStats =
-                            generateGeometricMeanStats(stats.cycleModeMean(), stats.cycleModeStandardDeviation(), stats.cycleModeStandardError());
-
-                    if (userFunction.isTreatAsIsotopicRatio()) {
-
-                        return String.format(
-                                "%s,%s,%s",
-                                geoStats.geoMean(),
-                                (geoStats.geoMeanPlusOneStdErr() - geoStats.geoMean()) / geoStats.geoMean() * 100.0,
-                                (geoStats.geoMeanPlusOneStdDev() - geoStats.geoMean()) / geoStats.geoMean() * 100.0
-                        );
-                    } else {
-                        return String.format(
-                                "%s,%s,%s",
-                                stats.cycleModeMean(),
-                                stats.cycleModeStandardError(),
-                                stats.cycleModeStandardDeviation()
-                        );
-                    }
-
-                })
-                .orElse("Error,Error,Error");
-    }
+        return (analysis, rowValues) -> {
+            UserFunction userFunction = null;
+            for (UserFunction candidate : analysis.getUserFunctions()) {
+                if (candidate.getName().equals(baseColumnName)) {
+                    userFunction = candidate;
+                    break;
+                }
+            }
+            if (userFunction == null) {
+                rowValues.add("Error");
+                rowValues.add("Error");
+                rowValues.add("Error");
+                return;
+            }
 
+            AnalysisStatsRecord stats = userFunction.getAnalysisStatsRecord();
+            if (userFunction.isTreatAsIsotopicRatio()) {
+                GeometricMeanStatsRecord geoStats =
+                        generateGeometricMeanStats(stats.cycleModeMean(), stats.cycleModeStandardDeviation(), stats.cycleModeStandardError());
+                rowValues.add(String.valueOf(geoStats.geoMean()));
+                rowValues.add(String.valueOf((geoStats.geoMeanPlusOneStdErr() - geoStats.geoMean()) / geoStats.geoMean() * 100.0));
+                rowValues.add(String.valueOf((geoStats.geoMeanPlusOneStdDev() - geoStats.geoMean()) / geoStats.geoMean() * 100.0));
+            } else {
+                rowValues.add(String.valueOf(stats.cycleModeMean()));
+                rowValues.add(String.valueOf(stats.cycleModeStandardError()));
+                rowValues.add(String.valueOf(stats.cycleModeStandardDeviation()));
+            }
+        };
+    }
 
-    private String invokeAnalysisMethod(Analysis analysis) {
+    private ReportColumnAccessor compileAnalysisMethodAccessor() {
+        String errorValue = "Error invoking method: " + methodName;
+        MethodHandle columnMethodHandle;
         try {
-            Method columnMethod = Analysis.class.getMethod(methodName);
-            Object result = columnMethod.invoke(analysis);
+            columnMethodHandle = MethodHandles.lookup()
+                    .unreflect(Analysis.class.getMethod(methodName))
+                    .asType(MethodType.methodType(Object.class, Analysis.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            e.printStackTrace();
+            return (analysis, rowValues) -> rowValues.add(errorValue);
+        }
+        boolean isDataFileName = "Data File Name".equals(columnName);
+
+        return (analysis, rowValues) -> {
+            Object result;
+            try {
+                result = (Object) columnMethodHandle.invokeExact(analysis);
+            } catch (Throwable e) {
+                e.printStackTrace();
+                rowValues.add(errorValue);
+                return;
+            }
 
             if (result instanceof AnalysisMethod analysisMethod) {
-                return analysisMethod.getMethodName();
-            } else if ("Data File Name".equals(columnName)) {
-                return Path.of((String) result).getFileName().toString();
+                rowValues.add(analysisMethod.getMethodName());
+            } else if (isDataFileName) {
+                rowValues.add(Path.of((String) result).getFileName().toString());
             } else {
-                return result.toString();
+                rowValues.add(result.toString());
             }
-        } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-            e.printStackTrace();
-            return "Error invoking method: " + methodName;
-        }
+        };
     }
 
     @Override
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.reports;
+
+import org.cirdles.tripoli.sessions.analysis.Analysis;
+
+import java.util.List;
+
+/**
+ * A <code>ReportColumn</code> resolved for reading from many analyses.
+ */
+@FunctionalInterface
+interface ReportColumnAccessor {
+    /**
+     * @param analysis  initialized analysis to read
+     * @param rowValues row to which the column's values are appended
+     */
+    void appendValues(Analysis analysis, List<String> rowValues);
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.reports;
+
+import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.sessions.analysis.Analysis;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Writes the rows of a <code>Report</code> for many analyses.
+ * <p>
+ * Each visible column is resolved once into a <code>ReportColumnAccessor</code>. The analyses' block models are then
+ * initialized and their rows evaluated in parallel, one task per analysis, while the rows are written in the order of
+ * the analyses as each becomes ready. Analyses that hold the same <code>UserFunction</code> instance, whose stats each
+ * initialization overwrites, are instead evaluated one at a time.
+ *
+ * @author James F. Bowring
+ */
+public final class ReportEngine {
+
+    private final String methodName;
+    private final List<String> headers = new ArrayList<>();
+    private final List<ReportColumnAccessor> columnAccessors = new ArrayList<>();
+
+    /**
+     * @param report report whose visible categories and columns are written
+     */
+    public ReportEngine(Report report) {
+        methodName = report.getMethodName();
+        List<ReportColumn> visibleColumns = report.getCategories().stream()
+                .filter(ReportCategory::isVisible)
+                .sorted(Comparator.comparingInt(ReportCategory::getPositionIndex))
+                .distinct()
+                .flatMap(category -> category.getColumns().stream())
+                .filter(ReportColumn::isVisible)
+                .toList();
+
+        for (ReportColumn column : visibleColumns) {
+            String name = column.getColumnName();
+            if (name.contains(" = ( ")) {
+                name = name.split("\\( = ")[0];
+            }
+            ReportColumn updatedColumn = new ReportColumn(column);
+            updatedColumn.setColumnName(name);
+
+            // Header row with proper naming for user function columns
+            if (updatedColumn.isUserFunction() && updatedColumn.isRatio()) {
+                headers.add(name + " Mean");
+                headers.add("%StdErr");
+                headers.add("%StdDev");
+            } else if (updatedColumn.isUserFunction()) {
+                headers.add(name + " Mean");
+                headers.add("StdErr");
+                headers.add("StdDev");
+            } else {
+                headers.add(name);
+            }
+            columnAccessors.add(updatedColumn.compileAccessor());
+        }
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @param analysis analysis of the report's method; its block models are initialized if needed
+     * @return the analysis' values for each column
+     */
+    public List<String> evaluateRow(AnalysisInterface analysis) {
+        AllBlockInitForDataLiteOne.initBlockModels(analysis);
+        Analysis thisAnalysis = (Analysis) analysis;
+        List<String> rowValues = new ArrayList<>(headers.size());
+        for (ReportColumnAccessor columnAccessor : columnAccessors) {
+            columnAccessor.appendValues(thisAnalysis, rowValues);
+        }
+        return rowValues;
+    }
+
+    /**
+     * Writes the header row and a row for each analysis of the report's method, skipping the others.
+     *
+     * @param listOfAnalyses analyses to report, in row order
+     * @param writer         destination of the comma-separated rows
+     * @throws IOException if writing fails
+     */
+    public void writeCSV(List<AnalysisInterface> listOfAnalyses, Writer writer) throws IOException {
+        List<AnalysisInterface> reportedAnalyses = listOfAnalyses.stream()
+                .filter(analysis -> analysis.getMethod().getMethodName().equals(methodName))
+                .toList();
+        writeCSV(reportedAnalyses, writer, !sharesUserFunctions(reportedAnalyses));
+    }
+
+    void writeCSV(List<AnalysisInterface> reportedAnalyses, Writer writer, boolean parallel) throws IOException {
+        writeLine(writer, headers);
+        if (!parallel) {
+            for (AnalysisInterface analysis : reportedAnalyses) {
+                writeLine(writer, evaluateRow(analysis));
+            }
+            return;
+        }
+
+        List<ForkJoinTask<List<String>>> rowTasks = new ArrayList<>();
+        for (AnalysisInterface analysis : reportedAnalyses) {
+            rowTasks.add(ForkJoinTask.adapt(() -> evaluateRow(analysis)).fork());
+        }
+        int rowIndex = 0;
+        try {
+            for (; rowIndex < rowTasks.size(); rowIndex++) {
+                writeLine(writer, rowTasks.get(rowIndex).join());
+            }
+        } finally {
+            // after a failure, rows not yet written are abandoned
+            for (; rowIndex < rowTasks.size(); rowIndex++) {
+                rowTasks.get(rowIndex).cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Initializing an analysis' block models sets the stats of its user functions, so analyses can only be evaluated
+     * in parallel if none of their <code>UserFunction</code> instances is held by another.
+     *
+     * @param analyses analyses to evaluate
+     * @return true if a user function instance belongs to more than one of the analyses
+     */
+    static boolean sharesUserFunctions(List<AnalysisInterface> analyses) {
+        Set<UserFunction> userFunctionsSeen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AnalysisInterface analysis : analyses) {
+            Set<UserFunction> userFunctionsOfAnalysis = Collections.newSetFromMap(new IdentityHashMap<>());
+            userFunctionsOfAnalysis.addAll(analysis.getUserFunctions());
+            for (UserFunction userFunction : userFunctionsOfAnalysis) {
+                if (!userFunctionsSeen.add(userFunction)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void writeLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (0 < i) {
+                writer.write(',');
+            }
+            writer.write(values.get(i));
+        }
+        writer.write(System.lineSeparator());
+    }
+}
@@ -26,6 +26,7 @@ import org.cirdles.tripoli.constants.TripoliConstants;
 import org.cirdles.tripoli.expressions.species.IsotopicRatio;
 import org.cirdles.tripoli.expressions.species.SpeciesRecordInterface;
 import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.expressions.userFunctions.UserFunctionValueCache;
 import org.cirdles.tripoli.parameters.Parameters;
 import org.cirdles.tripoli.plots.PlotBuilder;
 import org.cirdles.tripoli.plots.analysisPlotBuilders.AnalysisRatioPlotBuilder;
@@ -43,7 +44,9 @@ import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.m
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.SingleBlockRawDataSetRecord;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.AllBlockInitForMCMC;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.peakShapes.SingleBlockPeakDriver;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.DelimitedLineReader;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedDataCache;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.detectorSetups.DetectorSetupBuiltinModelFactory;
 import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
 import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethodBuiltinFactory;
@@ -96,6 +99,7 @@ public class Analysis implements Serializable, AnalysisInterface, Comparable {
     private final Map<Integer, Integer> mapOfBlockIdToProcessStatus = Collections.synchronizedSortedMap(new TreeMap<>());
     private final Map<Integer, List<File>> blockPeakGroups = Collections.synchronizedSortedMap(new TreeMap<>());
     private final Map<Integer, Integer> mapOfBlockIdToModelsBurnCount = Collections.synchronizedSortedMap(new TreeMap<>());
+    // a modelled block's ensembles are an EnsembleColumns, read-only if spilled to disk; replace a block's list, never add to it
     private final Map<Integer, List<EnsemblesStore.EnsembleRecord>> mapBlockIDToEnsembles = Collections.synchronizedSortedMap(new TreeMap<>());
     private final Map<Integer, SingleBlockModelRecord> mapOfBlockIdToFinalModel = Collections.synchronizedSortedMap(new TreeMap<>());
     private final Map<Integer, boolean[][]> mapOfBlockIdToIncludedPeakData = Collections.synchronizedSortedMap(new TreeMap<>());
@@ -114,6 +118,7 @@ public class Analysis implements Serializable, AnalysisInterface, Comparable {
 
 
     private List<UserFunction> userFunctions;
+    private transient UserFunctionValueCache userFunctionValueCache;
     private String analysisSampleName;
     private String analysisFractionName;
     private String analysisSampleDescription;
@@ -275,21 +280,33 @@ public class Analysis implements Serializable, AnalysisInterface, Comparable {
         mapOfBlockIdToRawData.clear();
         mapOfBlockIdToRawDataLiteOne.clear();
         mapOfBlockIdToFinalModel.clear();
+        getUserFunctionValueCache().clear();
     }
 
     public String extractMassSpecDataFromPath(Path dataFilePath)
             throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException, JAXBException, TripoliException {
         String extractedAnalysisName;
         dataFilePathString = dataFilePath.toString();
-        MassSpectrometerContextEnum massSpectrometerContext = AnalysisInterface.determineMassSpectrometerContextFromDataFile(dataFilePath);
-        if (0 != massSpectrometerContext.compareTo(UNKNOWN)) {
-            Class<?> clazz = massSpectrometerContext.getClazz();
-            Method method = clazz.getMethod(massSpectrometerContext.getMethodName(), Path.class);
-            massSpecExtractedData = (MassSpecExtractedData) method.invoke(null, dataFilePath);
+        MassSpectrometerContextEnum massSpectrometerContext;
+        // re-opening an unchanged data file skips its parser
+        Path cacheFolder = MassSpecExtractedDataCache.defaultCacheFolder();
+        massSpecExtractedData = MassSpecExtractedDataCache.readCachedData(cacheFolder, dataFilePath);
+        if (null != massSpecExtractedData) {
+            massSpectrometerContext = massSpecExtractedData.getMassSpectrometerContext();
         } else {
-            massSpecExtractedData = new MassSpecExtractedData();
+            if (dataFilePath.toString().endsWith(".xls")) {
+                massSpectrometerContext = AnalysisInterface.determineMassSpectrometerContextFromDataFile(dataFilePath);
+                massSpecExtractedData = extractMassSpecData(massSpectrometerContext, dataFilePath, null);
+            } else {
+                // one open reader serves format detection and, for streaming parsers, the parse itself
+                try (DelimitedLineReader reader = new DelimitedLineReader(dataFilePath)) {
+                    massSpectrometerContext = AnalysisInterface.determineMassSpectrometerContextFromDataFile(reader);
+                    massSpecExtractedData = extractMassSpecData(massSpectrometerContext, dataFilePath, reader);
+                }
+            }
+            massSpecExtractedData.setMassSpectrometerContext(massSpectrometerContext);
+            MassSpecExtractedDataCache.writeCachedData(cacheFolder, dataFilePath, massSpecExtractedData);
         }
-        massSpecExtractedData.setMassSpectrometerContext(massSpectrometerContext);
 
         if (massSpectrometerContext.getCaseNumber() > 1) {
             // TODO: remove this temp hack for synthetic demos
@@ -427,6 +444,25 @@ public class Analysis implements Serializable, AnalysisInterface, Comparable {
     }
 
 
+    private static MassSpecExtractedData extractMassSpecData(
+            MassSpectrometerContextEnum massSpectrometerContext, Path dataFilePath, DelimitedLineReader rewoundReader)
+            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, TripoliException {
+        MassSpecExtractedData extractedData;
+        if (0 != massSpectrometerContext.compareTo(UNKNOWN)) {
+            Method readerMethod = massSpectrometerContext.getReaderParserMethod();
+            if ((null != rewoundReader) && (null != readerMethod)) {
+                extractedData = (MassSpecExtractedData) readerMethod.invoke(null, rewoundReader);
+            } else {
+                Class<?> clazz = massSpectrometerContext.getClazz();
+                Method method = clazz.getMethod(massSpectrometerContext.getMethodName(), Path.class);
+                extractedData = (MassSpecExtractedData) method.invoke(null, dataFilePath);
+            }
+        } else {
+            extractedData = new MassSpecExtractedData();
+        }
+        return extractedData;
+    }
+
     public AnalysisMethod extractAnalysisMethodfromPath(Path phoenixAnalysisMethodDataFilePath) throws JAXBException {
         JAXBContext jaxbContext = JAXBContext.newInstance(PhoenixAnalysisMethod.class);
         Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
@@ -849,6 +885,14 @@ public class Analysis implements Serializable, AnalysisInterface, Comparable {
         this.userFunctions = userFunctions;
     }
 
+    public UserFunctionValueCache getUserFunctionValueCache() {
+        if (null == userFunctionValueCache) {
+            // transient, so absent after a session is read
+            userFunctionValueCache = new UserFunctionValueCache();
+        }
+        return userFunctionValueCache;
+    }
+
     public String getDataFilePathString() {
         return dataFilePathString;
     }
@@ -22,6 +22,7 @@ import jxl.WorkbookSettings;
 import jxl.read.biff.BiffException;
 import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
 import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.expressions.userFunctions.UserFunctionValueCache;
 import org.cirdles.tripoli.parameters.Parameters;
 import org.cirdles.tripoli.plots.PlotBuilder;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.SingleBlockRawDataLiteSetRecord;
@@ -29,6 +30,7 @@ import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.m
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.SingleBlockModelRecord;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.SingleBlockRawDataSetRecord;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.AllBlockInitForMCMC;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.DelimitedLineReader;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
 import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
 import org.cirdles.tripoli.sessions.analysis.outputs.etRedux.ETReduxFraction;
@@ -36,8 +38,6 @@ import org.cirdles.tripoli.settings.plots.RatiosColors;
 import org.cirdles.tripoli.utilities.callbacks.LoggingCallbackInterface;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Path;
@@ -85,33 +85,33 @@ public interface AnalysisInterface {
             }
 
         } else {
-            List<String> contentsByLine = new ArrayList<>();
-            FileReader fileReader = new FileReader(dataFilePath.toFile());
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                // for infinity symbol
-                line = line.replace("�", "");
-                contentsByLine.add(line);
-            }
-            bufferedReader.close();
-
-            for (MassSpectrometerContextEnum massSpecContext : MassSpectrometerContextEnum.values()) {
-                List<String> keyWordList = massSpecContext.getKeyWordsList();
-                boolean keywordsMatch = true;
-                for (int keyWordIndex = 0; keyWordIndex < keyWordList.size(); keyWordIndex++) {
-                    keywordsMatch = keywordsMatch && (contentsByLine.get(keyWordIndex).startsWith(keyWordList.get(keyWordIndex).trim()));
-                }
-                if (keywordsMatch) {
-                    retVal = massSpecContext;
-                    break;
-                }
+            try (DelimitedLineReader reader = new DelimitedLineReader(dataFilePath)) {
+                retVal = determineMassSpectrometerContextFromDataFile(reader);
             }
         }
 
         return retVal;
     }
 
+    /**
+     * Reads only the leading lines that the context keywords are matched against, then rewinds the reader so the
+     * chosen parser can continue from the same open file.
+     *
+     * @param reader open on a text data file
+     * @return the detected context, or UNKNOWN
+     * @throws IOException on read failure
+     */
+    static MassSpectrometerContextEnum determineMassSpectrometerContextFromDataFile(DelimitedLineReader reader) throws IOException {
+        int headerLineCount = MassSpectrometerContextEnum.getDetectionHeaderLineCount();
+        List<String> headerLines = new ArrayList<>(headerLineCount);
+        while ((headerLines.size() < headerLineCount) && reader.nextLine()) {
+            // for infinity symbol
+            headerLines.add(reader.lineAsString().replace("�", ""));
+        }
+        reader.rewind();
+        return MassSpectrometerContextEnum.detectFromHeaderLines(headerLines);
+    }
+
     String extractMassSpecDataFromPath(Path dataFilePath) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, IOException, JAXBException, TripoliException;
 
     AnalysisMethod extractAnalysisMethodfromPath(Path phoenixAnalysisMethodDataFilePath) throws JAXBException;
@@ -223,4 +223,6 @@ public interface AnalysisInterface {
 
     List<UserFunction> getUserFunctions();
 
+    UserFunctionValueCache getUserFunctionValueCache();
+
 }
\ No newline at end of file
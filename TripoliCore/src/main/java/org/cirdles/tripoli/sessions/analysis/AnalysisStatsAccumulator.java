@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis;
+
+import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains the <code>AnalysisStatsRecord</code> of one user function incrementally, as cycles are appended during
+ * live data acquisition or included and excluded by the user.
+ * <p>
+ * Each block keeps <code>StreamingMoments</code> of its included cycles together with the
+ * <code>PlotBlockCyclesRecord</code> and a snapshot of the values and included flags it last summarized. Appending or
+ * toggling cycles publishes a new record for the block (see <code>PlotBlockCyclesRecord.updateCyclesIncluded</code>),
+ * but some callers write new included flags into a record's arrays in place. A block whose record is the one already
+ * summarized is therefore checked with a bulk comparison of its arrays against the snapshot and skipped when they are
+ * equal. Only the cycles of a changed block are compared one by one, and only those that changed are added or
+ * removed, rather than recomputing every cycle of the analysis. Block mode and cycle mode stats are then combined from
+ * the per-block summaries, and an update that finds no change returns the previous record.
+ *
+ * @author James F. Bowring
+ */
+public final class AnalysisStatsAccumulator {
+
+    private final Map<Integer, BlockStatsAccumulator> mapOfBlockIdsToAccumulators = new HashMap<>();
+    private boolean isRatio;
+    private boolean isInverted;
+    private AnalysisStatsRecord analysisStatsRecord;
+
+    /**
+     * @param isRatio                       true if the user function is treated as an isotopic ratio
+     * @param isInverted                    true if the ratio is inverted
+     * @param mapBlockIdToBlockCyclesRecord the user function's cycles by block
+     * @return the stats record, equal to <code>generateAnalysisStatsRecord</code> of the block stats records
+     */
+    public AnalysisStatsRecord updateAnalysisStatsRecord(
+            boolean isRatio, boolean isInverted, Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord) {
+        if (mapBlockIdToBlockCyclesRecord.containsValue(null)) {
+            // not summarized incrementally; defer to the full calculation
+            mapOfBlockIdsToAccumulators.clear();
+            analysisStatsRecord = null;
+            return generateAnalysisStatsRecordInFull(isRatio, isInverted, mapBlockIdToBlockCyclesRecord);
+        }
+
+        boolean changed = (null == analysisStatsRecord) || (this.isRatio != isRatio) || (this.isInverted != isInverted);
+        if (changed) {
+            mapOfBlockIdsToAccumulators.clear();
+            this.isRatio = isRatio;
+            this.isInverted = isInverted;
+        }
+        changed |= mapOfBlockIdsToAccumulators.keySet().retainAll(mapBlockIdToBlockCyclesRecord.keySet());
+        for (Map.Entry<Integer, PlotBlockCyclesRecord> entry : mapBlockIdToBlockCyclesRecord.entrySet()) {
+            changed |= mapOfBlockIdsToAccumulators.computeIfAbsent(entry.getKey(), blockID -> new BlockStatsAccumulator())
+                    .update(entry.getValue(), isRatio, isInverted);
+        }
+        if (!changed) {
+            return analysisStatsRecord;
+        }
+
+        BlockStatsRecord[] blockStatsRecords = new BlockStatsRecord[mapBlockIdToBlockCyclesRecord.size()];
+        StreamingMoments cycleModeMoments = new StreamingMoments();
+        int arrayIndex = 0;
+        for (Integer blockID : mapBlockIdToBlockCyclesRecord.keySet()) {
+            BlockStatsAccumulator blockStatsAccumulator = mapOfBlockIdsToAccumulators.get(blockID);
+            blockStatsRecords[arrayIndex] = blockStatsAccumulator.blockStatsRecord;
+            if (blockStatsAccumulator.blockStatsRecord.blockIncluded()) {
+                cycleModeMoments.merge(blockStatsAccumulator.moments);
+            }
+            arrayIndex++;
+        }
+        analysisStatsRecord = AnalysisStatsRecord.assembleAnalysisStatsRecord(blockStatsRecords,
+                cycleModeMoments.getMean(),
+                cycleModeMoments.getVariance(),
+                cycleModeMoments.getStandardDeviation(),
+                cycleModeMoments.getN());
+
+        return analysisStatsRecord;
+    }
+
+    private static AnalysisStatsRecord generateAnalysisStatsRecordInFull(
+            boolean isRatio, boolean isInverted, Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord) {
+        BlockStatsRecord[] blockStatsRecords = new BlockStatsRecord[mapBlockIdToBlockCyclesRecord.size()];
+        int arrayIndex = 0;
+        for (PlotBlockCyclesRecord plotBlockCyclesRecord : mapBlockIdToBlockCyclesRecord.values()) {
+            if (plotBlockCyclesRecord != null) {
+                blockStatsRecords[arrayIndex] = BlockStatsRecord.generateBlockStatsRecord(
+                        plotBlockCyclesRecord.blockID(), plotBlockCyclesRecord.blockIncluded(), isRatio,
+                        isInverted, plotBlockCyclesRecord.cycleMeansData(), plotBlockCyclesRecord.cyclesIncluded());
+            }
+            arrayIndex++;
+        }
+        return AnalysisStatsRecord.generateAnalysisStatsRecord(blockStatsRecords);
+    }
+
+    /**
+     * Welford summary of the included cycles of one block, with the values and included flags it summarizes.
+     */
+    private static final class BlockStatsAccumulator {
+        private PlotBlockCyclesRecord sourceRecord;
+        private BlockStatsRecord blockStatsRecord;
+        private double[] values = new double[0];
+        private boolean[] included = new boolean[0];
+        private final StreamingMoments moments = new StreamingMoments();
+        private int removalsSinceRebuild;
+
+        /**
+         * @return true if the block's stats record was replaced, which happens whenever its cycles record was or the
+         * record's values or included flags were changed in place
+         */
+        boolean update(PlotBlockCyclesRecord plotBlockCyclesRecord, boolean isRatio, boolean isInverted) {
+            double[] cycleMeansData = plotBlockCyclesRecord.cycleMeansData();
+            boolean[] cyclesIncluded = plotBlockCyclesRecord.cyclesIncluded();
+            if ((plotBlockCyclesRecord == sourceRecord)
+                    && Arrays.equals(cyclesIncluded, included) && Arrays.equals(cycleMeansData, values)) {
+                return false;
+            }
+            boolean rebuild = cycleMeansData.length < values.length;
+            if (cycleMeansData.length > values.length) {
+                // appended cycles start out excluded and are added below
+                values = Arrays.copyOf(values, cycleMeansData.length);
+                included = Arrays.copyOf(included, cycleMeansData.length);
+            }
+
+            for (int i = 0; !rebuild && (i < cycleMeansData.length); i++) {
+                boolean cycleIncluded = cyclesIncluded[i];
+                if (cycleIncluded && isRatio && (cycleMeansData[i] <= 0.0)) {
+                    // as in generateBlockStatsRecord: Issue #214 no log possible
+                    cyclesIncluded[i] = false;
+                    cycleIncluded = false;
+                }
+                if ((cycleIncluded != included[i])
+                        || (cycleIncluded && (Double.doubleToLongBits(cycleMeansData[i]) != Double.doubleToLongBits(values[i])))) {
+                    if (included[i]) {
+                        rebuild = !moments.remove(transform(values[i], isRatio, isInverted));
+                        removalsSinceRebuild++;
+                    }
+                    if (cycleIncluded) {
+                        moments.add(transform(cycleMeansData[i], isRatio, isInverted));
+                    }
+                }
+                values[i] = cycleMeansData[i];
+                included[i] = cycleIncluded;
+            }
+
+            if (rebuild || (removalsSinceRebuild > values.length)) {
+                // start over from the cycles themselves rather than accumulate rounding from removals
+                values = cycleMeansData.clone();
+                included = cyclesIncluded.clone();
+                moments.clear();
+                removalsSinceRebuild = 0;
+                for (int i = 0; i < values.length; i++) {
+                    if (included[i] && isRatio && (values[i] <= 0.0)) {
+                        cyclesIncluded[i] = false;
+                        included[i] = false;
+                    }
+                    if (included[i]) {
+                        moments.add(transform(values[i], isRatio, isInverted));
+                    }
+                }
+            }
+
+            sourceRecord = plotBlockCyclesRecord;
+            blockStatsRecord = new BlockStatsRecord(
+                    plotBlockCyclesRecord.blockID(),
+                    plotBlockCyclesRecord.blockIncluded(),
+                    isRatio,
+                    isInverted,
+                    cycleMeansData,
+                    cyclesIncluded,
+                    moments.getMean(),
+                    moments.getVariance(),
+                    moments.getStandardDeviation(),
+                    moments.getStandardError());
+            return true;
+        }
+
+        private static double transform(double cycleMean, boolean isRatio, boolean isInverted) {
+            if (isRatio) {
+                return isInverted ? -StrictMath.log(cycleMean) : StrictMath.log(cycleMean);
+            }
+            return cycleMean;
+        }
+    }
+}
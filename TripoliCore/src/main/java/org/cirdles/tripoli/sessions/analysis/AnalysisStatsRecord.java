@@ -17,10 +17,11 @@
 package org.cirdles.tripoli.sessions.analysis;
 
 import com.google.common.primitives.Booleans;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
 import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
 import org.cirdles.tripoli.utilities.mathUtilities.FormatterForSigFigN;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.WeightedStreamingMoments;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -71,16 +72,48 @@ public record AnalysisStatsRecord(
     }
 
     public static AnalysisStatsRecord generateAnalysisStatsRecord(BlockStatsRecord[] blockStatsRecords) {
+        StreamingMoments cycleModeMoments = new StreamingMoments();
+        for (int i = 0; i < blockStatsRecords.length; i++) {
+            //todo fix or remove blockincludedflag
+            if (blockStatsRecords[i].blockIncluded()) {
+                for (int cycleIndex = 0; cycleIndex < blockStatsRecords[i].cycleMeansData().length; cycleIndex++) {
+                    if (blockStatsRecords[i].cyclesIncluded()[cycleIndex]) {
+                        if (blockStatsRecords[0].isRatio()) {
+                            if (blockStatsRecords[0].isRatio() && blockStatsRecords[0].isInverted()) {
+                                cycleModeMoments.add(-StrictMath.log(blockStatsRecords[i].cycleMeansData()[cycleIndex]));
+                            } else {
+                                cycleModeMoments.add(StrictMath.log(blockStatsRecords[i].cycleMeansData()[cycleIndex]));
+                            }
+                        } else {
+                            cycleModeMoments.add(blockStatsRecords[i].cycleMeansData()[cycleIndex]);
+                        }
+                    }
+                }
+            }
+        }
+
+        return assembleAnalysisStatsRecord(blockStatsRecords,
+                cycleModeMoments.getMean(),
+                cycleModeMoments.getVariance(),
+                cycleModeMoments.getStandardDeviation(),
+                cycleModeMoments.getN());
+    }
+
+    /**
+     * Completes an analysis stats record from its block stats and the cycle mode stats of the included cycles, which
+     * are either accumulated here from the cycle data or maintained incrementally by <code>AnalysisStatsAccumulator</code>.
+     */
+    static AnalysisStatsRecord assembleAnalysisStatsRecord(
+            BlockStatsRecord[] blockStatsRecords,
+            double cycleModeMean, double cycleModeVariance, double cycleModeStandardDeviation, long countOfIncludedCycles) {
         int countOfIncludedBlocks = 0;
-        double wmNumerator = 0.0;
-        double wmDenominator = 0.0;
-        double weightedMeanC = 0.0;
+        WeightedStreamingMoments blockModeMoments = new WeightedStreamingMoments();
+        double weightedMeanC;
         double weightedMeanOneSigmaSquaredC;
         double weightedMeanOneSigmaC;
         double chiSquaredTerm = 0.0;
         double chiSquaredC;
 
-        DescriptiveStatistics cycleModeDescriptiveStats = new DescriptiveStatistics();
         List<double[]> cycleModeDataByBlocks = new ArrayList<>();
         List<boolean[]> cycleModeIncludedByBlocks = new ArrayList<>();
         int countOfTotalCycles = 0;
@@ -90,27 +123,12 @@ public record AnalysisStatsRecord(
             cycleModeIncludedByBlocks.add(blockStatsRecords[i].cyclesIncluded());
             countOfTotalCycles += blockStatsRecords[i].cyclesIncluded().length;
 
-            //todo fix or remove blockincludedflag
             if (blockStatsRecords[i].blockIncluded()) {
-                wmNumerator += blockStatsRecords[i].mean() / StrictMath.pow(blockStatsRecords[i].standardDeviation(), 2);
-                wmDenominator += 1.0 / StrictMath.pow(blockStatsRecords[i].standardDeviation(), 2);
-                for (int cycleIndex = 0; cycleIndex < blockStatsRecords[i].cycleMeansData().length; cycleIndex++) {
-                    if (blockStatsRecords[i].cyclesIncluded()[cycleIndex]) {
-                        if (blockStatsRecords[0].isRatio()) {
-                            if (blockStatsRecords[0].isRatio() && blockStatsRecords[0].isInverted()) {
-                                cycleModeDescriptiveStats.addValue(-StrictMath.log(blockStatsRecords[i].cycleMeansData()[cycleIndex]));
-                            } else {
-                                cycleModeDescriptiveStats.addValue(StrictMath.log(blockStatsRecords[i].cycleMeansData()[cycleIndex]));
-                            }
-                        } else {
-                            cycleModeDescriptiveStats.addValue(blockStatsRecords[i].cycleMeansData()[cycleIndex]);
-                        }
-                    }
-                }
+                blockModeMoments.add(blockStatsRecords[i].mean(), 1.0 / StrictMath.pow(blockStatsRecords[i].standardDeviation(), 2));
             }
         }
-        weightedMeanC = wmNumerator / wmDenominator;
-        weightedMeanOneSigmaSquaredC = 1.0 / wmDenominator;
+        weightedMeanC = blockModeMoments.getWeightedMean();
+        weightedMeanOneSigmaSquaredC = 1.0 / blockModeMoments.getSumOfWeights();
         weightedMeanOneSigmaC = StrictMath.sqrt(weightedMeanOneSigmaSquaredC);
 
         for (int i = 0; i < blockStatsRecords.length; i++) {
@@ -122,10 +140,7 @@ public record AnalysisStatsRecord(
         chiSquaredC = chiSquaredTerm / (countOfIncludedBlocks - 1);
 
 
-        double cycleModeMean = cycleModeDescriptiveStats.getMean();
-        double cycleModeVariance = cycleModeDescriptiveStats.getVariance();
-        double cycleModeStandardDeviation = cycleModeDescriptiveStats.getStandardDeviation();
-        double cycleModeStandardError = StrictMath.sqrt(cycleModeVariance / cycleModeDescriptiveStats.getN());
+        double cycleModeStandardError = StrictMath.sqrt(cycleModeVariance / countOfIncludedCycles);
 
         boolean[] cycleModeIncluded = new boolean[countOfTotalCycles];
         double[] cycleModeData = new double[countOfTotalCycles];
@@ -159,7 +174,7 @@ public record AnalysisStatsRecord(
                 cycleModeIncluded,
                 cycleModeData,
                 countOfTotalCycles,
-                (int) cycleModeDescriptiveStats.getN());
+                (int) countOfIncludedCycles);
     }
 
     public static String prettyPrintRatioBlockMean(UserFunction userFunction) {
@@ -16,7 +16,7 @@
 
 package org.cirdles.tripoli.sessions.analysis;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
 
 import java.io.Serializable;
 
@@ -43,30 +43,30 @@ public record BlockStatsRecord(
      * @return
      */
     public static BlockStatsRecord generateBlockStatsRecord(int blockID, boolean blockIncluded, boolean isRatio, boolean isInverted, double[] cycleMeansData, boolean[] cyclesIncluded) {
-        DescriptiveStatistics descriptiveStatisticsBlockStats = new DescriptiveStatistics();
+        StreamingMoments blockMoments = new StreamingMoments();
         for (int i = 0; i < cycleMeansData.length; i++) {
             if (cyclesIncluded[i]) {
                 if (isRatio) {
                     // trap for negative ratios == no log possible
                     if (cycleMeansData[i] > 0.0) {
                         if (isInverted) {
-                            descriptiveStatisticsBlockStats.addValue(-StrictMath.log(cycleMeansData[i]));
+                            blockMoments.add(-StrictMath.log(cycleMeansData[i]));
                         } else {
-                            descriptiveStatisticsBlockStats.addValue(StrictMath.log(cycleMeansData[i]));
+                            blockMoments.add(StrictMath.log(cycleMeansData[i]));
                         }
                     } else {
                         // Issue #214 decided to keep <= 0 value and convert ratio to userfunction before code gets here
                         cyclesIncluded[i] = false;
                     }
                 } else {
-                    descriptiveStatisticsBlockStats.addValue(cycleMeansData[i]);
+                    blockMoments.add(cycleMeansData[i]);
                 }
             }
         }
-        double mean = descriptiveStatisticsBlockStats.getMean();
-        double variance = descriptiveStatisticsBlockStats.getVariance();
-        double standardDeviation = descriptiveStatisticsBlockStats.getStandardDeviation();
-        double standardError = StrictMath.sqrt(variance / descriptiveStatisticsBlockStats.getN());
+        double mean = blockMoments.getMean();
+        double variance = blockMoments.getVariance();
+        double standardDeviation = blockMoments.getStandardDeviation();
+        double standardError = blockMoments.getStandardError();
 
         return new BlockStatsRecord(
                 blockID,
@@ -50,8 +50,9 @@ public enum BlockEnsemblesPlotter {
         PlotBuilder[][] plotBuilders = analysis.getMapOfBlockIdToPlots().get(blockID);
         int initialModelsBurnCount = analysis.getMapOfBlockIdToModelsBurnCount().get(blockID).intValue();
 
-        List<EnsemblesStore.EnsembleRecord> ensembleRecordsList = analysis.getMapBlockIDToEnsembles().get(blockID);
-        int countOfEnsemblesUsed = ensembleRecordsList.size() - initialModelsBurnCount;
+        EnsembleColumns ensembleColumns = EnsembleColumns.of(analysis.getMapBlockIDToEnsembles().get(blockID));
+        int countOfEnsembles = ensembleColumns.size();
+        int countOfEnsemblesUsed = countOfEnsembles - initialModelsBurnCount;
 
         AnalysisMethod analysisMethod = analysis.getAnalysisMethod();
         SingleBlockRawDataSetRecord singleBlockRawDataSetRecord = analysis.getMapOfBlockIdToRawData().get(blockID);
@@ -82,9 +83,9 @@ public enum BlockEnsemblesPlotter {
         double[][] ensembleSetOfLogRatios = new double[blockIsotopicRatioList.size()][countOfEnsemblesUsed];
         double[][] ensembleSetOfRatios = new double[blockIsotopicRatioList.size()][countOfEnsemblesUsed];
         for (int ratioIndex = 0; ratioIndex < blockIsotopicRatioList.size(); ratioIndex++) {
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                ensembleSetOfLogRatios[ratioIndex][index - initialModelsBurnCount] = ensembleRecordsList.get(index).logRatios()[ratioIndex];
-                ensembleSetOfRatios[ratioIndex][index - initialModelsBurnCount] = exp(ensembleSetOfLogRatios[ratioIndex][index - initialModelsBurnCount]);
+            ensembleSetOfLogRatios[ratioIndex] = ensembleColumns.logRatios(ratioIndex, initialModelsBurnCount, countOfEnsembles);
+            for (int index = 0; index < countOfEnsemblesUsed; index++) {
+                ensembleSetOfRatios[ratioIndex][index] = exp(ensembleSetOfLogRatios[ratioIndex][index]);
             }
             blockIsotopicRatioList.get(ratioIndex).setRatioValuesForBlockEnsembles(ensembleSetOfRatios[ratioIndex]);
             blockIsotopicRatioList.get(ratioIndex).setLogRatioValuesForBlockEnsembles(ensembleSetOfLogRatios[ratioIndex]);
@@ -131,24 +132,16 @@ public enum BlockEnsemblesPlotter {
 
         // baseLines
         int baselineSize = analysisMethod.getSequenceTable().findFaradayDetectorsUsed().size();
-        double[][] ensembleBaselines = new double[baselineSize][countOfEnsemblesUsed];
+        double[][] ensembleBaselines = new double[baselineSize][];
 
         for (int row = 0; row < baselineSize; row++) {
-            DescriptiveStatistics descriptiveStatisticsBaselines = new DescriptiveStatistics();
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                // todo: fix magic number
-                ensembleBaselines[row][index - initialModelsBurnCount] = ensembleRecordsList.get(index).baseLine()[row];//TODO: Decide / 6.24e7 * 1e6;
-                descriptiveStatisticsBaselines.addValue(ensembleBaselines[row][index - initialModelsBurnCount]);
-            }
+            // todo: fix magic number
+            ensembleBaselines[row] = ensembleColumns.baselines(row, initialModelsBurnCount, countOfEnsembles);//TODO: Decide / 6.24e7 * 1e6;
         }
 
         // dalyFaraday gains
-        double[] ensembleDalyFaradayGain = new double[countOfEnsemblesUsed];
-        DescriptiveStatistics descriptiveStatisticsDalyFaradayGain = new DescriptiveStatistics();
-        for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-            ensembleDalyFaradayGain[index - initialModelsBurnCount] = ensembleRecordsList.get(index).dfGain();
-            descriptiveStatisticsDalyFaradayGain.addValue(ensembleDalyFaradayGain[index - initialModelsBurnCount]);
-        }
+        double[] ensembleDalyFaradayGain = ensembleColumns.dfGains(initialModelsBurnCount, countOfEnsembles);
+        DescriptiveStatistics descriptiveStatisticsDalyFaradayGain = new DescriptiveStatistics(ensembleDalyFaradayGain);
         double dalyFaradayGainMean = descriptiveStatisticsDalyFaradayGain.getMean();
         ((Analysis) analysis).setAnalysisDalyFaradayGainMean(dalyFaradayGainMean);
         ((Analysis) analysis).setAnalysisDalyFaradayGainMeanOneSigmaAbs(descriptiveStatisticsDalyFaradayGain.getStandardDeviation());
@@ -164,17 +157,14 @@ public enum BlockEnsemblesPlotter {
          */
 
         // Intensity
-        int knotsCount = ensembleRecordsList.get(0).I0().length;
-        double[][] ensembleIntensity = new double[knotsCount][countOfEnsemblesUsed];
+        int knotsCount = ensembleColumns.getCountOfIntensities();
+        double[][] ensembleIntensity = new double[knotsCount][];
         double[] intensityMeans = new double[knotsCount];
         double[] intensityStdDevs = new double[knotsCount];
 
         for (int knotIndex = 0; knotIndex < knotsCount; knotIndex++) {
-            DescriptiveStatistics descriptiveStatisticsIntensity = new DescriptiveStatistics();
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                ensembleIntensity[knotIndex][index - initialModelsBurnCount] = ensembleRecordsList.get(index).I0()[knotIndex];
-                descriptiveStatisticsIntensity.addValue(ensembleIntensity[knotIndex][index - initialModelsBurnCount]);
-            }
+            ensembleIntensity[knotIndex] = ensembleColumns.intensities(knotIndex, initialModelsBurnCount, countOfEnsembles);
+            DescriptiveStatistics descriptiveStatisticsIntensity = new DescriptiveStatistics(ensembleIntensity[knotIndex]);
             intensityMeans[knotIndex] = descriptiveStatisticsIntensity.getMean();
             intensityStdDevs[knotIndex] = descriptiveStatisticsIntensity.getStandardDeviation();
         }
@@ -184,11 +174,10 @@ public enum BlockEnsemblesPlotter {
         PhysicalStore.Factory<Double, Primitive64Store> storeFactory = Primitive64Store.FACTORY;
         MatrixStore<Double> intensityMeansMatrix = storeFactory.columns(intensityMeans);
 
-        double[][] blockKnotInterpolationStoreArray = singleBlockRawDataSetRecord.blockKnotInterpolationArray();
-        Primitive64Store blockKnotInterpolationStore = Primitive64Store.FACTORY.rows(blockKnotInterpolationStoreArray);
-        MatrixStore<Double> yDataMeanIntensitiesMatrix =
-                blockKnotInterpolationStore.multiply(intensityMeansMatrix).multiply(1.0 / dalyFaradayGainMean);//(1.0 / (dalyFaradayGainMean * 6.24e7)) * 1e6);
-        yDataIntensityMeans[0] = yDataMeanIntensitiesMatrix.toRawCopy1D();
+        yDataIntensityMeans[0] = singleBlockRawDataSetRecord.blockKnotInterpolationOperator().multiply(intensityMeans);
+        for (int row = 0; row < yDataIntensityMeans[0].length; row++) {
+            yDataIntensityMeans[0][row] *= (1.0 / dalyFaradayGainMean);//(1.0 / (dalyFaradayGainMean * 6.24e7)) * 1e6);
+        }
         MatrixStore<Double> yDataTrueIntensitiesMatrix = intensityMeansMatrix.multiply(1.0 / dalyFaradayGainMean);//(1.0 / (dalyFaradayGainMean * 6.24e7)) * 1e6);
         yDataIntensityMeans[1] = yDataTrueIntensitiesMatrix.toRawCopy1D();
 
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only, columnar store of the ensembles saved by the MCMC for one block.
+ * <p>
+ * Each parameter of the saved models - log ratios, knot intensities, baselines, DF gain and the two misfits - is a
+ * column of primitive doubles held in chunks of <code>CHUNK_SIZE</code> ensembles, so a save copies the current model
+ * into the open chunk instead of allocating a record and three arrays. Readers take whole columns, or their moments in
+ * a single pass without copying. A large store can be
+ * spilled to a memory-mapped file once its run has finished, after which it is read-only: appending throws
+ * <code>UnsupportedOperationException</code>. Readers may run while the store spills; each read takes the chunks or
+ * the map as published, never a mix of an emptied chunk list and a missing map. The store also serves as the
+ * <code>List&lt;EnsembleRecord&gt;</code> that analyses have always kept, materializing a record per <code>get</code>,
+ * and serializes as plain columns. The MCMC never saved the noise hyperparameters, so a materialized record's
+ * <code>signalNoise</code> is empty.
+ *
+ * @author James F. Bowring
+ */
+public final class EnsembleColumns extends AbstractList<EnsemblesStore.EnsembleRecord> implements RandomAccess, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 4180259067162230851L;
+
+    static final int CHUNK_SIZE = 1024;
+    static final long SPILL_THRESHOLD_BYTES = 32L << 20;
+
+    private final int countOfLogRatios;
+    private final int countOfIntensities;
+    private final int countOfFaradays;
+    private final int countOfColumns;
+    private int size;
+
+    // chunk[column][ensembleIndex % CHUNK_SIZE]; null once spilled, after mappedColumns is set
+    private transient volatile List<double[][]> chunks = new ArrayList<>();
+    // column-major over size ensembles; null unless spilled
+    private transient volatile DoubleBuffer mappedColumns;
+
+    public EnsembleColumns(int countOfLogRatios, int countOfIntensities, int countOfFaradays) {
+        this.countOfLogRatios = countOfLogRatios;
+        this.countOfIntensities = countOfIntensities;
+        this.countOfFaradays = countOfFaradays;
+        countOfColumns = countOfLogRatios + countOfIntensities + countOfFaradays + 3;
+    }
+
+    /**
+     * @param ensembleRecordsList ensembles as kept by an analysis, possibly a list of records from an older session
+     * @return the list itself when it is already columnar, otherwise a columnar copy
+     */
+    public static EnsembleColumns of(List<EnsemblesStore.EnsembleRecord> ensembleRecordsList) {
+        if (ensembleRecordsList instanceof EnsembleColumns ensembleColumns) {
+            return ensembleColumns;
+        }
+        if (ensembleRecordsList.isEmpty()) {
+            return new EnsembleColumns(0, 0, 0);
+        }
+        EnsemblesStore.EnsembleRecord firstRecord = ensembleRecordsList.get(0);
+        EnsembleColumns ensembleColumns = new EnsembleColumns(
+                firstRecord.logRatios().length, firstRecord.I0().length, firstRecord.baseLine().length);
+        ensembleColumns.addAll(ensembleRecordsList);
+        return ensembleColumns;
+    }
+
+    /**
+     * @param model           flat model vector, ordered log ratios, intensities, baselines, DF gain last
+     * @param errorWeighted   weighted misfit of the model
+     * @param errorUnWeighted unweighted misfit of the model
+     */
+    public void appendModel(double[] model, double errorWeighted, double errorUnWeighted) {
+        double[][] chunk = openChunk();
+        int row = size % CHUNK_SIZE;
+        int parameterCount = countOfColumns - 3;
+        for (int column = 0; column < parameterCount; column++) {
+            chunk[column][row] = model[column];
+        }
+        chunk[parameterCount][row] = model[model.length - 1];
+        chunk[parameterCount + 1][row] = errorWeighted;
+        chunk[parameterCount + 2][row] = errorUnWeighted;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * @param source    store with the same columns
+     * @param fromIndex first ensemble to append, inclusive
+     * @param toIndex   last ensemble to append, exclusive
+     */
+    public void appendRange(EnsembleColumns source, int fromIndex, int toIndex) {
+        if (countOfColumns != source.countOfColumns) {
+            throw new IllegalArgumentException("Ensemble columns differ: " + countOfColumns + " and " + source.countOfColumns);
+        }
+        for (int index = fromIndex; index < toIndex; index++) {
+            double[][] chunk = openChunk();
+            int row = size % CHUNK_SIZE;
+            for (int column = 0; column < countOfColumns; column++) {
+                chunk[column][row] = source.value(column, index);
+            }
+            size++;
+        }
+        modCount++;
+    }
+
+    @Override
+    public boolean add(EnsemblesStore.EnsembleRecord ensembleRecord) {
+        double[][] chunk = openChunk();
+        int row = size % CHUNK_SIZE;
+        int column = 0;
+        for (double logRatio : ensembleRecord.logRatios()) {
+            chunk[column++][row] = logRatio;
+        }
+        for (double intensity : ensembleRecord.I0()) {
+            chunk[column++][row] = intensity;
+        }
+        for (double baseline : ensembleRecord.baseLine()) {
+            chunk[column++][row] = baseline;
+        }
+        chunk[column++][row] = ensembleRecord.dfGain();
+        chunk[column++][row] = ensembleRecord.errorWeighted();
+        chunk[column][row] = ensembleRecord.errorUnWeighted();
+        size++;
+        modCount++;
+        return true;
+    }
+
+    private double[][] openChunk() {
+        if (null == chunks) {
+            throw new UnsupportedOperationException("Ensembles spilled to disk are read-only.");
+        }
+        if (0 == size % CHUNK_SIZE) {
+            chunks.add(new double[countOfColumns][CHUNK_SIZE]);
+        }
+        return chunks.get(size / CHUNK_SIZE);
+    }
+
+    private double value(int column, int index) {
+        // read chunks first: once it is null, mappedColumns is already set
+        List<double[][]> chunks = this.chunks;
+        if (null == chunks) {
+            return mappedColumns.get(column * size + index);
+        }
+        return chunks.get(index / CHUNK_SIZE)[column][index % CHUNK_SIZE];
+    }
+
+    private double[] column(int column, int fromIndex, int toIndex) {
+        if ((0 > fromIndex) || (toIndex > size) || (fromIndex > toIndex)) {
+            throw new IndexOutOfBoundsException("Ensembles " + fromIndex + " to " + toIndex + " of " + size);
+        }
+        double[] values = new double[toIndex - fromIndex];
+        List<double[][]> chunks = this.chunks;
+        if (null == chunks) {
+            mappedColumns.get(column * size + fromIndex, values);
+            return values;
+        }
+        int index = fromIndex;
+        while (index < toIndex) {
+            int row = index % CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE - row, toIndex - index);
+            System.arraycopy(chunks.get(index / CHUNK_SIZE)[column], row, values, index - fromIndex, length);
+            index += length;
+        }
+        return values;
+    }
+
+    private StreamingMoments columnMoments(int column, int fromIndex, int toIndex) {
+        if ((0 > fromIndex) || (toIndex > size) || (fromIndex > toIndex)) {
+            throw new IndexOutOfBoundsException("Ensembles " + fromIndex + " to " + toIndex + " of " + size);
+        }
+        StreamingMoments streamingMoments = new StreamingMoments();
+        List<double[][]> chunks = this.chunks;
+        if (null == chunks) {
+            DoubleBuffer mappedColumns = this.mappedColumns;
+            for (int index = fromIndex; index < toIndex; index++) {
+                streamingMoments.add(mappedColumns.get(column * size + index));
+            }
+            return streamingMoments;
+        }
+        int index = fromIndex;
+        while (index < toIndex) {
+            int row = index % CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE - row, toIndex - index);
+            streamingMoments.addAll(chunks.get(index / CHUNK_SIZE)[column], row, row + length);
+            index += length;
+        }
+        return streamingMoments;
+    }
+
+    public double[] logRatios(int ratioIndex, int fromIndex, int toIndex) {
+        return column(ratioIndex, fromIndex, toIndex);
+    }
+
+    public double[] intensities(int knotIndex, int fromIndex, int toIndex) {
+        return column(countOfLogRatios + knotIndex, fromIndex, toIndex);
+    }
+
+    public double[] baselines(int faradayIndex, int fromIndex, int toIndex) {
+        return column(countOfLogRatios + countOfIntensities + faradayIndex, fromIndex, toIndex);
+    }
+
+    public double[] dfGains(int fromIndex, int toIndex) {
+        return column(countOfColumns - 3, fromIndex, toIndex);
+    }
+
+    public double[] errorsWeighted(int fromIndex, int toIndex) {
+        return column(countOfColumns - 2, fromIndex, toIndex);
+    }
+
+    public double[] errorsUnWeighted(int fromIndex, int toIndex) {
+        return column(countOfColumns - 1, fromIndex, toIndex);
+    }
+
+    public StreamingMoments logRatioMoments(int ratioIndex, int fromIndex, int toIndex) {
+        return columnMoments(ratioIndex, fromIndex, toIndex);
+    }
+
+    public StreamingMoments intensityMoments(int knotIndex, int fromIndex, int toIndex) {
+        return columnMoments(countOfLogRatios + knotIndex, fromIndex, toIndex);
+    }
+
+    public StreamingMoments baselineMoments(int faradayIndex, int fromIndex, int toIndex) {
+        return columnMoments(countOfLogRatios + countOfIntensities + faradayIndex, fromIndex, toIndex);
+    }
+
+    public StreamingMoments dfGainMoments(int fromIndex, int toIndex) {
+        return columnMoments(countOfColumns - 3, fromIndex, toIndex);
+    }
+
+    /**
+     * @param parameterIndex index into the flat model vector, ordered log ratios, intensities, baselines, DF gain
+     * @param fromIndex      first ensemble, inclusive
+     * @param toIndex        last ensemble, exclusive
+     * @return moments of the parameter over the ensembles
+     */
+    StreamingMoments modelParameterMoments(int parameterIndex, int fromIndex, int toIndex) {
+        // the model's parameters are the leading columns, in order, DF gain included
+        return columnMoments(parameterIndex, fromIndex, toIndex);
+    }
+
+    public int getCountOfLogRatios() {
+        return countOfLogRatios;
+    }
+
+    public int getCountOfIntensities() {
+        return countOfIntensities;
+    }
+
+    public int getCountOfFaradays() {
+        return countOfFaradays;
+    }
+
+    public long getSizeInBytes() {
+        return (long) countOfColumns * size * Double.BYTES;
+    }
+
+    public boolean isSpilled() {
+        return null != mappedColumns;
+    }
+
+    @Override
+    public EnsemblesStore.EnsembleRecord get(int index) {
+        if ((0 > index) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Ensemble " + index + " of " + size);
+        }
+        double[] logRatios = new double[countOfLogRatios];
+        double[] intensities = new double[countOfIntensities];
+        double[] baselines = new double[countOfFaradays];
+        int column = 0;
+        for (int i = 0; i < countOfLogRatios; i++) {
+            logRatios[i] = value(column++, index);
+        }
+        for (int i = 0; i < countOfIntensities; i++) {
+            intensities[i] = value(column++, index);
+        }
+        for (int i = 0; i < countOfFaradays; i++) {
+            baselines[i] = value(column++, index);
+        }
+        return new EnsemblesStore.EnsembleRecord(
+                logRatios, intensities, baselines, value(column, index), new double[0], value(column + 1, index), value(column + 2, index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the columns to <code>backingFile</code> and reads them from a memory map of it from then on, releasing
+     * the chunks. The store can no longer be appended to, so spill only after the run that fills it has finished.
+     *
+     * @param backingFile file to create or replace
+     * @return false if the store is already spilled or too large for one map
+     * @throws IOException on write failure, leaving the store in memory
+     */
+    public synchronized boolean spillToFile(Path backingFile) throws IOException {
+        if ((null != mappedColumns) || (Integer.MAX_VALUE < getSizeInBytes())) {
+            return false;
+        }
+        try (FileChannel fileChannel = FileChannel.open(backingFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer columnBytes = ByteBuffer.allocate(size * Double.BYTES).order(ByteOrder.nativeOrder());
+            for (int column = 0; column < countOfColumns; column++) {
+                columnBytes.clear();
+                columnBytes.asDoubleBuffer().put(column(column, 0, size));
+                long position = (long) column * size * Double.BYTES;
+                while (columnBytes.hasRemaining()) {
+                    position += fileChannel.write(columnBytes, position);
+                }
+            }
+            mappedColumns = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, getSizeInBytes())
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+        chunks = null;
+        return true;
+    }
+
+    /**
+     * Spills the store to a temporary file when it holds more than <code>SPILL_THRESHOLD_BYTES</code>; a store that
+     * cannot be spilled stays in memory.
+     */
+    public void spillToTemporaryFileIfLarge() {
+        if (SPILL_THRESHOLD_BYTES < getSizeInBytes()) {
+            try {
+                Path backingFile = Files.createTempFile("tripoliEnsembles", ".bin");
+                backingFile.toFile().deleteOnExit();
+                spillToFile(backingFile);
+            } catch (IOException e) {
+                // the store remains in memory
+            }
+        }
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.defaultWriteObject();
+        for (int column = 0; column < countOfColumns; column++) {
+            for (int index = 0; index < size; index++) {
+                objectOutputStream.writeDouble(value(column, index));
+            }
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException {
+        objectInputStream.defaultReadObject();
+        chunks = new ArrayList<>();
+        for (int chunkStart = 0; chunkStart < size; chunkStart += CHUNK_SIZE) {
+            chunks.add(new double[countOfColumns][CHUNK_SIZE]);
+        }
+        for (int column = 0; column < countOfColumns; column++) {
+            for (int index = 0; index < size; index++) {
+                chunks.get(index / CHUNK_SIZE)[column][index % CHUNK_SIZE] = objectInputStream.readDouble();
+            }
+        }
+    }
+}
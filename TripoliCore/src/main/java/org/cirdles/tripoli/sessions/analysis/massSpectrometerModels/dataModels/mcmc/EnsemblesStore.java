@@ -16,13 +16,12 @@
 
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
 
-import jama.Matrix;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.cirdles.tripoli.expressions.species.IsotopicRatio;
 import org.cirdles.tripoli.sessions.analysis.Analysis;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.SingleBlockModelInitForMCMC;
 import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
 
 import java.io.Serializable;
 import java.util.*;
@@ -34,68 +33,46 @@ import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataM
  */
 public class EnsemblesStore implements Serializable {
 
-    public static synchronized void produceSummaryModelFromEnsembleStore(
+    public static void produceSummaryModelFromEnsembleStore(
             int blockID,
             AnalysisInterface analysis) {
 
-        List<EnsemblesStore.EnsembleRecord> ensembleRecordsList = analysis.getMapBlockIDToEnsembles().get(blockID);
+        EnsembleColumns ensembleColumns = EnsembleColumns.of(analysis.getMapBlockIDToEnsembles().get(blockID));
         AnalysisMethod analysisMethod = analysis.getAnalysisMethod();
         SingleBlockRawDataSetRecord singleBlockRawDataSetRecord = analysis.getMapOfBlockIdToRawData().get(blockID);
         SingleBlockModelRecord singleBlockModelRecord = analysis.getMapOfBlockIdToFinalModel().get(blockID);
         List<IsotopicRatio> isotopicRatioList = analysisMethod.getIsotopicRatiosList();
 
         int initialModelsBurnCount = analysis.getMapOfBlockIdToModelsBurnCount().get(blockID);
-        int countOfEnsemblesUsed = ensembleRecordsList.size() - initialModelsBurnCount;
+        int countOfEnsembles = ensembleColumns.size();
         // log ratios
-        double[][] ensembleSetOfLogRatios = new double[isotopicRatioList.size()][countOfEnsemblesUsed];
         double[] logRatioMean = new double[isotopicRatioList.size()];
         for (int ratioIndex = 0; ratioIndex < isotopicRatioList.size(); ratioIndex++) {
-            DescriptiveStatistics descriptiveStatisticsLogRatios = new DescriptiveStatistics();
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                ensembleSetOfLogRatios[ratioIndex][index - initialModelsBurnCount] = ensembleRecordsList.get(index).logRatios()[ratioIndex];
-                descriptiveStatisticsLogRatios.addValue(ensembleSetOfLogRatios[ratioIndex][index - initialModelsBurnCount]);
-            }
-            logRatioMean[ratioIndex] = descriptiveStatisticsLogRatios.getMean();
+            logRatioMean[ratioIndex] = ensembleColumns.logRatioMoments(ratioIndex, initialModelsBurnCount, countOfEnsembles).getMean();
         }
 
         // baseLines
         int baselineSize = analysisMethod.getSequenceTable().findFaradayDetectorsUsed().size();
-        double[][] ensembleBaselines = new double[baselineSize][countOfEnsemblesUsed];
         double[] baselinesMeans = new double[baselineSize];
         double[] baselinesStdDev = new double[baselineSize];
 
         for (int row = 0; row < baselineSize; row++) {
-            DescriptiveStatistics descriptiveStatisticsBaselines = new DescriptiveStatistics();
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                // todo: fix magic number
-                ensembleBaselines[row][index - initialModelsBurnCount] = ensembleRecordsList.get(index).baseLine()[row];//TODO: Decide / 6.24e7 * 1e6;
-                descriptiveStatisticsBaselines.addValue(ensembleBaselines[row][index - initialModelsBurnCount]);
-            }
-            baselinesMeans[row] = descriptiveStatisticsBaselines.getMean();
-            baselinesStdDev[row] = descriptiveStatisticsBaselines.getStandardDeviation();
+            // todo: fix magic number
+            StreamingMoments baselineMoments =
+                    ensembleColumns.baselineMoments(row, initialModelsBurnCount, countOfEnsembles);//TODO: Decide / 6.24e7 * 1e6;
+            baselinesMeans[row] = baselineMoments.getMean();
+            baselinesStdDev[row] = baselineMoments.getStandardDeviation();
         }
 
         // dalyFaraday gains
-        double[] ensembleDalyFaradayGain = new double[countOfEnsemblesUsed];
-        DescriptiveStatistics descriptiveStatisticsDalyFaradayGain = new DescriptiveStatistics();
-        for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-            ensembleDalyFaradayGain[index - initialModelsBurnCount] = ensembleRecordsList.get(index).dfGain();
-            descriptiveStatisticsDalyFaradayGain.addValue(ensembleDalyFaradayGain[index - initialModelsBurnCount]);
-        }
-        double dalyFaradayGainMean = descriptiveStatisticsDalyFaradayGain.getMean();
+        double dalyFaradayGainMean = ensembleColumns.dfGainMoments(initialModelsBurnCount, countOfEnsembles).getMean();
 
         // Intensity
-        int knotsCount = singleBlockRawDataSetRecord.blockKnotInterpolationArray()[0].length;
-        double[][] ensembleI0 = new double[knotsCount][countOfEnsemblesUsed];
+        int knotsCount = singleBlockRawDataSetRecord.getCountOfKnots();
         double[] meansI0 = new double[knotsCount];
 
         for (int knotIndex = 0; knotIndex < knotsCount; knotIndex++) {
-            DescriptiveStatistics descriptiveStatisticsI0 = new DescriptiveStatistics();
-            for (int index = initialModelsBurnCount; index < countOfEnsemblesUsed + initialModelsBurnCount; index++) {
-                ensembleI0[knotIndex][index - initialModelsBurnCount] = ensembleRecordsList.get(index).I0()[knotIndex];
-                descriptiveStatisticsI0.addValue(ensembleI0[knotIndex][index - initialModelsBurnCount]);
-            }
-            meansI0[knotIndex] = descriptiveStatisticsI0.getMean();
+            meansI0[knotIndex] = ensembleColumns.intensityMoments(knotIndex, initialModelsBurnCount, countOfEnsembles).getMean();
         }
 
 
@@ -173,26 +150,23 @@ public class EnsemblesStore implements Serializable {
 
             // start cycle-based math +++++++++++++++++++++++++++++++++++++++++++++++++++++++++
             // TODO: this is copied from SingleBlockModelInitForMCMC - need to refactor into one procedure
-            double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord.blockKnotInterpolationArray();
-            Matrix II = new Matrix(interpolatedKnotData_II);
-            Matrix I = new Matrix(meansI0, meansI0.length);
-            Matrix intensityFn = II.times(I);
+            double[] intensityFn = singleBlockRawDataSetRecord.blockKnotInterpolationOperator().multiply(meansI0);
 
             // get data included array ***********************************************************************************
             boolean[][] blockOnPeakIncluded = ((Analysis) analysis).getMapOfBlockIdToIncludedPeakData().get(singleBlockRawDataSetRecord.blockID());
-            DescriptiveStatistics[] cycleStats = new DescriptiveStatistics[summaryMCMCModel.cycleCount()];
+            StreamingMoments[] cycleStats = new StreamingMoments[summaryMCMCModel.cycleCount()];
             int countOfIsotopes = analysisMethod.getSpeciesList().size();
             int indexOfMostAbundantIsotope = countOfIsotopes - 1;
 
             for (int dataArrayIndex = 0; dataArrayIndex < ddVer2SortedArray.length; dataArrayIndex++) {
                 int cycle = cyclesSortedArray[dataArrayIndex] - 1;
                 if (null == cycleStats[cycle]) {
-                    cycleStats[cycle] = new DescriptiveStatistics();
+                    cycleStats[cycle] = new StreamingMoments();
                 }
                 // TODO: make this checks for both isotopes (eventually may include denominator as one that is excluded)
                 if (singleBlockModelRecord.mapOfSpeciesToActiveCycles().get(analysisMethod.getSpeciesList().get(isotopeIndex))[cycle]
                         && blockOnPeakIncluded[isotopeIndex][dataArrayIndex] && blockOnPeakIncluded[indexOfMostAbundantIsotope][dataArrayIndex]) {
-                    cycleStats[cycle].addValue(ddVer2SortedArray[dataArrayIndex] / intensityFn.get(comparatorTime.getArray()[dataArrayIndex], 0));
+                    cycleStats[cycle].add(ddVer2SortedArray[dataArrayIndex] / intensityFn[comparatorTime.getArray()[dataArrayIndex]]);
                 }
             }
 
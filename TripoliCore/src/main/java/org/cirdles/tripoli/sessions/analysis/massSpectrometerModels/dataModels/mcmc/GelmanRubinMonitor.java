@@ -0,0 +1,187 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+/**
+ * Incremental form of the modified Gelman-Rubin multivariate criterion <code>GRConverge</code>.
+ * <p>
+ * Saved models are appended once. The monitor keeps only the running sum of their outer products, shifted by the
+ * first model for numerical stability, so its memory is O(Nmod^2) however long the chain runs. When cnt = g^2 the
+ * chain splits into g contiguous groups of size g. The sum of the group covariances then follows from the total outer
+ * product and the group means, and the group means are read in one pass from the chain's <code>EnsembleColumns</code>,
+ * which already holds every saved model. A check costs O(cnt*Nmod + Nmod^3) and does not copy the ensemble.
+ *
+ * @author James F. Bowring
+ */
+public class GelmanRubinMonitor {
+
+    private final EnsembleColumns ensembleColumns;
+    private final int sizeOfModel;
+    private final double[] shift;
+    private final double[][] sumOfOuterProducts;
+    private int count;
+
+    /**
+     * @param ensembleColumns the chain's saved models, which each model is appended to before the monitor
+     */
+    GelmanRubinMonitor(EnsembleColumns ensembleColumns) {
+        this.ensembleColumns = ensembleColumns;
+        sizeOfModel = ensembleColumns.getCountOfLogRatios() + ensembleColumns.getCountOfIntensities()
+                + ensembleColumns.getCountOfFaradays() + 1;
+        shift = new double[sizeOfModel];
+        sumOfOuterProducts = new double[sizeOfModel][sizeOfModel];
+    }
+
+    /**
+     * @param xx flat model vector, ordered log ratios, intensities, baselines, DF gain, as just appended to the
+     *           chain's <code>EnsembleColumns</code>
+     */
+    void append(double[] xx) {
+        if (0 == count) {
+            System.arraycopy(xx, 0, shift, 0, sizeOfModel);
+        }
+        for (int row = 0; row < sizeOfModel; row++) {
+            double y = xx[row] - shift[row];
+            double[] outerRow = sumOfOuterProducts[row];
+            for (int col = 0; col <= row; col++) {
+                outerRow[col] += y * (xx[col] - shift[col]);
+            }
+        }
+        count++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * <pre>
+     *     ngroup = round(sqrt(cnt));
+     *     gsize = round(sqrt(cnt));
+     *     MeanofVar = sum(tmpxs(:,:,1:ngroup),3)/ngroup; % Mean of variances
+     *     VarofMean = diag(std(tmpxm(:,1:ngroup),[],2).^2); % Variance of means
+     *     Rexit = sqrt((ngroup-1)/ngroup+(det(VarofMean)/det(MeanofVar))^(1/Nmod)/ngroup);
+     * </pre>
+     *
+     * @return Rexit, or NaN when cnt is not a square of at least 4 or MeanofVar is not positive definite
+     */
+    double rExit() {
+        return rExit(this);
+    }
+
+    /**
+     * Cross-chain form of <code>GRConverge</code>. Each of the M chains is split into gsize groups of gsize models as
+     * in the single-chain test, and MeanofVar and VarofMean are taken over all M*gsize groups. VarofMean is measured
+     * about the pooled mean, so chains that settle on different modes inflate it and hold Rexit above ExitCrit.
+     * With one chain this is the single-chain test.
+     *
+     * @param monitors one monitor per chain, all holding the same count of saved models
+     * @return Rexit, or NaN when the counts differ, are not a square of at least 4, or MeanofVar is not positive definite
+     */
+    static double rExit(GelmanRubinMonitor... monitors) {
+        GelmanRubinMonitor firstMonitor = monitors[0];
+        int sizeOfModel = firstMonitor.sizeOfModel;
+        int count = firstMonitor.count;
+        int groupSize = (int) Math.round(Math.sqrt(count));
+        if ((2 > groupSize) || (groupSize * groupSize != count)) {
+            return Double.NaN;
+        }
+        for (GelmanRubinMonitor monitor : monitors) {
+            if (monitor.count != count) {
+                return Double.NaN;
+            }
+        }
+        int nGroup = groupSize * monitors.length;
+
+        // group means relative to each chain's own shift, and relative to the first chain's shift for pooling
+        double[][] shiftedGroupMeans = new double[nGroup][sizeOfModel];
+        double[][] groupMeans = new double[nGroup][sizeOfModel];
+        double[] meanOfGroupMeans = new double[sizeOfModel];
+        for (int chainIndex = 0; chainIndex < monitors.length; chainIndex++) {
+            GelmanRubinMonitor monitor = monitors[chainIndex];
+            for (int chainGroupIndex = 0; chainGroupIndex < groupSize; chainGroupIndex++) {
+                int groupIndex = chainIndex * groupSize + chainGroupIndex;
+                int start = chainGroupIndex * groupSize;
+                for (int row = 0; row < sizeOfModel; row++) {
+                    shiftedGroupMeans[groupIndex][row] =
+                            monitor.ensembleColumns.modelParameterMoments(row, start, start + groupSize).getMean() - monitor.shift[row];
+                    groupMeans[groupIndex][row] = (0 == chainIndex)
+                            ? shiftedGroupMeans[groupIndex][row]
+                            : shiftedGroupMeans[groupIndex][row] + (monitor.shift[row] - firstMonitor.shift[row]);
+                    meanOfGroupMeans[row] += groupMeans[groupIndex][row] / nGroup;
+                }
+            }
+        }
+
+        // sum over groups of cov(group) = (sum x*x' - gsize * sum m*m') / (gsize - 1), per chain in its own shift
+        double[][] meanOfVar = new double[sizeOfModel][sizeOfModel];
+        for (int row = 0; row < sizeOfModel; row++) {
+            for (int col = 0; col <= row; col++) {
+                double sumOfVar = 0.0;
+                for (int chainIndex = 0; chainIndex < monitors.length; chainIndex++) {
+                    double sumOfMeanProducts = 0.0;
+                    for (int groupIndex = chainIndex * groupSize; groupIndex < (chainIndex + 1) * groupSize; groupIndex++) {
+                        sumOfMeanProducts += shiftedGroupMeans[groupIndex][row] * shiftedGroupMeans[groupIndex][col];
+                    }
+                    sumOfVar += (monitors[chainIndex].sumOfOuterProducts[row][col] - groupSize * sumOfMeanProducts) / (groupSize - 1.0) / nGroup;
+                }
+                meanOfVar[row][col] = sumOfVar;
+                meanOfVar[col][row] = sumOfVar;
+            }
+        }
+
+        double logDetVarOfMean = 0.0;
+        for (int row = 0; row < sizeOfModel; row++) {
+            double sumOfSquares = 0.0;
+            for (int groupIndex = 0; groupIndex < nGroup; groupIndex++) {
+                double diff = groupMeans[groupIndex][row] - meanOfGroupMeans[row];
+                sumOfSquares += diff * diff;
+            }
+            logDetVarOfMean += Math.log(sumOfSquares / (nGroup - 1.0));
+        }
+
+        double logDetMeanOfVar = logDetOfSPD(meanOfVar);
+        double term1 = (groupSize - 1.0) / groupSize;
+        double term2 = StrictMath.exp((logDetVarOfMean - logDetMeanOfVar) / sizeOfModel);
+        return StrictMath.sqrt(term1 + term2 / groupSize);
+    }
+
+    // log(det(A)) from the Cholesky factor, computed in log space so that large models cannot under- or overflow
+    private static double logDetOfSPD(double[][] matrix) {
+        int n = matrix.length;
+        double[][] factor = new double[n][n];
+        double logDet = 0.0;
+        for (int j = 0; j < n; j++) {
+            double d = 0.0;
+            for (int k = 0; k < j; k++) {
+                double s = 0.0;
+                for (int i = 0; i < k; i++) {
+                    s += factor[k][i] * factor[j][i];
+                }
+                factor[j][k] = s = (matrix[j][k] - s) / factor[k][k];
+                d = d + s * s;
+            }
+            d = matrix[j][j] - d;
+            if (!(d > 0.0)) {
+                return Double.NaN;
+            }
+            factor[j][j] = Math.sqrt(d);
+            logDet += Math.log(d);
+        }
+        return logDet;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import java.io.Serializable;
+
+/**
+ * Knot interpolation matrix II (onPeak time index by knot) in compressed sparse row form.
+ * <p>
+ * Linear knots have two non-zeros per row and cubic B-spline bases four, so IntensityFn = II*I costs O(rows)
+ * instead of O(rows*knots). Non-zeros are kept in ascending column order, so products sum in the same order as a
+ * dense multiply.
+ *
+ * @author James F. Bowring
+ */
+public record KnotInterpolationOperator(
+        int rowCount,
+        int columnCount,
+        int[] rowStarts,
+        int[] columnIndices,
+        double[] values
+) implements Serializable {
+
+    public static KnotInterpolationOperator fromDense(double[][] dense) {
+        int rowCount = dense.length;
+        int columnCount = (0 == rowCount) ? 0 : dense[0].length;
+        int countOfNonZeros = 0;
+        for (double[] row : dense) {
+            for (double value : row) {
+                if (0.0 != value) {
+                    countOfNonZeros++;
+                }
+            }
+        }
+
+        int[] rowStarts = new int[rowCount + 1];
+        int[] columnIndices = new int[countOfNonZeros];
+        double[] values = new double[countOfNonZeros];
+        int index = 0;
+        for (int row = 0; row < rowCount; row++) {
+            rowStarts[row] = index;
+            for (int col = 0; col < columnCount; col++) {
+                if (0.0 != dense[row][col]) {
+                    columnIndices[index] = col;
+                    values[index] = dense[row][col];
+                    index++;
+                }
+            }
+        }
+        rowStarts[rowCount] = index;
+
+        return new KnotInterpolationOperator(rowCount, columnCount, rowStarts, columnIndices, values);
+    }
+
+    /**
+     * @param knots knot intensities I, length columnCount
+     * @return II*I
+     */
+    public double[] multiply(double[] knots) {
+        double[] target = new double[rowCount];
+        multiply(knots, 0, target);
+        return target;
+    }
+
+    /**
+     * Computes II*I into a caller-owned buffer, reading I from a larger vector such as the flat MCMC model.
+     *
+     * @param source       vector containing I
+     * @param sourceOffset index of the first knot intensity in source
+     * @param target       buffer of length rowCount
+     */
+    public void multiply(double[] source, int sourceOffset, double[] target) {
+        for (int row = 0; row < rowCount; row++) {
+            double sum = 0.0;
+            for (int index = rowStarts[row]; index < rowStarts[row + 1]; index++) {
+                sum += values[index] * source[sourceOffset + columnIndices[index]];
+            }
+            target[row] = sum;
+        }
+    }
+
+    public double[][] toDense() {
+        double[][] dense = new double[rowCount][columnCount];
+        for (int row = 0; row < rowCount; row++) {
+            for (int index = rowStarts[row]; index < rowStarts[row + 1]; index++) {
+                dense[row][columnIndices[index]] = values[index];
+            }
+        }
+        return dense;
+    }
+}
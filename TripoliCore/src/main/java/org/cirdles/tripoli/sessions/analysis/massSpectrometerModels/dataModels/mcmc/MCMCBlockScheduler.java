@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import org.cirdles.tripoli.plots.PlotBuilder;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.utilities.callbacks.LoggingCallbackInterface;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs independent blocks of an analysis through the MCMC model concurrently on a bounded
+ * work-stealing pool. Each block builds its own raw data, initial model and chain and only
+ * publishes into the shared <code>Analysis</code> maps when its chain completes.
+ * <p>
+ * All schedulers share one pool sized to the processors, which is never shut down or replaced, so
+ * an executor handed out keeps working after the parallelism parameter changes. Each scheduler
+ * limits its own blocks to its parallelism with a semaphore, queueing the rest until a running
+ * block finishes.
+ *
+ * @author James F. Bowring
+ */
+public class MCMCBlockScheduler {
+
+    private static final ForkJoinPool blockPool =
+            // asyncMode = true gives FIFO ordering so blocks start in the order submitted
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    private static MCMCBlockScheduler sharedScheduler;
+
+    private final int parallelism;
+    private final Semaphore runningBlocks;
+    private final Queue<Runnable> waitingBlocks = new ConcurrentLinkedQueue<>();
+
+    public MCMCBlockScheduler(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        runningBlocks = new Semaphore(this.parallelism);
+    }
+
+    /**
+     * Provides the application-wide scheduler, replacing it if the requested parallelism has changed. A replaced
+     * scheduler keeps running the blocks already given to it.
+     *
+     * @param parallelism maximum number of blocks running at once
+     * @return the shared scheduler
+     */
+    public static synchronized MCMCBlockScheduler getSharedScheduler(int parallelism) {
+        if ((null == sharedScheduler) || (sharedScheduler.getParallelism() != Math.max(1, parallelism))) {
+            sharedScheduler = new MCMCBlockScheduler(parallelism);
+        }
+        return sharedScheduler;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Exposes the scheduler so that callers with their own task wrappers (e.g. JavaFX Services) share the same bound.
+     *
+     * @return the block executor
+     */
+    public Executor getExecutor() {
+        return this::execute;
+    }
+
+    private void execute(Runnable block) {
+        waitingBlocks.add(block);
+        startWaitingBlocks();
+    }
+
+    private void startWaitingBlocks() {
+        while (!waitingBlocks.isEmpty() && runningBlocks.tryAcquire()) {
+            Runnable block = waitingBlocks.poll();
+            if (null == block) {
+                // another thread started it; check the queue again
+                runningBlocks.release();
+            } else {
+                blockPool.execute(() -> {
+                    try {
+                        block.run();
+                    } finally {
+                        runningBlocks.release();
+                        startWaitingBlocks();
+                    }
+                });
+            }
+        }
+    }
+
+    public Future<PlotBuilder[][]> submitBlock(int blockID, AnalysisInterface analysis, LoggingCallbackInterface loggingCallback) {
+        FutureTask<PlotBuilder[][]> blockTask = new FutureTask<>(
+                () -> SingleBlockModelDriver.buildAndRunModelForSingleBlock(blockID, analysis, loggingCallback));
+        execute(blockTask);
+        return blockTask;
+    }
+
+    /**
+     * Runs the listed blocks concurrently and waits for all of them.
+     *
+     * @param blockIDs        blocks to model
+     * @param analysis        the owning analysis
+     * @param loggingCallback receives progress snippets from every block
+     * @return map of blockID to the plotBuilders produced for that block
+     * @throws TripoliException if any block fails or the wait is interrupted
+     */
+    public Map<Integer, PlotBuilder[][]> runBlocks(
+            List<Integer> blockIDs, AnalysisInterface analysis, LoggingCallbackInterface loggingCallback) throws TripoliException {
+        Map<Integer, Future<PlotBuilder[][]>> mapOfBlockIdToFuture = new TreeMap<>();
+        for (Integer blockID : blockIDs) {
+            mapOfBlockIdToFuture.put(blockID, submitBlock(blockID, analysis, loggingCallback));
+        }
+
+        Map<Integer, PlotBuilder[][]> mapOfBlockIdToPlots = new TreeMap<>();
+        for (Map.Entry<Integer, Future<PlotBuilder[][]>> entry : mapOfBlockIdToFuture.entrySet()) {
+            try {
+                mapOfBlockIdToPlots.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                mapOfBlockIdToFuture.values().forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new TripoliException("MCMC block scheduling interrupted", e);
+            } catch (ExecutionException e) {
+                throw new TripoliException("MCMC failed for BLOCK # " + entry.getKey(), e.getCause());
+            }
+        }
+        return mapOfBlockIdToPlots;
+    }
+}
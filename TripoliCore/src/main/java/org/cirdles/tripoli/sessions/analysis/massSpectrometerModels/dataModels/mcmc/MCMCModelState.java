@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, array-backed model state for the adaptive MCMC inner loop.
+ * <p>
+ * The model is held as one flat vector ordered as in <code>UpdateMSv2</code>: log ratios, knot intensities,
+ * Faraday baselines and the Daly/Faraday gain. The current and proposed models and their forward-modelled data
+ * live in buffers allocated once and swapped on acceptance, so an iteration allocates nothing.
+ * <code>SingleBlockModelRecord</code> instances are materialized only at save points, and saved ensembles are copied
+ * straight into the chain's <code>EnsembleColumns</code>.
+ *
+ * @author James F. Bowring
+ */
+public class MCMCModelState {
+
+    private final SingleBlockModelRecord templateModelRecord;
+    private final int countOfLogRatios;
+    private final int countOfIntensities;
+    private final int countOfFaradays;
+    private final int sizeOfModel;
+    private final double[] priorMin;
+    private final double[] priorMax;
+
+    // forward model lookups resolved once per block
+    private final int baselineCount;
+    private final int onPeakFaradayCount;
+    private final int[] faradayIndexOfData;
+    private final int[] isotopeIndexOfData;
+    private final int[] timeIndexOfData;
+    private final KnotInterpolationOperator knotInterpolationOperator;
+
+    // scratch
+    private final double[] intensityFn;
+    private final double[] expLogRatios;
+
+    private double[] currentModel;
+    private double[] proposedModel;
+    private double[] currentDataModel;
+    private double[] proposedDataModel;
+
+    MCMCModelState(
+            SingleBlockModelRecord initialModelRecord,
+            SingleBlockRawDataSetRecord singleBlockRawDataSetRecord,
+            ProposedModelParameters.ProposalRangesRecord proposalRangesRecord) {
+        templateModelRecord = initialModelRecord;
+        countOfLogRatios = initialModelRecord.logRatios().length;
+        countOfIntensities = initialModelRecord.I0().length;
+        countOfFaradays = initialModelRecord.faradayCount();
+        sizeOfModel = countOfLogRatios + countOfIntensities + countOfFaradays + 1;
+
+        currentModel = new double[sizeOfModel];
+        System.arraycopy(initialModelRecord.logRatios(), 0, currentModel, 0, countOfLogRatios);
+        System.arraycopy(initialModelRecord.I0(), 0, currentModel, countOfLogRatios, countOfIntensities);
+        System.arraycopy(initialModelRecord.baselineMeansArray(), 0, currentModel, countOfLogRatios + countOfIntensities, countOfFaradays);
+        currentModel[sizeOfModel - 1] = initialModelRecord.detectorFaradayGain();
+        proposedModel = new double[sizeOfModel];
+
+        priorMin = new double[sizeOfModel];
+        priorMax = new double[sizeOfModel];
+        fillPrior(0, countOfLogRatios, proposalRangesRecord.priorLogRatio());
+        fillPrior(countOfLogRatios, countOfIntensities, proposalRangesRecord.priorIntensity());
+        fillPrior(countOfLogRatios + countOfIntensities, countOfFaradays, proposalRangesRecord.priorBaselineFaraday());
+        fillPrior(sizeOfModel - 1, 1, proposalRangesRecord.priorDFgain());
+
+        baselineCount = singleBlockRawDataSetRecord.getCountOfBaselineIntensities();
+        onPeakFaradayCount = singleBlockRawDataSetRecord.getCountOfOnPeakFaradayIntensities();
+        int countOfData = initialModelRecord.dataModelArray().length;
+        int[] detectorOrdinalIndicesArray = singleBlockRawDataSetRecord.blockDetectorOrdinalIndicesArray();
+        int[] isotopeOrdinalIndicesArray = singleBlockRawDataSetRecord.blockIsotopeOrdinalIndicesArray();
+        faradayIndexOfData = new int[countOfData];
+        isotopeIndexOfData = new int[countOfData];
+        timeIndexOfData = singleBlockRawDataSetRecord.blockTimeIndicesArray();
+        for (int dataArrayIndex = 0; dataArrayIndex < countOfData; dataArrayIndex++) {
+            if (dataArrayIndex < baselineCount + onPeakFaradayCount) {
+                faradayIndexOfData[dataArrayIndex] =
+                        initialModelRecord.mapDetectorOrdinalToFaradayIndex().get(detectorOrdinalIndicesArray[dataArrayIndex]);
+            }
+            isotopeIndexOfData[dataArrayIndex] = isotopeOrdinalIndicesArray[dataArrayIndex] - 1;
+        }
+        knotInterpolationOperator = singleBlockRawDataSetRecord.blockKnotInterpolationOperator();
+
+        intensityFn = new double[knotInterpolationOperator.rowCount()];
+        expLogRatios = new double[countOfLogRatios];
+        currentDataModel = initialModelRecord.dataModelArray().clone();
+        proposedDataModel = new double[countOfData];
+    }
+
+    private void fillPrior(int start, int length, double[][] prior) {
+        Arrays.fill(priorMin, start, start + length, prior[0][0]);
+        Arrays.fill(priorMax, start, start + length, prior[0][1]);
+    }
+
+    /**
+     * Builds the proposal x2 = x + delx, rejecting per parameter any value outside its prior, and forward models
+     * its data into the proposal buffer.
+     *
+     * @param delx_adapt proposed step, length sizeOfModel
+     * @return the forward-modelled data of the proposal; valid until the next call
+     */
+    double[] propose(double[] delx_adapt) {
+        /*
+            xx =  xx0 + delx;
+            inprior = xx<=priormax & xx>=priormin;
+            xx(~inprior) = xx0(~inprior);
+         */
+        for (int row = 0; row < sizeOfModel; row++) {
+            double xx = currentModel[row] + delx_adapt[row];
+            if ((xx > priorMax[row]) || (xx < priorMin[row])) {
+                xx = currentModel[row];
+            }
+            proposedModel[row] = xx;
+        }
+        forwardModel(proposedModel, proposedDataModel);
+        return proposedDataModel;
+    }
+
+    /**
+     * Array form of <code>SingleBlockModelInitForMCMC.modelInitData</code> writing into a caller-owned buffer.
+     */
+    private void forwardModel(double[] model, double[] dataModel) {
+        // Intensity = InterpMat*x.I
+        knotInterpolationOperator.multiply(model, countOfLogRatios, intensityFn);
+        for (int isotopeIndex = 0; isotopeIndex < countOfLogRatios; isotopeIndex++) {
+            expLogRatios[isotopeIndex] = StrictMath.exp(model[isotopeIndex]);
+        }
+        int baselineOffset = countOfLogRatios + countOfIntensities;
+        double inverseFaradayGain = 1.0 / model[sizeOfModel - 1];
+
+        for (int dataArrayIndex = 0; dataArrayIndex < dataModel.length; dataArrayIndex++) {
+            if (dataArrayIndex < baselineCount) {
+                dataModel[dataArrayIndex] = model[baselineOffset + faradayIndexOfData[dataArrayIndex]];
+                continue;
+            }
+            int isotopeIndex = isotopeIndexOfData[dataArrayIndex];
+            double intensity = intensityFn[timeIndexOfData[dataArrayIndex]];
+            if (dataArrayIndex < baselineCount + onPeakFaradayCount) {
+                double baseline = model[baselineOffset + faradayIndexOfData[dataArrayIndex]];
+                if (isotopeIndex < countOfLogRatios) {
+                    dataModel[dataArrayIndex] = (expLogRatios[isotopeIndex] * inverseFaradayGain * intensity) + baseline;
+                } else {
+                    dataModel[dataArrayIndex] = inverseFaradayGain * intensity + baseline;
+                }
+            } else {
+                if (isotopeIndex < countOfLogRatios) {
+                    dataModel[dataArrayIndex] = expLogRatios[isotopeIndex] * intensity;
+                } else {
+                    dataModel[dataArrayIndex] = intensity;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the last proposal the current model by swapping buffers.
+     */
+    void acceptProposal() {
+        double[] swap = currentModel;
+        currentModel = proposedModel;
+        proposedModel = swap;
+
+        swap = currentDataModel;
+        currentDataModel = proposedDataModel;
+        proposedDataModel = swap;
+    }
+
+    /**
+     * @return the live current model vector; callers must not retain or modify it
+     */
+    double[] getCurrentModel() {
+        return currentModel;
+    }
+
+    int getSizeOfModel() {
+        return sizeOfModel;
+    }
+
+    int getBlockID() {
+        return templateModelRecord.blockID();
+    }
+
+    SingleBlockModelRecord materializeCurrentModelRecord() {
+        int baselineOffset = countOfLogRatios + countOfIntensities;
+        return new SingleBlockModelRecord(
+                templateModelRecord.blockID(),
+                templateModelRecord.faradayCount(),
+                templateModelRecord.cycleCount(),
+                templateModelRecord.isotopeCount(),
+                templateModelRecord.highestAbundanceSpecies(),
+                Arrays.copyOfRange(currentModel, baselineOffset, baselineOffset + countOfFaradays),
+                templateModelRecord.baselineStandardDeviationsArray().clone(),
+                currentModel[sizeOfModel - 1],
+                templateModelRecord.mapDetectorOrdinalToFaradayIndex(),
+                Arrays.copyOfRange(currentModel, 0, countOfLogRatios),
+                templateModelRecord.mapOfSpeciesToActiveCycles(),
+                templateModelRecord.mapLogRatiosToCycleStats(),
+                currentDataModel.clone(),
+                templateModelRecord.dataSignalNoiseArray().clone(),
+                Arrays.copyOfRange(currentModel, countOfLogRatios, baselineOffset),
+                templateModelRecord.intensities().clone()
+        );
+    }
+
+    EnsembleColumns createEnsembleColumns() {
+        return new EnsembleColumns(countOfLogRatios, countOfIntensities, countOfFaradays);
+    }
+
+    void appendEnsemble(EnsembleColumns ensembleColumns, double errorWeighted, double errorUnWeighted) {
+        ensembleColumns.appendModel(currentModel, errorWeighted, errorUnWeighted);
+    }
+}
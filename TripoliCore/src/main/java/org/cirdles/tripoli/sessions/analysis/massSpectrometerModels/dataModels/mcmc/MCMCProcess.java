@@ -18,13 +18,14 @@ package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.
 
 import jama.Matrix;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
-import org.apache.commons.math3.random.RandomDataGenerator;
+import org.cirdles.tripoli.parameters.Parameters;
 import org.cirdles.tripoli.plots.PlotBuilder;
 import org.cirdles.tripoli.sessions.analysis.Analysis;
 import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.SingleBlockModelInitForMCMC;
 import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
 import org.cirdles.tripoli.utilities.callbacks.LoggingCallbackInterface;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
 import org.cirdles.tripoli.utilities.mathUtilities.MatLabCholesky;
 
 import java.text.DecimalFormat;
@@ -33,21 +34,23 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinTask;
+import java.util.random.RandomGenerator;
 
 import static java.lang.Math.min;
 import static java.lang.Math.pow;
 import static java.lang.StrictMath.exp;
 import static org.apache.commons.math3.special.Gamma.gamma;
-import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.initializers.SingleBlockModelInitForMCMC.modelInitData;
+import static org.cirdles.tripoli.constants.TripoliConstants.MCMC_PROPOSAL_REFACTOR_INTERVAL;
 
 /**
  * @author James F. Bowring
  */
 public class MCMCProcess {
 
-    private static final int maxIterationCount = 10000;
-    private static final int stepCountForcedSave = 10;
-    private static final int modelCount = maxIterationCount * stepCountForcedSave;
+    private final int maxIterationCount;
+    private final int stepCountForcedSave;
+    private final int modelCount;
     private final SingleBlockModelRecord singleBlockInitialModelRecord_X0;
     private final Matrix covarianceMatrix_C0;
     private final AnalysisMethod analysisMethod;
@@ -55,23 +58,19 @@ public class MCMCProcess {
     private final AnalysisInterface analysis;
     private final ProposedModelParameters.ProposalRangesRecord proposalRangesRecord;
     private final boolean useAverageNotBestModel;
-    private List<EnsemblesStore.EnsembleRecord> ensembleRecordsList;
     private boolean hierarchical;
-    private double tempering;
     private double[] baselineMultiplier;
     private double[] dataModelArrayInitial;
     private double[] dataSignalNoiseArray;
     private double initialModelErrorWeighted_E;
     private double initialModelErrorUnWeighted_E0;
-    private int[][] keptUpdates;
     private int sizeOfModel;
     private int startingIndexOfFaradayData;
     private int startingIndexOfPhotoMultiplierData;
-    private double[] xDataMean;
-    private double[][] xDataCovariance;
     private Matrix TT;
     private double effectSamp;
     private double ExitCrit;
+    private int chainCount;
 
     private MCMCProcess(
             AnalysisInterface analysis,
@@ -84,13 +83,20 @@ public class MCMCProcess {
         proposalRangesRecord = singleBlockInitialModelRecordWithCov.proposalRangesRecord();
         covarianceMatrix_C0 = singleBlockInitialModelRecordWithCov.covarianceMatrix_C0();
         this.useAverageNotBestModel = useAverageNotBestModel;
+        maxIterationCount = analysis.getParameters().getMcmcMaxSavedModelCount();
+        stepCountForcedSave = analysis.getParameters().getMcmcSaveInterval();
+        modelCount = getModelCount(analysis.getParameters());
     }
 
-    public static int getModelCount() {
-        return modelCount;
+    /**
+     * @param parameters analysis parameters
+     * @return the maximum number of MCMC iterations per block, maxcnt * datsav
+     */
+    public static int getModelCount(Parameters parameters) {
+        return parameters.getMcmcMaxSavedModelCount() * parameters.getMcmcSaveInterval();
     }
 
-    public static synchronized MCMCProcess createMCMCProcess(
+    public static MCMCProcess createMCMCProcess(
             AnalysisInterface analysis, SingleBlockRawDataSetRecord singleBlockRawDataSetRecord,
             SingleBlockModelInitForMCMC.SingleBlockModelRecordWithCov singleBlockInitialModelRecordWithCov) {
         /*
@@ -136,7 +142,6 @@ public class MCMCProcess {
          */
         //TODO: remove this variable??
         hierarchical = false;
-        tempering = 1.0;
         /*
             Ntemp = 10000; % Cool search over this number of steps
             % Create tempering vector - start high, cool down to 1 then stay there
@@ -160,8 +165,6 @@ public class MCMCProcess {
 //            baselineMultiplier[row] = 0.1;
 //        }
 
-        keptUpdates = new int[5][4];
-        ensembleRecordsList = new ArrayList<>();
         sizeOfModel = singleBlockInitialModelRecord_X0.sizeOfModel();
 
         /*
@@ -180,12 +183,10 @@ public class MCMCProcess {
                         * Math.PI
                         / StrictMath.pow((sizeOfModel * gamma(sizeOfModel / 2.0)), (2.0 / sizeOfModel))
                         * chiSquaredDistribution.inverseCumulativeProbability(1.0 - alpha) / StrictMath.pow(epsilon, 2.0);
-        double mchain = 1.0; // Number of Chains
+        chainCount = analysis.getParameters().getMcmcChainCount();
+        double mchain = chainCount; // Number of Chains
         ExitCrit = StrictMath.sqrt(1.0 + mchain / effectSamp); //Exit when G-R criterium less than this
 
-        xDataMean = new double[sizeOfModel];
-        xDataCovariance = new double[sizeOfModel][sizeOfModel];
-
         buildForwardModel();
     }
 
@@ -257,52 +258,192 @@ public class MCMCProcess {
 
     public synchronized PlotBuilder[][] applyInversionWithAdaptiveMCMC(LoggingCallbackInterface loggingCallback) {
 
-        SingleBlockModelRecord singleBlockCurrentModelRecord_X = singleBlockInitialModelRecord_X0;
+        MCMCChain[] chains = new MCMCChain[chainCount];
+        GelmanRubinMonitor[] gelmanRubinMonitors = new GelmanRubinMonitor[chainCount];
+        for (int chainIndex = 0; chainIndex < chainCount; chainIndex++) {
+            chains[chainIndex] = new MCMCChain(chainIndex);
+            gelmanRubinMonitors[chainIndex] = chains[chainIndex].gelmanRubinMonitor;
+        }
+        int blockID = singleBlockInitialModelRecord_X0.blockID();
+
+        // chains run concurrently in lockstep between convergence checks, which fall every 10*datsav iterations
+        long checkInterval = 10L * stepCountForcedSave;
+        boolean notConverged = true;
+        long modelIndex = 0;
+        while (notConverged && (modelCount > modelIndex)) {
+            modelIndex = Math.min(modelIndex + checkInterval, modelCount);
+            long lastModelIndex = modelIndex;
+            if (1 == chainCount) {
+                chains[0].advance(lastModelIndex, loggingCallback);
+            } else {
+                List<ForkJoinTask<?>> chainTasks = new ArrayList<>();
+                for (MCMCChain chain : chains) {
+                    chainTasks.add(ForkJoinTask.adapt(() -> chain.advance(lastModelIndex, loggingCallback)));
+                }
+                ForkJoinTask.invokeAll(chainTasks);
+            }
 
-        RandomDataGenerator randomDataGenerator = new RandomDataGenerator();
-        randomDataGenerator.reSeedSecure();
+            /*
+             % If number of iterations is square number, larger than effective
+                % sample size, test for convergence
+                if mod(sqrt(cnt),1)==0 && cnt >= EffectSamp/datsav
 
-        DecimalFormat statsFormat = new DecimalFormat("#0.000000",new DecimalFormatSymbols(Locale.ENGLISH));
+                    cnt2 = cnt2+1;
+                    Rexit = GRConverge(x,ensemble);  %Gelman-Rubin multivariate criterium
 
-        int counter = 0;
-        SingleBlockModelUpdater singleBlockModelUpdater = new SingleBlockModelUpdater();
-        int countOfData = singleBlockCurrentModelRecord_X.dataModelArray().length;
-        double beta = 0.05;
-        boolean notConverged = true;
-        String loggingSnippet;
+                    rrr(cnt2) = Rexit; %debug
 
-        // TODO: what about d0.iso_vec(d0.iso_vec==0)=d0.Niso; %Set BL to denominator iso
+                    if Rexit<=ExitCrit
+                        disp(sprintf('MCMC exiting after %d iters with R of %0.6f',m,Rexit))
+                        break
+                    end
+                end
+             */
+            // with several chains the effective sample size is reached by the pooled ensemble
+            int counter = chains[0].counter;
+            if ((0 == modelIndex % checkInterval)
+                    && (0 == Math.sqrt(counter) % 1) && ((long) counter * chainCount >= effectSamp / stepCountForcedSave)) {
+                double rExit = GelmanRubinMonitor.rExit(gelmanRubinMonitors);
+
+                if (rExit <= ExitCrit) {
+                    notConverged = false;
+                    String exitMessage = "Alert:  for BLOCK # " + blockID + ",  MCMC has converged after " + modelIndex + " of " + modelCount + " iterations"
+                            + ((1 == chainCount) ? "" : " in each of " + chainCount + " chains") + ", with R = " + rExit;
+                    loggingCallback.receiveLoggingSnippet(exitMessage);
+                }
+            }
+        }
 
+        // pool the ensembles: the first chain in full, so its burn-in stays visible in the convergence plots,
+        // followed by the post-burn-in halves of the other chains
+        EnsembleColumns ensembleColumns = chains[0].ensembleColumns;
+        int burnCount = ensembleColumns.size() / 2;
+        if (1 < chainCount) {
+            ensembleColumns = new EnsembleColumns(
+                    ensembleColumns.getCountOfLogRatios(), ensembleColumns.getCountOfIntensities(), ensembleColumns.getCountOfFaradays());
+            for (int chainIndex = 0; chainIndex < chainCount; chainIndex++) {
+                EnsembleColumns chainEnsembles = chains[chainIndex].ensembleColumns;
+                ensembleColumns.appendRange(chainEnsembles, (0 == chainIndex) ? 0 : chainEnsembles.size() / 2, chainEnsembles.size());
+            }
+        }
+        ensembleColumns.spillToTemporaryFileIfLarge();
         double minE = Double.MAX_VALUE;
         SingleBlockModelRecord bestSingleBlockModelRecord = null;
-        for (long modelIndex = 1; modelCount >= modelIndex; modelIndex++) {//********************************************
-            if (notConverged) {
+        for (MCMCChain chain : chains) {
+            if (chain.minE < minE) {
+                minE = chain.minE;
+                bestSingleBlockModelRecord = chain.bestSingleBlockModelRecord;
+            }
+        }
+
+        SingleBlockModelRecord singleBlockCurrentModelRecord_X = chains[0].mcmcModelState.materializeCurrentModelRecord();
+
+        // the chains above touch only block-local state; publish the results to the shared analysis maps
+        // under the analysis lock so that concurrently scheduled blocks do not interleave their summaries
+        synchronized (analysis) {
+            // for analysis plotting
+            // TODO: move to analysis class?
+            analysis.getMapOfBlockIdToRawData().put(singleBlockCurrentModelRecord_X.blockID(), singleBlockRawDataSetRecord);
+            analysis.getMapBlockIDToEnsembles().put(singleBlockCurrentModelRecord_X.blockID(), ensembleColumns);
+            analysis.getMapOfBlockIdToModelsBurnCount().put(singleBlockCurrentModelRecord_X.blockID(), burnCount);
+
+            // default strategy
+            analysis.getMapOfBlockIdToFinalModel()
+                    .put(singleBlockCurrentModelRecord_X.blockID(), (bestSingleBlockModelRecord == null) ? singleBlockCurrentModelRecord_X : bestSingleBlockModelRecord);
+
+            if (useAverageNotBestModel) {
+//            SingleBlockModelRecord singleBlockModelRecordMCMC =
+                EnsemblesStore.produceSummaryModelFromEnsembleStore(
+                        singleBlockCurrentModelRecord_X.blockID(), analysis);
+//            analysisMethod.getMapOfBlockIdToFinalModel()
+//                    .put(singleBlockCurrentModelRecord_X.blockID(), singleBlockModelRecordMCMC);
+            }
+//        else {// TODO: get this right and make it an option
+//            analysisMethod.getMapOfBlockIdToFinalModel()
+//                    .put(singleBlockCurrentModelRecord_X.blockID(), (bestSingleBlockModelRecord == null) ? singleBlockCurrentModelRecord_X : bestSingleBlockModelRecord);
+//        }
+
+            return SingleBlockDataModelPlotter.analysisAndPlotting(singleBlockCurrentModelRecord_X.blockID(), analysis);
+        }
+    }
+
+    /**
+     * One adaptive Metropolis chain for this block. Everything a chain mutates lives here, so several chains of the
+     * same block can advance concurrently; the forward model inputs they share are read-only once the process is
+     * initialized.
+     */
+    private final class MCMCChain {
+        private final int chainIndex;
+        private final MCMCModelState mcmcModelState;
+        private final RandomGenerator randomGenerator;
+        private final SingleBlockModelUpdater singleBlockModelUpdater;
+        private final MCMCProposalSampler proposalSampler;
+        private final GelmanRubinMonitor gelmanRubinMonitor;
+        private final EnsembleColumns ensembleColumns;
+        private final int[][] keptUpdates = new int[5][4];
+        private final double[] xDataMean = new double[sizeOfModel];
+        private final double[][] xDataCovariance = new double[sizeOfModel][sizeOfModel];
+        private final double[] diffWithMeanScratch = new double[sizeOfModel];
+        private final double[] diffWithMeanTempScratch = new double[sizeOfModel];
+        private final DecimalFormat statsFormat = new DecimalFormat("#0.000000", new DecimalFormatSymbols(Locale.ENGLISH));
+        private double modelErrorUnWeighted_E0 = initialModelErrorUnWeighted_E0;
+        private double minE = Double.MAX_VALUE;
+        private SingleBlockModelRecord bestSingleBlockModelRecord;
+        private int counter;
+        private long nextModelIndex = 1;
+
+        private MCMCChain(int chainIndex) {
+            this.chainIndex = chainIndex;
+            // the chain works on a flat, mutable model; records are materialized only when saved
+            mcmcModelState = new MCMCModelState(singleBlockInitialModelRecord_X0, singleBlockRawDataSetRecord, proposalRangesRecord);
+            ensembleColumns = mcmcModelState.createEnsembleColumns();
+            int blockID = mcmcModelState.getBlockID();
+
+            // one stream per block chain, reproducible when the user has fixed a seed
+            randomGenerator = (0 == chainIndex)
+                    ? MCMCRandomStreams.streamFor(analysis.getParameters().getMcmcRandomSeed(), blockID)
+                    : MCMCRandomStreams.streamFor(analysis.getParameters().getMcmcRandomSeed(), blockID, chainIndex);
+
+            singleBlockModelUpdater = new SingleBlockModelUpdater(randomGenerator);
+            singleBlockModelUpdater.initializeModelDimensions(singleBlockInitialModelRecord_X0);
+            double beta = 0.05;
+            proposalSampler = new MCMCProposalSampler(covarianceMatrix_C0.getArray(), beta, MCMC_PROPOSAL_REFACTOR_INTERVAL);
+            gelmanRubinMonitor = new GelmanRubinMonitor(ensembleColumns);
+
+            if (0 < chainIndex) {
+                // start the additional chains from X0 displaced by a draw from C0, so that the cross-chain test
+                // compares chains that did not all begin at the same point
+                double[] dataArray_D2 = mcmcModelState.propose(
+                        MatLabCholesky.mvnrndTripoli(new double[sizeOfModel], covarianceMatrix_C0.getArray(), 1, randomGenerator).getArray()[0]);
+                double[] dataArray_D0 = singleBlockRawDataSetRecord.blockRawDataArray();
+                modelErrorUnWeighted_E0 = 0.0;
+                for (int row = 0; row < dataArray_D0.length; row++) {
+                    modelErrorUnWeighted_E0 += pow(dataArray_D0[row] - dataArray_D2[row], 2);
+                }
+                mcmcModelState.acceptProposal();
+            }
+        }
+
+        /**
+         * Runs the chain forward through iteration lastModelIndex.
+         *
+         * @param lastModelIndex  the 1-based MCMC iteration m at which to pause
+         * @param loggingCallback receives progress snippets from the first chain only
+         */
+        private void advance(long lastModelIndex, LoggingCallbackInterface loggingCallback) {
+            int blockID = mcmcModelState.getBlockID();
+            int countOfData = singleBlockInitialModelRecord_X0.dataModelArray().length;
+            double[] dataArray_D0 = singleBlockRawDataSetRecord.blockRawDataArray();
+
+            // TODO: what about d0.iso_vec(d0.iso_vec==0)=d0.Niso; %Set BL to denominator iso
+
+            for (long modelIndex = nextModelIndex; lastModelIndex >= modelIndex; modelIndex++) {//********************************************
                 long prev = System.nanoTime();
                 long startTime = System.nanoTime();
-                boolean allFlag = true;
-                tempering = 1.0;
+                double tempering = 1.0;
 
                 // Scott's new way April 2023
                 String operation = singleBlockModelUpdater.randomOperMS(hierarchical);
-            /*
-                   if m<=2*Nmod   % Use initial covariance until 2*N
-                    C = C0;
-                      else  After that begin updating based on model covariance
-                    Next proposal based initial variance and iterative covariance
-                    C = beta*C0 + (1-beta)*2.38^2*Nmod^-1*xcov;
-                    C=(C'+C)/2; % Make sure it's symmetrical
-                   end
-            */
-                Matrix xDataCovarianceMatrix = new Matrix(xDataCovariance);
-                Matrix c0_Matrix = covarianceMatrix_C0;
-                Matrix c_Matrix;
-
-                if (modelIndex <= 2L * sizeOfModel) {
-                    c_Matrix = (Matrix) c0_Matrix.clone();
-                } else {
-                    c_Matrix = c0_Matrix.times(beta).plus(xDataCovarianceMatrix.times((1.0 - beta) * 2.38 * 2.38 / sizeOfModel));
-                    c_Matrix = c_Matrix.transpose().plus(c_Matrix).times(0.5);
-                }
 
                 /*
                     % Draw random numbers based on covariance for next proposal
@@ -311,18 +452,13 @@ public class MCMCProcess {
                     % Update model and save proposed update values (delx)
                     [x2,delx] = UpdateMSv2(oper,x,psig,prior,ensemble,xcov,delx_adapt,adaptflag,allflag);
                 */
-                Matrix delx_adapt_Matrix = MatLabCholesky.mvnrndTripoli(new double[sizeOfModel], c_Matrix.getArray(), 1).transpose();
-
-                SingleBlockModelRecord singleBlockUpdatedModelRecord_x2 =
-                        singleBlockModelUpdater.updateMSv2(
-                                operation,
-                                singleBlockCurrentModelRecord_X,
-                                proposalRangesRecord,
-                                delx_adapt_Matrix.getRowPackedCopy(),
-                                allFlag
-                        );
+                // C = C0 until 2*Nmod, then beta*C0 + (1-beta)*2.38^2*Nmod^-1*xcov, drawn from a cached factor
+                double[] delx_adapt = proposalSampler.nextProposalStep(modelIndex, xDataCovariance, randomGenerator);
                 boolean noiseOperation = operation.toLowerCase(Locale.ROOT).startsWith("n");
 
+                long interval1 = System.nanoTime() - prev;
+                prev = interval1 + prev;
+
                 /*
           %% Create updated data based on new model
                 % I was working on making this more compact and some of the details
@@ -340,16 +476,7 @@ public class MCMCProcess {
                     tmpI(blockax0(n):blockaxf(n)) = Intensity2{n}(d0.time_ind(blockax0(n):blockaxf(n)));
                 end
              */
-
-                double[] baseLineMeansArray = singleBlockUpdatedModelRecord_x2.baselineMeansArray();
-                double[] updatedBaseLineMeansArray = new double[baseLineMeansArray.length + 1];
-                System.arraycopy(baseLineMeansArray, 0, updatedBaseLineMeansArray, 0, updatedBaseLineMeansArray.length - 1);
-
-                double[] updatedDetectorFaradayArray = new double[countOfData];
-                Arrays.fill(updatedDetectorFaradayArray, 1.0);
-
-                long interval1 = System.nanoTime() - prev;
-                prev = interval1 + prev;
+                double[] dataArray_D2 = mcmcModelState.propose(delx_adapt);
 
                 long interval2 = System.nanoTime() - prev;
                 prev = interval2 + prev;
@@ -376,9 +503,6 @@ public class MCMCProcess {
                     dE=temp^-1*(E2-E); % Change in misfit
                 end
              */
-                double[] dataArray_D2 = modelInitData(singleBlockUpdatedModelRecord_x2, singleBlockRawDataSetRecord);
-
-                double[] dataSignalNoiseArray2;
                 double E02 = 0.0;
                 double E = 0.0;
                 double E2 = 0.0;
@@ -387,14 +511,12 @@ public class MCMCProcess {
                 double sumLogDSignalNoise2 = 0.0;
                 double keep;
 
-                long interval3 = System.nanoTime() - prev;
-                prev = interval3 + prev;
-
             /*
             Dsig2 = x2.sig(d0.det_vec).^2 + x2.sig(d0.iso_vec+d0.Ndet).*dnobl2;
              */
-                dataSignalNoiseArray2 = dataSignalNoiseArray.clone();
-                double[] dataArray_D0 = singleBlockRawDataSetRecord.blockRawDataArray();
+                // without the noise operation Dsig2 is identical to Dsig
+                double[] dataSignalNoiseArray2 = dataSignalNoiseArray;
+                double temperingOfModel = TT.get((int) modelIndex, 0);
                 for (int row = 0; row < countOfData; row++) {
                     double residualValue = pow(dataArray_D0[row] - dataModelArrayInitial[row], 2);
                     double residualValue2 = pow(dataArray_D0[row] - dataArray_D2[row], 2);
@@ -420,13 +542,13 @@ public class MCMCProcess {
                         sumLogDSignalNoise += -1.0 * Math.log(dataSignalNoiseArray[row]);
                         sumLogDSignalNoise2 += -1.0 * Math.log(dataSignalNoiseArray2[row]);
                     } else {
-                        E += residualValue * baselineMultiplier[row] / dataSignalNoiseArray[row] / TT.get((int) modelIndex, 0);
-                        E2 += residualValue2 * baselineMultiplier[row] / dataSignalNoiseArray2[row] / TT.get((int) modelIndex, 0);
+                        E += residualValue * baselineMultiplier[row] / dataSignalNoiseArray[row] / temperingOfModel;
+                        E2 += residualValue2 * baselineMultiplier[row] / dataSignalNoiseArray2[row] / temperingOfModel;
                     }
                 } //rows loop
 
-                long interval4 = System.nanoTime() - prev;
-                prev = interval4 + prev;
+                long interval3 = System.nanoTime() - prev;
+                prev = interval3 + prev;
 
                /*
                     % Decide whether to accept or reject model
@@ -467,28 +589,11 @@ public class MCMCProcess {
                 keptUpdates[operationIndex][1] = keptUpdates[operationIndex][1] + 1;
                 keptUpdates[operationIndex][3] = keptUpdates[operationIndex][3] + 1;
 
-                if (keep >= randomDataGenerator.nextUniform(0, 1)) {
+                if (keep >= randomGenerator.nextDouble()) {
                     E = E2;
-                    initialModelErrorUnWeighted_E0 = E02;
-
-                    singleBlockCurrentModelRecord_X = new SingleBlockModelRecord(
-                            singleBlockUpdatedModelRecord_x2.blockID(),
-                            singleBlockUpdatedModelRecord_x2.faradayCount(),
-                            singleBlockUpdatedModelRecord_x2.cycleCount(),
-                            singleBlockUpdatedModelRecord_x2.isotopeCount(),
-                            singleBlockUpdatedModelRecord_x2.highestAbundanceSpecies(),
-                            singleBlockUpdatedModelRecord_x2.baselineMeansArray().clone(),
-                            singleBlockUpdatedModelRecord_x2.baselineStandardDeviationsArray().clone(),
-                            singleBlockUpdatedModelRecord_x2.detectorFaradayGain(),
-                            singleBlockUpdatedModelRecord_x2.mapDetectorOrdinalToFaradayIndex(),
-                            singleBlockUpdatedModelRecord_x2.logRatios().clone(),
-                            singleBlockUpdatedModelRecord_x2.mapOfSpeciesToActiveCycles(),
-                            singleBlockUpdatedModelRecord_x2.mapLogRatiosToCycleStats(),
-                            dataArray_D2.clone(),
-                            dataSignalNoiseArray2.clone(),
-                            singleBlockUpdatedModelRecord_x2.I0().clone(),
-                            singleBlockUpdatedModelRecord_x2.intensities()//intensity2.toRawCopy1D()
-                    );
+                    modelErrorUnWeighted_E0 = E02;
+
+                    mcmcModelState.acceptProposal();
 
                     keptUpdates[operationIndex][0] = keptUpdates[operationIndex][0] + 1;
                     keptUpdates[operationIndex][2] = keptUpdates[operationIndex][2] + 1;
@@ -497,19 +602,16 @@ public class MCMCProcess {
             /*
                 [xmean,xcov] = UpdateMeanCovMS(x,xmean,xcov,m);
                  */
-                SingleBlockModelUpdater.UpdatedCovariancesRecord updatedCovariancesRecord =
-                        singleBlockModelUpdater.updateMeanCovMS2(
-                                singleBlockCurrentModelRecord_X,
-                                xDataCovariance,
-                                xDataMean,
-                                modelIndex
-                        );
-
-                xDataCovariance = updatedCovariancesRecord.dataCov();
-                xDataMean = updatedCovariancesRecord.dataMean();
+                singleBlockModelUpdater.updateMeanCovInPlace(
+                        mcmcModelState.getCurrentModel(),
+                        xDataCovariance,
+                        xDataMean,
+                        modelIndex,
+                        diffWithMeanScratch,
+                        diffWithMeanTempScratch
+                );
 
-                long interval5 = System.nanoTime() - prev;
-                prev = interval4 + prev;
+                long interval4 = System.nanoTime() - prev;
 
                 if (0 == modelIndex % (stepCountForcedSave)) {
                 /*
@@ -527,34 +629,11 @@ public class MCMCProcess {
                  */
                     counter++;
 
-                    ensembleRecordsList.add(new EnsemblesStore.EnsembleRecord(
-                            singleBlockCurrentModelRecord_X.logRatios(),
-                            singleBlockCurrentModelRecord_X.I0(),
-                            singleBlockCurrentModelRecord_X.baselineMeansArray(),
-                            singleBlockCurrentModelRecord_X.detectorFaradayGain(),
-                            null,
-                            E,
-                            initialModelErrorUnWeighted_E0));
+                    mcmcModelState.appendEnsemble(ensembleColumns, E, modelErrorUnWeighted_E0);
+                    gelmanRubinMonitor.append(mcmcModelState.getCurrentModel());
                     if (E < minE) {
                         minE = E;
-                        bestSingleBlockModelRecord = new SingleBlockModelRecord(
-                                singleBlockCurrentModelRecord_X.blockID(),
-                                singleBlockCurrentModelRecord_X.faradayCount(),
-                                singleBlockCurrentModelRecord_X.cycleCount(),
-                                singleBlockCurrentModelRecord_X.isotopeCount(),
-                                singleBlockCurrentModelRecord_X.highestAbundanceSpecies(),
-                                singleBlockCurrentModelRecord_X.baselineMeansArray().clone(),
-                                singleBlockCurrentModelRecord_X.baselineStandardDeviationsArray().clone(),
-                                singleBlockCurrentModelRecord_X.detectorFaradayGain(),
-                                singleBlockCurrentModelRecord_X.mapDetectorOrdinalToFaradayIndex(),
-                                singleBlockCurrentModelRecord_X.logRatios().clone(),
-                                singleBlockCurrentModelRecord_X.mapOfSpeciesToActiveCycles(),
-                                singleBlockCurrentModelRecord_X.mapLogRatiosToCycleStats(),
-                                singleBlockCurrentModelRecord_X.dataModelArray().clone(),
-                                singleBlockCurrentModelRecord_X.dataSignalNoiseArray().clone(),
-                                singleBlockCurrentModelRecord_X.I0().clone(),
-                                singleBlockCurrentModelRecord_X.intensities().clone()
-                        );
+                        bestSingleBlockModelRecord = mcmcModelState.materializeCurrentModelRecord();
                     }
 
                 /*
@@ -583,80 +662,30 @@ public class MCMCProcess {
                         }
 
                         long totalTime = System.nanoTime() - startTime;
-                        loggingSnippet =
+                        String loggingSnippet =
                                 modelIndex + " >%%%%%%%%%%%%%%%%%%%%%%% Tripoli in Java test %%%%%%%%%%%%%%%%%%%%%%%"
-                                        + "  BLOCK # " + singleBlockCurrentModelRecord_X.blockID()
+                                        + "  BLOCK # " + blockID
                                         + "\nElapsed time = " + statsFormat.format(totalTime / 1000000000.0) + " seconds for " + 10 * stepCountForcedSave + " realizations of total = " + modelIndex
-                                        + "\nError function = " + statsFormat.format(StrictMath.sqrt(initialModelErrorUnWeighted_E0 / countOfData))
+                                        + "\nError function = " + statsFormat.format(StrictMath.sqrt(modelErrorUnWeighted_E0 / countOfData))
                                         + "\nChange All Variables: " + modelsKeptLocal + " of " + modelsTotalLocal + " accepted (" + statsFormat.format(100.0 * modelsKept / modelsTotal) + "% total)"
                                         + ("\nIntervals: in microseconds, each from prev or zero time till new interval"
-                                        + " Interval1 " + (interval1 / 1000)
-                                        + " Interval2 " + (interval2 / 1000)
-                                        + " Interval3 " + (interval3 / 1000)
-                                        + " Interval4 " + (interval4 / 1000)
-                                        + " Interval5 " + (interval5 / 1000));
+                                        + " Proposal draw " + (interval1 / 1000)
+                                        + " Forward model " + (interval2 / 1000)
+                                        + " Misfit " + (interval3 / 1000)
+                                        + " Accept and covariance " + (interval4 / 1000));
 
-                        System.err.println("\n" + loggingSnippet + "\n");
-                        loggingCallback.receiveLoggingSnippet(loggingSnippet);
+                        if (0 == chainIndex) {
+                            loggingCallback.receiveLoggingSnippet(loggingSnippet);
+                        }
 
                         for (int i = 0; 5 > i; i++) {
                             keptUpdates[i][0] = 0;
                             keptUpdates[i][1] = 0;
                         }
-                    /*
-                     % If number of iterations is square number, larger than effective
-                        % sample size, test for convergence
-                        if mod(sqrt(cnt),1)==0 && cnt >= EffectSamp/datsav
-
-                            cnt2 = cnt2+1;
-                            Rexit = GRConverge(x,ensemble);  %Gelman-Rubin multivariate criterium
-
-                            rrr(cnt2) = Rexit; %debug
-
-                            if Rexit<=ExitCrit
-                                disp(sprintf('MCMC exiting after %d iters with R of %0.6f',m,Rexit))
-                                break
-                            end
-                        end
-                     */
-
-                        if ((0 == Math.sqrt(counter) % 1) && (counter >= effectSamp / stepCountForcedSave)) {
-                            double rExit = singleBlockModelUpdater.grConverge(ensembleRecordsList);
-
-                            if (rExit <= ExitCrit) {
-                                notConverged = false;
-                                String exitMessage = "Alert:  for BLOCK # " + singleBlockCurrentModelRecord_X.blockID() + ",  MCMC has converged after " + modelIndex + " iterations, with R = " + rExit;
-                                System.err.println("\n" + exitMessage + "\n");
-                                loggingCallback.receiveLoggingSnippet(exitMessage);
-                            }
-                        }
                     }
                 }
             }// end model loop
-        }// convergence check
-
-        // for analysis plotting
-        // TODO: move to analysis class?
-        analysis.getMapOfBlockIdToRawData().put(singleBlockCurrentModelRecord_X.blockID(), singleBlockRawDataSetRecord);
-        analysis.getMapBlockIDToEnsembles().put(singleBlockCurrentModelRecord_X.blockID(), ensembleRecordsList);
-        analysis.getMapOfBlockIdToModelsBurnCount().put(singleBlockCurrentModelRecord_X.blockID(), ensembleRecordsList.size() / 2);
-
-        // default strategy
-        analysis.getMapOfBlockIdToFinalModel()
-                .put(singleBlockCurrentModelRecord_X.blockID(), (bestSingleBlockModelRecord == null) ? singleBlockCurrentModelRecord_X : bestSingleBlockModelRecord);
-
-        if (useAverageNotBestModel) {
-//            SingleBlockModelRecord singleBlockModelRecordMCMC =
-            EnsemblesStore.produceSummaryModelFromEnsembleStore(
-                    singleBlockCurrentModelRecord_X.blockID(), analysis);
-//            analysisMethod.getMapOfBlockIdToFinalModel()
-//                    .put(singleBlockCurrentModelRecord_X.blockID(), singleBlockModelRecordMCMC);
+            nextModelIndex = lastModelIndex + 1;
         }
-//        else {// TODO: get this right and make it an option
-//            analysisMethod.getMapOfBlockIdToFinalModel()
-//                    .put(singleBlockCurrentModelRecord_X.blockID(), (bestSingleBlockModelRecord == null) ? singleBlockCurrentModelRecord_X : bestSingleBlockModelRecord);
-//        }
-
-        return SingleBlockDataModelPlotter.analysisAndPlotting(singleBlockCurrentModelRecord_X.blockID(), analysis);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws the adaptive proposal step delx ~ N(0, C) from a cached Cholesky factor of C.
+ * <p>
+ * C is fixed at C0 for the first 2*Nmod iterations and is factored once for that period. After that,
+ * C = beta*C0 + (1-beta)*2.38^2/Nmod*xcov is refactored every <code>refactorInterval</code> iterations rather than
+ * on every draw. A draw is then one lower-triangular multiply, L*z. The fixed beta*C0 term means C does not change
+ * by a rank-1 update when xcov does, so an exact incremental factor update is not available. With
+ * refactorInterval = 1 the draws are identical to <code>MatLabCholesky.mvnrndTripoli</code>.
+ *
+ * @author James F. Bowring
+ */
+public class MCMCProposalSampler {
+
+    private final double[][] covarianceC0;
+    private final double beta;
+    private final int sizeOfModel;
+    private final int refactorInterval;
+
+    private final double[][] proposalCovariance;
+    private double[][] choleskyFactor;
+    private double[][] choleskyScratch;
+    private final double[] gaussianDraws;
+    private final double[] proposalStep;
+
+    private boolean factoredInitialCovariance;
+    private boolean factoredAdaptiveCovariance;
+    private long modelIndexOfLastFactorization;
+    private int countOfFactorizations;
+
+    MCMCProposalSampler(double[][] covarianceC0, double beta, int refactorInterval) {
+        this.covarianceC0 = covarianceC0;
+        this.beta = beta;
+        this.sizeOfModel = covarianceC0.length;
+        this.refactorInterval = Math.max(1, refactorInterval);
+
+        proposalCovariance = new double[sizeOfModel][sizeOfModel];
+        choleskyFactor = new double[sizeOfModel][sizeOfModel];
+        choleskyScratch = new double[sizeOfModel][sizeOfModel];
+        gaussianDraws = new double[sizeOfModel];
+        proposalStep = new double[sizeOfModel];
+    }
+
+    /**
+     * @param modelIndex      the 1-based MCMC iteration m
+     * @param xDataCovariance the running model covariance xcov
+     * @param randomGenerator the chain's random stream
+     * @return delx_adapt; the buffer is reused by the next call
+     */
+    double[] nextProposalStep(long modelIndex, double[][] xDataCovariance, RandomGenerator randomGenerator) {
+        /*
+               if m<=2*Nmod   % Use initial covariance until 2*N
+                C = C0;
+                  else  After that begin updating based on model covariance
+                Next proposal based initial variance and iterative covariance
+                C = beta*C0 + (1-beta)*2.38^2*Nmod^-1*xcov;
+                C=(C'+C)/2; % Make sure it's symmetrical
+               end
+        */
+        if (modelIndex <= 2L * sizeOfModel) {
+            if (!factoredInitialCovariance) {
+                factor(covarianceC0);
+                factoredInitialCovariance = true;
+            }
+        } else if (!factoredAdaptiveCovariance || (modelIndex - modelIndexOfLastFactorization >= refactorInterval)) {
+            double xCovScale = (1.0 - beta) * 2.38 * 2.38 / sizeOfModel;
+            for (int row = 0; row < sizeOfModel; row++) {
+                for (int col = 0; col < sizeOfModel; col++) {
+                    proposalCovariance[row][col] = covarianceC0[row][col] * beta + xDataCovariance[row][col] * xCovScale;
+                }
+            }
+            for (int row = 0; row < sizeOfModel; row++) {
+                for (int col = row + 1; col < sizeOfModel; col++) {
+                    double symmetric = (proposalCovariance[col][row] + proposalCovariance[row][col]) * 0.5;
+                    proposalCovariance[row][col] = symmetric;
+                    proposalCovariance[col][row] = symmetric;
+                }
+            }
+            factor(proposalCovariance);
+            factoredAdaptiveCovariance = true;
+            modelIndexOfLastFactorization = modelIndex;
+        }
+
+        // delx_adapt = mvnrnd(zeros(Nmod,1),C)' = L*z
+        for (int row = 0; row < sizeOfModel; row++) {
+            gaussianDraws[row] = randomGenerator.nextGaussian();
+        }
+        for (int row = 0; row < sizeOfModel; row++) {
+            double[] factorRow = choleskyFactor[row];
+            double sum = 0.0;
+            for (int col = 0; col <= row; col++) {
+                sum += gaussianDraws[col] * factorRow[col];
+            }
+            proposalStep[row] = sum;
+        }
+
+        return proposalStep;
+    }
+
+    /**
+     * Lower Cholesky factor of a symmetric matrix into the scratch buffer, same recurrence as Jama's
+     * <code>CholeskyDecomposition</code>. A factor that fails the positive-definite test replaces the cached one only
+     * if there is no earlier factor to keep.
+     */
+    private void factor(double[][] covariance) {
+        double[][] factor = choleskyScratch;
+        boolean isSPD = true;
+        for (int j = 0; j < sizeOfModel; j++) {
+            double[] factorRowJ = factor[j];
+            double d = 0.0;
+            for (int k = 0; k < j; k++) {
+                double[] factorRowK = factor[k];
+                double s = 0.0;
+                for (int i = 0; i < k; i++) {
+                    s += factorRowK[i] * factorRowJ[i];
+                }
+                factorRowJ[k] = s = (covariance[j][k] - s) / factor[k][k];
+                d = d + s * s;
+            }
+            d = covariance[j][j] - d;
+            isSPD = isSPD && (d > 0.0);
+            factorRowJ[j] = Math.sqrt(Math.max(d, 0.0));
+            for (int k = j + 1; k < sizeOfModel; k++) {
+                factorRowJ[k] = 0.0;
+            }
+        }
+
+        if (isSPD || (0 == countOfFactorizations)) {
+            choleskyScratch = choleskyFactor;
+            choleskyFactor = factor;
+        }
+        countOfFactorizations++;
+    }
+
+    int getCountOfFactorizations() {
+        return countOfFactorizations;
+    }
+}
@@ -43,16 +43,15 @@ import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataM
 public enum SingleBlockModelDriver {
     ;
 
-    public synchronized static PlotBuilder[][] buildAndRunModelForSingleBlock(
+    public static PlotBuilder[][] buildAndRunModelForSingleBlock(
             int blockID, AnalysisInterface analysis, LoggingCallbackInterface loggingCallback) throws TripoliException, IOException {
         MassSpecExtractedData massSpecExtractedData = analysis.getMassSpecExtractedData();
         AnalysisMethod analysisMethod = analysis.getAnalysisMethod();
         PlotBuilder[][] plotBuilder = new PlotBuilder[0][0];
 
         SingleBlockRawDataSetRecord singleBlockRawDataSetRecord = prepareSingleBlockDataForMCMC(blockID, massSpecExtractedData, analysisMethod);
-        if (null == ((Analysis) analysis).getMapOfBlockIdToIncludedIntensities().get(blockID)) {
-            ((Analysis) analysis).getMapOfBlockIdToIncludedIntensities().put(blockID, singleBlockRawDataSetRecord.blockIncludedIntensitiesArray());
-        }
+        // blocks may be running concurrently, so seed the per-block entry atomically
+        ((Analysis) analysis).getMapOfBlockIdToIncludedIntensities().putIfAbsent(blockID, singleBlockRawDataSetRecord.blockIncludedIntensitiesArray());
 
         SingleBlockModelInitForMCMC.SingleBlockModelRecordWithCov singleBlockInitialModelRecordWithCov;
         try {
@@ -70,7 +69,7 @@ public enum SingleBlockModelDriver {
         return plotBuilder;
     }
 
-    public synchronized static SingleBlockRawDataSetRecord prepareSingleBlockDataForMCMC(int blockNumber, MassSpecExtractedData massSpecExtractedData, AnalysisMethod analysisMethod) {
+    public static SingleBlockRawDataSetRecord prepareSingleBlockDataForMCMC(int blockNumber, MassSpecExtractedData massSpecExtractedData, AnalysisMethod analysisMethod) {
         SingleBlockRawDataSetRecord singleBlockRawDataSetRecord;
         MassSpecOutputBlockRecordFull massSpecOutputBlockRecordFull = massSpecExtractedData.getBlocksDataFull().get(blockNumber);
 
@@ -170,7 +169,7 @@ public enum SingleBlockModelDriver {
         return singleBlockRawDataSetRecord;
     }
 
-    private synchronized static Primitive64Store generateKnotsMatrixForBlock(
+    private static Primitive64Store generateKnotsMatrixForBlock(
             MassSpecOutputBlockRecordFull massSpecOutputBlockRecordFull, int basisDegree) {
 
         int knotCount = massSpecOutputBlockRecordFull.onPeakStartingIndicesOfCycles().length + 1;
@@ -187,7 +186,7 @@ public enum SingleBlockModelDriver {
         return bBaseOutput;
     }
 
-    private synchronized static Primitive64Store generateLinearKnotsMatrixReplicaOfBurdickMatLab(MassSpecOutputBlockRecordFull massSpecOutputBlockRecordFull) {
+    private static Primitive64Store generateLinearKnotsMatrixReplicaOfBurdickMatLab(MassSpecOutputBlockRecordFull massSpecOutputBlockRecordFull) {
         // build InterpMat for block using linear approach
         // the general approach for a block is to create a knot at the start of each cycle and
         // linearly interpolate between knots to create fractional placement of each recorded timestamp
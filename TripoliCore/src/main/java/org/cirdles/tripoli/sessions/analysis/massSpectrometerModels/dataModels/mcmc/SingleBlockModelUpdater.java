@@ -18,12 +18,11 @@ package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.
 
 import com.google.common.collect.ImmutableList;
 import jama.Matrix;
-import org.apache.commons.math3.random.RandomDataGenerator;
-import org.apache.commons.math3.stat.correlation.Covariance;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * @author James F. Bowring
@@ -36,8 +35,17 @@ public class SingleBlockModelUpdater {
     private int countOfFaradays;
     private int countOfPhotoMultipliers;
     private int countOfTotalModelParameters;
+    private final RandomGenerator randomGenerator;
 
     SingleBlockModelUpdater() {
+        this(MCMCRandomStreams.unseededStream());
+    }
+
+    /**
+     * @param randomGenerator the chain's random stream, used for every operation draw
+     */
+    SingleBlockModelUpdater(RandomGenerator randomGenerator) {
+        this.randomGenerator = randomGenerator;
     }
 
     /**
@@ -50,9 +58,8 @@ public class SingleBlockModelUpdater {
         Object[][] notHier = {{40, 60, 80, 100}, {operations.get(1), operations.get(0), operations.get(3), operations.get(2)}};
         Object[][] hier = {{60, 80, 90, 100, 120}, {operations.get(1), operations.get(0), operations.get(3), operations.get(2), operations.get(4)}};
 
-        RandomDataGenerator randomDataGenerator = new RandomDataGenerator();
-        randomDataGenerator.reSeedSecure();
-        int choice = hierFlag ? randomDataGenerator.nextInt(0, 120) : randomDataGenerator.nextInt(0, 100);
+        // upper bounds of 121 and 101 keep the inclusive range of the former commons-math nextInt(0, 120) and nextInt(0, 100)
+        int choice = hierFlag ? randomGenerator.nextInt(0, 121) : randomGenerator.nextInt(0, 101);
         String retVal = "changeI";
         if (hierFlag) {
             for (int i = 0; i < hier[0].length; i++) {
@@ -73,6 +80,20 @@ public class SingleBlockModelUpdater {
         return retVal;
     }
 
+    /**
+     * Records the layout of the flat model vector (log ratios, intensities, baselines, gain) used by the
+     * covariance update and the convergence test.
+     *
+     * @param singleBlockModelRecord any model of the block being inverted
+     */
+    synchronized void initializeModelDimensions(SingleBlockModelRecord singleBlockModelRecord) {
+        countOfLogRatios = singleBlockModelRecord.logRatios().length;
+        countOfIntensities = singleBlockModelRecord.I0().length;
+        countOfFaradays = singleBlockModelRecord.faradayCount();
+        countOfPhotoMultipliers = 1;
+        countOfTotalModelParameters = countOfLogRatios + countOfIntensities + countOfFaradays + countOfPhotoMultipliers;
+    }
+
     // function  [x2,delx,xcov] = UpdateMSv2(oper,x,psig,prior,ensemble,xcov,delx_adapt,adaptflag,allflag)
     synchronized SingleBlockModelRecord updateMSv2(
             String operation,
@@ -93,11 +114,7 @@ public class SingleBlockModelUpdater {
             xind = [xind; (3+Nblock)*ones(Ndf,1)];
          */
 
-        countOfLogRatios = singleBlockInitialModelRecord_initial.logRatios().length;
-        countOfIntensities = singleBlockInitialModelRecord_initial.I0().length;
-        countOfFaradays = singleBlockInitialModelRecord_initial.faradayCount();
-        countOfPhotoMultipliers = 1;
-        countOfTotalModelParameters = countOfLogRatios + countOfIntensities + countOfFaradays + countOfPhotoMultipliers;
+        initializeModelDimensions(singleBlockInitialModelRecord_initial);
 
         double[] xx0 = new double[countOfTotalModelParameters];
         int[] xInd = new int[countOfTotalModelParameters];
@@ -254,6 +271,41 @@ public class SingleBlockModelUpdater {
         return new UpdatedCovariancesRecord(updated_xCovM.getArray(), xMean);
     }
 
+    /**
+     * Same update as <code>updateMeanCovMS2</code>, applied in place to the running mean and covariance so the
+     * MCMC inner loop does not allocate. The arithmetic is ordered as in the Jama version to give identical results.
+     *
+     * @param xx                      flat model vector
+     * @param dataModelCov            running covariance, updated in place
+     * @param dataModelMean           running mean, updated in place
+     * @param countOfModels           iteration count m
+     * @param diffWithMeanScratch     scratch of length xx.length
+     * @param diffWithMeanTempScratch scratch of length xx.length
+     */
+    void updateMeanCovInPlace(
+            double[] xx,
+            double[][] dataModelCov,
+            double[] dataModelMean,
+            long countOfModels,
+            double[] diffWithMeanScratch,
+            double[] diffWithMeanTempScratch) {
+        for (int row = 0; row < dataModelMean.length; row++) {
+            diffWithMeanTempScratch[row] = xx[row] - dataModelMean[row];
+            dataModelMean[row] = dataModelMean[row] + diffWithMeanTempScratch[row] / countOfModels;
+            diffWithMeanScratch[row] = xx[row] - dataModelMean[row];
+        }
+
+        double countMinusOneOverCount = ((countOfModels - 1.0) / countOfModels);
+        double countMinusOneOverSquareCount = (countOfModels - 1.0) / Math.pow(countOfModels, 2.0);
+        for (int row = 0; row < dataModelCov.length; row++) {
+            double scaledDiff = diffWithMeanScratch[row] * countMinusOneOverSquareCount;
+            double[] covRow = dataModelCov[row];
+            for (int col = 0; col < covRow.length; col++) {
+                covRow[col] = covRow[col] * countMinusOneOverCount + scaledDiff * diffWithMeanTempScratch[col];
+            }
+        }
+    }
+
     synchronized double grConverge(List<EnsemblesStore.EnsembleRecord> ensembleRecordsList) {
         /*
         function Rexit = GRConverge(x,ensemble);
@@ -271,75 +323,18 @@ public class SingleBlockModelUpdater {
             xall = [xall; [ensemble.DFgain]];
             xall = xall';
          */
-        int countOfEnsembles = ensembleRecordsList.size();
-        double[][] xAll = new double[countOfEnsembles][countOfTotalModelParameters];
-        int ensIndex = 0;
+        // the MCMC loop keeps its own GelmanRubinMonitor; this form rebuilds one from a finished ensemble
+        GelmanRubinMonitor gelmanRubinMonitor = new GelmanRubinMonitor(EnsembleColumns.of(ensembleRecordsList));
+        double[] xx = new double[countOfTotalModelParameters];
         for (EnsemblesStore.EnsembleRecord ens : ensembleRecordsList) {
-            System.arraycopy(ens.logRatios(), 0, xAll[ensIndex], 0, countOfLogRatios);
-            System.arraycopy(ens.I0(), 0, xAll[ensIndex], countOfLogRatios, countOfIntensities);
-            System.arraycopy(ens.baseLine(), 0, xAll[ensIndex], countOfLogRatios + countOfIntensities, countOfFaradays);
-            xAll[ensIndex][countOfTotalModelParameters - 1] = ens.dfGain();
-            ensIndex++;
-        }
-
-    /*
-        ngroup = round(sqrt(cnt));
-        gsize = round(sqrt(cnt));
-        for jj = 1:ngroup % Iterate over ngroups groups of size gsize
-            tmpxs(:,:,jj) = cov(xall(1+(jj-1)*gsize:jj*gsize,:));
-            tmpxm(:,jj) = mean(xall(1+(jj-1)*gsize:jj*gsize,:));
-        end
-        MeanofVar = sum(tmpxs(:,:,1:ngroup),3)/ngroup; % Mean of variances
-        VarofMean = diag(std(tmpxm(:,1:ngroup),[],2).^2); % Variance of means
-
-        %Rexit(ngroup) = sqrt((ngroup-1)/ngroup+(det(VarofMean)/det(MeanofVar))^(1/N)/ngroup);
-        Rexit = sqrt((ngroup-1)/ngroup+(det(VarofMean)/det(MeanofVar))^(1/Nmod)/ngroup);
-     */
-
-        int nGroup = (int) Math.round(Math.sqrt(countOfEnsembles));
-        int groupSize = (int) Math.round(Math.sqrt(countOfEnsembles));
-
-        double[][] extractedArray = new double[groupSize][countOfTotalModelParameters];
-        double[][] meanOfVarArray = new double[countOfTotalModelParameters][countOfTotalModelParameters];
-        double[][] meansOverGroups = new double[countOfTotalModelParameters][groupSize];
-        double[][] varOfMeansArray = new double[countOfTotalModelParameters][countOfTotalModelParameters];
-
-        for (int groupIndex = 0; groupIndex < nGroup; groupIndex++) {
-            if ((groupIndex + 1) * groupSize - groupIndex * groupSize >= 0)
-                System.arraycopy(xAll, groupIndex * groupSize, extractedArray, groupIndex * groupSize - groupIndex * groupSize, (groupIndex + 1) * groupSize - groupIndex * groupSize);
-
-            Covariance cov = new Covariance(extractedArray);
-            double[][] covArray = cov.getCovarianceMatrix().getData();
-            for (int row = 0; row < countOfTotalModelParameters; row++) {
-                for (int col = 0; col < countOfTotalModelParameters; col++) {
-                    meanOfVarArray[row][col] += covArray[row][col] / nGroup;
-                }
-            }
-
-            for (int row = 0; row < countOfTotalModelParameters; row++) {
-                for (int col = 0; col < groupSize; col++) {
-                    meansOverGroups[row][col] += extractedArray[col][row] / nGroup;
-                }
-            }
+            System.arraycopy(ens.logRatios(), 0, xx, 0, countOfLogRatios);
+            System.arraycopy(ens.I0(), 0, xx, countOfLogRatios, countOfIntensities);
+            System.arraycopy(ens.baseLine(), 0, xx, countOfLogRatios + countOfIntensities, countOfFaradays);
+            xx[countOfTotalModelParameters - 1] = ens.dfGain();
+            gelmanRubinMonitor.append(xx);
         }
 
-        for (int row = 0; row < countOfTotalModelParameters; row++) {
-            DescriptiveStatistics descriptiveStatisticsParametersPerGroups = new DescriptiveStatistics();
-            for (int col = 0; col < groupSize; col++) {
-                descriptiveStatisticsParametersPerGroups.addValue(meansOverGroups[row][col]);
-            }
-            varOfMeansArray[row][row] = descriptiveStatisticsParametersPerGroups.getStandardDeviation();
-        }
-
-        //Rexit = sqrt(   (ngroup-1)/ngroup + (det(VarofMean)/det(MeanofVar))^(1/Nmod)/ngroup   );
-        Matrix varOfMeansM = new Matrix(varOfMeansArray);
-        Matrix meanOfVarM = new Matrix(meanOfVarArray);
-
-        double term1 = (nGroup - 1.0) / nGroup;
-        double term2 = varOfMeansM.det() / meanOfVarM.det();
-        double rExit = StrictMath.sqrt(term1 + StrictMath.pow(term2, 1.0 / countOfTotalModelParameters) / nGroup);
-
-        return rExit;
+        return gelmanRubinMonitor.rExit();
     }
 
     public List<String> getOperations() {
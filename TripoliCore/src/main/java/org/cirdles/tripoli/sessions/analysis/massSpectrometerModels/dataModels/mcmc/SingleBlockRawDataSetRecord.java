@@ -23,6 +23,11 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * The knot interpolation matrix is held only as a sparse <code>KnotInterpolationOperator</code>. The dense
+ * <code>blockKnotInterpolationArray</code> component remains only so that sessions saved before the operator existed
+ * can be read: a dense matrix passed to the constructor is converted and released, so the component is always null.
+ * Callers that need the dense matrix ask for a copy with <code>denseKnotInterpolationArray()</code>.
+ *
  * @author James F. Bowring
  */
 public record SingleBlockRawDataSetRecord(
@@ -40,8 +45,52 @@ public record SingleBlockRawDataSetRecord(
         int[] blockTimeIndicesArray,
         int[] onPeakStartingIndicesOfCycles,
         Map<SpeciesRecordInterface, boolean[]> mapOfSpeciesToActiveCycles,
-        Map<String, List<Double>> blockMapIdsToDataTimes
+        Map<String, List<Double>> blockMapIdsToDataTimes,
+        KnotInterpolationOperator blockKnotInterpolationOperator
 ) implements Serializable {
+
+    public SingleBlockRawDataSetRecord {
+        if ((null == blockKnotInterpolationOperator) && (null != blockKnotInterpolationArray)) {
+            blockKnotInterpolationOperator = KnotInterpolationOperator.fromDense(blockKnotInterpolationArray);
+        }
+        blockKnotInterpolationArray = null;
+    }
+
+    public SingleBlockRawDataSetRecord(
+            int blockID,
+            SingleBlockRawDataRecord baselineDataSetMCMC,
+            SingleBlockRawDataRecord onPeakFaradayDataSetMCMC,
+            SingleBlockRawDataRecord onPeakPhotoMultiplierDataSetMCMC,
+            double[][] blockKnotInterpolationArray,
+            double[] blockTimeArray,
+            int[] blockCycleArray,
+            double[] blockRawDataArray,
+            boolean[] blockIncludedIntensitiesArray,
+            int[] blockDetectorOrdinalIndicesArray,
+            int[] blockIsotopeOrdinalIndicesArray,
+            int[] blockTimeIndicesArray,
+            int[] onPeakStartingIndicesOfCycles,
+            Map<SpeciesRecordInterface, boolean[]> mapOfSpeciesToActiveCycles,
+            Map<String, List<Double>> blockMapIdsToDataTimes) {
+        this(blockID, baselineDataSetMCMC, onPeakFaradayDataSetMCMC, onPeakPhotoMultiplierDataSetMCMC, blockKnotInterpolationArray,
+                blockTimeArray, blockCycleArray, blockRawDataArray, blockIncludedIntensitiesArray, blockDetectorOrdinalIndicesArray,
+                blockIsotopeOrdinalIndicesArray, blockTimeIndicesArray, onPeakStartingIndicesOfCycles, mapOfSpeciesToActiveCycles,
+                blockMapIdsToDataTimes, null);
+    }
+
+    /**
+     * Dense copy for the least-squares initializers; the forward model uses
+     * <code>blockKnotInterpolationOperator()</code> directly.
+     *
+     * @return a new dense II, built on each call
+     */
+    public double[][] denseKnotInterpolationArray() {
+        return blockKnotInterpolationOperator.toDense();
+    }
+
+    public int getCountOfKnots() {
+        return blockKnotInterpolationOperator.columnCount();
+    }
     public int getCountOfBaselineIntensities() {
         return baselineDataSetMCMC().intensityAccumulatorList().size();
     }
@@ -173,7 +173,7 @@ public enum SingleBlockModelInitForMCMC {
             cyclesSortedArray[i] = cyclesArray[ddSortIndices[i]];
         }
 
-        double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord.blockKnotInterpolationArray();
+        double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord.denseKnotInterpolationArray();
         RealMatrix II = new BlockRealMatrix(interpolatedKnotData_II);
         DecompositionSolver solver = new QRDecomposition(II).getSolver();
         RealVector data = new ArrayRealVector(ddSortedArray);
@@ -681,7 +681,7 @@ public enum SingleBlockModelInitForMCMC {
         return new SingleBlockModelRecordWithCov(calculatedX0, proposalRangesRecord, covarianceMatrix_C0);
     }
 
-    private static synchronized double calculateDFGain(int iden, double[] baselineMeansArray, Map<Integer, Integer> mapDetectorOrdinalToFaradayIndex, SingleBlockRawDataSetRecord singleBlockRawDataSetRecord) {
+    private static double calculateDFGain(int iden, double[] baselineMeansArray, Map<Integer, Integer> mapDetectorOrdinalToFaradayIndex, SingleBlockRawDataSetRecord singleBlockRawDataSetRecord) {
         // new DFGain calculator
         /*
         %x0.DFgain = user_DFgain;  %sb629 Now going to set according to data(?)
@@ -760,7 +760,7 @@ public enum SingleBlockModelInitForMCMC {
         Arrays.sort(ddSortIndices, comparatorTime);
 
         double[] ddSortedArray = new double[ddNoPMArray.length];
-        double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord.blockKnotInterpolationArray();
+        double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord.denseKnotInterpolationArray();
         List<double[]> IIFar = new ArrayList<>();
         List<double[]> IIPM = new ArrayList<>();
         List<Double> dataFar = new ArrayList<>();
@@ -811,7 +811,7 @@ public enum SingleBlockModelInitForMCMC {
 
     }
 
-    public synchronized static double[] modelInitData(SingleBlockModelRecord singleBlockModelRecord_x, SingleBlockRawDataSetRecord singleBlockRawDataSetRecord_d0) {
+    public static double[] modelInitData(SingleBlockModelRecord singleBlockModelRecord_x, SingleBlockRawDataSetRecord singleBlockRawDataSetRecord_d0) {
         int baselineCount = singleBlockRawDataSetRecord_d0.baselineDataSetMCMC().intensityAccumulatorList().size();
         int onPeakFaradayCount = singleBlockRawDataSetRecord_d0.onPeakFaradayDataSetMCMC().intensityAccumulatorList().size();
         int onPeakPhotoMultCount = singleBlockRawDataSetRecord_d0.onPeakPhotoMultiplierDataSetMCMC().intensityAccumulatorList().size();
@@ -820,10 +820,7 @@ public enum SingleBlockModelInitForMCMC {
         int[] isotopeOrdinalIndicesArray = singleBlockRawDataSetRecord_d0.blockIsotopeOrdinalIndicesArray();
         int[] timeIndForSortingArray = singleBlockRawDataSetRecord_d0.blockTimeIndicesArray();
 
-        double[][] interpolatedKnotData_II = singleBlockRawDataSetRecord_d0.blockKnotInterpolationArray();
-        Matrix II = new Matrix(interpolatedKnotData_II);
-        Matrix I = new Matrix(singleBlockModelRecord_x.I0(), singleBlockModelRecord_x.I0().length);
-        Matrix intensityFn = II.times(I);
+        double[] intensityFn = singleBlockRawDataSetRecord_d0.blockKnotInterpolationOperator().multiply(singleBlockModelRecord_x.I0());
 
         double[] dataModel = new double[totalIntensityCount];
         int[] detectorOrdinalIndicesAccumulatorArray = singleBlockRawDataSetRecord_d0.blockDetectorOrdinalIndicesArray();
@@ -841,21 +838,21 @@ public enum SingleBlockModelInitForMCMC {
                     dataModel[dataArrayIndex] =
                             (StrictMath.exp(singleBlockModelRecord_x.logRatios()[isotopeIndex])
                                     * (1.0 / singleBlockModelRecord_x.detectorFaradayGain())
-                                    * intensityFn.get(intensityIndex, 0))
+                                    * intensityFn[intensityIndex])
                                     + singleBlockModelRecord_x.baselineMeansArray()[faradayIndex];
                 } else {
                     dataModel[dataArrayIndex] =
-                            (1.0 / singleBlockModelRecord_x.detectorFaradayGain()) * intensityFn.get(intensityIndex, 0)
+                            (1.0 / singleBlockModelRecord_x.detectorFaradayGain()) * intensityFn[intensityIndex]
                                     + singleBlockModelRecord_x.baselineMeansArray()[faradayIndex];
                 }
             } else {
                 if (isotopeIndex < singleBlockModelRecord_x.logRatios().length) {
                     dataModel[dataArrayIndex] =
                             StrictMath.exp(singleBlockModelRecord_x.logRatios()[isotopeIndex])
-                                    * intensityFn.get(intensityIndex, 0);
+                                    * intensityFn[intensityIndex];
                 } else {
                     dataModel[dataArrayIndex] =
-                            intensityFn.get(intensityIndex, 0);
+                            intensityFn[intensityIndex];
                 }
             }
         }
@@ -863,7 +860,7 @@ public enum SingleBlockModelInitForMCMC {
         return dataModel;
     }
 
-    private synchronized static double calcError(double[] origData, double[] modelData, double[] dataSignalNoiseArray_Dsig) {
+    private static double calcError(double[] origData, double[] modelData, double[] dataSignalNoiseArray_Dsig) {
         double sum = 0.0;
         for (int i = 0; i < origData.length; i++) {
             sum += Math.pow((origData[i] - modelData[i]), 2.0) / dataSignalNoiseArray_Dsig[i];
@@ -871,7 +868,7 @@ public enum SingleBlockModelInitForMCMC {
         return sum;
     }
 
-    private synchronized static double calcVariance(double[] eTmp, double minETmp, double[] testArray) {
+    private static double calcVariance(double[] eTmp, double minETmp, double[] testArray) {
         double[] ee = new double[eTmp.length];
         double sumExpEE = 0.0;
         for (int i = 0; i < ee.length; i++) {
@@ -17,10 +17,9 @@
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
 
 import jama.Matrix;
-import org.apache.commons.math3.random.RandomDataGenerator;
 
 import java.util.Arrays;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 import static java.lang.Math.max;
 import static java.lang.StrictMath.*;
@@ -105,7 +104,8 @@ public enum DataUtilities {
         return new MaxLikelihoodRecord(maxlikModel, maxlikDVar, maxLikeCM);
     }
 
-    static MCMC2ChainRecord initializeChains(MCMC2SetupRecord setup, MCMC2DataRecord data, MaxLikelihoodRecord maxLik) {
+    static MCMC2ChainRecord initializeChains(
+            MCMC2SetupRecord setup, MCMC2DataRecord data, MaxLikelihoodRecord maxLik, RandomGenerator randomGenerator) {
         /*
             function [initModels, initLogLiks] = initializeChains(setup, data, maxlik)
 
@@ -125,14 +125,10 @@ public enum DataUtilities {
          */
         double[][] initModels = new double[setup.modelParameterCount()][setup.chainsCount()];
         double[] initLogLiks = new double[setup.chainsCount()];
-//        UniformRandomProvider rng = RandomSource.XO_RO_SHI_RO_128_PP.create();
-
-        Random ran = new Random();
 
         for (int iChain = 0; iChain < setup.chainsCount(); iChain++) {
             for (int iParameter = 0; iParameter < setup.modelParameterCount(); iParameter++) {
-//                double random = rng.nextDouble(-setup.modelParameterCount(), setup.modelParameterCount());
-                double nextGaussian = ran.nextGaussian();
+                double nextGaussian = randomGenerator.nextGaussian();
                 initModels[iParameter][iChain]
                         = maxLik.model().parameters()[iParameter]
                         + setup.pertubation() * nextGaussian
@@ -371,28 +367,22 @@ end % updateDataCovariance
 
      */
 
-    static MetropolisHastingsRecord metropolisHastings(int iChain, double[] modelInitial, double llInitial, MCMC2DataRecord data, MCMC2SetupRecord setup) {
+    /**
+     * Runs one chain and writes its saved models into the chain's slab of the shared buffer.
+     */
+    static void metropolisHastings(
+            int iChain, double[] modelInitial, double llInitial, MCMC2DataRecord data, MCMC2SetupRecord setup,
+            RandomGenerator randomGenerator, MCMC2ChainBuffer chainBuffer) {
         double[] modelCurrent = modelInitial.clone();
         double llCurrent = llInitial;
 
-        double[][] outputModels = new double[setup.modelParameterCount()][setup.MCMCTrialsCount() / setup.seive()];
-        for (int i = 0; i < setup.modelParameterCount(); i++) {
-            Arrays.fill(outputModels[i], Double.NaN);
-        }
-        double[] outputLogLiks = new double[setup.MCMCTrialsCount() / setup.seive()];
-        Arrays.fill(outputLogLiks, Double.NaN);
-
-        RandomDataGenerator randomDataGenerator = new RandomDataGenerator();
-        randomDataGenerator.reSeedSecure();
-
         for (int iMC = 1; iMC < setup.MCMCTrialsCount() + 1; iMC++) {
             if (0 == iMC % setup.seive()) {
                 int outputIndex = iMC / setup.seive();
-                outputModels = writeColumn(modelCurrent, outputModels, outputIndex - 1);
-                outputLogLiks[outputIndex - 1] = llCurrent;
+                chainBuffer.writeModel(iChain, outputIndex - 1, modelCurrent, llCurrent);
             }
 
-            double[] modelRandom = mvnrndTripoli(new double[setup.modelParameterCount()], setup.proposalCovariance(), 1).getRowPackedCopy();
+            double[] modelRandom = mvnrndTripoli(new double[setup.modelParameterCount()], setup.proposalCovariance(), 1, randomGenerator).getRowPackedCopy();
             double[] modelProposed = new double[setup.modelParameterCount()];
             for (int i = 0; i < setup.modelParameterCount(); i++) {
                 modelProposed[i] = modelCurrent[i] + modelRandom[i];
@@ -404,13 +394,12 @@ end % updateDataCovariance
             double delta_ll = llProposed - llCurrent;
             double keep = min(1, exp(delta_ll));
 
-            if (keep >= randomDataGenerator.nextUniform(0, 1)) {
+            if (keep >= randomGenerator.nextDouble()) {
                 modelCurrent = modelProposed;
                 llCurrent = llProposed;
             }
         }
 
-        return new MetropolisHastingsRecord(outputModels, outputLogLiks);
         /*
         for iMC = 1:setup.nMC
             % save off current model
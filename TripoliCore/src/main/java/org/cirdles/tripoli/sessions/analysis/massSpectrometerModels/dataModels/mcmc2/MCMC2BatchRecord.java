@@ -16,8 +16,12 @@
 
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
 
-public record MetropolisHastingsRecord(
-        double[][] outputModels,
-        double[] outputLogLiks
+/**
+ * @param simulationResults    one result per simulation, indexed by simulationIndex
+ * @param lastSimulationChains the saved models of the last simulation, kept for plotting
+ */
+public record MCMC2BatchRecord(
+        MCMC2ResultsRecord[] simulationResults,
+        MCMC2ChainBuffer lastSimulationChains
 ) {
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
+
+import java.util.Arrays;
+
+/**
+ * Saved models of all chains of one MCMC2 simulation in a single chain-major primitive buffer.
+ * <p>
+ * Models are laid out [chain][saved model][parameter], so each chain writes one contiguous slab and each saved model
+ * is contiguous within it. Chains running concurrently never share a slab. Unwritten entries are NaN, as in the
+ * MATLAB <code>modelChains</code> and <code>loglikChains</code> arrays.
+ *
+ * @author James F. Bowring
+ */
+public final class MCMC2ChainBuffer {
+
+    private final int chainsCount;
+    private final int savedModelCount;
+    private final int modelParameterCount;
+    private final double[] models;
+    private final double[] logLiks;
+
+    MCMC2ChainBuffer(int chainsCount, int savedModelCount, int modelParameterCount) {
+        this.chainsCount = chainsCount;
+        this.savedModelCount = savedModelCount;
+        this.modelParameterCount = modelParameterCount;
+        models = new double[chainsCount * savedModelCount * modelParameterCount];
+        logLiks = new double[chainsCount * savedModelCount];
+        Arrays.fill(models, Double.NaN);
+        Arrays.fill(logLiks, Double.NaN);
+    }
+
+    /**
+     * outputModels(:, outputIndex) = modelCurrent; outputLogLiks(outputIndex) = llCurrent;
+     */
+    void writeModel(int chainIndex, int savedIndex, double[] model, double logLik) {
+        System.arraycopy(model, 0, models, (chainIndex * savedModelCount + savedIndex) * modelParameterCount, modelParameterCount);
+        logLiks[chainIndex * savedModelCount + savedIndex] = logLik;
+    }
+
+    public int getChainsCount() {
+        return chainsCount;
+    }
+
+    public int getSavedModelCount() {
+        return savedModelCount;
+    }
+
+    public int getModelParameterCount() {
+        return modelParameterCount;
+    }
+
+    public double getModelParameter(int chainIndex, int savedIndex, int parameterIndex) {
+        return models[(chainIndex * savedModelCount + savedIndex) * modelParameterCount + parameterIndex];
+    }
+
+    public double getLogLik(int chainIndex, int savedIndex) {
+        return logLiks[chainIndex * savedModelCount + savedIndex];
+    }
+
+    /**
+     * One row of mAll = reshape(postBurnInChains, [setup.nmodel, setup.nPostBurnIn*setup.nChains]).
+     *
+     * @param parameterIndex model parameter
+     * @param burnIn         saved models discarded from the start of each chain
+     * @return the parameter's post-burn-in samples, chain after chain
+     */
+    public double[] extractPostBurnInParameter(int parameterIndex, int burnIn) {
+        int postBurnInCount = savedModelCount - burnIn;
+        double[] samples = new double[postBurnInCount * chainsCount];
+        for (int chainIndex = 0; chainIndex < chainsCount; chainIndex++) {
+            for (int savedIndex = burnIn; savedIndex < savedModelCount; savedIndex++) {
+                samples[chainIndex * postBurnInCount + savedIndex - burnIn] = getModelParameter(chainIndex, savedIndex, parameterIndex);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * result(iSim).modelMean = mean(mAll,2);
+     *
+     * @param burnIn saved models discarded from the start of each chain
+     * @return mean of each parameter over the pooled post-burn-in models
+     */
+    public double[] postBurnInMeans(int burnIn) {
+        double[] sums = new double[modelParameterCount];
+        for (int chainIndex = 0; chainIndex < chainsCount; chainIndex++) {
+            for (int savedIndex = burnIn; savedIndex < savedModelCount; savedIndex++) {
+                int offset = (chainIndex * savedModelCount + savedIndex) * modelParameterCount;
+                for (int parameterIndex = 0; parameterIndex < modelParameterCount; parameterIndex++) {
+                    sums[parameterIndex] += models[offset + parameterIndex];
+                }
+            }
+        }
+        int count = (savedModelCount - burnIn) * chainsCount;
+        for (int parameterIndex = 0; parameterIndex < modelParameterCount; parameterIndex++) {
+            sums[parameterIndex] /= count;
+        }
+        return sums;
+    }
+
+    /**
+     * result(iSim).modelCov = cov(mAll');
+     *
+     * @param burnIn saved models discarded from the start of each chain
+     * @param means  from <code>postBurnInMeans</code>
+     * @return sample covariance of the pooled post-burn-in models
+     */
+    public double[][] postBurnInCovariance(int burnIn, double[] means) {
+        double[][] covariance = new double[modelParameterCount][modelParameterCount];
+        double[] diff = new double[modelParameterCount];
+        for (int chainIndex = 0; chainIndex < chainsCount; chainIndex++) {
+            for (int savedIndex = burnIn; savedIndex < savedModelCount; savedIndex++) {
+                int offset = (chainIndex * savedModelCount + savedIndex) * modelParameterCount;
+                for (int parameterIndex = 0; parameterIndex < modelParameterCount; parameterIndex++) {
+                    diff[parameterIndex] = models[offset + parameterIndex] - means[parameterIndex];
+                }
+                for (int row = 0; row < modelParameterCount; row++) {
+                    for (int col = 0; col <= row; col++) {
+                        covariance[row][col] += diff[row] * diff[col];
+                    }
+                }
+            }
+        }
+        int count = (savedModelCount - burnIn) * chainsCount;
+        for (int row = 0; row < modelParameterCount; row++) {
+            for (int col = 0; col <= row; col++) {
+                covariance[row][col] /= (count - 1.0);
+                covariance[col][row] = covariance[row][col];
+            }
+        }
+        return covariance;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
+
+import jama.Matrix;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+
+import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2.DataUtilities.*;
+import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2.MathUtilities.extractColumn;
+
+/**
+ * Runs MCMC2 simulations and their chains in parallel, as the MATLAB <code>parfor iChain</code> did.
+ * <p>
+ * Simulations are submitted to a bounded work-stealing pool and each simulation forks its chains into the same pool,
+ * so a batch of hundreds of simulations keeps every worker busy without oversubscribing. Each chain draws from its own
+ * stream keyed by simulation and chain index, so a seeded batch reproduces regardless of scheduling. Chains write
+ * their saved models straight into a chain-major <code>MCMC2ChainBuffer</code>.
+ *
+ * @author James F. Bowring
+ */
+public class MCMC2Runner {
+
+    private final ForkJoinPool simulationPool;
+    private final long userSeed;
+
+    /**
+     * @param parallelism maximum number of chains running at once
+     * @param userSeed    fixed seed for all streams, or MCMC_RANDOM_SEED_UNSEEDED
+     */
+    public MCMC2Runner(int parallelism, long userSeed) {
+        simulationPool = new ForkJoinPool(Math.max(1, parallelism));
+        this.userSeed = userSeed;
+    }
+
+    /**
+     * Runs <code>setup.simulationsCount()</code> simulations on the synthetic data sets 1..simulationsCount.
+     *
+     * @param setup      the MCMC2 setup; its proposal covariance is replaced per simulation
+     * @param truthModel the model used to generate the synthetic data
+     * @return the per-simulation results and the chains of the last simulation
+     * @throws TripoliException if any simulation fails or the wait is interrupted
+     */
+    public MCMC2BatchRecord runSimulations(MCMC2SetupRecord setup, double[] truthModel) throws TripoliException {
+        List<Future<SimulationOutcome>> simulationFutures = new ArrayList<>();
+        for (int simulationIndex = 0; simulationIndex < setup.simulationsCount(); simulationIndex++) {
+            int finalSimulationIndex = simulationIndex;
+            simulationFutures.add(simulationPool.submit(() -> runSimulation(finalSimulationIndex, setup, truthModel)));
+        }
+
+        MCMC2ResultsRecord[] allResults = new MCMC2ResultsRecord[setup.simulationsCount()];
+        MCMC2ChainBuffer lastSimulationChains = null;
+        for (int simulationIndex = 0; simulationIndex < setup.simulationsCount(); simulationIndex++) {
+            try {
+                SimulationOutcome simulationOutcome = simulationFutures.get(simulationIndex).get();
+                allResults[simulationIndex] = simulationOutcome.results();
+                lastSimulationChains = simulationOutcome.chainBuffer();
+            } catch (InterruptedException e) {
+                simulationFutures.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new TripoliException("MCMC2 simulations interrupted", e);
+            } catch (ExecutionException e) {
+                simulationFutures.forEach(future -> future.cancel(true));
+                throw new TripoliException("MCMC2 failed for simulation " + simulationIndex, e.getCause());
+            }
+        }
+        return new MCMC2BatchRecord(allResults, lastSimulationChains);
+    }
+
+    private SimulationOutcome runSimulation(int simulationIndex, MCMC2SetupRecord batchSetup, double[] truthModel) {
+        MCMC2DataRecord mcmc2DataRecord = syntheticData(simulationIndex + 1);
+
+        MaxLikelihoodRecord maxLikelihoodRecord = maxLikelihood(mcmc2DataRecord, batchSetup);
+        MCMC2SetupRecord setup = batchSetup.updateRecordWithCovariance(maxLikelihoodRecord.covarianceMatrix());
+
+        MCMC2ChainRecord mcmc2ChainRecord =
+                initializeChains(setup, mcmc2DataRecord, maxLikelihoodRecord, MCMCRandomStreams.streamFor(userSeed, simulationIndex));
+        double[][] initModels = mcmc2ChainRecord.initModels();
+        double[] initLogLiks = mcmc2ChainRecord.initLogLiks();
+
+        int nSavedModels = setup.MCMCTrialsCount() / setup.seive();
+        MCMC2ChainBuffer chainBuffer = new MCMC2ChainBuffer(setup.chainsCount(), nSavedModels, setup.modelParameterCount());
+
+//        parfor iChain = 1:setup.nChains
+        List<ForkJoinTask<?>> chainTasks = new ArrayList<>();
+        for (int iChain = 0; iChain < setup.chainsCount(); iChain++) {
+            int finalIChain = iChain;
+            chainTasks.add(ForkJoinTask.adapt(() -> metropolisHastings(
+                    finalIChain,
+                    extractColumn(initModels, finalIChain),
+                    initLogLiks[finalIChain],
+                    mcmc2DataRecord,
+                    setup,
+                    MCMCRandomStreams.streamFor(userSeed, simulationIndex, finalIChain),
+                    chainBuffer)));
+        }
+        ForkJoinTask.invokeAll(chainTasks);
+
+        /*
+            % aggregate chains
+                setup.nPostBurnIn = size(postBurnInChains, 2);
+                mAll = reshape(postBurnInChains, [setup.nmodel, setup.nPostBurnIn*setup.nChains]);
+                result(iSim).modelMean = mean(mAll,2);
+                result(iSim).modelCov = cov(mAll');
+
+                % calculate chiSqare with true values
+                result(iSim).r = result(iSim).modelMean - truth.model;
+                result(iSim).ChiSq = result(iSim).r' * inv(result(iSim).modelCov) * result(iSim).r;
+         */
+        double[] modelMeans = chainBuffer.postBurnInMeans(setup.burnIn());
+        double[][] modelCov = chainBuffer.postBurnInCovariance(setup.burnIn(), modelMeans);
+        double[] rArray = new double[setup.modelParameterCount()];
+        for (int i = 0; i < setup.modelParameterCount(); i++) {
+            rArray[i] = modelMeans[i] - truthModel[i];
+        }
+
+        Matrix rMatrix = new Matrix(rArray, rArray.length);
+        double chiSquare = rMatrix.transpose().times(new Matrix(modelCov).inverse()).times(rMatrix).get(0, 0);
+
+        return new SimulationOutcome(new MCMC2ResultsRecord(simulationIndex, modelMeans, modelCov, rArray, chiSquare), chainBuffer);
+    }
+
+    public void shutdown() {
+        simulationPool.shutdown();
+    }
+
+    private record SimulationOutcome(MCMC2ResultsRecord results, MCMC2ChainBuffer chainBuffer) {
+    }
+}
@@ -17,13 +17,12 @@
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
 
 import com.google.common.primitives.Doubles;
-import jama.Matrix;
-import org.apache.commons.math3.stat.correlation.Covariance;
 import org.cirdles.commons.util.ResourceExtractor;
 import org.cirdles.tripoli.Tripoli;
 import org.cirdles.tripoli.plots.PlotBuilder;
 import org.cirdles.tripoli.plots.histograms.HistogramBuilder;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.detectorSetups.Detector;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -33,8 +32,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static java.lang.StrictMath.log;
-import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2.DataUtilities.*;
-import static org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2.MathUtilities.extractColumn;
+import static org.cirdles.tripoli.constants.TripoliConstants.MCMC_DEFAULT_BLOCK_PARALLELISM;
+import static org.cirdles.tripoli.constants.TripoliConstants.MCMC_RANDOM_SEED_UNSEEDED;
 
 public enum TestDriver {
     ;
@@ -51,111 +50,23 @@ public enum TestDriver {
                 new double[(int) 1.0e2], null, (int) 2.0e4, 20, 4/*todo: use truth count*/, 8, 10, 10, 50, 0)
                 .initializeIntegrationTimes(1, 1);
 
-        MCMC2ResultsRecord[] allResults = new MCMC2ResultsRecord[setup.simulationsCount()];
-
-        double[][] allModels = new double[0][];
-
-        for (int simulationIndex = 0; simulationIndex < setup.simulationsCount(); simulationIndex++) {
-            // todo: research thread safe time handlers
-//            long startTime = System.nanoTime();
-            long startTime = System.currentTimeMillis();
-            MCMC2DataRecord mcmc2DataRecord = syntheticData(simulationIndex + 1);
-
-            MaxLikelihoodRecord maxLikelihoodRecord = maxLikelihood(mcmc2DataRecord, setup);
-            setup = setup.updateRecordWithCovariance(maxLikelihoodRecord.covarianceMatrix());
-
-            MCMC2ChainRecord mcmc2ChainRecord = initializeChains(setup, mcmc2DataRecord, maxLikelihoodRecord);
-            double[][] initModels = mcmc2ChainRecord.initModels();
-            double[] initLogLiks = mcmc2ChainRecord.initLogLiks();
-
-            int nSavedModels = setup.MCMCTrialsCount() / setup.seive();
-            double[][][] modelChains = new double[setup.modelParameterCount()][nSavedModels][setup.chainsCount()];
-            for (int i = 0; i < setup.modelParameterCount(); i++) {
-                for (int j = 0; j < nSavedModels; j++) {
-                    Arrays.fill(modelChains[i][j], Double.NaN);
-                }
-            }
-            double[][] loglikChains = new double[nSavedModels][setup.chainsCount()];
-            for (int j = 0; j < nSavedModels; j++) {
-                Arrays.fill(loglikChains[j], Double.NaN);
-            }
-
-//        parfor iChain = 1:setup.nChains
-            double[][] outputModels = null;
-            double[] outputLogLiks = null;
-
-            for (int iChain = 0; iChain < setup.chainsCount(); iChain++) {
-                MetropolisHastingsRecord metropolisHastingsRecord = metropolisHastings(
-                        iChain,
-                        extractColumn(initModels, iChain),
-                        initLogLiks[iChain],
-                        mcmc2DataRecord,
-                        setup);
-
-                outputModels = metropolisHastingsRecord.outputModels();
-                outputLogLiks = metropolisHastingsRecord.outputLogLiks();
-
-                for (int i = 0; i < setup.modelParameterCount(); i++) {
-                    for (int j = 0; j < nSavedModels; j++) {
-                        modelChains[i][j][iChain] = outputModels[i][j];
-                        loglikChains[j][iChain] = outputLogLiks[j];
-                    }
-                }
-            } // iChain
-
-            double[][][] postBurnInChains = new double[setup.modelParameterCount()][modelChains[0].length - setup.burnIn()][setup.chainsCount()];
-            for (int i = 0; i < setup.modelParameterCount(); i++) {
-                for (int j = 0; j < nSavedModels - setup.burnIn(); j++) {
-                    for (int k = 0; k < setup.chainsCount(); k++) {
-                        postBurnInChains[i][j][k] = modelChains[i][j + setup.burnIn()][k];
-                    }
-                }
-            }
-
-            /*
-                % aggregate chains
-                    setup.nPostBurnIn = size(postBurnInChains, 2);
-                    mAll = reshape(postBurnInChains, [setup.nmodel, setup.nPostBurnIn*setup.nChains]);
-                    result(iSim).modelMean = mean(mAll,2);
-                    result(iSim).modelCov = cov(mAll');
-
-                    % calculate chiSqare with true values
-                    result(iSim).r = result(iSim).modelMean - truth.model;
-                    result(iSim).ChiSq = result(iSim).r' * inv(result(iSim).modelCov) * result(iSim).r;
-             */
-
-            setup = setup.updateRecordWithPostBurnIn(nSavedModels - setup.burnIn());
-            allModels = new double[setup.modelParameterCount()][setup.postBurnInCount() * setup.chainsCount()];
-            double[] sums = new double[setup.modelParameterCount()];
-            for (int i = 0; i < setup.modelParameterCount(); i++) {
-                for (int j = 0; j < setup.postBurnInCount(); j++) {
-                    for (int k = 0; k < setup.chainsCount(); k++) {
-                        allModels[i][j + k * setup.postBurnInCount()] = postBurnInChains[i][j][k];
-                        sums[i] += postBurnInChains[i][j][k];
-                    }
-                }
-            }
-            double[] modelMeans = new double[setup.modelParameterCount()];
-            double[] rArray = new double[setup.modelParameterCount()];
-            for (int i = 0; i < setup.modelParameterCount(); i++) {
-                modelMeans[i] = sums[i] / (setup.postBurnInCount() * setup.chainsCount());
-                rArray[i] = modelMeans[i] - truthModel[i];
-            }
-
-            // todo: review this
-            Matrix allModelsTranspose = new Matrix(allModels).transpose();
-            double[][] modelCov = (new Covariance(allModelsTranspose.getArray())).getCovarianceMatrix().getData();
-
-            Matrix modelCovMatrix = new Matrix(modelCov);
-            Matrix rMatrix = new Matrix(rArray, rArray.length);
-            double chiSquare = rMatrix.transpose().times(modelCovMatrix.inverse()).times(rMatrix).get(0, 0);
-
-            allResults[simulationIndex] = new MCMC2ResultsRecord(simulationIndex, modelMeans, modelCov, rArray, chiSquare);
+        MCMC2Runner mcmc2Runner = new MCMC2Runner(MCMC_DEFAULT_BLOCK_PARALLELISM, MCMC_RANDOM_SEED_UNSEEDED);
+        MCMC2BatchRecord mcmc2BatchRecord;
+        try {
+            mcmc2BatchRecord = mcmc2Runner.runSimulations(setup, truthModel);
+        } catch (TripoliException e) {
+            e.printStackTrace();
+            return new PlotBuilder[0];
+        } finally {
+            mcmc2Runner.shutdown();
+        }
 
-            if ((1 + simulationIndex) % 10 == 0) {
-                System.out.println("simulation " + simulationIndex + "   millisecs: " + (System.currentTimeMillis() - startTime));//              ((System.nanoTime() - startTime) / 1000000000));
-            }
-        } // simulationIndex
+        // histograms of the pooled post-burn-in models of the last simulation
+        MCMC2ChainBuffer lastSimulationChains = mcmc2BatchRecord.lastSimulationChains();
+        double[][] allModels = new double[setup.modelParameterCount()][];
+        for (int i = 0; i < setup.modelParameterCount(); i++) {
+            allModels[i] = lastSimulationChains.extractPostBurnInParameter(i, setup.burnIn());
+        }
 
         PlotBuilder histogramBuilderA = HistogramBuilder.initializeHistogram(1, allModels[0],
                 100, new String[]{"IsoA"}, "Counts", "Frequency", true);
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a delimited text data file once, front to back, through a buffered file channel.
+ * <p>
+ * The current line and its fields are exposed as byte ranges into the read buffer, so data rows are tokenized and
+ * their numbers parsed without creating a <code>String</code> per line or per field. Fields follow
+ * <code>String.split</code> with a single-character delimiter (trailing empty fields are dropped) and numbers parse
+ * exactly as <code>Integer.parseInt</code> and <code>Double.parseDouble</code> of the trimmed field, so streaming
+ * parsers return the same values the line-list parsers did. Lines end at LF with any preceding CR removed.
+ * <p>
+ * Line and field accessors are only valid until the next call to <code>nextLine</code>.
+ *
+ * @author James F. Bowring
+ */
+public final class DelimitedLineReader implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private static final int STRING_POOL_SIZE = 256;
+    // doubles represent every integer up to 2^53 and every power of ten up to 10^22 exactly
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final FileChannel fileChannel;
+    private final Charset charset;
+    private final String[] stringPool = new String[STRING_POOL_SIZE];
+    private byte[] buffer;
+    private int dataEnd;
+    private int nextLineStart;
+    private int scannedTo;
+    private boolean endOfInput;
+    private boolean bufferHoldsFileStart = true;
+
+    private int lineStart;
+    private int lineEnd;
+    private long lineIndex = -1;
+
+    private int[] fieldStarts = new int[64];
+    private int[] fieldEnds = new int[64];
+    private int fieldCount;
+
+    public DelimitedLineReader(Path dataFilePath) throws IOException {
+        this(dataFilePath, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    DelimitedLineReader(Path dataFilePath, Charset charset, int bufferSize) throws IOException {
+        fileChannel = FileChannel.open(dataFilePath, StandardOpenOption.READ);
+        this.charset = charset;
+        buffer = new byte[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * @return false at end of file, otherwise the next line becomes current
+     * @throws IOException on read failure
+     */
+    public boolean nextLine() throws IOException {
+        while (true) {
+            for (int i = scannedTo; i < dataEnd; i++) {
+                if ('\n' == buffer[i]) {
+                    setLine(nextLineStart, i);
+                    nextLineStart = i + 1;
+                    scannedTo = nextLineStart;
+                    return true;
+                }
+            }
+            scannedTo = dataEnd;
+            if (endOfInput) {
+                if (nextLineStart < dataEnd) {
+                    setLine(nextLineStart, dataEnd);
+                    nextLineStart = dataEnd;
+                    scannedTo = dataEnd;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = ((end > start) && ('\r' == buffer[end - 1])) ? end - 1 : end;
+        lineIndex++;
+        fieldCount = -1;
+    }
+
+    private void fill() throws IOException {
+        // keep the partial line, growing the buffer when a single line fills it
+        int partialLength = dataEnd - nextLineStart;
+        if ((0 == nextLineStart) && (dataEnd == buffer.length)) {
+            byte[] grownBuffer = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grownBuffer, 0, partialLength);
+            buffer = grownBuffer;
+        } else if (0 < nextLineStart) {
+            System.arraycopy(buffer, nextLineStart, buffer, 0, partialLength);
+            bufferHoldsFileStart = false;
+        }
+        scannedTo -= nextLineStart;
+        nextLineStart = 0;
+        dataEnd = partialLength;
+
+        int bytesRead = fileChannel.read(ByteBuffer.wrap(buffer, dataEnd, buffer.length - dataEnd));
+        if (0 > bytesRead) {
+            endOfInput = true;
+        } else {
+            dataEnd += bytesRead;
+        }
+    }
+
+    /**
+     * Returns to before the first line, so a parser can start over on a reader that has already sniffed the file
+     * header. A header prefix still in the read buffer is replayed without further I/O.
+     *
+     * @throws IOException on repositioning failure
+     */
+    public void rewind() throws IOException {
+        if (!bufferHoldsFileStart) {
+            fileChannel.position(0);
+            dataEnd = 0;
+            endOfInput = false;
+            bufferHoldsFileStart = true;
+        }
+        nextLineStart = 0;
+        scannedTo = 0;
+        lineStart = 0;
+        lineEnd = 0;
+        lineIndex = -1;
+        fieldCount = -1;
+    }
+
+    /**
+     * @return zero-based index of the current line in the file, counting blank lines
+     */
+    public long getLineIndex() {
+        return lineIndex;
+    }
+
+    public boolean isBlankLine() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (' ' < (buffer[i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param asciiPrefix marker such as "#ONPEAK"
+     * @return true if the current line starts with the prefix
+     */
+    public boolean lineStartsWith(String asciiPrefix) {
+        if (lineEnd - lineStart < asciiPrefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < asciiPrefix.length(); i++) {
+            if (buffer[lineStart + i] != (byte) asciiPrefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String lineAsString() {
+        return new String(buffer, lineStart, lineEnd - lineStart, charset);
+    }
+
+    /**
+     * Splits the current line into fields as <code>line.split(delimiter)</code> would.
+     *
+     * @param delimiter single ASCII delimiter
+     * @return the number of fields
+     */
+    public int splitFields(char delimiter) {
+        fieldCount = 0;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if ((i == lineEnd) || (buffer[i] == (byte) delimiter)) {
+                if (fieldCount == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+        // String.split drops trailing empty strings but keeps a lone empty field
+        while ((1 < fieldCount) && (fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1])) {
+            fieldCount--;
+        }
+        if ((1 == fieldCount) && (fieldStarts[0] == fieldEnds[0]) && (lineStart != lineEnd)) {
+            fieldCount = 0;
+        }
+        return fieldCount;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    private int trimmedStart(int fieldIndex) {
+        if ((0 > fieldIndex) || (fieldIndex >= fieldCount)) {
+            throw new ArrayIndexOutOfBoundsException("Field " + fieldIndex + " of " + fieldCount + " on line " + lineIndex);
+        }
+        int start = fieldStarts[fieldIndex];
+        int end = fieldEnds[fieldIndex];
+        while ((start < end) && (' ' >= (buffer[start] & 0xFF))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int fieldIndex) {
+        int start = fieldStarts[fieldIndex];
+        int end = fieldEnds[fieldIndex];
+        while ((end > start) && (' ' >= (buffer[end - 1] & 0xFF))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @param fieldIndex field of the current line
+     * @return the trimmed field; repeated ASCII values such as sequence IDs share one instance
+     */
+    public String fieldAsString(int fieldIndex) {
+        int start = trimmedStart(fieldIndex);
+        int end = Math.max(start, trimmedEnd(fieldIndex));
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            if (0 > buffer[i]) {
+                return new String(buffer, start, end - start, charset);
+            }
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = hash & (STRING_POOL_SIZE - 1);
+        String pooled = stringPool[slot];
+        if ((null != pooled) && (pooled.length() == end - start)) {
+            boolean matches = true;
+            for (int i = 0; matches && (i < end - start); i++) {
+                matches = pooled.charAt(i) == buffer[start + i];
+            }
+            if (matches) {
+                return pooled;
+            }
+        }
+        pooled = new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        stringPool[slot] = pooled;
+        return pooled;
+    }
+
+    /**
+     * @param fieldIndex field of the current line
+     * @return Integer.parseInt of the trimmed field
+     */
+    public int fieldAsInt(int fieldIndex) {
+        int start = trimmedStart(fieldIndex);
+        int end = trimmedEnd(fieldIndex);
+        boolean negative = (start < end) && ('-' == buffer[start]);
+        int digitStart = ((start < end) && (negative || ('+' == buffer[start]))) ? start + 1 : start;
+        // nine digits cannot overflow an int
+        if ((digitStart < end) && (9 >= end - digitStart)) {
+            int value = 0;
+            int i = digitStart;
+            while ((i < end) && ('0' <= buffer[i]) && ('9' >= buffer[i])) {
+                value = value * 10 + (buffer[i] - '0');
+                i++;
+            }
+            if (i == end) {
+                return negative ? -value : value;
+            }
+        }
+        return Integer.parseInt(fieldAsString(fieldIndex));
+    }
+
+    /**
+     * @param fieldIndex field of the current line
+     * @return Double.parseDouble of the field
+     */
+    public double fieldAsDouble(int fieldIndex) {
+        int start = trimmedStart(fieldIndex);
+        int end = trimmedEnd(fieldIndex);
+        double value = parsePlainDecimal(buffer, start, end);
+        return Double.isNaN(value) ? parseDoubleSlowly(start, end) : value;
+    }
+
+    /**
+     * Plain decimals whose significand and power of ten are both exact doubles are computed with a single correctly
+     * rounded multiply or divide, which is the value <code>Double.parseDouble</code> returns.
+     *
+     * @param bytes ASCII text
+     * @param start first byte of the trimmed number
+     * @param end   end of the trimmed number, exclusive
+     * @return the value, or NaN if the text is not such a plain decimal and must go to <code>Double.parseDouble</code>
+     */
+    static double parsePlainDecimal(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if ((i < end) && (('-' == bytes[i]) || ('+' == bytes[i]))) {
+            negative = '-' == bytes[i];
+            i++;
+        }
+        long significand = 0;
+        int significantDigits = 0;
+        int digitCount = 0;
+        int scale = 0;
+        boolean pastDecimalPoint = false;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (('0' <= b) && ('9' >= b)) {
+                digitCount++;
+                if ((0 < significantDigits) || ('0' != b)) {
+                    significantDigits++;
+                    if (18 < significantDigits) {
+                        return Double.NaN;
+                    }
+                    significand = significand * 10 + (b - '0');
+                }
+                if (pastDecimalPoint) {
+                    scale--;
+                }
+            } else if (('.' == b) && !pastDecimalPoint) {
+                pastDecimalPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (0 == digitCount) {
+            return Double.NaN;
+        }
+        if ((i < end) && (('e' == bytes[i]) || ('E' == bytes[i]))) {
+            i++;
+            boolean negativeExponent = false;
+            if ((i < end) && (('-' == bytes[i]) || ('+' == bytes[i]))) {
+                negativeExponent = '-' == bytes[i];
+                i++;
+            }
+            int exponentStart = i;
+            int exponent = 0;
+            for (; (i < end) && ('0' <= bytes[i]) && ('9' >= bytes[i]); i++) {
+                if (1000 < exponent) {
+                    return Double.NaN;
+                }
+                exponent = exponent * 10 + (bytes[i] - '0');
+            }
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value;
+        if (0 == significand) {
+            value = 0.0;
+        } else if ((MAX_EXACT_MANTISSA >= significand) && (0 <= scale) && (22 >= scale)) {
+            value = significand * EXACT_POWERS_OF_TEN[scale];
+        } else if ((MAX_EXACT_MANTISSA >= significand) && (0 > scale) && (-22 <= scale)) {
+            value = significand / EXACT_POWERS_OF_TEN[-scale];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlowly(int start, int end) {
+        return Double.parseDouble(new String(buffer, start, Math.max(0, end - start), StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
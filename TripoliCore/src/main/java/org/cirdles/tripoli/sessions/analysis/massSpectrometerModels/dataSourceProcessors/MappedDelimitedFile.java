@@ -0,0 +1,295 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+
+/**
+ * A tab-delimited mass spectrometer export held as bytes, shared by the Neptune, Triton and Nu parsers.
+ * <p>
+ * A file of up to <code>MAP_THRESHOLD_BYTES</code> is read onto the heap and its channel closed, so the file is never
+ * held open. A larger file is memory-mapped instead; a mapping cannot be released explicitly and keeps the file open,
+ * and on Windows locked against deletion, until the mapping is garbage collected.
+ * <p>
+ * Loading indexes every line in one scan of the bytes. A parser then walks the lines to read its header and assign
+ * data rows to blocks, touching only the header lines and block-defining fields as strings. The rows of all blocks
+ * are finally parsed in parallel chunks straight into <code>MassSpecOutputBlockRecordLite</code> cycle data. Fields
+ * follow <code>line.split("\t")</code> and every number equals <code>Double.parseDouble</code> of the cleaned field,
+ * so the records match those of the former line-list parsers.
+ *
+ * @author James F. Bowring
+ */
+public final class MappedDelimitedFile {
+
+    static final int ROWS_PER_CHUNK = 512;
+    static final long MAP_THRESHOLD_BYTES = 64L << 20;
+    private static final byte TAB = '\t';
+
+    private final ByteBuffer mappedBytes;
+    private final Charset charset;
+    private int[] lineStarts;
+    private int[] lineEnds;
+    private int lineCount;
+
+    private MappedDelimitedFile(ByteBuffer mappedBytes, Charset charset) {
+        this.mappedBytes = mappedBytes;
+        this.charset = charset;
+        indexLines();
+    }
+
+    /**
+     * @param dataFilePath tab-delimited text export
+     * @return the read, or for a large file mapped, and line-indexed file
+     * @throws IOException if the file cannot be read or mapped
+     */
+    public static MappedDelimitedFile mapFile(Path dataFilePath) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            if (Integer.MAX_VALUE < fileSize) {
+                throw new IOException("Data file too large to map: " + dataFilePath);
+            }
+            if (MAP_THRESHOLD_BYTES < fileSize) {
+                // the mapping outlives the channel
+                return new MappedDelimitedFile(
+                        fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize), Charset.defaultCharset());
+            }
+            ByteBuffer fileBytes = ByteBuffer.allocate((int) fileSize);
+            while (fileBytes.hasRemaining() && (0 <= fileChannel.read(fileBytes))) {
+                // read to the end of the file
+            }
+            return new MappedDelimitedFile(fileBytes.flip(), Charset.defaultCharset());
+        }
+    }
+
+    private void indexLines() {
+        int size = mappedBytes.limit();
+        lineStarts = new int[Math.max(16, size / 64)];
+        lineEnds = new int[lineStarts.length];
+        int lineStart = 0;
+        for (int i = 0; i <= size; i++) {
+            if ((i == size) || ('\n' == mappedBytes.get(i))) {
+                if ((i < size) || (lineStart < size)) {
+                    if (lineCount == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                        lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+                    }
+                    lineStarts[lineCount] = lineStart;
+                    lineEnds[lineCount] = ((i > lineStart) && ('\r' == mappedBytes.get(i - 1))) ? i - 1 : i;
+                    lineCount++;
+                }
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public String lineAsString(int lineIndex) {
+        byte[] lineBytes = new byte[lineEnds[lineIndex] - lineStarts[lineIndex]];
+        mappedBytes.get(lineStarts[lineIndex], lineBytes);
+        return new String(lineBytes, charset);
+    }
+
+    public boolean isBlankLine(int lineIndex) {
+        for (int i = lineStarts[lineIndex]; i < lineEnds[lineIndex]; i++) {
+            if (' ' < (mappedBytes.get(i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param lineIndex line of the file
+     * @param asciiText marker such as "Cycle" or "***"
+     * @return true if the line starts with the text
+     */
+    public boolean lineStartsWith(int lineIndex, String asciiText) {
+        return (lineEnds[lineIndex] - lineStarts[lineIndex] >= asciiText.length())
+                && matchesAt(lineStarts[lineIndex], asciiText);
+    }
+
+    /**
+     * @param lineIndex line of the file
+     * @param asciiText text such as a run of tabs
+     * @return true if the line contains the text
+     */
+    public boolean lineContains(int lineIndex, String asciiText) {
+        for (int i = lineStarts[lineIndex]; i <= lineEnds[lineIndex] - asciiText.length(); i++) {
+            if (matchesAt(i, asciiText)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAt(int position, String asciiText) {
+        for (int i = 0; i < asciiText.length(); i++) {
+            if (mappedBytes.get(position + i) != (byte) asciiText.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param lineIndex line of the file
+     * @return the first tab-delimited field, as <code>line.split("\t")[0]</code>
+     */
+    public String firstFieldAsString(int lineIndex) {
+        int fieldEnd = lineStarts[lineIndex];
+        while ((fieldEnd < lineEnds[lineIndex]) && (TAB != mappedBytes.get(fieldEnd))) {
+            fieldEnd++;
+        }
+        byte[] fieldBytes = new byte[fieldEnd - lineStarts[lineIndex]];
+        mappedBytes.get(lineStarts[lineIndex], fieldBytes);
+        return new String(fieldBytes, charset);
+    }
+
+    /**
+     * Parses the rows of the blocks in parallel chunks.
+     *
+     * @param blocks               data rows by block, in file order
+     * @param leadingFieldsSkipped fields at the start of each row that are not cycle data, such as cycle and time
+     * @param fieldCleanup         applied to any field that is not a plain decimal before
+     *                             <code>Double.parseDouble</code>, as each instrument's parser cleaned its fields
+     * @return one record per block, in the order given
+     */
+    public List<MassSpecOutputBlockRecordLite> parseBlocksInParallel(
+            List<BlockLines> blocks, int leadingFieldsSkipped, UnaryOperator<String> fieldCleanup) {
+        double[][][] cycleDataByBlock = new double[blocks.size()][][];
+        List<ForkJoinTask<?>> chunkTasks = new ArrayList<>();
+        for (int blockIndex = 0; blockIndex < blocks.size(); blockIndex++) {
+            BlockLines blockLines = blocks.get(blockIndex);
+            double[][] cycleData = new double[blockLines.size()][];
+            cycleDataByBlock[blockIndex] = cycleData;
+            for (int chunkStart = 0; chunkStart < blockLines.size(); chunkStart += ROWS_PER_CHUNK) {
+                int finalChunkStart = chunkStart;
+                int chunkEnd = Math.min(blockLines.size(), chunkStart + ROWS_PER_CHUNK);
+                chunkTasks.add(ForkJoinTask.adapt(() -> parseRows(
+                        blockLines, finalChunkStart, chunkEnd, cycleData, leadingFieldsSkipped, fieldCleanup)));
+            }
+        }
+        ForkJoinTask.invokeAll(chunkTasks);
+
+        List<MassSpecOutputBlockRecordLite> blockRecords = new ArrayList<>(blocks.size());
+        for (int blockIndex = 0; blockIndex < blocks.size(); blockIndex++) {
+            blockRecords.add(new MassSpecOutputBlockRecordLite(blocks.get(blockIndex).getBlockID(), cycleDataByBlock[blockIndex]));
+        }
+        return blockRecords;
+    }
+
+    private void parseRows(BlockLines blockLines, int rowStart, int rowEnd, double[][] cycleData,
+                           int leadingFieldsSkipped, UnaryOperator<String> fieldCleanup) {
+        // copy the chunk's span of the mapping once; rows are then tokenized in place
+        int spanStart = lineStarts[blockLines.getLineIndex(rowStart)];
+        int spanEnd = lineEnds[blockLines.getLineIndex(rowEnd - 1)];
+        byte[] span = new byte[spanEnd - spanStart];
+        mappedBytes.get(spanStart, span);
+
+        int[] fieldStarts = new int[64];
+        int[] fieldEnds = new int[64];
+        for (int row = rowStart; row < rowEnd; row++) {
+            int lineIndex = blockLines.getLineIndex(row);
+            int lineStart = lineStarts[lineIndex] - spanStart;
+            int lineEnd = lineEnds[lineIndex] - spanStart;
+
+            int fieldCount = 0;
+            int fieldStart = lineStart;
+            for (int i = lineStart; i <= lineEnd; i++) {
+                if ((i == lineEnd) || (TAB == span[i])) {
+                    if (fieldCount == fieldStarts.length) {
+                        fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                        fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                    }
+                    fieldStarts[fieldCount] = fieldStart;
+                    fieldEnds[fieldCount] = i;
+                    fieldCount++;
+                    fieldStart = i + 1;
+                }
+            }
+            // String.split drops trailing empty strings
+            while ((1 < fieldCount) && (fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1])) {
+                fieldCount--;
+            }
+
+            double[] cycleRow = new double[Math.max(0, fieldCount - leadingFieldsSkipped)];
+            for (int field = leadingFieldsSkipped; field < fieldCount; field++) {
+                int start = fieldStarts[field];
+                int end = fieldEnds[field];
+                while ((start < end) && (' ' >= (span[start] & 0xFF))) {
+                    start++;
+                }
+                while ((end > start) && (' ' >= (span[end - 1] & 0xFF))) {
+                    end--;
+                }
+                double value = DelimitedLineReader.parsePlainDecimal(span, start, end);
+                if (Double.isNaN(value)) {
+                    String fieldText = new String(span, fieldStarts[field], fieldEnds[field] - fieldStarts[field], charset);
+                    value = Double.parseDouble(fieldCleanup.apply(fieldText));
+                }
+                cycleRow[field - leadingFieldsSkipped] = value;
+            }
+            cycleData[row] = cycleRow;
+        }
+    }
+
+    /**
+     * The data rows of one block, by line index.
+     */
+    public static final class BlockLines {
+        private final int blockID;
+        private int[] lineIndices = new int[64];
+        private int size;
+
+        public BlockLines(int blockID) {
+            this.blockID = blockID;
+        }
+
+        public void addLine(int lineIndex) {
+            if (size == lineIndices.length) {
+                lineIndices = Arrays.copyOf(lineIndices, size * 2);
+            }
+            lineIndices[size] = lineIndex;
+            size++;
+        }
+
+        public int getBlockID() {
+            return blockID;
+        }
+
+        public int getLineIndex(int row) {
+            return lineIndices[row];
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceP
 
 import org.apache.commons.lang3.time.DateUtils;
 import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
+import org.cirdles.tripoli.expressions.expressionTrees.ExpressionProgram;
 import org.cirdles.tripoli.expressions.expressionTrees.ExpressionTreeInterface;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.detectorSetups.Detector;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.detectorSetups.DetectorSetup;
@@ -279,17 +280,19 @@ public class MassSpecExtractedData implements Serializable {
     /**
      * Checks if the expression already exists in the cycle data headers. If it does, will replace the data with a new evaluation
      * of the expression tree. Otherwise, expands the cycle data table to add a new column populated with the evaluated
-     * data for the expression and populates a new column header with the expression name.
+     * data for the expression and populates a new column header with the expression name. The expression is compiled
+     * once into an <code>ExpressionProgram</code> and evaluated over each block's primitive cycle data.
      * @param customExpressionTree valid expression tree with name set to expected header name
      */
     public void populateCycleDataForCustomExpression(ExpressionTreeInterface customExpressionTree){
-        Double[][] expressionData = customExpressionTree.eval(columnHeaders, blocksDataLite);
+        ExpressionProgram expressionProgram = ExpressionProgram.compile(customExpressionTree, columnHeaders);
 
         String newColumnHeader = customExpressionTree.getName().split(" \\( = ")[0];
         int columnIndex = Arrays.asList(columnHeaders).indexOf(newColumnHeader);
 
-        for (Integer blockID : blocksDataLite.keySet()) {
-            blocksDataLite.put(blockID, blocksDataLite.get(blockID).populateColumnForCustomExpression(expressionData[blockID-1], columnIndex));
+        for (Map.Entry<Integer, MassSpecOutputBlockRecordLite> entry : blocksDataLite.entrySet()) {
+            double[] expressionData = expressionProgram.evaluate(entry.getValue().cycleData());
+            entry.setValue(entry.getValue().populateColumnForCustomExpression(expressionData, columnIndex));
         }
 
         if (columnIndex == -1) {
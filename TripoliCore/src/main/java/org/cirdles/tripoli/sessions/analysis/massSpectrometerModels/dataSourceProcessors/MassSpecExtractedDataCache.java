@@ -0,0 +1,537 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.detectorSetups.DetectorSetup;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.cirdles.tripoli.constants.TripoliConstants.TRIPOLI_USERS_DATA_FOLDER_NAME;
+
+/**
+ * An on-disk cache of parsed <code>MassSpecExtractedData</code>, so re-opening a data file skips its parser.
+ * <p>
+ * Each data file gets one cache file keyed by its absolute path, size, modification time and
+ * <code>MASS_SPEC_DATA_CACHE_VERSION</code>; any mismatch is a miss and the data file is parsed again. Block arrays
+ * are stored column by column, big-endian, with repeated ID strings dictionary coded. Reading loads the cache file
+ * into one heap buffer and bulk-copies each column into the record arrays; the file is not memory-mapped, because a
+ * mapping holds the file open, and on Windows locked against replacement, until it is garbage collected. The cache
+ * only ever saves time: an unreadable or stale cache file is a miss and a failed write is ignored.
+ * <p>
+ * Each write prunes the cache folder: entries whose data file is gone or whose key is unreadable are deleted, as are
+ * entries unused for <code>MAX_CACHE_AGE_DAYS</code>, and then the least recently used entries until the folder holds
+ * at most <code>MAX_CACHE_BYTES</code>. A hit marks its entry as used.
+ *
+ * @author James F. Bowring
+ */
+public enum MassSpecExtractedDataCache {
+    ;
+
+    /**
+     * Bump whenever a parser's output changes, so caches written by the older parser are ignored.
+     */
+    public static final int MASS_SPEC_DATA_CACHE_VERSION = 1;
+    public static final String CACHE_FOLDER_NAME = "ExtractedDataCache";
+    private static final String CACHE_FILE_EXTENSION = ".tripolidata";
+    private static final int CACHE_FILE_MAGIC = 0x54524443;
+    static final long MAX_CACHE_AGE_DAYS = 60;
+    static final long MAX_CACHE_BYTES = 2L << 30;
+    private static volatile Path cacheFolderOverride;
+
+    /**
+     * @return the cache folder under the user's Tripoli folder, or the folder set by <code>setCacheFolder</code>
+     */
+    public static Path defaultCacheFolder() {
+        Path cacheFolder = cacheFolderOverride;
+        return (null != cacheFolder)
+                ? cacheFolder : Path.of(System.getProperty("user.home"), TRIPOLI_USERS_DATA_FOLDER_NAME, CACHE_FOLDER_NAME);
+    }
+
+    /**
+     * Lets tests keep their cache entries out of the user's cache folder.
+     *
+     * @param cacheFolder folder to use in place of the user's cache folder, or null to restore it
+     */
+    public static void setCacheFolder(Path cacheFolder) {
+        cacheFolderOverride = cacheFolder;
+    }
+
+    static Path cacheFileFor(Path cacheFolder, Path dataFilePath) {
+        String dataFileKey = dataFilePath.toAbsolutePath().normalize().toString();
+        return cacheFolder.resolve(dataFilePath.getFileName() + "-"
+                + Integer.toHexString(dataFileKey.hashCode()) + CACHE_FILE_EXTENSION);
+    }
+
+    /**
+     * @param cacheFolder  folder holding the cache files
+     * @param dataFilePath the original data file
+     * @return the cached data, or null if there is no valid cache file for the data file as it is now
+     */
+    public static MassSpecExtractedData readCachedData(Path cacheFolder, Path dataFilePath) {
+        MassSpecExtractedData massSpecExtractedData = null;
+        Path cacheFile = cacheFileFor(cacheFolder, dataFilePath);
+        if (Files.isRegularFile(cacheFile)) {
+            try (FileChannel fileChannel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+                long cacheFileSize = fileChannel.size();
+                if (Integer.MAX_VALUE >= cacheFileSize) {
+                    ByteBuffer cacheBytes = ByteBuffer.allocate((int) cacheFileSize);
+                    while (cacheBytes.hasRemaining() && (0 <= fileChannel.read(cacheBytes))) {
+                        // read to the end of the file
+                    }
+                    CacheReader cacheReader = new CacheReader(cacheBytes.flip());
+                    if (cacheReader.keyMatches(dataFilePath)) {
+                        massSpecExtractedData = cacheReader.readData();
+                    }
+                }
+            } catch (IOException | TripoliException | ClassNotFoundException | RuntimeException e) {
+                // corrupt or incompatible cache file: parse the data file instead
+                massSpecExtractedData = null;
+            }
+            if (null != massSpecExtractedData) {
+                try {
+                    // the modification time of an entry records its last use for pruning
+                    Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+                } catch (IOException e) {
+                    // the entry is only pruned sooner
+                }
+            }
+        }
+        return massSpecExtractedData;
+    }
+
+    /**
+     * Writes the parsed data as the cache entry for the data file, replacing any earlier entry.
+     *
+     * @param cacheFolder           folder holding the cache files, created if needed
+     * @param dataFilePath          the original data file
+     * @param massSpecExtractedData the data as the parser returned it
+     */
+    public static void writeCachedData(Path cacheFolder, Path dataFilePath, MassSpecExtractedData massSpecExtractedData) {
+        try {
+            Files.createDirectories(cacheFolder);
+            Path cacheFile = cacheFileFor(cacheFolder, dataFilePath);
+            Path tempFile = Files.createTempFile(cacheFolder, cacheFile.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                    writeKey(out, dataFilePath);
+                    writeData(out, massSpecExtractedData);
+                }
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            pruneCacheFolder(cacheFolder, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            // the data file is simply parsed again next time
+        }
+    }
+
+    /**
+     * Deletes the entries whose data file is gone, that cannot be read or that are too old, and then the least
+     * recently used entries until the folder is within <code>MAX_CACHE_BYTES</code>.
+     *
+     * @param cacheFolder folder holding the cache files
+     * @param now         current time in milliseconds
+     * @throws IOException if the folder cannot be listed
+     */
+    static void pruneCacheFolder(Path cacheFolder, long now) throws IOException {
+        List<Path> cacheFiles;
+        try (Stream<Path> folderEntries = Files.list(cacheFolder)) {
+            cacheFiles = folderEntries.filter(path -> path.getFileName().toString().endsWith(CACHE_FILE_EXTENSION)).toList();
+        }
+        long oldestKept = now - TimeUnit.DAYS.toMillis(MAX_CACHE_AGE_DAYS);
+        List<Path> keptCacheFiles = new ArrayList<>();
+        Map<Path, Long> mapOfCacheFilesToLastUse = new HashMap<>();
+        long keptBytes = 0L;
+        for (Path cacheFile : cacheFiles) {
+            try {
+                long lastUse = Files.getLastModifiedTime(cacheFile).toMillis();
+                Path dataFilePath = readDataFilePath(cacheFile);
+                if ((lastUse < oldestKept) || (null == dataFilePath) || !Files.isRegularFile(dataFilePath)) {
+                    Files.deleteIfExists(cacheFile);
+                } else {
+                    keptCacheFiles.add(cacheFile);
+                    mapOfCacheFilesToLastUse.put(cacheFile, lastUse);
+                    keptBytes += Files.size(cacheFile);
+                }
+            } catch (IOException | RuntimeException e) {
+                // in use or already deleted by another Tripoli; try again on a later write
+            }
+        }
+        keptCacheFiles.sort(Comparator.comparing(mapOfCacheFilesToLastUse::get));
+        for (Path cacheFile : keptCacheFiles) {
+            if (keptBytes <= MAX_CACHE_BYTES) {
+                break;
+            }
+            try {
+                long cacheFileBytes = Files.size(cacheFile);
+                Files.deleteIfExists(cacheFile);
+                keptBytes -= cacheFileBytes;
+            } catch (IOException e) {
+                // try again on a later write
+            }
+        }
+    }
+
+    /**
+     * @return the data file recorded in the key of the cache file, or null if the key is not of this version
+     */
+    private static Path readDataFilePath(Path cacheFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if ((CACHE_FILE_MAGIC != in.readInt()) || (MASS_SPEC_DATA_CACHE_VERSION != in.readInt())) {
+                return null;
+            }
+            int length = in.readInt();
+            if ((0 > length) || (length > Short.MAX_VALUE)) {
+                return null;
+            }
+            return Path.of(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeKey(DataOutputStream out, Path dataFilePath) throws IOException {
+        out.writeInt(CACHE_FILE_MAGIC);
+        out.writeInt(MASS_SPEC_DATA_CACHE_VERSION);
+        writeString(out, dataFilePath.toAbsolutePath().normalize().toString());
+        out.writeLong(Files.size(dataFilePath));
+        out.writeLong(Files.getLastModifiedTime(dataFilePath).toMillis());
+    }
+
+    private static void writeData(DataOutputStream out, MassSpecExtractedData massSpecExtractedData) throws IOException {
+        writeString(out, massSpecExtractedData.getMassSpectrometerContext().name());
+
+        MassSpecExtractedData.MassSpecExtractedHeader header = massSpecExtractedData.getHeader();
+        writeString(out, header.softwareVersion());
+        writeString(out, header.filename());
+        writeString(out, header.sampleName());
+        writeString(out, header.methodName());
+        out.writeBoolean(header.isCorrected());
+        out.writeBoolean(header.hasBChannels());
+        writeString(out, header.analysisStartTime());
+        out.writeInt(header.cyclesPerBlock());
+
+        writeStrings(out, massSpecExtractedData.getColumnHeaders());
+
+        // detector setups are small object graphs, kept in their serialized form
+        if (null == massSpecExtractedData.getDetectorSetup()) {
+            out.writeInt(-1);
+        } else {
+            ByteArrayOutputStream detectorSetupBytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(detectorSetupBytes)) {
+                objectOutputStream.writeObject(massSpecExtractedData.getDetectorSetup());
+            }
+            out.writeInt(detectorSetupBytes.size());
+            detectorSetupBytes.writeTo(out);
+        }
+
+        out.writeInt(massSpecExtractedData.getBlocksDataFull().size());
+        for (MassSpecOutputBlockRecordFull blockRecord : massSpecExtractedData.getBlocksDataFull().values()) {
+            out.writeInt(blockRecord.blockID());
+            writeDoubleRows(out, blockRecord.baselineIntensities());
+            writeStrings(out, blockRecord.baselineIDs());
+            writeMapOfIdsToIndices(out, blockRecord.mapOfBaselineIdsToIndices());
+            writeInts(out, blockRecord.baselineCycleNumbers());
+            writeInts(out, blockRecord.baselineIntegrationNumbers());
+            writeDoubles(out, blockRecord.baselineTimeStamps());
+            writeDoubles(out, blockRecord.baselineMasses());
+            writeDoubleRows(out, blockRecord.onPeakIntensities());
+            writeStrings(out, blockRecord.onPeakIDs());
+            writeMapOfIdsToIndices(out, blockRecord.mapOfOnPeakIdsToIndices());
+            writeInts(out, blockRecord.onPeakCycleNumbers());
+            writeInts(out, blockRecord.onPeakIntegrationNumbers());
+            writeDoubles(out, blockRecord.onPeakTimeStamps());
+            writeDoubles(out, blockRecord.onPeakMasses());
+            writeInts(out, blockRecord.onPeakStartingIndicesOfCycles());
+        }
+
+        out.writeInt(massSpecExtractedData.getBlocksDataLite().size());
+        for (MassSpecOutputBlockRecordLite blockRecord : massSpecExtractedData.getBlocksDataLite().values()) {
+            out.writeInt(blockRecord.blockID());
+            writeDoubleRows(out, blockRecord.cycleData());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (null == string) {
+            out.writeInt(-1);
+        } else {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(stringBytes.length);
+            out.write(stringBytes);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+        if (null == strings) {
+            out.writeInt(-1);
+            return;
+        }
+        // IDs repeat on every row, so store each distinct string once and a code per row
+        Map<String, Integer> mapOfStringsToCodes = new LinkedHashMap<>();
+        int[] codes = new int[strings.length];
+        for (int index = 0; index < strings.length; index++) {
+            codes[index] = mapOfStringsToCodes.computeIfAbsent(strings[index], k -> mapOfStringsToCodes.size());
+        }
+        out.writeInt(strings.length);
+        out.writeInt(mapOfStringsToCodes.size());
+        for (String string : mapOfStringsToCodes.keySet()) {
+            writeString(out, string);
+        }
+        for (int code : codes) {
+            out.writeInt(code);
+        }
+    }
+
+    private static void writeMapOfIdsToIndices(DataOutputStream out, Map<String, List<Integer>> mapOfIdsToIndices) throws IOException {
+        if (null == mapOfIdsToIndices) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(mapOfIdsToIndices.size());
+        for (Map.Entry<String, List<Integer>> entry : mapOfIdsToIndices.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int index : entry.getValue()) {
+                out.writeInt(index);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        if (null == values) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        if (null == values) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static void writeDoubleRows(DataOutputStream out, double[][] rows) throws IOException {
+        if (null == rows) {
+            out.writeInt(-1);
+            return;
+        }
+        // row lengths first, then every value contiguously, so reading is one bulk copy per row
+        out.writeInt(rows.length);
+        for (double[] row : rows) {
+            out.writeInt(row.length);
+        }
+        for (double[] row : rows) {
+            for (double value : row) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    private static final class CacheReader {
+        private final ByteBuffer buffer;
+
+        CacheReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean keyMatches(Path dataFilePath) throws IOException {
+            return (CACHE_FILE_MAGIC == buffer.getInt())
+                    && (MASS_SPEC_DATA_CACHE_VERSION == buffer.getInt())
+                    && dataFilePath.toAbsolutePath().normalize().toString().equals(readString())
+                    && (Files.size(dataFilePath) == buffer.getLong())
+                    && (Files.getLastModifiedTime(dataFilePath).toMillis() == buffer.getLong());
+        }
+
+        MassSpecExtractedData readData() throws TripoliException, IOException, ClassNotFoundException {
+            MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
+            massSpecExtractedData.setMassSpectrometerContext(MassSpectrometerContextEnum.valueOf(readString()));
+            massSpecExtractedData.setHeader(new MassSpecExtractedData.MassSpecExtractedHeader(
+                    readString(),
+                    readString(),
+                    readString(),
+                    readString(),
+                    0 != buffer.get(),
+                    0 != buffer.get(),
+                    readString(),
+                    buffer.getInt()));
+            massSpecExtractedData.setColumnHeaders(readStrings());
+
+            int detectorSetupLength = buffer.getInt();
+            if (0 <= detectorSetupLength) {
+                byte[] detectorSetupBytes = new byte[detectorSetupLength];
+                buffer.get(detectorSetupBytes);
+                try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(detectorSetupBytes))) {
+                    massSpecExtractedData.setDetectorSetup((DetectorSetup) objectInputStream.readObject());
+                }
+            } else {
+                massSpecExtractedData.setDetectorSetup(null);
+            }
+
+            int fullBlockCount = buffer.getInt();
+            for (int blockIndex = 0; blockIndex < fullBlockCount; blockIndex++) {
+                massSpecExtractedData.addBlockRecord(new MassSpecOutputBlockRecordFull(
+                        buffer.getInt(),
+                        readDoubleRows(),
+                        readStrings(),
+                        readMapOfIdsToIndices(),
+                        readInts(),
+                        readInts(),
+                        readDoubles(),
+                        readDoubles(),
+                        readDoubleRows(),
+                        readStrings(),
+                        readMapOfIdsToIndices(),
+                        readInts(),
+                        readInts(),
+                        readDoubles(),
+                        readDoubles(),
+                        readInts()));
+            }
+
+            int liteBlockCount = buffer.getInt();
+            for (int blockIndex = 0; blockIndex < liteBlockCount; blockIndex++) {
+                massSpecExtractedData.addBlockLiteRecord(new MassSpecOutputBlockRecordLite(buffer.getInt(), readDoubleRows()));
+            }
+            return massSpecExtractedData;
+        }
+
+        /**
+         * @return the next length, negative for null, checked against the bytes left so a damaged file is a miss
+         */
+        private int readLength(int bytesPerElement) {
+            int length = buffer.getInt();
+            if (length > buffer.remaining() / bytesPerElement) {
+                throw new BufferUnderflowException();
+            }
+            return length;
+        }
+
+        private String readString() {
+            int length = readLength(Byte.BYTES);
+            if (0 > length) {
+                return null;
+            }
+            byte[] stringBytes = new byte[length];
+            buffer.get(stringBytes);
+            return new String(stringBytes, StandardCharsets.UTF_8);
+        }
+
+        private String[] readStrings() {
+            int length = readLength(Integer.BYTES);
+            if (0 > length) {
+                return null;
+            }
+            String[] distinctStrings = new String[readLength(Integer.BYTES)];
+            for (int code = 0; code < distinctStrings.length; code++) {
+                distinctStrings[code] = readString();
+            }
+            String[] strings = new String[length];
+            for (int index = 0; index < length; index++) {
+                strings[index] = distinctStrings[buffer.getInt()];
+            }
+            return strings;
+        }
+
+        private Map<String, List<Integer>> readMapOfIdsToIndices() {
+            int size = readLength(Integer.BYTES);
+            if (0 > size) {
+                return null;
+            }
+            Map<String, List<Integer>> mapOfIdsToIndices = new TreeMap<>();
+            for (int entry = 0; entry < size; entry++) {
+                String id = readString();
+                int[] indices = new int[readLength(Integer.BYTES)];
+                buffer.asIntBuffer().get(indices);
+                buffer.position(buffer.position() + Integer.BYTES * indices.length);
+                List<Integer> listOfIndices = new ArrayList<>(indices.length);
+                for (int index : indices) {
+                    listOfIndices.add(index);
+                }
+                mapOfIdsToIndices.put(id, listOfIndices);
+            }
+            return mapOfIdsToIndices;
+        }
+
+        private int[] readInts() {
+            int length = readLength(Integer.BYTES);
+            if (0 > length) {
+                return null;
+            }
+            int[] values = new int[length];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + Integer.BYTES * length);
+            return values;
+        }
+
+        private double[] readDoubles() {
+            int length = readLength(Double.BYTES);
+            if (0 > length) {
+                return null;
+            }
+            double[] values = new double[length];
+            buffer.asDoubleBuffer().get(values);
+            buffer.position(buffer.position() + Double.BYTES * length);
+            return values;
+        }
+
+        private double[][] readDoubleRows() {
+            int rowCount = readLength(Integer.BYTES);
+            if (0 > rowCount) {
+                return null;
+            }
+            double[][] rows = new double[rowCount][];
+            long valueCount = 0;
+            for (int row = 0; row < rowCount; row++) {
+                rows[row] = new double[Math.max(0, buffer.getInt())];
+                valueCount += rows[row].length;
+                if (valueCount > buffer.remaining() / Double.BYTES) {
+                    throw new BufferUnderflowException();
+                }
+            }
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            for (double[] row : rows) {
+                values.get(row);
+            }
+            buffer.position(buffer.position() + Double.BYTES * (int) valueCount);
+            return rows;
+        }
+    }
+}
@@ -41,7 +41,7 @@ public record MassSpecOutputBlockRecordLite(
         }
         return new MassSpecOutputBlockRecordLite(blockID, cycleDataExpand);
     }
-    public MassSpecOutputBlockRecordLite populateColumnForCustomExpression(Double[] expressionData, int columnIndex){
+    public MassSpecOutputBlockRecordLite populateColumnForCustomExpression(double[] expressionData, int columnIndex){
         if (columnIndex == -1){ // New column
             double[][] cycleDataExpand = new double[cycleData.length][];
             for (int row = 0; row < cycleData.length; row++) {
@@ -17,16 +17,15 @@
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.nu;
 
 import org.apache.commons.lang3.math.NumberUtils;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MappedDelimitedFile;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MappedDelimitedFile.BlockLines;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordLite;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -50,101 +49,70 @@ public enum NuMassSpec {
         } catch (TripoliException e) {
             throw new RuntimeException(e);
         }
-        List<String> contentsByLine = new ArrayList<>(Files.readAllLines(inputDataFile, Charset.defaultCharset()));
-        List<List<String>> dataByBlocks = new ArrayList<>();
+        MappedDelimitedFile dataFile = MappedDelimitedFile.mapFile(inputDataFile);
+        List<BlockLines> dataByBlocks = new ArrayList<>();
         List<String[]> headerByLineSplit = new ArrayList<>();
         List<String> columnNamesSplit = new ArrayList<>();
-        List<String> dataByBlock = new ArrayList<>();
+        BlockLines dataByBlock = new BlockLines(1);
 
         int phase = 0;
         int currentBlockID = 1;
         int cyclesPerBlock = 1;
         int cycleIndex = 0;
-        contentsByLine.add("***");
+        // data rows only need their first field tested until the column names change
+        boolean columnNamesChanged = true;
         columnNamesSplit.add("Cycle");
         columnNamesSplit.add("Time");
-        for (String line : contentsByLine) {
-            if (!line.trim().isBlank() && (phase >= 0)) {
-                if (line.startsWith("Caption")) {
+        for (int lineIndex = 0; lineIndex < dataFile.getLineCount(); lineIndex++) {
+            if (!dataFile.isBlankLine(lineIndex) && (phase >= 0)) {
+                if (dataFile.lineStartsWith(lineIndex, "Caption")) {
                     if (phase == 0) {
                         massSpecExtractedData.populateHeader(headerByLineSplit);
                         cyclesPerBlock = massSpecExtractedData.getHeader().cyclesPerBlock();
-                        columnNamesSplit.add(line.split("\t")[1]);
+                        columnNamesSplit.add(dataFile.lineAsString(lineIndex).split("\t")[1]);
                         phase = 1;
                     } else {
-                        columnNamesSplit.add(line.split("\t")[1]);
+                        columnNamesSplit.add(dataFile.lineAsString(lineIndex).split("\t")[1]);
                     }
-                } else if (NumberUtils.isCreatable(line.split("\t")[0])) {
+                    columnNamesChanged = true;
+                } else if (((phase != 5) || columnNamesChanged) && NumberUtils.isCreatable(dataFile.firstFieldAsString(lineIndex))) {
                     massSpecExtractedData.populateColumnNamesListNu(columnNamesSplit);
+                    columnNamesChanged = false;
                     phase = 5;
-                } else if (line.startsWith("***")) {
+                } else if (dataFile.lineStartsWith(lineIndex, "***")) {
                     phase = 8;
                 }
 
                 switch (phase) {
-                    case 0 -> headerByLineSplit.add(line.split("\t"));
+                    case 0 -> headerByLineSplit.add(dataFile.lineAsString(lineIndex).split("\t"));
                     case 5 -> {
                         cycleIndex++;
-                        String[] lineSplit = line.split("\t");
                         int blockID = (cycleIndex - 1) / cyclesPerBlock + 1;
                         if (blockID != currentBlockID) {
                             dataByBlocks.add(dataByBlock);
-                            massSpecExtractedData.addBlockLiteRecord(
-                                    parseAndBuildSingleBlockNuRecord(currentBlockID, cyclesPerBlock, dataByBlocks.get(currentBlockID - 1)));
                             currentBlockID++;
-                            dataByBlock = new ArrayList<>();
-                            dataByBlock.add(cycleIndex + "\t0.0\t" + line);
-                        } else {
-                            dataByBlock.add(cycleIndex + "\t0.0\t" + line);
+                            dataByBlock = new BlockLines(currentBlockID);
                         }
+                        dataByBlock.addLine(lineIndex);
                     }
                     case 8 -> {
                         dataByBlocks.add(dataByBlock);
-                        massSpecExtractedData.addBlockLiteRecord(
-                                parseAndBuildSingleBlockNuRecord(currentBlockID, cyclesPerBlock, dataByBlocks.get(currentBlockID - 1)));
                         phase = -1;
                     }
                 }
             }
         }
-
-        return massSpecExtractedData;
-    }
-
-    private static MassSpecOutputBlockRecordLite parseAndBuildSingleBlockNuRecord(int blockNumber, int cyclesPerBlock, List<String> blockData) {
-        List<String> timeStampByLineSplit = new ArrayList<>();
-        List<String[]> cycleDataByLineSplit = new ArrayList<>();
-        for (String line : blockData) {
-            String[] lineSplit = line.split("\t");
-            timeStampByLineSplit.add(lineSplit[1].trim());
-            cycleDataByLineSplit.add(Arrays.copyOfRange(lineSplit, 2, lineSplit.length));
+        // the end of the file closes the last block unless a "***" line already did
+        if (phase >= 0) {
+            dataByBlocks.add(dataByBlock);
         }
 
-        return buildSingleBlockNuRecord(
-                blockNumber,
-                cycleDataByLineSplit);
-    }
-
-    private static MassSpecOutputBlockRecordLite buildSingleBlockNuRecord(
-            int blockID,
-            List<String[]> cycleDataByLineSplit) {
-
-        double[][] cycleData = new double[cycleDataByLineSplit.size()][];
-        int index = 0;
-        for (String[] numbersAsStrings : cycleDataByLineSplit) {
-            // TODO: wTF
-            for (int i = 0; i < numbersAsStrings.length; i++) {
-                numbersAsStrings[i] = numbersAsStrings[i].replaceAll("X", "");
-            }
-            cycleData[index] = Arrays.stream(numbersAsStrings)
-                    .mapToDouble(Double::parseDouble)
-                    .toArray();
-            index++;
+        // Nu rows hold only data fields
+        for (MassSpecOutputBlockRecordLite blockRecord : dataFile.parseBlocksInParallel(dataByBlocks, 0, numberAsString -> numberAsString.replace("X", ""))) {
+            massSpecExtractedData.addBlockLiteRecord(blockRecord);
         }
 
-        return new MassSpecOutputBlockRecordLite(
-                blockID,
-                cycleData);
+        return massSpecExtractedData;
     }
 
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.phoenix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the live data files Phoenix writes during an acquisition by byte offset, so each file event only reads what
+ * was appended since the previous event for that file.
+ * <p>
+ * A final line without its line break is not returned, since the instrument may still be writing it; it is returned
+ * once its line break has been written. A file that shrinks is read again from its start. Positions are kept for the
+ * most recently read files only, so a file not read for a long time is read again from its start.
+ *
+ * @author James F. Bowring
+ */
+final class LiveDataFileTailer {
+
+    static final int MAX_TRACKED_FILES = 64;
+
+    private final Map<Path, TailPosition> mapOfFilesToTailPositions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, TailPosition> eldest) {
+            return size() > MAX_TRACKED_FILES;
+        }
+    };
+
+    /**
+     * @param filePath live data file
+     * @return the complete lines added since the last call for this file, empty if none
+     * @throws IOException on read failure
+     */
+    List<String> readNewLines(Path filePath) throws IOException {
+        List<String> newLines = new ArrayList<>();
+        TailPosition tailPosition = mapOfFilesToTailPositions.getOrDefault(filePath, new TailPosition(0L, 0L));
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            long resumeOffset = tailPosition.resumeOffset();
+            if (fileSize < tailPosition.readEnd()) {
+                resumeOffset = 0L;
+            } else if (fileSize == tailPosition.readEnd()) {
+                return newLines;
+            }
+            if (Integer.MAX_VALUE < fileSize - resumeOffset) {
+                throw new IOException("Live data file too large: " + filePath);
+            }
+
+            // read to the size seen above; later appends wait for the next event
+            ByteBuffer newBytes = ByteBuffer.allocate((int) (fileSize - resumeOffset));
+            int byteCount = 0;
+            while (newBytes.hasRemaining()) {
+                int bytesRead = fileChannel.read(newBytes, resumeOffset + byteCount);
+                if (0 > bytesRead) {
+                    break;
+                }
+                byteCount += bytesRead;
+            }
+            byte[] bytes = newBytes.array();
+
+            int lineStart = 0;
+            for (int i = 0; i < byteCount; i++) {
+                if ('\n' == bytes[i]) {
+                    newLines.add(decodeLine(bytes, lineStart, i));
+                    lineStart = i + 1;
+                }
+            }
+            mapOfFilesToTailPositions.put(filePath, new TailPosition(resumeOffset + lineStart, resumeOffset + byteCount));
+        }
+        return newLines;
+    }
+
+    private static String decodeLine(byte[] bytes, int start, int end) {
+        int lineEnd = ((end > start) && ('\r' == bytes[end - 1])) ? end - 1 : end;
+        return new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param resumeOffset start of the first line not yet read with its line break
+     * @param readEnd      file size when last read
+     */
+    private record TailPosition(long resumeOffset, long readEnd) {
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.phoenix;
+
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.DelimitedLineReader;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordFull;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Single-pass parser for Phoenix full data files (synthetic version 1.00 and versions 1.2.n / 2.n).
+ * <p>
+ * Each data row is tokenized in place by a <code>DelimitedLineReader</code> and appended to primitive per-block
+ * columns, so a file is never held in memory as lines or split strings. Baseline rows wait in their block's columns
+ * until the block's on-peak rows arrive, and each block record is built as soon as its last on-peak row is read.
+ * Parsing starts from the reader's first line, so the reader that sniffed the file format can be handed over.
+ *
+ * @author James F. Bowring
+ */
+final class PhoenixFullStreamingParser {
+
+    // version 1:  PhoenixFull_Synthetic ID,Block,Cycle,Integ,Time,Mass,DATA[Low5,Low4,Low3,Low2,Ax Fara,Axial,High1,High2,High3,High4]
+    // version 2:  PhoenixFull ID,Block,Cycle,Integ,PeakID,AxMass,Time,DATA[PM,RS,L5,L4,L3,L2,Ax,H1,H2,H3,H4]
+    private static final int ID_FIELD = 0;
+    private static final int BLOCK_FIELD = 1;
+    private static final int CYCLE_FIELD = 2;
+    private static final int INTEGRATION_FIELD = 3;
+    private static final int MASS_FIELD = 5;
+
+    private final int timeStampField;
+    private final int firstIntensityField;
+
+    private PhoenixFullStreamingParser(int version) {
+        timeStampField = (1 == version) ? 4 : 6;
+        firstIntensityField = (1 == version) ? 6 : 7;
+    }
+
+    /**
+     * Full Synthetic v 1 will be abandoned
+     */
+    static MassSpecExtractedData extractVersion_1_0(DelimitedLineReader reader) throws IOException, TripoliException {
+        PhoenixFullStreamingParser parser = new PhoenixFullStreamingParser(1);
+        MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
+        // test for version 1.00
+        if (!reader.nextLine() || (0 != reader.lineAsString().trim().compareToIgnoreCase("Version,1.00"))) {
+            return massSpecExtractedData;
+        }
+        List<String[]> headerByLineSplit = new ArrayList<>();
+        List<String[]> columnNamesSplit = new ArrayList<>();
+        BlockColumns blockColumns = null;
+        int phase = 0;
+        do {
+            if (reader.isBlankLine()) {
+                continue;
+            }
+            if (reader.lineStartsWith("#START")) {
+                massSpecExtractedData.populateHeader(headerByLineSplit);
+                massSpecExtractedData.populateDetectors(new ArrayList<>());
+                phase = 1;
+            } else if (reader.lineStartsWith("#END")) {
+                break;
+            }
+
+            switch (phase) {
+                case 0 -> headerByLineSplit.add(reader.lineAsString().split(","));
+                case 1 -> phase = 2;
+                case 2 -> {
+                    columnNamesSplit.add(reader.lineAsString().split(","));
+                    massSpecExtractedData.populateColumnNamesList(columnNamesSplit);
+                    phase = 3;
+                }
+                case 3 -> {
+                    int blockNumber;
+                    try {
+                        reader.splitFields(',');
+                        blockNumber = reader.fieldAsInt(BLOCK_FIELD);
+                    } catch (RuntimeException e) {
+                        // rows without a readable block number are skipped
+                        continue;
+                    }
+                    if ((null != blockColumns) && (blockNumber != blockColumns.blockID)) {
+                        massSpecExtractedData.addBlockRecord(blockColumns.buildRecord());
+                        blockColumns = null;
+                    }
+                    if (null == blockColumns) {
+                        blockColumns = new BlockColumns(blockNumber);
+                    }
+                    parser.appendRow(reader, blockColumns);
+                }
+            }
+        } while (reader.nextLine());
+
+        // test if complete block by checking last entry's cycle number != 0
+        if ((null != blockColumns) && (0 < blockColumns.lastCycleNumber())) {
+            massSpecExtractedData.addBlockRecord(blockColumns.buildRecord());
+        }
+        return massSpecExtractedData;
+    }
+
+    static MassSpecExtractedData extractVersion_1_2(DelimitedLineReader reader) throws IOException, TripoliException {
+        PhoenixFullStreamingParser parser = new PhoenixFullStreamingParser(2);
+        MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
+        List<String[]> headerByLineSplit = new ArrayList<>();
+        List<String[]> detectorsByLineSplit = new ArrayList<>();
+        List<String[]> columnNamesSplit = new ArrayList<>();
+        // baseline rows of each block wait here for the block's on-peak rows
+        Map<Integer, BlockColumns> mapOfBlockIdToColumns = new TreeMap<>();
+        BlockColumns onPeakBlockColumns = null;
+        boolean versionChecked = false;
+
+        int phase = 0;
+        while (reader.nextLine()) {
+            if (2 == reader.getLineIndex()) {
+                // test for version 1.20
+                String versionLine = reader.lineAsString().trim();
+                if ((!versionLine.startsWith("Version,1.")) && (!versionLine.startsWith("Version,2."))) {
+                    throw new IOException("Expecting Version 1.2.n of data file.");
+                }
+                versionChecked = true;
+            }
+            if (reader.isBlankLine()) {
+                // a blank line closes the data section in progress
+                if ((8 == phase) && (null != onPeakBlockColumns)) {
+                    massSpecExtractedData.addBlockRecord(onPeakBlockColumns.buildRecord());
+                    mapOfBlockIdToColumns.remove(onPeakBlockColumns.blockID);
+                    onPeakBlockColumns = null;
+                }
+                continue;
+            }
+            if (reader.lineStartsWith("#COLLECTORS")) {
+                massSpecExtractedData.populateHeader(headerByLineSplit);
+                phase = 1;
+            } else if (reader.lineStartsWith("#BASELINES")) {
+                massSpecExtractedData.populateDetectors(detectorsByLineSplit);
+                phase = 3;
+            } else if (reader.lineStartsWith("#ONPEAK")) {
+                phase = 6;
+            } else if (reader.lineStartsWith("#END")) {
+                if (null != onPeakBlockColumns) {
+                    massSpecExtractedData.addBlockRecord(onPeakBlockColumns.buildRecord());
+                    onPeakBlockColumns = null;
+                }
+                phase = 9;
+            }
+
+            switch (phase) {
+                case 0 -> headerByLineSplit.add(reader.lineAsString().split(","));
+                case 1 -> phase = 2;
+                case 2 -> detectorsByLineSplit.add(reader.lineAsString().split(","));
+                case 3 -> phase = 4;
+                case 4 -> {
+                    columnNamesSplit.add(reader.lineAsString().split(","));
+                    massSpecExtractedData.populateColumnNamesList(columnNamesSplit);
+                    phase = 5;
+                }
+                case 6 -> phase = 7;
+                case 7 -> phase = 8;
+                case 5 -> {
+                    reader.splitFields(',');
+                    int blockID = reader.fieldAsInt(BLOCK_FIELD);
+                    parser.appendRow(reader, mapOfBlockIdToColumns.computeIfAbsent(blockID, BlockColumns::new));
+                }
+                case 8 -> {
+                    reader.splitFields(',');
+                    int blockID = reader.fieldAsInt(BLOCK_FIELD);
+                    if ((null != onPeakBlockColumns) && (blockID != onPeakBlockColumns.blockID)) {
+                        massSpecExtractedData.addBlockRecord(onPeakBlockColumns.buildRecord());
+                        mapOfBlockIdToColumns.remove(onPeakBlockColumns.blockID);
+                        onPeakBlockColumns = null;
+                    }
+                    if (null == onPeakBlockColumns) {
+                        // a block missing its baselines is built from its on-peak rows alone
+                        onPeakBlockColumns = mapOfBlockIdToColumns.computeIfAbsent(blockID, BlockColumns::new);
+                    }
+                    parser.appendRow(reader, onPeakBlockColumns);
+                }
+            }
+        }
+        if (!versionChecked) {
+            throw new IOException("Expecting Version 1.2.n of data file.");
+        }
+        if (null != onPeakBlockColumns) {
+            massSpecExtractedData.addBlockRecord(onPeakBlockColumns.buildRecord());
+        }
+        return massSpecExtractedData;
+    }
+
+    private void appendRow(DelimitedLineReader reader, BlockColumns blockColumns) {
+        int row = blockColumns.startRow(reader.getFieldCount() - firstIntensityField);
+        blockColumns.ids[row] = reader.fieldAsString(ID_FIELD);
+        blockColumns.cycleNumbers[row] = reader.fieldAsInt(CYCLE_FIELD);
+        blockColumns.integrationNumbers[row] = reader.fieldAsInt(INTEGRATION_FIELD);
+        blockColumns.timeStamps[row] = reader.fieldAsDouble(timeStampField);
+        blockColumns.masses[row] = reader.fieldAsDouble(MASS_FIELD);
+        int intensityIndex = blockColumns.intensityRowStarts[row];
+        for (int field = firstIntensityField; field < reader.getFieldCount(); field++) {
+            blockColumns.intensities[intensityIndex++] = reader.fieldAsDouble(field);
+        }
+    }
+
+    /**
+     * Growable primitive columns of one block's rows, baselines first, in file order.
+     */
+    private static final class BlockColumns {
+        private final int blockID;
+        private int rowCount;
+        private String[] ids = new String[256];
+        private int[] cycleNumbers = new int[256];
+        private int[] integrationNumbers = new int[256];
+        private double[] timeStamps = new double[256];
+        private double[] masses = new double[256];
+        // row r's intensities are intensities[intensityRowStarts[r] .. intensityRowStarts[r + 1])
+        private int[] intensityRowStarts = new int[257];
+        private double[] intensities = new double[256 * 12];
+
+        private BlockColumns(int blockID) {
+            this.blockID = blockID;
+        }
+
+        private int startRow(int intensityCount) {
+            if (rowCount == ids.length) {
+                int capacity = rowCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                cycleNumbers = Arrays.copyOf(cycleNumbers, capacity);
+                integrationNumbers = Arrays.copyOf(integrationNumbers, capacity);
+                timeStamps = Arrays.copyOf(timeStamps, capacity);
+                masses = Arrays.copyOf(masses, capacity);
+                intensityRowStarts = Arrays.copyOf(intensityRowStarts, capacity + 1);
+            }
+            int intensityStart = intensityRowStarts[rowCount];
+            int intensityEnd = intensityStart + Math.max(0, intensityCount);
+            if (intensityEnd > intensities.length) {
+                intensities = Arrays.copyOf(intensities, Math.max(intensityEnd, intensities.length * 2));
+            }
+            intensityRowStarts[rowCount + 1] = intensityEnd;
+            return rowCount++;
+        }
+
+        private int lastCycleNumber() {
+            return cycleNumbers[rowCount - 1];
+        }
+
+        private double[][] intensityRows(int fromRow, int toRow) {
+            double[][] rows = new double[toRow - fromRow][];
+            for (int row = fromRow; row < toRow; row++) {
+                rows[row - fromRow] = Arrays.copyOfRange(intensities, intensityRowStarts[row], intensityRowStarts[row + 1]);
+            }
+            return rows;
+        }
+
+        private MassSpecOutputBlockRecordFull buildRecord() {
+            // learn break between Baselines and Onpeaks
+            int startingOnPeakIndex = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (!ids[row].startsWith("B")) {
+                    startingOnPeakIndex = row;
+                    break;
+                }
+            }
+
+            String[] baselineIDs = Arrays.copyOfRange(ids, 0, startingOnPeakIndex);
+            String[] onPeakIDs = Arrays.copyOfRange(ids, startingOnPeakIndex, rowCount);
+            int[] onPeakCycleNumbers = Arrays.copyOfRange(cycleNumbers, startingOnPeakIndex, rowCount);
+
+            // baseline cycles are all 0 and onpeak cycles start at 1
+            int nCycle = onPeakCycleNumbers[onPeakCycleNumbers.length - 1];
+
+            // collect the starting indices of each onPeak cycle
+            int currentCycleNumber = 1;
+            int currentIndex = 0;
+            int currentRecordNumber = 0;
+            boolean cycleStartRecorded = false;
+            int[] onPeakStartingIndicesOfCycles = new int[nCycle];
+            for (int row = 0; row < onPeakCycleNumbers.length; row++) {
+                if (!cycleStartRecorded) {
+                    onPeakStartingIndicesOfCycles[currentRecordNumber] = currentIndex;
+                    cycleStartRecorded = true;
+                }
+                if (onPeakCycleNumbers[row] > currentCycleNumber) {
+                    currentRecordNumber++;
+                    currentCycleNumber++;
+                    currentIndex = row;
+                    onPeakStartingIndicesOfCycles[currentRecordNumber] = currentIndex;
+                }
+            }
+
+            return new MassSpecOutputBlockRecordFull(
+                    blockID,
+                    intensityRows(0, startingOnPeakIndex),
+                    baselineIDs,
+                    buildMapOfIdsToIndices(baselineIDs),
+                    Arrays.copyOfRange(cycleNumbers, 0, startingOnPeakIndex),
+                    Arrays.copyOfRange(integrationNumbers, 0, startingOnPeakIndex),
+                    Arrays.copyOfRange(timeStamps, 0, startingOnPeakIndex),
+                    Arrays.copyOfRange(masses, 0, startingOnPeakIndex),
+                    intensityRows(startingOnPeakIndex, rowCount),
+                    onPeakIDs,
+                    buildMapOfIdsToIndices(onPeakIDs),
+                    onPeakCycleNumbers,
+                    Arrays.copyOfRange(integrationNumbers, startingOnPeakIndex, rowCount),
+                    Arrays.copyOfRange(timeStamps, startingOnPeakIndex, rowCount),
+                    Arrays.copyOfRange(masses, startingOnPeakIndex, rowCount),
+                    onPeakStartingIndicesOfCycles);
+        }
+
+        private static Map<String, List<Integer>> buildMapOfIdsToIndices(String[] ids) {
+            Map<String, List<Integer>> mapOfIdsToIndices = new TreeMap<>();
+            for (int index = 0; index < ids.length; index++) {
+                mapOfIdsToIndices.computeIfAbsent(ids[index], k -> new ArrayList<>()).add(index);
+            }
+            return mapOfIdsToIndices;
+        }
+    }
+}
@@ -45,7 +45,8 @@ public class PhoenixLiveData {
     boolean initMetaData = true;
     MassSpecOutputBlockRecordLite blockRecordLite;
     MassSpecExtractedData massSpecExtractedData;
-    double [][] cycleData;
+    CycleRowBuffer cycleRows;
+    final LiveDataFileTailer liveDataFileTailer = new LiveDataFileTailer();
     int numOfFunctions = 0;
     int cycleIndex = 0;
     int blockIndex = 0;
@@ -81,16 +82,24 @@ public class PhoenixLiveData {
         return liveDataAnalysis;
     }
 
+    /**
+     * Reads the lines added to a live data file since it was last read and publishes the updated block.
+     * @param filePath live data file that was created or modified
+     * @return the live data analysis, or null if nothing new was read
+     */
     public AnalysisInterface readLiveDataFile(Path filePath) {
         File liveDataFile = filePath.toFile();
         analysisNumber = liveDataFile.getName().split("-")[0];
 
         if (liveDataFile.exists() && liveDataFile.isFile()){
             try {
-                String[] lines = Files.readAllLines(filePath).toArray(new String[0]);
+                List<String> lines = liveDataFileTailer.readNewLines(filePath);
                 for (String line : lines){
                     readLiveDataLine(line);
                 }
+                if (lines.isEmpty() || (null == cycleRows)) {
+                    return null;
+                }
                 if (initMetaData) {
                     setAnalysisHeader();
                     liveDataAnalysis.setDataFilePathString(filePath.getParent().toString());
@@ -122,18 +131,16 @@ public class PhoenixLiveData {
                     initMetaData = false;
                 }
 
-                blockRecordLite = new MassSpecOutputBlockRecordLite(blockIndex, cycleData);
+                blockRecordLite = new MassSpecOutputBlockRecordLite(blockIndex, cycleRows.snapshot());
                 if (r270_267ColumnIndex != -1 && r265_267ColumnIndex != -1) {
                     blockRecordLite = blockRecordLite.expandForUraniumOxideCorrection(r270_267ColumnIndex,r265_267ColumnIndex, 0.00205);
                 }
                 massSpecExtractedData.addBlockLiteRecord(blockRecordLite);
 
                 // Add data to UF map (For use in plots)
+                SingleBlockRawDataLiteSetRecord singleBlockRawDataLiteSetRecord = liveDataAnalysis.getUserFunctions().isEmpty()
+                        ? null : AllBlockInitForDataLiteOne.prepareSingleBlockDataLiteCaseOne(blockIndex, massSpecExtractedData);
                 for (UserFunction userFunction : liveDataAnalysis.getUserFunctions()){
-                    SingleBlockRawDataLiteSetRecord singleBlockRawDataLiteSetRecord = AllBlockInitForDataLiteOne.prepareSingleBlockDataLiteCaseOne(
-                            blockIndex,
-                            massSpecExtractedData
-                    );
                     userFunction.getMapBlockIdToBlockCyclesRecord().put(blockIndex, BlockCyclesBuilder.initializeBlockCycles(
                             blockIndex,
                             true,
@@ -205,21 +212,16 @@ public class PhoenixLiveData {
                 break;
             case "Cycle":
                 cycleIndex = Integer.parseInt(dataLineSplit[1]);
-                if (cycleData == null || cycleData.length > cycleIndex) {
+                if (cycleRows == null || cycleRows.getRowCount() > cycleIndex) {
                     // Starting a new block, set the CPB and redo the header
-                    if (cycleData != null && cyclesPerBlock == 0){
-                        cyclesPerBlock = cycleData.length;
+                    if (cycleRows != null && cyclesPerBlock == 0){
+                        cyclesPerBlock = cycleRows.getRowCount();
                         setAnalysisHeader();
                     }
-                    cycleData = new double[cycleIndex][numOfFunctions];
-                } else { // Copy old data to new array
-                    double[][] expandedCycleData = new double[cycleIndex][numOfFunctions];
-                    for (int row = 0; row < cycleData.length; row++) {
-                        System.arraycopy(cycleData[row], 0, expandedCycleData[row], 0, cycleData[row].length);
-                    }
-                    cycleData = expandedCycleData;
-
+                    cycleRows = new CycleRowBuffer();
                 }
+                // append rows up to this cycle in place rather than copying the block for every cycle
+                cycleRows.ensureRowCount(cycleIndex, numOfFunctions);
                 break;
             case "Block":
                 blockIndex = Integer.parseInt(dataLineSplit[1]);
@@ -229,7 +231,9 @@ public class PhoenixLiveData {
                     int columnIndex = Integer.parseInt(dataLineSplit[0])-1;
                     String userFunctionName = dataLineSplit[1].substring(1, dataLineSplit[1].length()-1);
                     double userFunctionValue = Double.parseDouble(dataLineSplit[2]);
-                    if (initMetaData){
+                    // a line read again after being caught mid-write must not add its function twice
+                    if (initMetaData && liveDataAnalysis.getUserFunctions().stream()
+                            .noneMatch(userFunction -> userFunction.getName().equals(userFunctionName))){
                         UserFunction userFunction = new UserFunction(userFunctionName, columnIndex);
                         liveDataAnalysis.getUserFunctions().add(userFunction);
                         String[] headersExpanded = Arrays.copyOf(massSpecExtractedData.getColumnHeaders(),
@@ -237,7 +241,7 @@ public class PhoenixLiveData {
                         headersExpanded[columnIndex+2] = userFunctionName;
                         massSpecExtractedData.setColumnHeaders(headersExpanded);
                     }
-                    cycleData[cycleIndex-1][columnIndex] = userFunctionValue;
+                    cycleRows.getRow(cycleIndex-1)[columnIndex] = userFunctionValue;
                 } catch (Exception ignore) {}
         }
     }
@@ -380,4 +384,42 @@ public class PhoenixLiveData {
 
         return new File(methodFolder + File.separator + methodName + File.separator + analysisName + ".TIMSDP");
     }
+
+    /**
+     * Cycle rows of the block being acquired. Rows are appended in place with amortized growth. Only the latest row
+     * is ever written again, so a snapshot shares the earlier rows and copies just that one.
+     */
+    static final class CycleRowBuffer {
+        private double[][] rows = new double[16][];
+        private int rowCount;
+
+        int getRowCount() {
+            return rowCount;
+        }
+
+        void ensureRowCount(int count, int valuesPerRow) {
+            if (count > rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(count, rows.length * 2));
+            }
+            while (rowCount < count) {
+                rows[rowCount] = new double[valuesPerRow];
+                rowCount++;
+            }
+        }
+
+        double[] getRow(int rowIndex) {
+            if (rowIndex >= rowCount) {
+                throw new ArrayIndexOutOfBoundsException("Cycle row " + rowIndex + " of " + rowCount);
+            }
+            return rows[rowIndex];
+        }
+
+        double[][] snapshot() {
+            double[][] snapshot = Arrays.copyOf(rows, rowCount);
+            if (0 < rowCount) {
+                snapshot[rowCount - 1] = snapshot[rowCount - 1].clone();
+            }
+            return snapshot;
+        }
+    }
 }
@@ -16,16 +16,15 @@
 
 package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.triton;
 
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MappedDelimitedFile;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MappedDelimitedFile.BlockLines;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedData;
 import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordLite;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -44,112 +43,70 @@ public enum TritonMassSpec {
     @SuppressWarnings("unused")
     public static MassSpecExtractedData extractMetaAndBlockDataFromFileTriton(Path inputDataFile) throws IOException, TripoliException {
         MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
-        List<String> contentsByLine = new ArrayList<>();
-        FileReader fileReader = new FileReader(inputDataFile.toFile());
-        BufferedReader bufferedReader = new BufferedReader(fileReader);
-        String linea;
-        while ((linea = bufferedReader.readLine()) != null) {
-            // for infinity symbol
-            linea = linea.replace("�", "");
-            contentsByLine.add(linea);
-        }
-        bufferedReader.close();
+        MappedDelimitedFile dataFile = MappedDelimitedFile.mapFile(inputDataFile);
 
-        List<List<String>> dataByBlocks = new ArrayList<>();
+        List<BlockLines> dataByBlocks = new ArrayList<>();
         List<String[]> headerByLineSplit = new ArrayList<>();
         List<String[]> columnNamesSplit = new ArrayList<>();
-        List<String> dataByBlock = new ArrayList<>();
+        BlockLines dataByBlock = new BlockLines(1);
 
         int phase = 0;
         int currentBlockID = 1;
         int cyclesPerBlock = 1;
-        contentsByLine.remove(0);
-        contentsByLine.remove(0);
-        for (String line : contentsByLine) {
-            if (!line.trim().isBlank() && (phase >= 0)) {
-                if (line.startsWith("Cycle")) {
+        // the first two lines precede the header
+        for (int lineIndex = 2; lineIndex < dataFile.getLineCount(); lineIndex++) {
+            if (!dataFile.isBlankLine(lineIndex) && (phase >= 0)) {
+                if (dataFile.lineStartsWith(lineIndex, "Cycle")) {
                     massSpecExtractedData.populateHeader(headerByLineSplit);
-                    columnNamesSplit.add(line.split("\t"));
+                    columnNamesSplit.add(lineWithoutInfinitySymbol(dataFile, lineIndex).split("\t"));
                     massSpecExtractedData.populateColumnNamesList(columnNamesSplit);
                     phase = 4;
-                } else if (line.startsWith("***")) {
+                } else if (dataFile.lineStartsWith(lineIndex, "***")) {
                     phase = 8;
                 }
 
                 switch (phase) {
                     case -1 -> {
                     }
-                    case 0 -> headerByLineSplit.add(line.split(": "));
+                    case 0 -> headerByLineSplit.add(lineWithoutInfinitySymbol(dataFile, lineIndex).split(": "));
                     case 4 -> phase = 5;
                     case 5 -> {
                         cyclesPerBlock = massSpecExtractedData.getHeader().cyclesPerBlock();
                         // check for empty line
-                        if (!line.contains("\t\t\t\t")) {
-                            String[] lineSplit = line.split("\t");
-                            int blockID = (Integer.parseInt(lineSplit[0].trim()) - 1) / cyclesPerBlock + 1;
+                        if (!dataFile.lineContains(lineIndex, "\t\t\t\t")) {
+                            int blockID = (Integer.parseInt(dataFile.firstFieldAsString(lineIndex).trim()) - 1) / cyclesPerBlock + 1;
                             if (blockID != currentBlockID) {
                                 dataByBlocks.add(dataByBlock);
-                                massSpecExtractedData.addBlockLiteRecord(
-                                        parseAndBuildSingleBlockTritonRecord(currentBlockID, cyclesPerBlock, dataByBlocks.get(currentBlockID - 1)));
                                 currentBlockID++;
-                                dataByBlock = new ArrayList<>();
-                                dataByBlock.add(line);
-                            } else {
-                                dataByBlock.add(line);
+                                dataByBlock = new BlockLines(currentBlockID);
                             }
+                            dataByBlock.addLine(lineIndex);
                         }
                     }
                     case 8 -> {
                         dataByBlocks.add(dataByBlock);
-                        massSpecExtractedData.addBlockLiteRecord(
-                                parseAndBuildSingleBlockTritonRecord(currentBlockID, cyclesPerBlock, dataByBlocks.get(currentBlockID - 1)));
                         phase = -1;
                     }
                 }
             }
         }
 
-        return massSpecExtractedData;
-    }
-
-    private static MassSpecOutputBlockRecordLite parseAndBuildSingleBlockTritonRecord(int blockNumber, int cyclesPerBlock, List<String> blockData) {
-        List<String> timeStampByLineSplit = new ArrayList<>();
-        List<String[]> cycleDataByLineSplit = new ArrayList<>();
         // case 1:  Triton Cycle,Time, DATA[custom fields]
-        for (String line : blockData) {
-            String[] lineSplit = line.split("\t");
-            timeStampByLineSplit.add(lineSplit[1].trim());
-            cycleDataByLineSplit.add(Arrays.copyOfRange(lineSplit, 2, lineSplit.length));
+        for (MassSpecOutputBlockRecordLite blockRecord : dataFile.parseBlocksInParallel(dataByBlocks, 2, TritonMassSpec::cleanCycleField)) {
+            massSpecExtractedData.addBlockLiteRecord(blockRecord);
         }
 
-        return buildSingleBlockTritonRecord(
-                blockNumber,
-                cycleDataByLineSplit);
+        return massSpecExtractedData;
     }
 
-    private static MassSpecOutputBlockRecordLite buildSingleBlockTritonRecord(
-            int blockID,
-            List<String[]> cycleDataByLineSplit) {
-
-        double[][] cycleData = new double[cycleDataByLineSplit.size()][];
-        int index = 0;
-        for (String[] numbersAsStrings : cycleDataByLineSplit) {
-            // TODO: wTF
-            for (int i = 0; i < numbersAsStrings.length; i++) {
-                numbersAsStrings[i] = numbersAsStrings[i].replaceAll("X", "");
-                numbersAsStrings[i] = numbersAsStrings[i].replaceAll("D", "");
-                numbersAsStrings[i] = numbersAsStrings[i].replaceAll("Invalid Norm", "0.0");
-            }
-            cycleData[index] = Arrays.stream(numbersAsStrings)
-                    .mapToDouble(Double::parseDouble)
-                    .toArray();
-            index++;
-        }
+    private static String lineWithoutInfinitySymbol(MappedDelimitedFile dataFile, int lineIndex) {
+        return dataFile.lineAsString(lineIndex).replace("�", "");
+    }
 
-        return new MassSpecOutputBlockRecordLite(
-                blockID,
-                cycleData
-        );
+    private static String cleanCycleField(String numberAsString) {
+        // the export marks flagged values with X or D and some with the infinity symbol, and writes "Invalid Norm" for a
+        // value it could not normalize; strip the marks and read that text as 0.0
+        return numberAsString.replace("�", "").replace("X", "").replace("D", "").replace("Invalid Norm", "0.0");
     }
 
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.batch;
+
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of reducing one data file in a batch.
+ *
+ * @param dataFile      the data file
+ * @param status        whether the file was reduced, skipped as not a recognized data file, or failed
+ * @param analysis      the reduced analysis, or null unless reduced
+ * @param message       warnings for a reduced file, or the reason a file was skipped or failed; empty if none
+ * @param elapsedMillis time spent on the file
+ * @author James F. Bowring
+ */
+public record BatchFileResult(
+        Path dataFile,
+        Status status,
+        AnalysisInterface analysis,
+        String message,
+        long elapsedMillis) {
+
+    public enum Status {
+        REDUCED,
+        SKIPPED,
+        FAILED
+    }
+
+    public boolean isReduced() {
+        return Status.REDUCED == status;
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.batch;
+
+import org.cirdles.tripoli.plots.PlotBuilder;
+import org.cirdles.tripoli.reports.Report;
+import org.cirdles.tripoli.sessions.Session;
+import org.cirdles.tripoli.sessions.analysis.Analysis;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.dataLiteOne.initializers.AllBlockInitForDataLiteOne;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc.MCMCBlockScheduler;
+import org.cirdles.tripoli.sessions.analysis.methods.AnalysisMethod;
+import org.cirdles.tripoli.utilities.IntuitiveStringComparator;
+import org.cirdles.tripoli.utilities.callbacks.LoggingCallbackInterface;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.cirdles.tripoli.constants.MassSpectrometerContextEnum.UNKNOWN;
+
+/**
+ * Reduces data files and exports their reports without the GUI, for a compute server or a scheduled job.
+ * <p>
+ * Each file is detected, parsed and reduced on a pool of workers: DataLite files by initializing their block models,
+ * and full data files by running every block through MCMC on the shared <code>MCMCBlockScheduler</code>. A file that
+ * is not recognized is skipped, and a file whose reduction throws is recorded as failed, without affecting the others.
+ * The reduced DataLite analyses are reported one CSV per analysis method, as <code>Report.generateCSVFile</code>
+ * writes them; each reduced full data analysis gets its analysis report; and a summary lists the outcome for every
+ * file.
+ *
+ * @author James F. Bowring
+ */
+public class BatchReductionEngine {
+
+    private static final Set<String> DATA_FILE_EXTENSIONS = Set.of("txt", "exp", "timsdp", "xls");
+
+    private final Path analysisMethodFile;
+    private final int workerCount;
+    private final LoggingCallbackInterface loggingCallback;
+    private final Session session;
+
+    /**
+     * @param sessionName        name of the session holding the reduced analyses, used to name the reports
+     * @param analysisMethodFile Phoenix analysis method XML applied to every full data file, or null to use the method
+     *                           each file names, as opening the file in the GUI does
+     * @param workerCount        count of files reduced at once
+     * @param loggingCallback    receives progress, each snippet prefixed by the name of its data file
+     */
+    public BatchReductionEngine(String sessionName, Path analysisMethodFile, int workerCount, LoggingCallbackInterface loggingCallback) {
+        this.analysisMethodFile = analysisMethodFile;
+        this.workerCount = Math.max(1, workerCount);
+        this.loggingCallback = loggingCallback;
+        // also loads the persistent state here, before the workers read it
+        session = Session.initializeSession(sessionName);
+    }
+
+    /**
+     * @param dataFolder folder to search, not including its sub-folders
+     * @return the data files in the folder, by the extensions the GUI opens, in intuitive order of their names
+     * @throws TripoliException if the folder cannot be read
+     */
+    public static List<Path> listDataFiles(Path dataFolder) throws TripoliException {
+        List<Path> dataFiles;
+        try (Stream<Path> folderContents = Files.list(dataFolder)) {
+            dataFiles = new ArrayList<>(folderContents
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .filter(path -> DATA_FILE_EXTENSIONS.contains(extensionOf(path)))
+                    .toList());
+        } catch (IOException e) {
+            throw new TripoliException("Data folder could not be read: " + dataFolder, e);
+        }
+        IntuitiveStringComparator<String> intuitiveStringComparator = new IntuitiveStringComparator<>();
+        dataFiles.sort((file1, file2) -> intuitiveStringComparator.compare(file1.getFileName().toString(), file2.getFileName().toString()));
+        return dataFiles;
+    }
+
+    private static String extensionOf(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Reduces the data files in a folder.
+     *
+     * @param dataFolder folder of data files
+     * @return outcome for each data file, in the order of <code>listDataFiles</code>
+     * @throws TripoliException if the folder cannot be read or the wait for the workers is interrupted
+     */
+    public List<BatchFileResult> reduceFolder(Path dataFolder) throws TripoliException {
+        return reduceFiles(listDataFiles(dataFolder));
+    }
+
+    /**
+     * Reduces the data files on the pool of workers and adds each reduced analysis to the session.
+     *
+     * @param dataFiles data files to reduce
+     * @return outcome for each data file, in the order given
+     * @throws TripoliException if the wait for the workers is interrupted
+     */
+    public List<BatchFileResult> reduceFiles(List<Path> dataFiles) throws TripoliException {
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "Tripoli batch worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<BatchFileResult>> fileFutures = new ArrayList<>();
+            for (Path dataFile : dataFiles) {
+                fileFutures.add(workers.submit(() -> reduceFile(dataFile)));
+            }
+
+            List<BatchFileResult> results = new ArrayList<>();
+            for (int fileIndex = 0; fileIndex < dataFiles.size(); fileIndex++) {
+                try {
+                    results.add(fileFutures.get(fileIndex).get());
+                } catch (InterruptedException e) {
+                    fileFutures.forEach(future -> future.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new TripoliException("Batch reduction interrupted", e);
+                } catch (ExecutionException e) {
+                    // an error that reduceFile does not catch still fails only its own file
+                    results.add(new BatchFileResult(dataFiles.get(fileIndex), BatchFileResult.Status.FAILED, null, describe(e.getCause()), 0L));
+                }
+            }
+
+            for (BatchFileResult result : results) {
+                if (result.isReduced()) {
+                    session.addAnalysis(result.analysis());
+                }
+            }
+            return results;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Detects, parses and reduces one data file, capturing any failure in the result.
+     *
+     * @param dataFile data file to reduce
+     * @return outcome for the data file
+     */
+    public BatchFileResult reduceFile(Path dataFile) {
+        long startMillis = System.currentTimeMillis();
+        LoggingCallbackInterface fileLoggingCallback =
+                loggingSnippet -> loggingCallback.receiveLoggingSnippet(dataFile.getFileName() + ": " + loggingSnippet);
+        try {
+            if (0 == AnalysisInterface.determineMassSpectrometerContextFromDataFile(dataFile).compareTo(UNKNOWN)) {
+                return new BatchFileResult(dataFile, BatchFileResult.Status.SKIPPED, null,
+                        "Not a recognized data file", System.currentTimeMillis() - startMillis);
+            }
+
+            Analysis analysis = AnalysisInterface.initializeNewAnalysis(0);
+            analysis.initializeDefaultsFromSessionDefaults(session);
+            String analysisName = analysis.extractMassSpecDataFromPath(dataFile);
+            analysis.setAnalysisName(analysisName);
+            analysis.setAnalysisStartTime(analysis.getMassSpecExtractedData().getHeader().analysisStartTime());
+
+            String message = "";
+            if (1 < analysis.getAnalysisCaseNumber()) {
+                if (null != analysisMethodFile) {
+                    AnalysisMethod analysisMethod = analysis.extractAnalysisMethodfromPath(analysisMethodFile);
+                    // the GUI asks whether to proceed with a mismatched method; a batch proceeds and reports it
+                    message = AnalysisMethod.compareAnalysisMethodToDataFileSpecs(analysisMethod, analysis.getMassSpecExtractedData()).trim();
+                    analysis.setMethod(analysisMethod);
+                    analysis.initializeBlockProcessing();
+                }
+                if (null == analysis.getAnalysisMethod()) {
+                    throw new TripoliException("No analysis method found for " + analysisName + "; supply an analysis method file");
+                }
+                fileLoggingCallback.receiveLoggingSnippet("running MCMC on " + analysis.getMapOfBlockIdToProcessStatus().size() + " blocks");
+                runBlocks(analysis, fileLoggingCallback);
+            } else {
+                AllBlockInitForDataLiteOne.initBlockModels(analysis);
+            }
+
+            fileLoggingCallback.receiveLoggingSnippet("reduced as " + analysisName);
+            return new BatchFileResult(dataFile, BatchFileResult.Status.REDUCED, analysis, message, System.currentTimeMillis() - startMillis);
+        } catch (Exception e) {
+            fileLoggingCallback.receiveLoggingSnippet("failed: " + describe(e));
+            return new BatchFileResult(dataFile, BatchFileResult.Status.FAILED, null, describe(e), System.currentTimeMillis() - startMillis);
+        }
+    }
+
+    private static void runBlocks(Analysis analysis, LoggingCallbackInterface loggingCallback) throws TripoliException {
+        MCMCBlockScheduler mcmcBlockScheduler = MCMCBlockScheduler.getSharedScheduler(analysis.getParameters().getMcmcBlockParallelism());
+        Map<Integer, FutureTask<PlotBuilder[][]>> mapOfBlockIdToTask = new TreeMap<>();
+        for (Integer blockID : new ArrayList<>(analysis.getMapOfBlockIdToProcessStatus().keySet())) {
+            FutureTask<PlotBuilder[][]> blockTask = new FutureTask<>(() -> analysis.updatePlotsByBlock(blockID, loggingCallback));
+            mapOfBlockIdToTask.put(blockID, blockTask);
+            mcmcBlockScheduler.getExecutor().execute(blockTask);
+        }
+
+        for (Map.Entry<Integer, FutureTask<PlotBuilder[][]>> entry : mapOfBlockIdToTask.entrySet()) {
+            try {
+                entry.getValue().get();
+            } catch (InterruptedException e) {
+                mapOfBlockIdToTask.values().forEach(blockTask -> blockTask.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new TripoliException("MCMC block scheduling interrupted", e);
+            } catch (ExecutionException e) {
+                mapOfBlockIdToTask.values().forEach(blockTask -> blockTask.cancel(true));
+                throw new TripoliException("MCMC failed for BLOCK # " + entry.getKey(), e.getCause());
+            }
+        }
+        analysis.analysisRatioEngine();
+    }
+
+    /**
+     * Writes the reports of the reduced analyses and a summary of every file to the output folder.
+     *
+     * @param results      outcomes of a batch
+     * @param outputFolder folder for the reports, created if needed
+     * @param reportName   name of a saved report to use for each analysis method, or null for the full report; a
+     *                     method without a saved report of that name also gets the full report
+     * @return the files written, the summary last
+     * @throws TripoliException if a report cannot be written
+     */
+    public List<Path> exportReports(List<BatchFileResult> results, Path outputFolder, String reportName) throws TripoliException {
+        List<Path> reportFiles = new ArrayList<>();
+        try {
+            Files.createDirectories(outputFolder);
+
+            Map<String, List<AnalysisInterface>> mapOfMethodNamesToAnalyses = new TreeMap<>();
+            for (BatchFileResult result : results) {
+                if (result.isReduced()) {
+                    AnalysisInterface analysis = result.analysis();
+                    if (1 < analysis.getAnalysisCaseNumber()) {
+                        Path analysisReportFile = outputFolder.resolve(safeFileName(analysis.getAnalysisName() + "-AnalysisReport.csv"));
+                        Files.writeString(analysisReportFile, ((Analysis) analysis).produceReportTemplateOne());
+                        reportFiles.add(analysisReportFile);
+                    } else {
+                        mapOfMethodNamesToAnalyses.computeIfAbsent(analysis.getMethod().getMethodName(), k -> new ArrayList<>()).add(analysis);
+                    }
+                }
+            }
+
+            for (Map.Entry<String, List<AnalysisInterface>> entry : mapOfMethodNamesToAnalyses.entrySet()) {
+                Report report = selectReport(entry.getKey(), reportName, entry.getValue().get(0));
+                File reportCSVFile = outputFolder.resolve(safeFileName(session.getSessionName() + "-" + entry.getKey() + "-report.csv")).toFile();
+                if (null == report.generateCSVFile(entry.getValue(), reportCSVFile)) {
+                    throw new TripoliException("Report could not be written: " + reportCSVFile);
+                }
+                reportFiles.add(reportCSVFile.toPath());
+            }
+
+            Path summaryFile = outputFolder.resolve(safeFileName(session.getSessionName() + "-batch-summary.csv"));
+            writeSummary(results, summaryFile);
+            reportFiles.add(summaryFile);
+        } catch (IOException e) {
+            throw new TripoliException("Reports could not be written to " + outputFolder, e);
+        }
+        return reportFiles;
+    }
+
+    private static Report selectReport(String methodName, String reportName, AnalysisInterface analysis) {
+        if (null != reportName) {
+            for (Report report : Report.getReportList(methodName)) {
+                if (report.getReportName().equals(reportName)) {
+                    return report;
+                }
+            }
+        }
+        return Report.createFullReport("Full Report", analysis);
+    }
+
+    private static void writeSummary(List<BatchFileResult> results, Path summaryFile) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(summaryFile)) {
+            writer.write("Data File,Status,Analysis Name,Method,Seconds,Message");
+            writer.newLine();
+            for (BatchFileResult result : results) {
+                AnalysisInterface analysis = result.analysis();
+                writer.write(String.join(",",
+                        csvField(result.dataFile().toString()),
+                        result.status().name(),
+                        csvField((null == analysis) ? "" : analysis.getAnalysisName()),
+                        csvField(((null == analysis) || (null == analysis.getMethod())) ? "" : analysis.getMethod().getMethodName()),
+                        String.valueOf(result.elapsedMillis() / 1000.0),
+                        csvField(result.message())));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String safeFileName(String fileName) {
+        return fileName.replaceAll("[\\\\/:*?\"<>|]", "_");
+    }
+
+    /**
+     * @return a one-line account of a failure, looking through the reflective calls to the parsers
+     */
+    static String describe(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof InvocationTargetException || cause instanceof ExecutionException) && (null != cause.getCause())) {
+            cause = cause.getCause();
+        }
+        String description = cause.getClass().getSimpleName();
+        if (null != cause.getMessage()) {
+            description += ": " + cause.getMessage();
+        }
+        if ((cause instanceof TripoliException) && (null != cause.getCause())) {
+            description += " (" + describe(cause.getCause()) + ")";
+        }
+        return description.replace('\n', ' ').trim();
+    }
+}
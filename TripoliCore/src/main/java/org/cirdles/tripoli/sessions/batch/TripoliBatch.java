@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.batch;
+
+import org.cirdles.tripoli.Tripoli;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line entry point that reduces a folder of data files and exports their reports without the GUI.
+ * <p>
+ * Exits with 0 when no file failed, 1 when at least one file failed, 2 for a usage error, and 3 when the batch could
+ * not run or its reports could not be written.
+ *
+ * @author James F. Bowring
+ */
+public enum TripoliBatch {
+    ;
+
+    private static final String USAGE = """
+            Usage: TripoliBatch <data folder> [options]
+              --method <file>     Phoenix analysis method XML (.TIMSAM) for full data files;
+                                  by default each file uses the method it names
+              --output <folder>   folder for the reports and the summary; default is the data folder
+              --workers <count>   data files reduced at once; default is the count of processors
+              --report <name>     saved report to export for each analysis method; default is the full report
+              --session <name>    session name used in the report file names; default is "Batch Session"
+              --verbose           print progress, including MCMC progress
+            """;
+
+    public static void main(String[] args) {
+        Path dataFolder = null;
+        Path analysisMethodFile = null;
+        Path outputFolder = null;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        String reportName = null;
+        String sessionName = "Batch Session";
+        boolean verbose = false;
+
+        try {
+            for (int argIndex = 0; argIndex < args.length; argIndex++) {
+                switch (args[argIndex]) {
+                    case "--method" -> analysisMethodFile = Path.of(optionValue(args, ++argIndex));
+                    case "--output" -> outputFolder = Path.of(optionValue(args, ++argIndex));
+                    case "--workers" -> workerCount = Integer.parseInt(optionValue(args, ++argIndex));
+                    case "--report" -> reportName = optionValue(args, ++argIndex);
+                    case "--session" -> sessionName = optionValue(args, ++argIndex);
+                    case "--verbose" -> verbose = true;
+                    default -> {
+                        if (args[argIndex].startsWith("--") || (null != dataFolder)) {
+                            throw new IllegalArgumentException("Unexpected argument: " + args[argIndex]);
+                        }
+                        dataFolder = Path.of(args[argIndex]);
+                    }
+                }
+            }
+            if (null == dataFolder) {
+                throw new IllegalArgumentException("No data folder given");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        if (null == outputFolder) {
+            outputFolder = dataFolder;
+        }
+
+        boolean printProgress = verbose;
+        BatchReductionEngine batchReductionEngine = new BatchReductionEngine(sessionName, analysisMethodFile, workerCount,
+                loggingSnippet -> {
+                    if (printProgress) {
+                        System.out.println(loggingSnippet);
+                    }
+                });
+        System.out.println("Tripoli " + Tripoli.VERSION + " batch reduction of " + dataFolder.toAbsolutePath());
+
+        int exitCode = 0;
+        try {
+            List<BatchFileResult> results = batchReductionEngine.reduceFolder(dataFolder);
+            for (BatchFileResult result : results) {
+                System.out.println(result.status() + "  " + result.dataFile().getFileName()
+                        + (result.message().isEmpty() ? "" : "  " + result.message()));
+                if (BatchFileResult.Status.FAILED == result.status()) {
+                    exitCode = 1;
+                }
+            }
+            for (Path reportFile : batchReductionEngine.exportReports(results, outputFolder, reportName)) {
+                System.out.println("Wrote " + reportFile);
+            }
+        } catch (TripoliException e) {
+            System.err.println(BatchReductionEngine.describe(e));
+            exitCode = 3;
+        }
+        System.exit(exitCode);
+    }
+
+    private static String optionValue(String[] args, int argIndex) {
+        if (argIndex >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[argIndex - 1]);
+        }
+        return args[argIndex];
+    }
+}
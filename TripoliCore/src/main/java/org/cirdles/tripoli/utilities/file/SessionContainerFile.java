@@ -0,0 +1,518 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.file;
+
+import org.cirdles.tripoli.sessions.Session;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * The '*.tripoli' session file as a container of independently readable sections, replacing the single object graph
+ * written by <code>TripoliSerializer</code>.
+ * <p>
+ * Each analysis is written to its own section, and each of its heavy per-block maps (plots, peak plots, ensembles,
+ * final models and raw data) to a section of its own. The session itself is written last with its analyses replaced by
+ * section references, followed by a table of contents whose offset is recorded in the header. Opening a session reads
+ * the session and analysis sections only; each heavy map is a <code>DeferredSectionMap</code> that reads its section
+ * the first time it is used. Saving a session copies the bytes of maps that were never read rather than reading them.
+ * Because the session file must stay in place until then, <code>loadAnalysisSections</code> reads every map of an
+ * analysis up front so a missing file is reported as a <code>TripoliException</code> when the analysis is opened.
+ * <p>
+ * Sections are Java serialized, so the classes stored keep their existing serialization compatibility.
+ *
+ * @author James F. Bowring
+ */
+public enum SessionContainerFile {
+    ;
+
+    // version 2 writes the session's default colors as shared references
+    public static final int SESSION_CONTAINER_VERSION = 2;
+    private static final byte[] SESSION_CONTAINER_MAGIC = "TRIPOLI-SESSION\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_LENGTH = SESSION_CONTAINER_MAGIC.length + Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SESSION_SECTION = "session";
+    // while set, a deferred map is written as a reference to its section rather than as the map it holds
+    private static final ThreadLocal<Boolean> WRITING_SESSION_CONTAINER = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * @param sessionFile session file
+     * @return true if the file starts with the container header rather than a serialized object stream
+     * @throws IOException on read failure
+     */
+    public static boolean isSessionContainerFile(Path sessionFile) throws IOException {
+        byte[] magic = new byte[SESSION_CONTAINER_MAGIC.length];
+        try (InputStream inputStream = Files.newInputStream(sessionFile)) {
+            return (magic.length == inputStream.readNBytes(magic, 0, magic.length))
+                    && Arrays.equals(SESSION_CONTAINER_MAGIC, magic);
+        }
+    }
+
+    /**
+     * Writes the session to a temporary file beside the session file and then moves it into place, so the previous
+     * session file, which may still hold unread sections of this session, stays intact until the write succeeds.
+     *
+     * @param session     session to save
+     * @param sessionFile target '*.tripoli' file
+     * @throws IOException on write failure
+     */
+    public static void writeSessionContainer(Session session, Path sessionFile) throws IOException {
+        Path targetFile = sessionFile.toAbsolutePath();
+        Path tempFile = Files.createTempFile(targetFile.getParent(), targetFile.getFileName().toString(), ".tmp");
+        Map<DeferredSectionMap<?, ?>, Long> mapOfCopiedSectionsToOffsets = new IdentityHashMap<>();
+        WRITING_SESSION_CONTAINER.set(true);
+        try {
+            try (FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                CountingOutputStream countingOutputStream =
+                        new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE));
+                DataOutputStream dataOutputStream = new DataOutputStream(countingOutputStream);
+                dataOutputStream.write(SESSION_CONTAINER_MAGIC);
+                dataOutputStream.writeInt(SESSION_CONTAINER_VERSION);
+                // table of contents offset, written once known
+                dataOutputStream.writeLong(0L);
+
+                Map<String, long[]> tableOfContents = new LinkedHashMap<>();
+                Map<Object, Object> sessionReplacements = new IdentityHashMap<>();
+                int analysisIndex = 0;
+                for (AnalysisInterface analysis : session.getMapOfAnalyses().values()) {
+                    String analysisSection = "analysis/" + analysisIndex;
+                    sessionReplacements.put(analysis, new SectionReference(analysisSection));
+
+                    Map<Object, Object> sharedReplacements = sessionReplacements(session);
+                    sharedReplacements.put(analysis, SharedReference.OWNING_ANALYSIS);
+                    Map<Object, Object> analysisReplacements = sessionReplacements(session);
+                    for (Map.Entry<String, Map<?, ?>> entry : deferredMapsBySectionSuffix(analysis).entrySet()) {
+                        String mapSection = analysisSection + "/" + entry.getKey();
+                        analysisReplacements.put(entry.getValue(), new SectionReference(mapSection));
+                        long offset = countingOutputStream.getCount();
+                        if (!(entry.getValue() instanceof DeferredSectionMap<?, ?> deferredSectionMap)) {
+                            writeSection(countingOutputStream, entry.getValue(), sharedReplacements);
+                        } else if (deferredSectionMap.copySectionTo(countingOutputStream)) {
+                            mapOfCopiedSectionsToOffsets.put(deferredSectionMap, offset);
+                        } else {
+                            writeSection(countingOutputStream, deferredSectionMap.map(), sharedReplacements);
+                        }
+                        tableOfContents.put(mapSection, new long[]{offset, countingOutputStream.getCount() - offset});
+                    }
+
+                    long offset = countingOutputStream.getCount();
+                    writeSection(countingOutputStream, analysis, analysisReplacements);
+                    tableOfContents.put(analysisSection, new long[]{offset, countingOutputStream.getCount() - offset});
+                    analysisIndex++;
+                }
+                long offset = countingOutputStream.getCount();
+                writeSection(countingOutputStream, session, sessionReplacements);
+                tableOfContents.put(SESSION_SECTION, new long[]{offset, countingOutputStream.getCount() - offset});
+
+                long tableOfContentsOffset = countingOutputStream.getCount();
+                dataOutputStream.writeInt(tableOfContents.size());
+                for (Map.Entry<String, long[]> entry : tableOfContents.entrySet()) {
+                    dataOutputStream.writeUTF(entry.getKey());
+                    dataOutputStream.writeLong(entry.getValue()[0]);
+                    dataOutputStream.writeLong(entry.getValue()[1]);
+                }
+                dataOutputStream.flush();
+                fileChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, tableOfContentsOffset),
+                        SESSION_CONTAINER_MAGIC.length + Integer.BYTES);
+                fileChannel.force(false);
+            }
+            Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            WRITING_SESSION_CONTAINER.remove();
+            Files.deleteIfExists(tempFile);
+        }
+        for (Map.Entry<DeferredSectionMap<?, ?>, Long> entry : mapOfCopiedSectionsToOffsets.entrySet()) {
+            entry.getKey().moveSection(targetFile, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the session and its analyses; the heavy maps of each analysis are read when first used.
+     *
+     * @param sessionFile '*.tripoli' container file
+     * @return the session
+     * @throws IOException            on read failure or if the file is not a supported container
+     * @throws ClassNotFoundException if a section holds a class unknown to this version of Tripoli
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Session readSessionContainer(Path sessionFile) throws IOException, ClassNotFoundException {
+        Path sourceFile = sessionFile.toAbsolutePath();
+        try (FileChannel fileChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            int headerBytes = 0;
+            while (headerBytes < HEADER_LENGTH) {
+                int bytesRead = fileChannel.read(header, headerBytes);
+                if (0 > bytesRead) {
+                    break;
+                }
+                headerBytes += bytesRead;
+            }
+            byte[] magic = new byte[SESSION_CONTAINER_MAGIC.length];
+            header.get(0, magic);
+            if ((HEADER_LENGTH > headerBytes) || !Arrays.equals(SESSION_CONTAINER_MAGIC, magic)) {
+                throw new IOException("Not a Tripoli session container: " + sessionFile);
+            }
+            int version = header.getInt(SESSION_CONTAINER_MAGIC.length);
+            if (version > SESSION_CONTAINER_VERSION) {
+                throw new IOException("Session file version " + version + " is newer than this version of Tripoli supports.");
+            }
+
+            Map<String, long[]> tableOfContents = new HashMap<>();
+            fileChannel.position(header.getLong(SESSION_CONTAINER_MAGIC.length + Integer.BYTES));
+            DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel)));
+            int sectionCount = dataInputStream.readInt();
+            for (int i = 0; i < sectionCount; i++) {
+                tableOfContents.put(dataInputStream.readUTF(), new long[]{dataInputStream.readLong(), dataInputStream.readLong()});
+            }
+
+            Session session = (Session) readSection(fileChannel, sectionOffset(tableOfContents, SESSION_SECTION), UnaryOperator.identity());
+            for (Map.Entry entry : ((Map<?, ?>) session.getMapOfAnalyses()).entrySet()) {
+                if (entry.getValue() instanceof SectionReference analysisReference) {
+                    List<DeferredSectionMap<?, ?>> deferredSectionMaps = new ArrayList<>();
+                    AnalysisInterface analysis = (AnalysisInterface) readSection(fileChannel,
+                            sectionOffset(tableOfContents, analysisReference.sectionName()), replacement -> {
+                                if (replacement instanceof SectionReference mapReference) {
+                                    long[] section = tableOfContents.get(mapReference.sectionName());
+                                    DeferredSectionMap<?, ?> deferredSectionMap = new DeferredSectionMap<>(sourceFile, section[0], section[1], session);
+                                    deferredSectionMaps.add(deferredSectionMap);
+                                    return deferredSectionMap;
+                                }
+                                return resolveSessionReference(replacement, session);
+                            });
+                    for (DeferredSectionMap<?, ?> deferredSectionMap : deferredSectionMaps) {
+                        deferredSectionMap.owningAnalysis = analysis;
+                    }
+                    entry.setValue(analysis);
+                }
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Reads any heavy maps of the analysis that are still in the session file.
+     *
+     * @param analysis analysis about to be used
+     * @throws TripoliException naming the session file if it has been moved, deleted or cannot be read
+     */
+    public static void loadAnalysisSections(AnalysisInterface analysis) throws TripoliException {
+        for (Map<?, ?> map : deferredMapsBySectionSuffix(analysis).values()) {
+            if (map instanceof DeferredSectionMap<?, ?> deferredSectionMap) {
+                deferredSectionMap.load();
+            }
+        }
+    }
+
+    private static Map<String, Map<?, ?>> deferredMapsBySectionSuffix(AnalysisInterface analysis) {
+        Map<String, Map<?, ?>> deferredMapsBySectionSuffix = new LinkedHashMap<>();
+        deferredMapsBySectionSuffix.put("plots", analysis.getMapOfBlockIdToPlots());
+        deferredMapsBySectionSuffix.put("peakPlots", analysis.getMapOfBlockIdToPeakPlots());
+        deferredMapsBySectionSuffix.put("ensembles", analysis.getMapBlockIDToEnsembles());
+        deferredMapsBySectionSuffix.put("finalModels", analysis.getMapOfBlockIdToFinalModel());
+        deferredMapsBySectionSuffix.put("rawData", analysis.getMapOfBlockIdToRawData());
+        deferredMapsBySectionSuffix.put("rawDataLite", analysis.getMapOfBlockIdToRawDataLiteOne());
+        return deferredMapsBySectionSuffix;
+    }
+
+    /**
+     * Analyses share the session and its default colors, so that edits to the session defaults reach every analysis;
+     * each section refers to them rather than writing a copy of its own.
+     */
+    private static Map<Object, Object> sessionReplacements(Session session) {
+        Map<Object, Object> replacements = new IdentityHashMap<>();
+        replacements.put(session, SharedReference.SESSION);
+        if (null != session.getSessionDefaultMapOfSpeciesToColors()) {
+            replacements.put(session.getSessionDefaultMapOfSpeciesToColors(), SharedReference.SESSION_SPECIES_COLORS);
+        }
+        if (null != session.getBlockCyclesPlotColors()) {
+            replacements.put(session.getBlockCyclesPlotColors(), SharedReference.SESSION_RATIOS_COLORS);
+        }
+        return replacements;
+    }
+
+    private static Object resolveSessionReference(Object replacement, Session session) {
+        if (SharedReference.SESSION == replacement) {
+            return session;
+        }
+        if (SharedReference.SESSION_SPECIES_COLORS == replacement) {
+            return session.getSessionDefaultMapOfSpeciesToColors();
+        }
+        return (SharedReference.SESSION_RATIOS_COLORS == replacement) ? session.getBlockCyclesPlotColors() : replacement;
+    }
+
+    private static long sectionOffset(Map<String, long[]> tableOfContents, String sectionName) throws IOException {
+        long[] section = tableOfContents.get(sectionName);
+        if (null == section) {
+            throw new IOException("Session file is missing section " + sectionName);
+        }
+        return section[0];
+    }
+
+    private static void writeSection(OutputStream outputStream, Object sectionObject, Map<Object, Object> replacements)
+            throws IOException {
+        // each section is a complete object stream, so any one can be read alone
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream) {
+            {
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) {
+                return (obj == sectionObject) ? obj : replacements.getOrDefault(obj, obj);
+            }
+        };
+        objectOutputStream.writeObject(sectionObject);
+        objectOutputStream.flush();
+    }
+
+    private static Object readSection(FileChannel fileChannel, long offset, UnaryOperator<Object> resolver)
+            throws IOException, ClassNotFoundException {
+        fileChannel.position(offset);
+        ObjectInputStream objectInputStream = new ObjectInputStream(
+                new BufferedInputStream(Channels.newInputStream(fileChannel), BUFFER_SIZE)) {
+            {
+                enableResolveObject(true);
+            }
+
+            @Override
+            protected Object resolveObject(Object obj) {
+                return resolver.apply(obj);
+            }
+        };
+        return objectInputStream.readObject();
+    }
+
+    private enum SharedReference {
+        SESSION,
+        SESSION_SPECIES_COLORS,
+        SESSION_RATIOS_COLORS,
+        OWNING_ANALYSIS
+    }
+
+    private record SectionReference(String sectionName) implements Serializable {
+    }
+
+    /**
+     * A heavy analysis map that reads its section of the session file when first used. Outside of writing a
+     * container it serializes as the map it holds, so sessions saved with <code>TripoliSerializer</code> are unchanged.
+     */
+    private static final class DeferredSectionMap<K, V> implements Map<K, V>, Serializable {
+        @Serial
+        private static final long serialVersionUID = 3217464209658174307L;
+
+        private final transient Session session;
+        private transient AnalysisInterface owningAnalysis;
+        private transient Path sourceFile;
+        private transient long sectionOffset;
+        private final transient long sectionLength;
+        private transient Map<K, V> map;
+
+        private DeferredSectionMap(Path sourceFile, long sectionOffset, long sectionLength, Session session) {
+            this.sourceFile = sourceFile;
+            this.sectionOffset = sectionOffset;
+            this.sectionLength = sectionLength;
+            this.session = session;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized Map<K, V> load() throws TripoliException {
+            if (null == map) {
+                try (FileChannel fileChannel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+                    map = (Map<K, V>) readSection(fileChannel, sectionOffset, replacement ->
+                            (SharedReference.OWNING_ANALYSIS == replacement)
+                                    ? owningAnalysis : resolveSessionReference(replacement, session));
+                } catch (NoSuchFileException ex) {
+                    throw new TripoliException("Cannot read analysis data because the session file " + sourceFile
+                            + " has been moved or deleted since the session was opened.", ex);
+                } catch (IOException | ClassNotFoundException ex) {
+                    throw new TripoliException("Cannot read analysis data from session file " + sourceFile
+                            + "\n\nbecause: \n" + ex.getMessage(), ex);
+                }
+                sourceFile = null;
+            }
+            return map;
+        }
+
+        private Map<K, V> map() {
+            try {
+                return load();
+            } catch (TripoliException ex) {
+                // the Map methods cannot declare it; loadAnalysisSections reports it before the maps are used
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+        }
+
+        private synchronized boolean copySectionTo(OutputStream outputStream) throws IOException {
+            if (null != map) {
+                return false;
+            }
+            try (InputStream inputStream = Channels.newInputStream(
+                    FileChannel.open(sourceFile, StandardOpenOption.READ).position(sectionOffset))) {
+                long remaining = sectionLength;
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (0 < remaining) {
+                    int count = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (0 > count) {
+                        throw new EOFException("Session file ended inside a section: " + sourceFile);
+                    }
+                    outputStream.write(buffer, 0, count);
+                    remaining -= count;
+                }
+            }
+            return true;
+        }
+
+        private synchronized void moveSection(Path sourceFile, long sectionOffset) {
+            if (null == map) {
+                this.sourceFile = sourceFile;
+                this.sectionOffset = sectionOffset;
+            }
+        }
+
+        @Serial
+        private Object writeReplace() {
+            return WRITING_SESSION_CONTAINER.get() ? this : map();
+        }
+
+        @Override
+        public int size() {
+            return map().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map().isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map().containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return map().containsValue(value);
+        }
+
+        @Override
+        public V get(Object key) {
+            return map().get(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return map().put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            return map().remove(key);
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> m) {
+            map().putAll(m);
+        }
+
+        @Override
+        public void clear() {
+            map().clear();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return map().keySet();
+        }
+
+        @Override
+        public Collection<V> values() {
+            return map().values();
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return map().entrySet();
+        }
+
+        @Override
+        public V getOrDefault(Object key, V defaultValue) {
+            return map().getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            return map().putIfAbsent(key, value);
+        }
+
+        @Override
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+            return map().computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (this == o) || map().equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return map().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return map().toString();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
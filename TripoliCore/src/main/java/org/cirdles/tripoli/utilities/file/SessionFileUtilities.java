@@ -20,6 +20,10 @@ import org.cirdles.tripoli.sessions.Session;
 import org.cirdles.tripoli.utilities.exceptions.TripoliException;
 import org.cirdles.tripoli.utilities.stateUtilities.TripoliSerializer;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * @author James F. Bowring
  */
@@ -29,7 +33,35 @@ public enum SessionFileUtilities {
     public static void serializeTripoliSession(Session session, String sessionFileName)
             throws TripoliException {
 
-        TripoliSerializer.serializeObjectToFile(session, sessionFileName);
+        try {
+            SessionContainerFile.writeSessionContainer(session, Path.of(sessionFileName));
+        } catch (IOException ex) {
+            throw new TripoliException("Cannot save session to: " + sessionFileName
+                    + "\n\nbecause: \n" + ex.getMessage());
+        }
         Session.setSessionChanged(false);
     }
+
+    /**
+     * Opens a session file in the sectioned container format, or as written whole by <code>TripoliSerializer</code>
+     * before that format.
+     *
+     * @param sessionFileName '*.tripoli' file
+     * @return the session
+     * @throws TripoliException if the file does not exist or is not a readable session
+     */
+    public static Session readTripoliSession(String sessionFileName) throws TripoliException {
+        Path sessionFile = Path.of(sessionFileName);
+        try {
+            if (Files.isRegularFile(sessionFile) && SessionContainerFile.isSessionContainerFile(sessionFile)) {
+                return SessionContainerFile.readSessionContainer(sessionFile);
+            }
+        } catch (IOException ex) {
+            throw new TripoliException("The file you are attempting to open is not a valid '*.tripoli' file.");
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new TripoliException("The file you are attempting to open is not compatible with this version of Tripoli.");
+        }
+
+        return (Session) TripoliSerializer.getSerializedObjectFromFile(sessionFileName, true);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities;
+
+import org.cirdles.tripoli.parameters.Parameters;
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.commons.math3.special.Erf.erfc;
+
+/**
+ * Applies Chauvenet's criterion, as <code>MathUtilities.applyChauvenetsCriterion</code> defines it, to one block or
+ * to a whole measurement repeatedly, updating instead of recomputing as cycles are appended, edited, excluded or
+ * re-included.
+ * <p>
+ * The accumulator keeps the included cycles sorted by value together with their running moments, and a snapshot of
+ * the data and included flags it last saw. Because the criterion only grows with a cycle's distance from the mean,
+ * the rejected cycles are the two tails of the sorted values, and their boundaries are found by binary search with the
+ * criterion itself. An update therefore costs a comparison per cycle to find what changed, a sorted insert or removal
+ * per changed cycle, and a logarithmic number of <code>erfc</code> evaluations, rather than one per cycle.
+ *
+ * @author James F. Bowring
+ */
+public final class ChauvenetsCriterionAccumulator {
+
+    private final StreamingMoments moments = new StreamingMoments();
+    private final List<Integer> rejectedIndices = new ArrayList<>();
+    private double[] values = new double[0];
+    private boolean[] included = new boolean[0];
+    private boolean[] includedAfterRejection = new boolean[0];
+    // included cycles ordered by value, then index
+    private double[] sortedValues = new double[0];
+    private int[] sortedIndices = new int[0];
+    private int countOfSorted;
+    private int removalsSinceRebuild;
+
+    /**
+     * @param dataIn            cycle values
+     * @param includedIndicesIn cycles included by the user; not modified
+     * @param parameters        source of the rejection probability and the minimum count of included cycles
+     * @return the included cycles less those rejected by Chauvenet's criterion
+     */
+    public boolean[] applyChauvenetsCriterion(double[] dataIn, boolean[] includedIndicesIn, Parameters parameters) {
+        if (dataIn.length < values.length) {
+            // cycles were removed; start over
+            values = new double[0];
+            included = new boolean[0];
+            includedAfterRejection = new boolean[0];
+            rejectedIndices.clear();
+            countOfSorted = 0;
+            moments.clear();
+            removalsSinceRebuild = 0;
+        }
+        if (dataIn.length > values.length) {
+            // appended cycles start out excluded and are added below
+            values = Arrays.copyOf(values, dataIn.length);
+            included = Arrays.copyOf(included, dataIn.length);
+            includedAfterRejection = Arrays.copyOf(includedAfterRejection, dataIn.length);
+        }
+
+        boolean rebuildMoments = false;
+        for (int i = 0; i < dataIn.length; i++) {
+            boolean cycleIncluded = includedIndicesIn[i];
+            if ((cycleIncluded != included[i])
+                    || (cycleIncluded && (Double.doubleToLongBits(dataIn[i]) != Double.doubleToLongBits(values[i])))) {
+                if (included[i]) {
+                    removeSorted(values[i], i);
+                    rebuildMoments |= !moments.remove(values[i]);
+                    removalsSinceRebuild++;
+                }
+                if (cycleIncluded) {
+                    insertSorted(dataIn[i], i);
+                    moments.add(dataIn[i]);
+                }
+                includedAfterRejection[i] = cycleIncluded;
+            }
+            values[i] = dataIn[i];
+            included[i] = cycleIncluded;
+        }
+        if (rebuildMoments || (removalsSinceRebuild > countOfSorted)) {
+            // start over from the sorted values rather than accumulate rounding from removals
+            moments.clear();
+            moments.addAll(sortedValues, 0, countOfSorted);
+            removalsSinceRebuild = 0;
+        }
+
+        // restore the previous rejections before finding the current ones
+        for (int index : rejectedIndices) {
+            includedAfterRejection[index] = included[index];
+        }
+        rejectedIndices.clear();
+        if (countOfSorted >= parameters.getRequiredMinDatumCount()) {
+            double xbar = moments.getMean();
+            double stddev = moments.getStandardDeviation();
+            double chauvenetRejectionProbability = parameters.getChauvenetRejectionProbability();
+            int lowerCut = firstRetainedBelowMean(xbar, stddev, chauvenetRejectionProbability);
+            int upperCut = firstRejectedAboveMean(xbar, stddev, chauvenetRejectionProbability, lowerCut);
+            for (int position = 0; position < lowerCut; position++) {
+                rejectedIndices.add(sortedIndices[position]);
+            }
+            for (int position = upperCut; position < countOfSorted; position++) {
+                rejectedIndices.add(sortedIndices[position]);
+            }
+            for (int index : rejectedIndices) {
+                includedAfterRejection[index] = false;
+            }
+        }
+
+        return Arrays.copyOf(includedAfterRejection, dataIn.length);
+    }
+
+    /**
+     * @return count of included cycles currently rejected
+     */
+    public int getCountOfRejected() {
+        return rejectedIndices.size();
+    }
+
+    private boolean isRejected(double value, double xbar, double stddev, double chauvenetRejectionProbability) {
+        double absZ = Math.abs(value - xbar) / stddev;
+        return erfc(absZ) * moments.getN() < chauvenetRejectionProbability;
+    }
+
+    /**
+     * @return the first sorted position that is not a rejected value below the mean
+     */
+    private int firstRetainedBelowMean(double xbar, double stddev, double chauvenetRejectionProbability) {
+        int low = 0;
+        int high = countOfSorted;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double value = sortedValues[middle];
+            if ((value < xbar) && isRejected(value, xbar, stddev, chauvenetRejectionProbability)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the first sorted position at or after <code>fromPosition</code> that is a rejected value above the mean
+     */
+    private int firstRejectedAboveMean(double xbar, double stddev, double chauvenetRejectionProbability, int fromPosition) {
+        int low = fromPosition;
+        int high = countOfSorted;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double value = sortedValues[middle];
+            if ((value > xbar) && isRejected(value, xbar, stddev, chauvenetRejectionProbability)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private int sortedPosition(double value, int index) {
+        int low = 0;
+        int high = countOfSorted;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Double.compare(sortedValues[middle], value);
+            if ((0 > comparison) || ((0 == comparison) && (sortedIndices[middle] < index))) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insertSorted(double value, int index) {
+        if (countOfSorted == sortedValues.length) {
+            int capacity = Math.max(16, 2 * countOfSorted);
+            sortedValues = Arrays.copyOf(sortedValues, capacity);
+            sortedIndices = Arrays.copyOf(sortedIndices, capacity);
+        }
+        int position = sortedPosition(value, index);
+        System.arraycopy(sortedValues, position, sortedValues, position + 1, countOfSorted - position);
+        System.arraycopy(sortedIndices, position, sortedIndices, position + 1, countOfSorted - position);
+        sortedValues[position] = value;
+        sortedIndices[position] = index;
+        countOfSorted++;
+    }
+
+    private void removeSorted(double value, int index) {
+        int position = sortedPosition(value, index);
+        countOfSorted--;
+        System.arraycopy(sortedValues, position + 1, sortedValues, position, countOfSorted - position);
+        System.arraycopy(sortedIndices, position + 1, sortedIndices, position, countOfSorted - position);
+    }
+}
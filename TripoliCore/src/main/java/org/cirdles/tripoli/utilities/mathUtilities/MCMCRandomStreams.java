@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.cirdles.tripoli.constants.TripoliConstants.MCMC_RANDOM_SEED_UNSEEDED;
+
+/**
+ * Provides the random streams used by the MCMC chains. Each chain gets its own fast SplitMix64 stream, so there is
+ * no contention between concurrently running blocks and no per-draw trip to the OS entropy source.
+ * <p>
+ * When the user fixes a seed, every stream is derived from that seed and its stream keys (e.g. blockID, chain index)
+ * alone, so a re-analysis reproduces bit for bit regardless of the order in which blocks are scheduled.
+ *
+ * @author James F. Bowring
+ */
+public enum MCMCRandomStreams {
+    ;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * @param userSeed   seed from <code>Parameters</code>, or MCMC_RANDOM_SEED_UNSEEDED
+     * @param streamKeys identifies the stream, e.g. blockID then chain index
+     * @return a new, independent stream
+     */
+    public static RandomGenerator streamFor(long userSeed, long... streamKeys) {
+        if (MCMC_RANDOM_SEED_UNSEEDED == userSeed) {
+            return new SplittableRandom();
+        }
+        long seed = userSeed;
+        for (long streamKey : streamKeys) {
+            seed = mix64(seed + GOLDEN_GAMMA * (streamKey + 1L));
+        }
+        return new SplittableRandom(seed);
+    }
+
+    /**
+     * A stream for callers that do not need reproducibility.
+     *
+     * @return a freshly seeded stream
+     */
+    public static RandomGenerator unseededStream() {
+        return new SplittableRandom();
+    }
+
+    // SplitMix64 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -18,7 +18,8 @@ package org.cirdles.tripoli.utilities.mathUtilities;
 
 import jama.CholeskyDecomposition;
 import jama.Matrix;
-import org.apache.commons.math3.random.RandomDataGenerator;
+
+import java.util.random.RandomGenerator;
 
 /**
  * @author James F. Bowring
@@ -78,6 +79,19 @@ public enum MatLabCholesky {
      * @return
      */
     public static Matrix mvnrndTripoli(double[] myMu, double[][] sigma, int cases) {
+        return mvnrndTripoli(myMu, sigma, cases, MCMCRandomStreams.unseededStream());
+    }
+
+    /**
+     * As above, drawing from the caller's random stream so that chains can be reproduced.
+     *
+     * @param myMu
+     * @param sigma
+     * @param cases
+     * @param randomGenerator the chain's random stream
+     * @return
+     */
+    public static Matrix mvnrndTripoli(double[] myMu, double[][] sigma, int cases, RandomGenerator randomGenerator) {
 
         // mu = repmat(mu,n,1);
         double[][] mu = new double[cases][];
@@ -103,13 +117,10 @@ public enum MatLabCholesky {
         // then z = (1.4-1.2) / 0.4 = 0.5, i.e. the pupil is half a standard deviation from the mean (value at centre of curve).
 
         Matrix T = cholCov(new Matrix(sigma));
-        RandomDataGenerator randomDataGenerator = new RandomDataGenerator();
-        randomDataGenerator.reSeedSecure();
-
         double[][] rArray = new double[cases][T.getRowDimension()];
         for (int row = 0; row < cases; row++) {
             for (int col = 0; col < T.getRowDimension(); col++) {
-                rArray[row][col] = randomDataGenerator.nextGaussian(0.0, 1.0);
+                rArray[row][col] = randomGenerator.nextGaussian();
             }
         }
 
@@ -16,15 +16,11 @@
 
 package org.cirdles.tripoli.utilities.mathUtilities;
 
-import com.google.common.primitives.Booleans;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.cirdles.tripoli.parameters.Parameters;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
-import static org.apache.commons.math3.special.Erf.erfc;
-
 /**
  * @author James F. Bowring
  */
@@ -92,30 +88,8 @@ public class MathUtilities {
         Logic changed per discussion #261
          */
 
-        double chauvenetRejectionProbability = parameters.getChauvenetRejectionProbability();
-        int requiredMinDatumCount = parameters.getRequiredMinDatumCount();
-
-        boolean[] includedIndices = includedIndicesIn.clone();
         // TODO: document changes that loosen chauvenet restrictions
-        //if ((Booleans.countTrue(includedIndicesIn) == includedIndicesIn.length) && (includedIndicesIn.length >= requiredMinDatumCount)) {
-        if ((Booleans.countTrue(includedIndices) >= requiredMinDatumCount)) {
-            DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics();
-            for (int i = 0; i < dataIn.length; i++) {
-                if (includedIndices[i]) {
-                    descriptiveStatistics.addValue(dataIn[i]);
-                }
-            }
-            double xbar = descriptiveStatistics.getMean();
-            double stddev = descriptiveStatistics.getStandardDeviation();
-            double[] absZ = new double[dataIn.length];
-            for (int i = 0; i < dataIn.length; i++) {
-                absZ[i] = Math.abs(dataIn[i] - xbar) / stddev;
-                double chauvenetsCriterion = erfc(absZ[i]) * descriptiveStatistics.getN();
-                if (chauvenetsCriterion < chauvenetRejectionProbability) {
-                    includedIndices[i] = false;
-                }
-            }
-        }
-        return includedIndices;
+        // ChauvenetsCriterionAccumulator also serves repeated applications to the same cycles as they change
+        return new ChauvenetsCriterionAccumulator().applyChauvenetsCriterion(dataIn, includedIndicesIn, parameters);
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics;
+
+import java.util.Arrays;
+
+/**
+ * Estimates one quantile of a stream of values in constant memory, using the P-square algorithm of Jain and Chlamtac
+ * (1985), which tracks five markers and adjusts their heights by piecewise-parabolic interpolation.
+ * <p>
+ * Until five values have arrived the quantile is exact, interpolated between order statistics as in R's default
+ * type 7. After that it is an estimate whose error shrinks as the stream grows, and which is poorest for extreme
+ * quantiles of small or heavy-tailed samples.
+ *
+ * @author James F. Bowring
+ */
+public final class P2QuantileEstimator {
+
+    private final double quantile;
+    private final double[] markerHeights = new double[5];
+    private final int[] markerPositions = {0, 1, 2, 3, 4};
+    private final double[] desiredPositions;
+    private final double[] desiredIncrements;
+    private long n;
+
+    /**
+     * @param quantile the quantile to estimate, such as 0.5 for the median
+     * @throws IllegalArgumentException unless 0 &lt; quantile &lt; 1
+     */
+    public P2QuantileEstimator(double quantile) {
+        if (!((0.0 < quantile) && (quantile < 1.0))) {
+            throw new IllegalArgumentException("Quantile must lie strictly between 0 and 1: " + quantile);
+        }
+        this.quantile = quantile;
+        desiredPositions = new double[]{0.0, 2.0 * quantile, 4.0 * quantile, 2.0 + 2.0 * quantile, 4.0};
+        desiredIncrements = new double[]{0.0, quantile / 2.0, quantile, (1.0 + quantile) / 2.0, 1.0};
+    }
+
+    public void add(double value) {
+        if (5 > n) {
+            markerHeights[(int) n] = value;
+            n++;
+            if (5 == n) {
+                Arrays.sort(markerHeights);
+            }
+            return;
+        }
+        n++;
+
+        int cell;
+        if (value < markerHeights[0]) {
+            markerHeights[0] = value;
+            cell = 0;
+        } else if (value >= markerHeights[4]) {
+            markerHeights[4] = value;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (value >= markerHeights[cell + 1]) {
+                cell++;
+            }
+        }
+        for (int i = cell + 1; i < 5; i++) {
+            markerPositions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desiredPositions[i] += desiredIncrements[i];
+        }
+
+        for (int i = 1; i < 4; i++) {
+            double offset = desiredPositions[i] - markerPositions[i];
+            if (((1.0 <= offset) && (1 < markerPositions[i + 1] - markerPositions[i]))
+                    || ((-1.0 >= offset) && (1 < markerPositions[i] - markerPositions[i - 1]))) {
+                int step = (0.0 < offset) ? 1 : -1;
+                double height = parabolic(i, step);
+                if ((markerHeights[i - 1] < height) && (height < markerHeights[i + 1])) {
+                    markerHeights[i] = height;
+                } else {
+                    markerHeights[i] += step * (markerHeights[i + step] - markerHeights[i])
+                            / (markerPositions[i + step] - markerPositions[i]);
+                }
+                markerPositions[i] += step;
+            }
+        }
+    }
+
+    private double parabolic(int i, int step) {
+        double positionBelow = markerPositions[i] - markerPositions[i - 1];
+        double positionAbove = markerPositions[i + 1] - markerPositions[i];
+        return markerHeights[i] + step / (double) (markerPositions[i + 1] - markerPositions[i - 1])
+                * ((positionBelow + step) * (markerHeights[i + 1] - markerHeights[i]) / positionAbove
+                + (positionAbove - step) * (markerHeights[i] - markerHeights[i - 1]) / positionBelow);
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getQuantile() {
+        return quantile;
+    }
+
+    /**
+     * @return the estimated quantile, or NaN if no values were added
+     */
+    public double getEstimate() {
+        if (0 == n) {
+            return Double.NaN;
+        }
+        if (5 < n) {
+            return markerHeights[2];
+        }
+        double[] sorted = Arrays.copyOf(markerHeights, (int) n);
+        Arrays.sort(sorted);
+        double rank = quantile * (n - 1);
+        int below = (int) rank;
+        return (below + 1 < n) ? sorted[below] + (rank - below) * (sorted[below + 1] - sorted[below]) : sorted[below];
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Single pass mean and variance of a stream of values, in constant memory.
+ * <p>
+ * Values are accumulated with Welford's update, and partial accumulators, for example one per block or per thread,
+ * combine with <code>merge</code> using the pairwise formula of Chan et al. Mean and variance agree with
+ * <code>DescriptiveStatistics</code> to rounding: NaN when empty, and a variance of 0.0 for a single value.
+ *
+ * @author James F. Bowring
+ */
+public final class StreamingMoments implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2816420617390257811L;
+
+    private long n;
+    private double mean;
+    private double m2;
+
+    /**
+     * @param values values to accumulate
+     * @return the moments of all the values
+     */
+    public static StreamingMoments of(double[] values) {
+        StreamingMoments streamingMoments = new StreamingMoments();
+        streamingMoments.addAll(values, 0, values.length);
+        return streamingMoments;
+    }
+
+    public void add(double value) {
+        n++;
+        double delta = value - mean;
+        mean += delta / n;
+        m2 += delta * (value - mean);
+    }
+
+    /**
+     * @param values    source of the values
+     * @param fromIndex first value, inclusive
+     * @param toIndex   last value, exclusive
+     */
+    public void addAll(double[] values, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * Reverses an earlier <code>add</code> of the value. Each removal adds rounding, so callers that remove often
+     * should periodically rebuild from the values themselves.
+     *
+     * @param value a value previously added
+     * @return false, leaving the moments unchanged, if the value or mean is not finite and so cannot be removed
+     */
+    public boolean remove(double value) {
+        if ((0 == n) || !Double.isFinite(value) || !Double.isFinite(mean)) {
+            return false;
+        }
+        if (1 == n) {
+            clear();
+        } else {
+            n--;
+            double delta = value - mean;
+            mean -= delta / n;
+            m2 -= delta * (value - mean);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the values summarized by another accumulator, which is left unchanged.
+     *
+     * @param other partial moments
+     */
+    public void merge(StreamingMoments other) {
+        if (0 == other.n) {
+            return;
+        }
+        long combinedN = n + other.n;
+        double delta = other.mean - mean;
+        mean += delta * other.n / combinedN;
+        m2 += other.m2 + delta * delta * n * other.n / combinedN;
+        n = combinedN;
+    }
+
+    public void clear() {
+        n = 0;
+        mean = 0.0;
+        m2 = 0.0;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getMean() {
+        return (0 == n) ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the bias-corrected sample variance
+     */
+    public double getVariance() {
+        if (0 == n) {
+            return Double.NaN;
+        }
+        return (1 == n) ? 0.0 : Math.max(0.0, m2) / (n - 1);
+    }
+
+    public double getStandardDeviation() {
+        return StrictMath.sqrt(getVariance());
+    }
+
+    public double getStandardError() {
+        return StrictMath.sqrt(getVariance() / n);
+    }
+}
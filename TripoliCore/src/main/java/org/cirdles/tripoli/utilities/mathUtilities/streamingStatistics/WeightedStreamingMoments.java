@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics;
+
+/**
+ * Single pass weighted mean and weighted variance, accumulated with West's update and mergeable like
+ * <code>StreamingMoments</code>. With inverse-variance weights the weighted mean is the uncorrelated weighted mean of
+ * the values, and <code>getStandardErrorOfWeightedMean</code> is its one sigma uncertainty.
+ *
+ * @author James F. Bowring
+ */
+public final class WeightedStreamingMoments {
+
+    private long n;
+    private double sumOfWeights;
+    private double weightedMean;
+    private double weightedSumOfSquares;
+
+    /**
+     * @param value  value to accumulate
+     * @param weight its weight; a value with weight 0.0 is counted but does not move the mean
+     */
+    public void add(double value, double weight) {
+        n++;
+        if (0.0 == weight) {
+            return;
+        }
+        double combinedWeight = sumOfWeights + weight;
+        double delta = value - weightedMean;
+        double shift = delta * weight / combinedWeight;
+        weightedMean += shift;
+        weightedSumOfSquares += sumOfWeights * delta * shift;
+        sumOfWeights = combinedWeight;
+    }
+
+    /**
+     * Adds the values summarized by another accumulator, which is left unchanged.
+     *
+     * @param other partial weighted moments
+     */
+    public void merge(WeightedStreamingMoments other) {
+        n += other.n;
+        if (0.0 == other.sumOfWeights) {
+            return;
+        }
+        double combinedWeight = sumOfWeights + other.sumOfWeights;
+        double delta = other.weightedMean - weightedMean;
+        weightedMean += delta * other.sumOfWeights / combinedWeight;
+        weightedSumOfSquares += other.weightedSumOfSquares + delta * delta * sumOfWeights * other.sumOfWeights / combinedWeight;
+        sumOfWeights = combinedWeight;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getSumOfWeights() {
+        return sumOfWeights;
+    }
+
+    public double getWeightedMean() {
+        return (0.0 == sumOfWeights) ? Double.NaN : weightedMean;
+    }
+
+    /**
+     * @return the weighted sum of squared deviations from the weighted mean
+     */
+    public double getWeightedSumOfSquares() {
+        return (0.0 == sumOfWeights) ? Double.NaN : Math.max(0.0, weightedSumOfSquares);
+    }
+
+    /**
+     * @return the weighted population variance, with the weights taken as relative
+     */
+    public double getWeightedVariance() {
+        return getWeightedSumOfSquares() / sumOfWeights;
+    }
+
+    /**
+     * @return one sigma of the weighted mean when the weights are inverse variances
+     */
+    public double getStandardErrorOfWeightedMean() {
+        return StrictMath.sqrt(1.0 / sumOfWeights);
+    }
+}
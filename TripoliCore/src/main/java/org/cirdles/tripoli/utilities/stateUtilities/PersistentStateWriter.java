@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.stateUtilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a persistent state object behind its callers on a background thread. A write request serializes the state
+ * to memory on the calling thread, so the state is never read while that thread changes it, and only the file is
+ * written in the background; requests arriving within <code>COALESCE_MILLIS</code> of the first are written once, with
+ * the latest bytes. The file is replaced through a temporary file and rename, so the file on disk is always a complete
+ * state. A single shutdown hook flushes the pending state of every writer.
+ *
+ * @author James F. Bowring
+ */
+final class PersistentStateWriter {
+
+    static final long COALESCE_MILLIS = 500L;
+
+    private static final Set<PersistentStateWriter> writers = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(PersistentStateWriter::flushAll, "Tripoli persistent state flush"));
+    }
+
+    private final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread writeThread = new Thread(runnable, "Tripoli persistent state writer");
+        writeThread.setDaemon(true);
+        return writeThread;
+    });
+    private final Object writeLock = new Object();
+    private byte[] pendingBytes;
+    private Path pendingFile;
+    private ScheduledFuture<?> scheduledWrite;
+
+    PersistentStateWriter() {
+        writers.add(this);
+    }
+
+    private static void flushAll() {
+        List<PersistentStateWriter> writersToFlush;
+        synchronized (writers) {
+            writersToFlush = new ArrayList<>(writers);
+        }
+        writersToFlush.forEach(PersistentStateWriter::flush);
+    }
+
+    /**
+     * @param state state to write, serialized before this returns
+     * @param file  file the state is serialized to
+     */
+    void requestWrite(Serializable state, Path file) {
+        ByteArrayOutputStream stateBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(stateBytes)) {
+            objectOutputStream.writeObject(state);
+        } catch (IOException iOException) {
+            // as before, an unwritable state is not an error; the next change tries again
+            return;
+        }
+        synchronized (this) {
+            pendingBytes = stateBytes.toByteArray();
+            pendingFile = file;
+            if (null == scheduledWrite) {
+                scheduledWrite = writeExecutor.schedule(this::writePending, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes any pending state on the calling thread.
+     */
+    void flush() {
+        writePending();
+    }
+
+    private void writePending() {
+        // taking the pending bytes under the write lock keeps an older state from being written after a newer one
+        synchronized (writeLock) {
+            byte[] bytes;
+            Path file;
+            synchronized (this) {
+                bytes = pendingBytes;
+                file = pendingFile;
+                pendingBytes = null;
+                if (null != scheduledWrite) {
+                    scheduledWrite.cancel(false);
+                    scheduledWrite = null;
+                }
+            }
+            if (null != bytes) {
+                try {
+                    Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+                    try {
+                        Files.write(tempFile, bytes);
+                        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(tempFile);
+                    }
+                } catch (IOException iOException) {
+                    // as before, an unwritable state file is not an error; the next change tries again
+                }
+            }
+        }
+    }
+}
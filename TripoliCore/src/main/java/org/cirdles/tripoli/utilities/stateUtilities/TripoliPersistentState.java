@@ -43,6 +43,7 @@ public class TripoliPersistentState implements Serializable {
     private static final String TRIPOLI_PERSISTENT_STATE_FILE_NAME = "TripoliPersistentState.ser";
     private static final int MRU_COUNT = 10;
     private static TripoliPersistentState myInstance;
+    private static final PersistentStateWriter persistentStateWriter = new PersistentStateWriter();
     private String tripoliUserHomeDirectoryLocal;
     // instance variables
     private File MRUSessionFile;
@@ -166,9 +167,9 @@ public class TripoliPersistentState implements Serializable {
 
 
     private void serializeSelf() {
-        // save initial persistent state serialized file
+        // written behind the caller; bursts of changes coalesce into one write
         try {
-            TripoliSerializer.serializeObjectToFile(this, getMySerializedName());
+            persistentStateWriter.requestWrite(this, new File(getMySerializedName()).toPath());
         } catch (TripoliException tripoliException) {
         }
     }
@@ -232,6 +233,14 @@ public class TripoliPersistentState implements Serializable {
         serializeSelf();
     }
 
+    /**
+     * Writes the state now rather than behind the caller, as when quitting.
+     */
+    public void flushTripoliPersistentState() {
+        serializeSelf();
+        persistentStateWriter.flush();
+    }
+
     // General methods *********************************************************
     private void initMRULists() {
         MRUSessionList = new ArrayList<>(MRU_COUNT);
@@ -253,7 +262,9 @@ public class TripoliPersistentState implements Serializable {
             removeSessionFileNameFromMRU(projectFileName);
         }
 
-        serializeSelf();
+        if (!missingFileNames.isEmpty()) {
+            serializeSelf();
+        }
     }
 
     // MRU Session Data *********************************************************
@@ -289,10 +300,7 @@ public class TripoliPersistentState implements Serializable {
         }
 
         // save
-        try {
-            TripoliSerializer.serializeObjectToFile(this, getMySerializedName());
-        } catch (TripoliException tripoliException) {
-        }
+        serializeSelf();
     }
 
     public void removeFileNameFromSessionListMRU(String mruSessionFileName) {
@@ -386,10 +394,7 @@ public class TripoliPersistentState implements Serializable {
         }
 
         // save
-        try {
-            TripoliSerializer.serializeObjectToFile(this, getMySerializedName());
-        } catch (TripoliException tripoliException) {
-        }
+        serializeSelf();
     }
 
     public void removeFileNameFromDataFileListMRU(String mruDataFileName) {
@@ -477,10 +482,7 @@ public class TripoliPersistentState implements Serializable {
         }
 
         // save
-        try {
-            TripoliSerializer.serializeObjectToFile(this, getMySerializedName());
-        } catch (TripoliException tripoliException) {
-        }
+        serializeSelf();
     }
 
     public void removeFileNameFromMethodXMLFileListMRU(String mruMethodXMLFileName) {
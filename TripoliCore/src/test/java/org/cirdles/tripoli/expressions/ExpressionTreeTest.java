@@ -23,6 +23,8 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class ExpressionTreeTest {
     static AnalysisInterface analysis;
@@ -106,6 +108,24 @@ public class ExpressionTreeTest {
 
     }
 
+    /**
+     * Tests that user function values are read once and reread only after the blocks are rebuilt
+     */
+    @Test
+    public void userFunctionValueCacheTest() {
+        UserFunction userFunction = analysis.getUserFunctions().get(0);
+        UserFunctionNode userFunctionNode = new UserFunctionNode(userFunction.getName());
+        Double[][] cycleMeans = userFunctionNode.eval(analysis);
+        assertSame(cycleMeans, new UserFunctionNode(userFunction.getName()).eval(analysis));
+
+        userFunction.setMapBlockIdToBlockCyclesRecord(new TreeMap<>());
+        Double[][] rebuiltCycleMeans = userFunctionNode.eval(analysis);
+        assertNotSame(cycleMeans, rebuiltCycleMeans);
+        for (int i = 0; i < cycleMeans.length; i++) {
+            assertArrayEquals(cycleMeans[i], rebuiltCycleMeans[i]);
+        }
+    }
+
     private static Double[][] csvToMatrix() throws IOException {
         ResourceExtractor tripoliExtractor = new ResourceExtractor(ExpressionTreeTest.class);
         File filename = tripoliExtractor.extractResourceAsFile("/org/cirdles/tripoli/core/expressions/NBS981_210325b-392_ExpressionEval.txt");
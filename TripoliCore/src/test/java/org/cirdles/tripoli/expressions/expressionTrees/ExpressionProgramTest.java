@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.expressions.expressionTrees;
+
+import org.cirdles.tripoli.expressions.userFunctions.UserFunctionNode;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecOutputBlockRecordLite;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionProgramTest {
+
+    private static final String[] COLUMN_HEADERS = {"Cycle", "Time", "R206/204", "R207/206", "R208/206"};
+
+    private static Map<Integer, MassSpecOutputBlockRecordLite> blocksDataLite() {
+        Map<Integer, MassSpecOutputBlockRecordLite> blocksDataLite = new TreeMap<>();
+        for (int blockID = 1; blockID <= 3; blockID++) {
+            double[][] cycleData = new double[5 + blockID][3];
+            for (int row = 0; row < cycleData.length; row++) {
+                cycleData[row][0] = 16.9 + 0.01 * row + blockID;
+                cycleData[row][1] = 0.914 - 0.001 * row;
+                cycleData[row][2] = 2.16 + 0.002 * row * blockID;
+            }
+            blocksDataLite.put(blockID, new MassSpecOutputBlockRecordLite(blockID, cycleData));
+        }
+        return blocksDataLite;
+    }
+
+    private static void assertMatchesTree(List<String> parsedRPN) {
+        Map<Integer, MassSpecOutputBlockRecordLite> blocksDataLite = blocksDataLite();
+        ExpressionTreeInterface expressionTree = ExpressionTree.buildTree(parsedRPN);
+        ExpressionProgram expressionProgram = ExpressionProgram.compile(expressionTree, COLUMN_HEADERS);
+        Double[][] treeValues = expressionTree.eval(COLUMN_HEADERS, blocksDataLite);
+        for (Integer blockID : blocksDataLite.keySet()) {
+            double[] programValues = expressionProgram.evaluate(blocksDataLite.get(blockID).cycleData());
+            assertEquals(treeValues[blockID - 1].length, programValues.length);
+            for (int row = 0; row < programValues.length; row++) {
+                assertEquals(Double.doubleToLongBits(treeValues[blockID - 1][row]), Double.doubleToLongBits(programValues[row]));
+            }
+        }
+    }
+
+    @Test
+    void compiledProgramEqualsTreeEvaluation() {
+        // ([R207/206] * [R206/204] + sqrt([R208/206])) / exp(log(2) ^ 0.5) - [R207/206] * [R206/204]
+        assertMatchesTree(List.of("[R207/206]", "[R206/204]", "*", "[R208/206]", "sqrt", "+",
+                "2", "log", "0.5", "^", "exp", "/", "[R207/206]", "[R206/204]", "*", "-"));
+        assertMatchesTree(List.of("R208/206", "1", "-"));
+    }
+
+    @Test
+    void constantsFoldAndSharedSubExpressionsAreReused() {
+        // ([R207/206] * [R206/204]) + ([R207/206] * [R206/204]) * (2 ^ 3)
+        ExpressionProgram expressionProgram = ExpressionProgram.compile(ExpressionTree.buildTree(List.of(
+                "[R207/206]", "[R206/204]", "*", "[R207/206]", "[R206/204]", "*", "2", "3", "^", "*", "+")), COLUMN_HEADERS);
+        // two loads, one product, one scaling, one sum
+        assertEquals(5, expressionProgram.getCountOfInstructions());
+        assertArrayEquals(new double[]{9.0 * 6.0, 0.0},
+                expressionProgram.evaluate(new double[][]{{2.0, 3.0}, {4.0}}), 0.0);
+
+        assertEquals(0, ExpressionProgram.compile(ExpressionTree.buildTree(List.of("2", "3", "^")), COLUMN_HEADERS)
+                .getCountOfInstructions());
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionProgram.compile(ExpressionTree.buildTree(List.of("[R204/206]")), COLUMN_HEADERS));
+    }
+
+    @Test
+    void unbracketedUserFunctionNodeCompiles() {
+        // expressions saved after tree evaluation hold the bare column name
+        UserFunctionNode userFunctionNode = new UserFunctionNode("R206/204");
+        userFunctionNode.eval(COLUMN_HEADERS, blocksDataLite());
+        ExpressionProgram expressionProgram = ExpressionProgram.compile(userFunctionNode, COLUMN_HEADERS);
+        assertEquals(1, expressionProgram.getCountOfInstructions());
+        assertArrayEquals(new double[]{2.0, 3.0}, expressionProgram.evaluate(new double[][]{{2.0, 5.0}, {3.0}}), 0.0);
+
+        assertEquals(1, ExpressionProgram.compile(new UserFunctionNode("[R208/206]"), COLUMN_HEADERS)
+                .getCountOfInstructions());
+    }
+}
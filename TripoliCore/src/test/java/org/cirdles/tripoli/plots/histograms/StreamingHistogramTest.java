@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.plots.histograms;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingHistogramTest {
+
+    private static double[] gaussianData(long seed, int count) {
+        Random random = new Random(seed);
+        double[] data = new double[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = 5.0 + random.nextGaussian();
+        }
+        return data;
+    }
+
+    /**
+     * The bin counts <code>HistogramBuilder</code> computed from the data before it kept a fine-grained histogram.
+     */
+    private static double[] binnedFromData(double[] data, int binCount) {
+        double dataMin = Double.POSITIVE_INFINITY;
+        double dataMax = Double.NEGATIVE_INFINITY;
+        for (double datum : data) {
+            dataMin = Math.min(dataMin, datum);
+            dataMax = Math.max(dataMax, datum);
+        }
+        double binWidth = (dataMax - dataMin) / binCount;
+        double[] binCounts = new double[binCount];
+        for (double datum : data) {
+            if (0.0 != datum) {
+                binCounts[Math.min((int) Math.floor(Math.abs((datum - dataMin * 1.000000001) / binWidth)), binCount - 1)]++;
+            }
+        }
+        return binCounts;
+    }
+
+    @Test
+    void binsMatchBinningTheData() {
+        double[] data = gaussianData(29L, 10_000);
+        data[17] = 0.0;
+        StreamingHistogram streamingHistogram = StreamingHistogram.of(data, 25 * StreamingHistogram.FINE_BINS_PER_BIN);
+
+        for (int binCount : new int[]{25, 50, 10, 8}) {
+            assertArrayEquals(binnedFromData(data, binCount), streamingHistogram.binCounts(binCount), 0.0);
+        }
+        assertEquals(data.length, streamingHistogram.getN());
+        double sum = 0.0;
+        for (double datum : data) {
+            sum += datum;
+        }
+        assertEquals(sum / data.length, streamingHistogram.getMean(), 1.0e-12);
+    }
+
+    @Test
+    void rebinningApportionsFineBins() {
+        double[] data = gaussianData(31L, 5_000);
+        StreamingHistogram streamingHistogram = StreamingHistogram.of(data, 25 * StreamingHistogram.FINE_BINS_PER_BIN);
+
+        double[] binCounts = streamingHistogram.binCounts(33);
+        double[] exactBinCounts = binnedFromData(data, 33);
+        double total = 0.0;
+        for (int bin = 0; bin < binCounts.length; bin++) {
+            total += binCounts[bin];
+            // at most one fine bin's values are apportioned across each edge
+            assertEquals(exactBinCounts[bin], binCounts[bin], 0.1 * exactBinCounts[bin] + 10.0);
+        }
+        assertEquals(data.length, total, 1.0e-9);
+    }
+
+    @Test
+    void recordsRebinWithoutTheData() throws IOException, ClassNotFoundException {
+        double[] data = gaussianData(37L, 2_000);
+        HistogramRecord histogramRecord = HistogramBuilder.initializeHistogram(
+                1, data, 25, new String[]{"Gain"}, "Gain", "Frequency", true).getHistogramRecord();
+        assertArrayEquals(binnedFromData(data, 25), histogramRecord.binCounts(), 0.0);
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(histogramRecord);
+        }
+        // the fine bins are a small fraction of the data
+        assertTrue(byteArrayOutputStream.size() < data.length * Double.BYTES / 2);
+        HistogramRecord readHistogramRecord;
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            readHistogramRecord = (HistogramRecord) objectInputStream.readObject();
+        }
+
+        HistogramRecord rebinnedHistogramRecord = readHistogramRecord.rebin(50);
+        assertEquals(50, rebinnedHistogramRecord.binCount());
+        assertArrayEquals(binnedFromData(data, 50), rebinnedHistogramRecord.binCounts(), 0.0);
+        assertEquals(histogramRecord.binWidth() / 2.0, rebinnedHistogramRecord.binWidth(), 1.0e-15);
+        assertEquals(histogramRecord.mean(), rebinnedHistogramRecord.mean(), 0.0);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.reports;
+
+import jakarta.xml.bind.JAXBException;
+import org.cirdles.tripoli.Tripoli;
+import org.cirdles.tripoli.expressions.userFunctions.UserFunction;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedDataCache;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportEngineTest {
+
+    private static final String[] DATA_FOLDERS = {
+            "/org/cirdles/tripoli/core/reporting/dataFiles/NuTIMS",
+            "/org/cirdles/tripoli/core/reporting/dataFiles/TritonTIMS/UCDavis"};
+
+    @TempDir
+    Path cacheFolder;
+
+    @BeforeEach
+    void useTemporaryCacheFolder() {
+        // keep the entries for these data files out of the user's cache folder
+        MassSpecExtractedDataCache.setCacheFolder(cacheFolder);
+    }
+
+    @AfterEach
+    void restoreCacheFolder() {
+        MassSpecExtractedDataCache.setCacheFolder(null);
+    }
+
+    private boolean savedSupressContents;
+
+    @BeforeEach
+    void saveSupressContents() {
+        savedSupressContents = Report.supressContents;
+    }
+
+    @AfterEach
+    void restoreSupressContents() {
+        // the flag is global, so later tests must not see the value set here
+        Report.supressContents = savedSupressContents;
+    }
+
+    /**
+     * @return a fresh analysis for each data file, so that no reduction state is shared between calls
+     */
+    private static List<AnalysisInterface> loadAnalyses() throws URISyntaxException, TripoliException, IOException,
+            JAXBException, InvocationTargetException, NoSuchMethodException, IllegalAccessException {
+        List<AnalysisInterface> analyses = new ArrayList<>();
+        for (String dataFolder : DATA_FOLDERS) {
+            File[] dataFiles = Objects.requireNonNull(
+                    new File(Objects.requireNonNull(Tripoli.class.getResource(dataFolder)).toURI()).listFiles());
+            Arrays.sort(dataFiles, Comparator.comparing(File::getName));
+            for (File dataFile : dataFiles) {
+                AnalysisInterface analysis = AnalysisInterface.initializeNewAnalysis(0);
+                analysis.setAnalysisName(analysis.extractMassSpecDataFromPath(dataFile.toPath()));
+                analyses.add(analysis);
+            }
+        }
+        return analyses;
+    }
+
+    @Test
+    void parallelRowsMatchSequentialRowsInOrder() throws Exception {
+        Report.supressContents = true;
+        List<AnalysisInterface> sequentialAnalyses = loadAnalyses();
+        List<AnalysisInterface> parallelAnalyses = loadAnalyses();
+        Set<String> methodNames = new LinkedHashSet<>();
+        sequentialAnalyses.forEach(analysis -> methodNames.add(analysis.getMethod().getMethodName()));
+
+        for (String methodName : methodNames) {
+            AnalysisInterface firstAnalysis = sequentialAnalyses.stream()
+                    .filter(analysis -> analysis.getMethod().getMethodName().equals(methodName))
+                    .findFirst().orElseThrow();
+            Report report = Report.createFullReport("Full Report", firstAnalysis);
+            List<AnalysisInterface> sequentialRows = sequentialAnalyses.stream()
+                    .filter(analysis -> analysis.getMethod().getMethodName().equals(methodName)).toList();
+            List<AnalysisInterface> parallelRows = parallelAnalyses.stream()
+                    .filter(analysis -> analysis.getMethod().getMethodName().equals(methodName)).toList();
+            assertFalse(ReportEngine.sharesUserFunctions(parallelRows));
+
+            StringWriter sequentialCSV = new StringWriter();
+            new ReportEngine(report).writeCSV(sequentialRows, sequentialCSV, false);
+            StringWriter parallelCSV = new StringWriter();
+            new ReportEngine(report).writeCSV(parallelAnalyses, parallelCSV);
+
+            assertEquals(sequentialCSV.toString(), parallelCSV.toString(), methodName);
+            assertEquals(1 + sequentialRows.size(), sequentialCSV.toString().split(System.lineSeparator()).length);
+        }
+    }
+
+    @Test
+    void sharedUserFunctionsAreDetected() throws Exception {
+        List<AnalysisInterface> analyses = loadAnalyses();
+        assertFalse(ReportEngine.sharesUserFunctions(analyses));
+
+        UserFunction sharedUserFunction = analyses.get(0).getUserFunctions().get(0);
+        analyses.get(1).getUserFunctions().add(sharedUserFunction);
+        assertTrue(ReportEngine.sharesUserFunctions(analyses));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis;
+
+import org.cirdles.tripoli.plots.compoundPlotBuilders.PlotBlockCyclesRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisStatsAccumulatorTest {
+
+    @Test
+    void appendedAndToggledCyclesMatchFullCalculation() {
+        Random random = new Random(7L);
+        Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord = new TreeMap<>();
+        for (int blockID = 1; blockID <= 3; blockID++) {
+            mapBlockIdToBlockCyclesRecord.put(blockID, blockCyclesRecord(blockID, randomRatios(random, 20)));
+        }
+        AnalysisStatsAccumulator analysisStatsAccumulator = new AnalysisStatsAccumulator();
+        AnalysisStatsRecord analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(true, false, mapBlockIdToBlockCyclesRecord);
+        assertStatsMatch(mapBlockIdToBlockCyclesRecord, true, false, analysisStatsRecord);
+        assertSame(analysisStatsRecord, analysisStatsAccumulator.updateAnalysisStatsRecord(true, false, mapBlockIdToBlockCyclesRecord));
+
+        // live acquisition republishes the last block one cycle longer
+        for (int cycle = 0; cycle < 15; cycle++) {
+            PlotBlockCyclesRecord lastBlock = mapBlockIdToBlockCyclesRecord.get(3);
+            double[] cycleMeansData = Arrays.copyOf(lastBlock.cycleMeansData(), lastBlock.cycleMeansData().length + 1);
+            cycleMeansData[cycleMeansData.length - 1] = 0.5 + random.nextDouble();
+            mapBlockIdToBlockCyclesRecord.put(3, blockCyclesRecord(3, cycleMeansData));
+            analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(true, false, mapBlockIdToBlockCyclesRecord);
+            assertStatsMatch(mapBlockIdToBlockCyclesRecord, true, false, analysisStatsRecord);
+        }
+
+        // cycles toggled as the plots do, including a non-positive ratio that must stay excluded
+        mapBlockIdToBlockCyclesRecord.get(2).cycleMeansData()[4] = -1.0;
+        mapBlockIdToBlockCyclesRecord.put(2, mapBlockIdToBlockCyclesRecord.get(2).updateCyclesIncluded(
+                mapBlockIdToBlockCyclesRecord.get(2).cyclesIncluded().clone()));
+        for (int toggle = 0; toggle < 200; toggle++) {
+            int blockID = 1 + random.nextInt(3);
+            PlotBlockCyclesRecord blockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(blockID);
+            boolean[] cyclesIncluded = blockCyclesRecord.cyclesIncluded().clone();
+            int cycleIndex = random.nextInt(cyclesIncluded.length);
+            cyclesIncluded[cycleIndex] = !cyclesIncluded[cycleIndex];
+            mapBlockIdToBlockCyclesRecord.put(blockID, blockCyclesRecord.updateCyclesIncluded(cyclesIncluded));
+            analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(true, false, mapBlockIdToBlockCyclesRecord);
+            assertStatsMatch(mapBlockIdToBlockCyclesRecord, true, false, analysisStatsRecord);
+        }
+        assertFalse(mapBlockIdToBlockCyclesRecord.get(2).cyclesIncluded()[4]);
+
+        // cycle mode Chauvenet writes new flags into the record's array without publishing a new record
+        PlotBlockCyclesRecord blockCyclesRecord = mapBlockIdToBlockCyclesRecord.get(1);
+        blockCyclesRecord.cyclesIncluded()[0] = !blockCyclesRecord.cyclesIncluded()[0];
+        blockCyclesRecord.cyclesIncluded()[1] = false;
+        AnalysisStatsRecord previousStatsRecord = analysisStatsRecord;
+        analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(true, false, mapBlockIdToBlockCyclesRecord);
+        assertNotSame(previousStatsRecord, analysisStatsRecord);
+        assertStatsMatch(mapBlockIdToBlockCyclesRecord, true, false, analysisStatsRecord);
+
+        mapBlockIdToBlockCyclesRecord.put(1, mapBlockIdToBlockCyclesRecord.get(1).changeBlockIncluded(false));
+        analysisStatsRecord = analysisStatsAccumulator.updateAnalysisStatsRecord(true, true, mapBlockIdToBlockCyclesRecord);
+        assertStatsMatch(mapBlockIdToBlockCyclesRecord, true, true, analysisStatsRecord);
+    }
+
+    private static double[] randomRatios(Random random, int count) {
+        double[] ratios = new double[count];
+        for (int i = 0; i < count; i++) {
+            ratios[i] = 0.5 + random.nextDouble();
+        }
+        return ratios;
+    }
+
+    private static PlotBlockCyclesRecord blockCyclesRecord(int blockID, double[] cycleMeansData) {
+        boolean[] cyclesIncluded = new boolean[cycleMeansData.length];
+        Arrays.fill(cyclesIncluded, true);
+        return new PlotBlockCyclesRecord(blockID, true, true, true, cyclesIncluded, cycleMeansData,
+                new double[cycleMeansData.length], new String[]{"R"});
+    }
+
+    private static void assertStatsMatch(Map<Integer, PlotBlockCyclesRecord> mapBlockIdToBlockCyclesRecord,
+                                         boolean isRatio, boolean isInverted, AnalysisStatsRecord actual) {
+        BlockStatsRecord[] blockStatsRecords = new BlockStatsRecord[mapBlockIdToBlockCyclesRecord.size()];
+        int arrayIndex = 0;
+        for (PlotBlockCyclesRecord plotBlockCyclesRecord : mapBlockIdToBlockCyclesRecord.values()) {
+            blockStatsRecords[arrayIndex++] = BlockStatsRecord.generateBlockStatsRecord(plotBlockCyclesRecord.blockID(),
+                    plotBlockCyclesRecord.blockIncluded(), isRatio, isInverted,
+                    plotBlockCyclesRecord.cycleMeansData(), plotBlockCyclesRecord.cyclesIncluded().clone());
+        }
+        AnalysisStatsRecord expected = AnalysisStatsRecord.generateAnalysisStatsRecord(blockStatsRecords);
+
+        for (int i = 0; i < blockStatsRecords.length; i++) {
+            assertArrayEquals(expected.blockStatsRecords()[i].cyclesIncluded(), actual.blockStatsRecords()[i].cyclesIncluded());
+            assertEquals(expected.blockStatsRecords()[i].mean(), actual.blockStatsRecords()[i].mean(), 1e-12);
+            assertEquals(expected.blockStatsRecords()[i].variance(), actual.blockStatsRecords()[i].variance(), 1e-12);
+        }
+        assertEquals(expected.blockModeWeightedMean(), actual.blockModeWeightedMean(), 1e-12);
+        assertEquals(expected.blockModeChiSquared(), actual.blockModeChiSquared(), 1e-9);
+        assertEquals(expected.cycleModeMean(), actual.cycleModeMean(), 1e-12);
+        assertEquals(expected.cycleModeStandardDeviation(), actual.cycleModeStandardDeviation(), 1e-12);
+        assertEquals(expected.countOfIncludedCycles(), actual.countOfIncludedCycles());
+        assertArrayEquals(expected.cycleModeIncluded(), actual.cycleModeIncluded());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics.StreamingMoments;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnsembleColumnsTest {
+
+    private static final int COUNT_OF_ENSEMBLES = 2 * EnsembleColumns.CHUNK_SIZE + 17;
+
+    private static double[] model(int index) {
+        // 2 log ratios, 3 intensities, 2 baselines, DF gain
+        double[] model = new double[8];
+        for (int i = 0; i < model.length; i++) {
+            model[i] = index * 10.0 + i;
+        }
+        return model;
+    }
+
+    private static EnsembleColumns filledColumns() {
+        EnsembleColumns ensembleColumns = new EnsembleColumns(2, 3, 2);
+        for (int index = 0; index < COUNT_OF_ENSEMBLES; index++) {
+            ensembleColumns.appendModel(model(index), index + 0.25, index + 0.5);
+        }
+        return ensembleColumns;
+    }
+
+    private static void assertMatchesModels(EnsembleColumns ensembleColumns, int fromIndex) {
+        int toIndex = ensembleColumns.size();
+        double[] logRatios = ensembleColumns.logRatios(1, fromIndex, toIndex);
+        double[] intensities = ensembleColumns.intensities(2, fromIndex, toIndex);
+        double[] baselines = ensembleColumns.baselines(0, fromIndex, toIndex);
+        double[] dfGains = ensembleColumns.dfGains(fromIndex, toIndex);
+        double[] errorsUnWeighted = ensembleColumns.errorsUnWeighted(fromIndex, toIndex);
+        for (int index = fromIndex; index < toIndex; index++) {
+            assertEquals(index * 10.0 + 1, logRatios[index - fromIndex], 0.0);
+            assertEquals(index * 10.0 + 4, intensities[index - fromIndex], 0.0);
+            assertEquals(index * 10.0 + 5, baselines[index - fromIndex], 0.0);
+            assertEquals(index * 10.0 + 7, dfGains[index - fromIndex], 0.0);
+            assertEquals(index + 0.5, errorsUnWeighted[index - fromIndex], 0.0);
+        }
+        assertSameMoments(StreamingMoments.of(logRatios), ensembleColumns.logRatioMoments(1, fromIndex, toIndex));
+        assertSameMoments(StreamingMoments.of(intensities), ensembleColumns.intensityMoments(2, fromIndex, toIndex));
+        assertSameMoments(StreamingMoments.of(baselines), ensembleColumns.baselineMoments(0, fromIndex, toIndex));
+        assertSameMoments(StreamingMoments.of(dfGains), ensembleColumns.dfGainMoments(fromIndex, toIndex));
+        EnsemblesStore.EnsembleRecord ensembleRecord = ensembleColumns.get(toIndex - 1);
+        assertArrayEquals(new double[]{(toIndex - 1) * 10.0 + 2, (toIndex - 1) * 10.0 + 3, (toIndex - 1) * 10.0 + 4},
+                ensembleRecord.I0(), 0.0);
+        assertEquals(toIndex - 1 + 0.25, ensembleRecord.errorWeighted(), 0.0);
+        assertEquals(0, ensembleRecord.signalNoise().length);
+    }
+
+    private static void assertSameMoments(StreamingMoments expected, StreamingMoments actual) {
+        assertEquals(expected.getN(), actual.getN());
+        assertEquals(expected.getMean(), actual.getMean(), 0.0);
+        assertEquals(expected.getVariance(), actual.getVariance(), 0.0);
+    }
+
+    @Test
+    void columnsMatchAppendedModelsAcrossChunks() {
+        EnsembleColumns ensembleColumns = filledColumns();
+        assertEquals(COUNT_OF_ENSEMBLES, ensembleColumns.size());
+        assertMatchesModels(ensembleColumns, 0);
+        assertMatchesModels(ensembleColumns, EnsembleColumns.CHUNK_SIZE - 3);
+
+        EnsembleColumns pooledColumns = new EnsembleColumns(2, 3, 2);
+        pooledColumns.appendRange(ensembleColumns, 0, COUNT_OF_ENSEMBLES);
+        assertEquals(COUNT_OF_ENSEMBLES, pooledColumns.size());
+        assertMatchesModels(pooledColumns, 0);
+    }
+
+    @Test
+    void serializedAndSpilledColumnsRoundTrip() throws IOException, ClassNotFoundException {
+        EnsembleColumns ensembleColumns = filledColumns();
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(ensembleColumns);
+        }
+        EnsembleColumns readColumns;
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            readColumns = (EnsembleColumns) objectInputStream.readObject();
+        }
+        assertMatchesModels(readColumns, 0);
+
+        Path backingFile = Files.createTempFile("ensembleColumns", ".bin");
+        try {
+            assertTrue(readColumns.spillToFile(backingFile));
+            assertTrue(readColumns.isSpilled());
+            assertMatchesModels(readColumns, 0);
+            assertMatchesModels(readColumns, 5);
+            assertThrows(UnsupportedOperationException.class, () -> readColumns.appendModel(model(0), 0.0, 0.0));
+        } finally {
+            Files.deleteIfExists(backingFile);
+        }
+    }
+
+    @Test
+    void recordListsFromOlderSessionsConvert() {
+        EnsembleColumns ensembleColumns = filledColumns();
+        List<EnsemblesStore.EnsembleRecord> ensembleRecordsList = new ArrayList<>(ensembleColumns);
+        EnsembleColumns convertedColumns = EnsembleColumns.of(ensembleRecordsList);
+        assertNotSame(ensembleRecordsList, convertedColumns);
+        assertMatchesModels(convertedColumns, 0);
+        assertSame(ensembleColumns, EnsembleColumns.of(ensembleColumns));
+        assertEquals(0, EnsembleColumns.of(new ArrayList<>()).size());
+    }
+}
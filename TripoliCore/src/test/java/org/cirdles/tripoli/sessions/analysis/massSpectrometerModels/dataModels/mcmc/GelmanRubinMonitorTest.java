@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import jama.Matrix;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GelmanRubinMonitorTest {
+
+    private static final int SIZE = 3;
+
+    // as the chain does, for a model of a log ratio, an intensity and the DF gain: the model is saved to the ensemble, then appended to the monitor
+    private static void appendModel(GelmanRubinMonitor monitor, EnsembleColumns ensembleColumns, double[] model) {
+        ensembleColumns.appendModel(model, 0.0, 0.0);
+        monitor.append(model);
+    }
+
+    // two-pass GRConverge over the first cnt models
+    private static double directRExit(double[][] models, int cnt) {
+        int nGroup = (int) Math.round(Math.sqrt(cnt));
+        int groupSize = nGroup;
+        double[][] groupMeans = new double[nGroup][SIZE];
+        double[][] meanOfVar = new double[SIZE][SIZE];
+        for (int groupIndex = 0; groupIndex < nGroup; groupIndex++) {
+            for (int i = 0; i < groupSize; i++) {
+                for (int row = 0; row < SIZE; row++) {
+                    groupMeans[groupIndex][row] += models[groupIndex * groupSize + i][row] / groupSize;
+                }
+            }
+            for (int i = 0; i < groupSize; i++) {
+                double[] model = models[groupIndex * groupSize + i];
+                for (int row = 0; row < SIZE; row++) {
+                    for (int col = 0; col < SIZE; col++) {
+                        meanOfVar[row][col] += (model[row] - groupMeans[groupIndex][row])
+                                * (model[col] - groupMeans[groupIndex][col]) / (groupSize - 1.0) / nGroup;
+                    }
+                }
+            }
+        }
+        double[][] varOfMean = new double[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            double mean = 0.0;
+            for (int groupIndex = 0; groupIndex < nGroup; groupIndex++) {
+                mean += groupMeans[groupIndex][row] / nGroup;
+            }
+            for (int groupIndex = 0; groupIndex < nGroup; groupIndex++) {
+                double diff = groupMeans[groupIndex][row] - mean;
+                varOfMean[row][row] += diff * diff / (nGroup - 1.0);
+            }
+        }
+        double ratio = new Matrix(varOfMean).det() / new Matrix(meanOfVar).det();
+        return Math.sqrt((nGroup - 1.0) / nGroup + Math.pow(ratio, 1.0 / SIZE) / nGroup);
+    }
+
+    @Test
+    void rExitMatchesTwoPassComputation() {
+        RandomGenerator stream = MCMCRandomStreams.streamFor(5L, 1);
+        double[][] models = new double[100][SIZE];
+        EnsembleColumns ensembleColumns = new EnsembleColumns(1, 1, 0);
+        GelmanRubinMonitor monitor = new GelmanRubinMonitor(ensembleColumns);
+        for (int cnt = 1; cnt <= models.length; cnt++) {
+            double[] model = models[cnt - 1];
+            model[0] = -0.5 + 0.01 * stream.nextGaussian();
+            model[1] = 6.0e5 + 1.0e3 * stream.nextGaussian();
+            model[2] = 0.9 + 0.001 * (stream.nextGaussian() + cnt / 50.0);
+            appendModel(monitor, ensembleColumns, model);
+
+            int groupSize = (int) Math.round(Math.sqrt(cnt));
+            if (groupSize * groupSize != cnt) {
+                assertTrue(Double.isNaN(monitor.rExit()));
+            } else if (3 <= groupSize) {
+                // with fewer samples MeanofVar is rank deficient for SIZE = 3
+                assertEquals(directRExit(models, cnt), monitor.rExit(), 1.0e-9);
+            }
+        }
+        assertEquals(models.length, monitor.getCount());
+    }
+
+    @Test
+    void crossChainRExitDetectsSeparatedChains() {
+        GelmanRubinMonitor[] mixedChains = new GelmanRubinMonitor[3];
+        GelmanRubinMonitor[] separatedChains = new GelmanRubinMonitor[3];
+        for (int chainIndex = 0; chainIndex < 3; chainIndex++) {
+            RandomGenerator stream = MCMCRandomStreams.streamFor(5L, 2, chainIndex);
+            EnsembleColumns mixedEnsemble = new EnsembleColumns(1, 1, 0);
+            EnsembleColumns separatedEnsemble = new EnsembleColumns(1, 1, 0);
+            mixedChains[chainIndex] = new GelmanRubinMonitor(mixedEnsemble);
+            separatedChains[chainIndex] = new GelmanRubinMonitor(separatedEnsemble);
+            for (int cnt = 1; cnt <= 400; cnt++) {
+                double[] model = {stream.nextGaussian(), stream.nextGaussian(), stream.nextGaussian()};
+                appendModel(mixedChains[chainIndex], mixedEnsemble, model);
+                for (int row = 0; row < SIZE; row++) {
+                    model[row] += 2.0 * chainIndex;
+                }
+                appendModel(separatedChains[chainIndex], separatedEnsemble, model);
+            }
+        }
+
+        assertEquals(mixedChains[0].rExit(), GelmanRubinMonitor.rExit(mixedChains[0]), 0.0);
+        // chains sampling the same distribution approach 1 from below; chains stuck apart push Rexit above 1
+        assertTrue(GelmanRubinMonitor.rExit(mixedChains) < 1.0);
+        assertTrue(GelmanRubinMonitor.rExit(separatedChains) > 1.0);
+    }
+}
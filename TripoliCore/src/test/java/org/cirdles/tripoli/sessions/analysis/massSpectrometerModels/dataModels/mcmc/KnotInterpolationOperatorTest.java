@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import jama.Matrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnotInterpolationOperatorTest {
+
+    // linear knots: each time index interpolates between two adjacent knots
+    private final double[][] linearKnots = {
+            {1.0, 0.0, 0.0, 0.0},
+            {0.6, 0.4, 0.0, 0.0},
+            {0.2, 0.8, 0.0, 0.0},
+            {0.0, 0.7, 0.3, 0.0},
+            {0.0, 0.1, 0.9, 0.0},
+            {0.0, 0.0, 0.5, 0.5},
+            {0.0, 0.0, 0.0, 1.0}};
+
+    private final double[] knotIntensities = {6.134069044869326e+05, 6.008566237422095e+05, 5.908634763865512e+05, 5.514048865900711e+05};
+
+    @Test
+    void multiplyMatchesDenseProduct() {
+        KnotInterpolationOperator operator = KnotInterpolationOperator.fromDense(linearKnots);
+        assertEquals(12, operator.values().length);
+
+        double[] expected = new Matrix(linearKnots).times(new Matrix(knotIntensities, knotIntensities.length)).getColumnPackedCopy();
+        assertArrayEquals(expected, operator.multiply(knotIntensities), 0.0);
+
+        double[] flatModel = new double[knotIntensities.length + 3];
+        System.arraycopy(knotIntensities, 0, flatModel, 2, knotIntensities.length);
+        double[] target = new double[linearKnots.length];
+        operator.multiply(flatModel, 2, target);
+        assertArrayEquals(expected, target, 0.0);
+    }
+
+    @Test
+    void toDenseRoundTrips() {
+        double[][] dense = KnotInterpolationOperator.fromDense(linearKnots).toDense();
+        for (int row = 0; row < linearKnots.length; row++) {
+            assertArrayEquals(linearKnots[row], dense[row], 0.0);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc;
+
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
+import org.cirdles.tripoli.utilities.mathUtilities.MatLabCholesky;
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCMCProposalSamplerTest {
+
+    private static final double BETA = 0.05;
+    private static final int SIZE = 5;
+
+    private static double[][] initialCovariance() {
+        double[][] c0 = new double[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            c0[i][i] = 1.0e-3 * (i + 1);
+        }
+        return c0;
+    }
+
+    private static double[][] modelCovariance() {
+        double[][] xcov = new double[SIZE][SIZE];
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                xcov[row][col] = (row == col) ? 2.0e-3 : 2.0e-4 / (1 + Math.abs(row - col));
+            }
+        }
+        return xcov;
+    }
+
+    @Test
+    void refactoringEveryStepMatchesMvnrnd() {
+        double[][] c0 = initialCovariance();
+        double[][] xcov = modelCovariance();
+        MCMCProposalSampler sampler = new MCMCProposalSampler(c0, BETA, 1);
+        RandomGenerator samplerStream = MCMCRandomStreams.streamFor(11L, 1);
+        RandomGenerator mvnrndStream = MCMCRandomStreams.streamFor(11L, 1);
+
+        double[][] adaptiveCovariance = new double[SIZE][SIZE];
+        double xCovScale = (1.0 - BETA) * 2.38 * 2.38 / SIZE;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                adaptiveCovariance[row][col] = c0[row][col] * BETA + xcov[row][col] * xCovScale;
+            }
+        }
+
+        for (long modelIndex = 1; modelIndex <= 4L * SIZE; modelIndex++) {
+            double[][] sigma = (modelIndex <= 2L * SIZE) ? c0 : adaptiveCovariance;
+            double[] expected = MatLabCholesky.mvnrndTripoli(new double[SIZE], sigma, 1, mvnrndStream).getArray()[0];
+            assertArrayEquals(expected, sampler.nextProposalStep(modelIndex, xcov, samplerStream), 0.0);
+        }
+    }
+
+    @Test
+    void cachedFactorIsRefactoredOnlyAtInterval() {
+        MCMCProposalSampler sampler = new MCMCProposalSampler(initialCovariance(), BETA, 10);
+        RandomGenerator stream = MCMCRandomStreams.streamFor(11L, 2);
+        double[][] xcov = modelCovariance();
+        for (long modelIndex = 1; modelIndex <= 2L * SIZE + 30; modelIndex++) {
+            sampler.nextProposalStep(modelIndex, xcov, stream);
+        }
+        // once for C0, then at 2*SIZE + 1, + 11, + 21
+        assertEquals(4, sampler.getCountOfFactorizations());
+    }
+}
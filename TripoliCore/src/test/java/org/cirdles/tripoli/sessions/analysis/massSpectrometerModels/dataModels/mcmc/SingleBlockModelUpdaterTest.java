@@ -227,4 +227,32 @@ class SingleBlockModelUpdaterTest {
         assertEquals(resultM40.dataCov()[0][0], meanCovFirstDigitMatLab);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpdateMeanCovInPlace() {
+        SingleBlockModelUpdater modelUpdater = new SingleBlockModelUpdater();
+        modelUpdater.initializeModelDimensions(singleBlockModelRecord_TestTwo);
+        SingleBlockModelRecord proposedModelRecord = modelUpdater.updateMSv2("changedI", singleBlockModelRecord_TestTwo,
+                ProposedModelParameters.buildProposalRangesRecord(null), delxM40, true);
+
+        SingleBlockModelUpdater.UpdatedCovariancesRecord expected = modelUpdater.updateMeanCovMS2(
+                proposedModelRecord, new double[24][24], xMeanM40, m40);
+
+        double[] xx = new double[24];
+        System.arraycopy(proposedModelRecord.logRatios(), 0, xx, 0, 4);
+        System.arraycopy(proposedModelRecord.I0(), 0, xx, 4, 11);
+        System.arraycopy(proposedModelRecord.baselineMeansArray(), 0, xx, 15, 8);
+        xx[23] = proposedModelRecord.detectorFaradayGain();
+
+        double[][] xCov = new double[24][24];
+        double[] xMean = xMeanM40.clone();
+        modelUpdater.updateMeanCovInPlace(xx, xCov, xMean, m40, new double[24], new double[24]);
+
+        // the in-place update must reproduce the Jama version exactly
+        assertArrayEquals(expected.dataMean(), xMean, 0.0);
+        for (int row = 0; row < 24; row++) {
+            assertArrayEquals(expected.dataCov()[row], xCov[row], 0.0);
+        }
+        assertEquals(4.6228166366862166E-5, xCov[0][0]);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataModels.mcmc2;
+
+import org.apache.commons.math3.stat.correlation.Covariance;
+import org.cirdles.tripoli.utilities.mathUtilities.MCMCRandomStreams;
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCMC2ChainBufferTest {
+
+    @Test
+    void postBurnInStatisticsMatchPooledModels() {
+        int chainsCount = 3;
+        int savedModelCount = 40;
+        int modelParameterCount = 4;
+        int burnIn = 10;
+        RandomGenerator stream = MCMCRandomStreams.streamFor(3L, 1);
+        MCMC2ChainBuffer chainBuffer = new MCMC2ChainBuffer(chainsCount, savedModelCount, modelParameterCount);
+        for (int chainIndex = 0; chainIndex < chainsCount; chainIndex++) {
+            for (int savedIndex = 0; savedIndex < savedModelCount; savedIndex++) {
+                double[] model = {-1.2 + 0.01 * stream.nextGaussian(), 14.5 + 0.1 * stream.nextGaussian(),
+                        -1e2 + stream.nextGaussian(), 2e2 + stream.nextGaussian()};
+                chainBuffer.writeModel(chainIndex, savedIndex, model, -stream.nextDouble());
+            }
+        }
+
+        // the samples-by-parameters layout of the former allModels transpose
+        int pooledCount = (savedModelCount - burnIn) * chainsCount;
+        double[][] pooledModels = new double[pooledCount][modelParameterCount];
+        for (int parameterIndex = 0; parameterIndex < modelParameterCount; parameterIndex++) {
+            double[] samples = chainBuffer.extractPostBurnInParameter(parameterIndex, burnIn);
+            assertEquals(pooledCount, samples.length);
+            assertEquals(chainBuffer.getModelParameter(1, burnIn, parameterIndex), samples[savedModelCount - burnIn], 0.0);
+            for (int sampleIndex = 0; sampleIndex < pooledCount; sampleIndex++) {
+                pooledModels[sampleIndex][parameterIndex] = samples[sampleIndex];
+            }
+        }
+        double[][] expectedCovariance = new Covariance(pooledModels).getCovarianceMatrix().getData();
+
+        double[] means = chainBuffer.postBurnInMeans(burnIn);
+        double[][] covariance = chainBuffer.postBurnInCovariance(burnIn, means);
+        for (int row = 0; row < modelParameterCount; row++) {
+            for (int col = 0; col < modelParameterCount; col++) {
+                assertEquals(expectedCovariance[row][col], covariance[row][col], 1.0e-9 * Math.abs(expectedCovariance[row][row]));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelimitedLineReaderTest {
+
+    private static String randomNumber(Random random) {
+        double value = (random.nextDouble() - 0.5) * Math.pow(10.0, random.nextInt(40) - 20);
+        return switch (random.nextInt(8)) {
+            case 0 -> Double.toString(value);
+            case 1 -> String.format(Locale.ROOT, "%.15E", value);
+            case 2 -> String.format(Locale.ROOT, " %.6f ", value);
+            case 3 -> String.format(Locale.ROOT, "%.17g", value);
+            case 4 -> String.format(Locale.ROOT, "%.25f", value);
+            case 5 -> Long.toString(random.nextLong() >> random.nextInt(64));
+            case 6 -> "-0.000";
+            default -> String.format(Locale.ROOT, "%.3e", value);
+        };
+    }
+
+    @Test
+    void fieldsAndNumbersMatchSplitAndParse() throws IOException {
+        Random random = new Random(11L);
+        List<String> lines = new ArrayList<>();
+        lines.add("#HEADER");
+        lines.add("");
+        lines.add("a,,b,,");
+        for (int row = 0; row < 2000; row++) {
+            StringBuilder line = new StringBuilder("OP" + (row % 7) + "," + (row % 5 - 2));
+            for (int field = 0; field < 12; field++) {
+                line.append(',').append(randomNumber(random));
+            }
+            lines.add(line.toString());
+        }
+        Path dataFile = Files.createTempFile("delimitedLineReader", ".txt");
+        try {
+            Files.writeString(dataFile, String.join("\r\n", lines), StandardCharsets.US_ASCII);
+            // a tiny buffer forces lines across refills and buffer growth
+            try (DelimitedLineReader reader = new DelimitedLineReader(dataFile, StandardCharsets.US_ASCII, 16)) {
+                for (int lineIndex = 0; lineIndex < lines.size(); lineIndex++) {
+                    assertTrue(reader.nextLine());
+                    String line = lines.get(lineIndex);
+                    assertEquals(line, reader.lineAsString());
+                    assertEquals(line.isBlank(), reader.isBlankLine());
+                    String[] lineSplit = line.split(",");
+                    assertEquals(lineSplit.length, reader.splitFields(','));
+                    if (2 < lineIndex) {
+                        assertSame(reader.fieldAsString(0), reader.fieldAsString(0));
+                        assertEquals(lineSplit[0].trim(), reader.fieldAsString(0));
+                        assertEquals(Integer.parseInt(lineSplit[1].trim()), reader.fieldAsInt(1));
+                        for (int field = 2; field < lineSplit.length; field++) {
+                            assertEquals(Double.doubleToLongBits(Double.parseDouble(lineSplit[field])),
+                                    Double.doubleToLongBits(reader.fieldAsDouble(field)), lineSplit[field]);
+                        }
+                    }
+                }
+                assertFalse(reader.nextLine());
+            }
+        } finally {
+            Files.delete(dataFile);
+        }
+    }
+
+    @Test
+    void rewindReplaysFromFirstLine() throws IOException {
+        Path dataFile = Files.createTempFile("delimitedLineReader", ".txt");
+        try {
+            Files.writeString(dataFile, "Version,1.2\nOP,1,2.5\nOP,2,3.5\n", StandardCharsets.US_ASCII);
+            // header still buffered, then a buffer small enough that the file start has been compacted away
+            for (int bufferSize : new int[]{1 << 20, 4}) {
+                try (DelimitedLineReader reader = new DelimitedLineReader(dataFile, StandardCharsets.US_ASCII, bufferSize)) {
+                    while (reader.nextLine()) {
+                        reader.splitFields(',');
+                    }
+                    reader.rewind();
+                    assertTrue(reader.nextLine());
+                    assertEquals(0, reader.getLineIndex());
+                    assertTrue(reader.lineStartsWith("Version,1."));
+                    assertTrue(reader.nextLine());
+                    assertEquals(3, reader.splitFields(','));
+                    assertEquals(2.5, reader.fieldAsDouble(2), 0.0);
+                }
+            }
+        } finally {
+            Files.delete(dataFile);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MappedDelimitedFile.BlockLines;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDelimitedFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parallelBlocksMatchSplitAndParse() throws IOException {
+        Random random = new Random(12L);
+        List<String> lines = new ArrayList<>();
+        lines.add("Header: value");
+        lines.add("Cycle\tTime\tA\tB\tC");
+        int blockSize = 3 * MappedDelimitedFile.ROWS_PER_CHUNK / 2;
+        for (int cycle = 1; cycle <= 2 * blockSize; cycle++) {
+            String flagged = (0 == cycle % 11) ? "X" : "";
+            lines.add(cycle + "\t" + String.format(Locale.ROOT, "%.3f", cycle * 0.5)
+                    + "\t" + flagged + random.nextGaussian()
+                    + "\t" + String.format(Locale.ROOT, " %.6E ", random.nextDouble() * 1e-12)
+                    + ((0 == cycle % 7) ? "\t\t" : "\t" + random.nextInt(1000)));
+        }
+        lines.add("***");
+        Path dataFile = tempDir.resolve("mappedDelimitedFile.exp");
+        Files.writeString(dataFile, String.join("\r\n", lines), StandardCharsets.US_ASCII);
+        MappedDelimitedFile mappedFile = MappedDelimitedFile.mapFile(dataFile);
+        assertEquals(lines.size(), mappedFile.getLineCount());
+        assertTrue(mappedFile.lineStartsWith(1, "Cycle"));
+        assertTrue(mappedFile.lineStartsWith(lines.size() - 1, "***"));
+        assertEquals(lines.get(2), mappedFile.lineAsString(2));
+        assertEquals("1", mappedFile.firstFieldAsString(2));
+
+        List<BlockLines> blocks = List.of(new BlockLines(1), new BlockLines(2));
+        for (int lineIndex = 2; lineIndex < lines.size() - 1; lineIndex++) {
+            blocks.get((lineIndex - 2) / blockSize).addLine(lineIndex);
+        }
+        List<MassSpecOutputBlockRecordLite> blockRecords =
+                mappedFile.parseBlocksInParallel(blocks, 2, numberAsString -> numberAsString.replace("X", ""));
+
+        assertEquals(2, blockRecords.size());
+        for (int lineIndex = 2; lineIndex < lines.size() - 1; lineIndex++) {
+            String[] lineSplit = lines.get(lineIndex).split("\t");
+            double[] expected = Arrays.stream(Arrays.copyOfRange(lineSplit, 2, lineSplit.length))
+                    .mapToDouble(numberAsString -> Double.parseDouble(numberAsString.replace("X", "")))
+                    .toArray();
+            MassSpecOutputBlockRecordLite blockRecord = blockRecords.get((lineIndex - 2) / blockSize);
+            assertEquals((lineIndex - 2) / blockSize + 1, blockRecord.blockID());
+            assertArrayEquals(expected, blockRecord.cycleData()[(lineIndex - 2) % blockSize], 0.0);
+        }
+    }
+}
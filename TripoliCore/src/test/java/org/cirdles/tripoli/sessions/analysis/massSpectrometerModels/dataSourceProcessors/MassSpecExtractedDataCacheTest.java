@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors;
+
+import org.cirdles.tripoli.constants.MassSpectrometerContextEnum;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MassSpecExtractedDataCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static MassSpecExtractedData liteOnlyData() {
+        MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
+        massSpecExtractedData.setMassSpectrometerContext(MassSpectrometerContextEnum.PHOENIX_FULL_SYNTHETIC);
+        massSpecExtractedData.setHeader(new MassSpecExtractedData.MassSpecExtractedHeader(
+                "1.2", "run.TIMSDP", "sample", "method", true, false, "2024-01-02 03:04:05", 10));
+        massSpecExtractedData.setColumnHeaders(new String[]{"Cycle", "Time", "R206/204"});
+        massSpecExtractedData.addBlockLiteRecord(new MassSpecOutputBlockRecordLite(1, new double[][]{{1.5}}));
+        return massSpecExtractedData;
+    }
+
+    @Test
+    void cachedDataRoundTripsUntilDataFileChanges() throws IOException, TripoliException {
+        Path cacheFolder = tempDir.resolve("extractedDataCache");
+        Path dataFile = tempDir.resolve("extractedDataCache.txt");
+        Files.writeString(dataFile, "raw data");
+        MassSpecExtractedData massSpecExtractedData = new MassSpecExtractedData();
+        massSpecExtractedData.setMassSpectrometerContext(MassSpectrometerContextEnum.PHOENIX_FULL_SYNTHETIC);
+        massSpecExtractedData.setHeader(new MassSpecExtractedData.MassSpecExtractedHeader(
+                "1.2", "run.TIMSDP", "sample", "method", true, false, "2024-01-02 03:04:05", 10));
+        massSpecExtractedData.setColumnHeaders(new String[]{"Cycle", "Time", null, "R206/204"});
+        massSpecExtractedData.addBlockLiteRecord(new MassSpecOutputBlockRecordLite(
+                2, new double[][]{{1.5, -0.0, Double.NaN}, {}, {1.0e-300}}));
+        Map<String, List<Integer>> mapOfIdsToIndices = new TreeMap<>();
+        mapOfIdsToIndices.put("OP1", List.of(0, 2));
+        mapOfIdsToIndices.put("OP2", List.of(1));
+        massSpecExtractedData.addBlockRecord(new MassSpecOutputBlockRecordFull(
+                1,
+                new double[][]{{0.1, 0.2}}, new String[]{"BL1"}, Map.of("BL1", List.of(0)),
+                new int[]{1}, new int[]{1}, new double[]{0.5}, new double[]{204.0},
+                new double[][]{{1.0, 2.0}, {3.0, 4.0}, {5.0, 6.0}}, new String[]{"OP1", "OP2", "OP1"}, mapOfIdsToIndices,
+                new int[]{1, 1, 2}, new int[]{1, 2, 1}, new double[]{1.0, 2.0, 3.0}, new double[]{206.0, 207.0, 206.0},
+                new int[]{0, 2}));
+
+        MassSpecExtractedDataCache.writeCachedData(cacheFolder, dataFile, massSpecExtractedData);
+        MassSpecExtractedData cachedData = MassSpecExtractedDataCache.readCachedData(cacheFolder, dataFile);
+
+        assertNotNull(cachedData);
+        assertEquals(massSpecExtractedData.getMassSpectrometerContext(), cachedData.getMassSpectrometerContext());
+        assertEquals(massSpecExtractedData.getHeader(), cachedData.getHeader());
+        assertArrayEquals(massSpecExtractedData.getColumnHeaders(), cachedData.getColumnHeaders());
+        double[][] cycleData = cachedData.getBlocksDataLite().get(2).cycleData();
+        assertEquals(3, cycleData.length);
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(cycleData[0][1]));
+        assertTrue(Double.isNaN(cycleData[0][2]));
+        assertEquals(0, cycleData[1].length);
+        assertEquals(1.0e-300, cycleData[2][0], 0.0);
+        MassSpecOutputBlockRecordFull blockRecord = cachedData.getBlocksDataFull().get(1);
+        assertArrayEquals(new String[]{"OP1", "OP2", "OP1"}, blockRecord.onPeakIDs());
+        assertEquals(mapOfIdsToIndices, blockRecord.mapOfOnPeakIdsToIndices());
+        assertArrayEquals(new int[]{0, 2}, blockRecord.onPeakStartingIndicesOfCycles());
+        assertArrayEquals(new double[]{5.0, 6.0}, blockRecord.onPeakIntensities()[2], 0.0);
+
+        Files.setLastModifiedTime(dataFile, FileTime.fromMillis(Files.getLastModifiedTime(dataFile).toMillis() - 60_000L));
+        assertNull(MassSpecExtractedDataCache.readCachedData(cacheFolder, dataFile));
+    }
+
+    @Test
+    void pruningDeletesEntriesOfMissingAndUnusedDataFiles() throws IOException {
+        Path cacheFolder = tempDir.resolve("extractedDataCache");
+        Path keptDataFile = Files.writeString(tempDir.resolve("kept.txt"), "raw data");
+        Path deletedDataFile = Files.writeString(tempDir.resolve("deleted.txt"), "raw data");
+        Path unusedDataFile = Files.writeString(tempDir.resolve("unused.txt"), "raw data");
+        MassSpecExtractedDataCache.writeCachedData(cacheFolder, keptDataFile, liteOnlyData());
+        MassSpecExtractedDataCache.writeCachedData(cacheFolder, deletedDataFile, liteOnlyData());
+        MassSpecExtractedDataCache.writeCachedData(cacheFolder, unusedDataFile, liteOnlyData());
+        Path unusedCacheFile = MassSpecExtractedDataCache.cacheFileFor(cacheFolder, unusedDataFile);
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(unusedCacheFile,
+                FileTime.fromMillis(now - TimeUnit.DAYS.toMillis(MassSpecExtractedDataCache.MAX_CACHE_AGE_DAYS + 1)));
+        Files.delete(deletedDataFile);
+        Files.writeString(cacheFolder.resolve("damaged.txt-0.tripolidata"), "not a cache file");
+
+        MassSpecExtractedDataCache.pruneCacheFolder(cacheFolder, now);
+
+        assertTrue(Files.isRegularFile(MassSpecExtractedDataCache.cacheFileFor(cacheFolder, keptDataFile)));
+        assertFalse(Files.exists(MassSpecExtractedDataCache.cacheFileFor(cacheFolder, deletedDataFile)));
+        assertFalse(Files.exists(unusedCacheFile));
+        assertFalse(Files.exists(cacheFolder.resolve("damaged.txt-0.tripolidata")));
+        assertNotNull(MassSpecExtractedDataCache.readCachedData(cacheFolder, keptDataFile));
+    }
+}
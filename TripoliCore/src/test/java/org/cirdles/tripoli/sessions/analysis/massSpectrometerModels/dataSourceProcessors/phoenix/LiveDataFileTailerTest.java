@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.phoenix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveDataFileTailerTest {
+
+    @Test
+    void readsOnlyAppendedLinesAndWaitsForPartialLine() throws IOException {
+        Path liveDataFile = Files.createTempFile("liveDataFileTailer", ".txt");
+        try {
+            LiveDataFileTailer liveDataFileTailer = new LiveDataFileTailer();
+            Files.writeString(liveDataFile, "Block,1\r\nCycle,1\r\n0,R206/204,1.5");
+            assertEquals(List.of("Block,1", "Cycle,1"), liveDataFileTailer.readNewLines(liveDataFile));
+            assertTrue(liveDataFileTailer.readNewLines(liveDataFile).isEmpty());
+
+            // a half-written "Cycle,13" must not be acted on as "Cycle,1"
+            Files.writeString(liveDataFile, "25\r\nCycle,1", StandardOpenOption.APPEND);
+            assertEquals(List.of("0,R206/204,1.525"), liveDataFileTailer.readNewLines(liveDataFile));
+            Files.writeString(liveDataFile, "3\r\n", StandardOpenOption.APPEND);
+            assertEquals(List.of("Cycle,13"), liveDataFileTailer.readNewLines(liveDataFile));
+
+            Files.writeString(liveDataFile, "Block,2\n");
+            assertEquals(List.of("Block,2"), liveDataFileTailer.readNewLines(liveDataFile));
+        } finally {
+            Files.delete(liveDataFile);
+        }
+    }
+
+    @Test
+    void forgetsLeastRecentlyReadFiles(@TempDir Path liveDataFolder) throws IOException {
+        LiveDataFileTailer liveDataFileTailer = new LiveDataFileTailer();
+        Path firstFile = liveDataFolder.resolve("0.txt");
+        Files.writeString(firstFile, "Block,1\n");
+        assertEquals(List.of("Block,1"), liveDataFileTailer.readNewLines(firstFile));
+        for (int fileIndex = 1; fileIndex <= LiveDataFileTailer.MAX_TRACKED_FILES; fileIndex++) {
+            Path liveDataFile = liveDataFolder.resolve(fileIndex + ".txt");
+            Files.writeString(liveDataFile, "Cycle,1\n");
+            liveDataFileTailer.readNewLines(liveDataFile);
+        }
+
+        // the first file's position was dropped, so it is read from its start
+        assertEquals(List.of("Block,1"), liveDataFileTailer.readNewLines(firstFile));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.sessions.batch;
+
+import org.cirdles.tripoli.Tripoli;
+import org.cirdles.tripoli.reports.Report;
+import org.cirdles.tripoli.sessions.analysis.massSpectrometerModels.dataSourceProcessors.MassSpecExtractedDataCache;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchReductionEngineTest {
+
+    @TempDir
+    Path cacheFolder;
+
+    @BeforeEach
+    void useTemporaryCacheFolder() {
+        // keep the entries for these data files out of the user's cache folder
+        MassSpecExtractedDataCache.setCacheFolder(cacheFolder);
+    }
+
+    @AfterEach
+    void restoreCacheFolder() {
+        MassSpecExtractedDataCache.setCacheFolder(null);
+    }
+
+    private boolean savedSupressContents;
+
+    @BeforeEach
+    void saveSupressContents() {
+        savedSupressContents = Report.supressContents;
+    }
+
+    @AfterEach
+    void restoreSupressContents() {
+        // the flag is global, so later tests must not see the value set here
+        Report.supressContents = savedSupressContents;
+    }
+
+    @Test
+    void reducesEachFileAndIsolatesTheOthers(@TempDir Path dataFolder) throws URISyntaxException, IOException, TripoliException {
+        File nuTIMSFolder = new File(Objects.requireNonNull(
+                Tripoli.class.getResource("/org/cirdles/tripoli/core/reporting/dataFiles/NuTIMS")).toURI());
+        for (File dataFile : Objects.requireNonNull(nuTIMSFolder.listFiles())) {
+            Files.copy(dataFile.toPath(), dataFolder.resolve(dataFile.getName()));
+        }
+        Files.writeString(dataFolder.resolve("notes.txt"), "not a data file\n");
+        // a Nu file cut off partway through its first caption line is recognized but cannot be parsed
+        List<String> nuTIMSLines = Files.readAllLines(Objects.requireNonNull(nuTIMSFolder.listFiles())[0].toPath());
+        Files.writeString(dataFolder.resolve("truncated.txt"),
+                String.join("\n", nuTIMSLines.subList(0, 6)) + "\nCaption (1)");
+        Files.writeString(dataFolder.resolve("ignored.csv"), "a,b\n");
+
+        Report.supressContents = true;
+        BatchReductionEngine batchReductionEngine = new BatchReductionEngine("Batch Test", null, 2, loggingSnippet -> {
+        });
+        List<BatchFileResult> results = batchReductionEngine.reduceFolder(dataFolder);
+
+        assertEquals(6, results.size());
+        assertEquals(4, results.stream().filter(BatchFileResult::isReduced).count());
+        BatchFileResult truncatedResult = results.stream()
+                .filter(result -> result.dataFile().getFileName().toString().equals("truncated.txt"))
+                .findFirst().orElseThrow();
+        assertEquals(BatchFileResult.Status.FAILED, truncatedResult.status());
+        assertNull(truncatedResult.analysis());
+        assertFalse(truncatedResult.message().isEmpty());
+        BatchFileResult notesResult = results.stream()
+                .filter(result -> result.dataFile().getFileName().toString().equals("notes.txt"))
+                .findFirst().orElseThrow();
+        assertEquals(BatchFileResult.Status.SKIPPED, notesResult.status());
+        assertNull(notesResult.analysis());
+        assertEquals(4, batchReductionEngine.getSession().getMapOfAnalyses().size());
+
+        Path outputFolder = dataFolder.resolve("reports");
+        List<Path> reportFiles = batchReductionEngine.exportReports(results, outputFolder, null);
+        Path summaryFile = reportFiles.get(reportFiles.size() - 1);
+        assertEquals("Batch Test-batch-summary.csv", summaryFile.getFileName().toString());
+        assertEquals(1 + results.size(), Files.readAllLines(summaryFile).size());
+
+        // one header row and one row per reduced analysis across the method reports
+        long reportRowCount = 0;
+        for (Path reportFile : reportFiles.subList(0, reportFiles.size() - 1)) {
+            reportRowCount += Files.readAllLines(reportFile).size() - 1;
+        }
+        assertEquals(4, reportRowCount);
+    }
+}
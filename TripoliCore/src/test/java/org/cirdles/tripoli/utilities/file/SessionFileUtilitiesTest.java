@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.file;
+
+import org.cirdles.tripoli.sessions.Session;
+import org.cirdles.tripoli.sessions.SessionBuiltinFactory;
+import org.cirdles.tripoli.sessions.analysis.Analysis;
+import org.cirdles.tripoli.sessions.analysis.AnalysisInterface;
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.cirdles.tripoli.utilities.stateUtilities.TripoliSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.cirdles.tripoli.sessions.SessionBuiltinFactory.TRIPOLI_DEMONSTRATION_SESSION;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionFileUtilitiesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sessionContainerRoundTripsAndResaves() throws TripoliException, IOException {
+        String fileName = tempDir.resolve("testSessionContainer.tripoli").toString();
+        Session testSession = SessionBuiltinFactory.sessionsBuiltinMap.get(TRIPOLI_DEMONSTRATION_SESSION);
+        SessionFileUtilities.serializeTripoliSession(testSession, fileName);
+        assertTrue(SessionContainerFile.isSessionContainerFile(Path.of(fileName)));
+
+        Session openedSession = SessionFileUtilities.readTripoliSession(fileName);
+        assertEquals(testSession, openedSession);
+        assertEquals(testSession.getMapOfAnalyses().keySet(), openedSession.getMapOfAnalyses().keySet());
+
+        // saving again copies the sections that were never read
+        SessionFileUtilities.serializeTripoliSession(openedSession, fileName);
+        Session reopenedSession = SessionFileUtilities.readTripoliSession(fileName);
+        for (String analysisName : testSession.getMapOfAnalyses().keySet()) {
+            AnalysisInterface analysis = testSession.getMapOfAnalyses().get(analysisName);
+            AnalysisInterface reopenedAnalysis = reopenedSession.getMapOfAnalyses().get(analysisName);
+            assertEquals(analysis.getMapOfBlockIdToRawDataLiteOne().keySet(), reopenedAnalysis.getMapOfBlockIdToRawDataLiteOne().keySet());
+            assertEquals(analysis.getMapOfBlockIdToPlots().keySet(), reopenedAnalysis.getMapOfBlockIdToPlots().keySet());
+        }
+    }
+
+    @Test
+    void analysesShareSessionDefaultsAfterReopening() throws TripoliException {
+        String fileName = tempDir.resolve("testSessionContainer.tripoli").toString();
+        Session testSession = SessionBuiltinFactory.sessionsBuiltinMap.get(TRIPOLI_DEMONSTRATION_SESSION);
+        for (AnalysisInterface analysis : testSession.getMapOfAnalyses().values()) {
+            ((Analysis) analysis).initializeDefaultsFromSessionDefaults(testSession);
+        }
+        SessionFileUtilities.serializeTripoliSession(testSession, fileName);
+
+        Session openedSession = SessionFileUtilities.readTripoliSession(fileName);
+        assertNotNull(openedSession.getSessionDefaultMapOfSpeciesToColors());
+        for (AnalysisInterface analysis : openedSession.getMapOfAnalyses().values()) {
+            assertSame(openedSession.getSessionDefaultMapOfSpeciesToColors(),
+                    ((Analysis) analysis).getSessionDefaultMapOfSpeciesToColors());
+            assertSame(openedSession.getBlockCyclesPlotColors(), analysis.getRatioColors());
+        }
+    }
+
+    @Test
+    void sessionWrittenWholeStillOpens() throws TripoliException {
+        String fileName = tempDir.resolve("testSessionContainer.tripoli").toString();
+        Session testSession = SessionBuiltinFactory.sessionsBuiltinMap.get(TRIPOLI_DEMONSTRATION_SESSION);
+        TripoliSerializer.serializeObjectToFile(testSession, fileName);
+
+        assertEquals(testSession, SessionFileUtilities.readTripoliSession(fileName));
+    }
+
+    @Test
+    void movedSessionFileIsReportedByName() throws TripoliException, IOException {
+        Path sessionFile = tempDir.resolve("testSessionContainer.tripoli");
+        Session testSession = SessionBuiltinFactory.sessionsBuiltinMap.get(TRIPOLI_DEMONSTRATION_SESSION);
+        SessionFileUtilities.serializeTripoliSession(testSession, sessionFile.toString());
+        Session openedSession = SessionFileUtilities.readTripoliSession(sessionFile.toString());
+        Files.move(sessionFile, tempDir.resolve("movedSessionContainer.tripoli"));
+
+        for (AnalysisInterface analysis : openedSession.getMapOfAnalyses().values()) {
+            TripoliException exception = assertThrows(TripoliException.class,
+                    () -> SessionContainerFile.loadAnalysisSections(analysis));
+            assertTrue(exception.getMessage().contains(sessionFile.toString()));
+        }
+    }
+}
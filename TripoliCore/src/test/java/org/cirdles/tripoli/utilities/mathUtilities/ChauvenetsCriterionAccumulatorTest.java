@@ -0,0 +1,118 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities;
+
+import org.cirdles.tripoli.parameters.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.apache.commons.math3.special.Erf.erfc;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChauvenetsCriterionAccumulatorTest {
+
+    /**
+     * Chauvenet's criterion recomputed from scratch, as applied before the accumulator.
+     */
+    private static boolean[] recomputedChauvenetsCriterion(double[] dataIn, boolean[] includedIndicesIn, Parameters parameters) {
+        boolean[] includedIndices = includedIndicesIn.clone();
+        int n = 0;
+        double sum = 0.0;
+        for (int i = 0; i < dataIn.length; i++) {
+            if (includedIndices[i]) {
+                n++;
+                sum += dataIn[i];
+            }
+        }
+        if (n >= parameters.getRequiredMinDatumCount()) {
+            double xbar = sum / n;
+            double sumOfSquares = 0.0;
+            for (int i = 0; i < dataIn.length; i++) {
+                if (includedIndices[i]) {
+                    sumOfSquares += (dataIn[i] - xbar) * (dataIn[i] - xbar);
+                }
+            }
+            double stddev = Math.sqrt(sumOfSquares / (n - 1));
+            for (int i = 0; i < dataIn.length; i++) {
+                if (erfc(Math.abs(dataIn[i] - xbar) / stddev) * n < parameters.getChauvenetRejectionProbability()) {
+                    includedIndices[i] = false;
+                }
+            }
+        }
+        return includedIndices;
+    }
+
+    @Test
+    void rejectsTheSameCyclesAsTheOriginalCriterion() {
+        double[] data = {47.3, 50.5, 53.7, 55.8, 55.0, 56.0001, 57.0012345678, 57.004999, 58.153, 58.852, 58.123, 58.543, 60.415, 60.794, 60.351,
+                61.751, 61.652, 61.325, 61.587, 61.126, 61.897, 62.543, 62.258, 62.689, 63.5473, 63.789, 64.369, 67.115, 68.142, 72.368};
+        boolean[] included = new boolean[data.length];
+        Arrays.fill(included, true);
+        boolean[] expected = new boolean[data.length];
+        Arrays.fill(expected, true);
+        expected[0] = false;
+        expected[1] = false;
+        expected[29] = false;
+
+        ChauvenetsCriterionAccumulator chauvenetsCriterionAccumulator = new ChauvenetsCriterionAccumulator();
+        assertArrayEquals(expected, chauvenetsCriterionAccumulator.applyChauvenetsCriterion(data, included, new Parameters()));
+        assertEquals(3, chauvenetsCriterionAccumulator.getCountOfRejected());
+        assertArrayEquals(expected, MathUtilities.applyChauvenetsCriterion(data, included, new Parameters()));
+        assertTrue(included[0]);
+    }
+
+    @Test
+    void appendedEditedAndToggledCyclesMatchRecomputation() {
+        Random random = new Random(17L);
+        Parameters parameters = new Parameters();
+        double[] data = new double[120];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = 100.0 + random.nextGaussian() + ((0 == i % 23) ? 6.0 * (random.nextBoolean() ? 1.0 : -1.0) : 0.0);
+        }
+        boolean[] included = new boolean[data.length];
+        Arrays.fill(included, true);
+        ChauvenetsCriterionAccumulator chauvenetsCriterionAccumulator = new ChauvenetsCriterionAccumulator();
+
+        // live acquisition: a cycle at a time, through and past the minimum count
+        for (int count = 1; count <= data.length; count++) {
+            double[] dataSoFar = Arrays.copyOf(data, count);
+            boolean[] includedSoFar = Arrays.copyOf(included, count);
+            assertArrayEquals(recomputedChauvenetsCriterion(dataSoFar, includedSoFar, parameters),
+                    chauvenetsCriterionAccumulator.applyChauvenetsCriterion(dataSoFar, includedSoFar, parameters));
+        }
+
+        // the user excludes, re-includes and edits cycles, and accepts rejections
+        for (int step = 0; step < 200; step++) {
+            int index = random.nextInt(data.length);
+            switch (step % 4) {
+                case 0, 1 -> included[index] = !included[index];
+                case 2 -> data[index] = 100.0 + 8.0 * random.nextGaussian();
+                default -> included = chauvenetsCriterionAccumulator.applyChauvenetsCriterion(data, included, parameters);
+            }
+            assertArrayEquals(recomputedChauvenetsCriterion(data, included, parameters),
+                    chauvenetsCriterionAccumulator.applyChauvenetsCriterion(data, included, parameters));
+        }
+
+        // a shorter block starts over
+        double[] truncatedData = Arrays.copyOf(data, 40);
+        boolean[] truncatedIncluded = Arrays.copyOf(included, 40);
+        assertArrayEquals(recomputedChauvenetsCriterion(truncatedData, truncatedIncluded, parameters),
+                chauvenetsCriterionAccumulator.applyChauvenetsCriterion(truncatedData, truncatedIncluded, parameters));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MCMCRandomStreamsTest {
+
+    @Test
+    void seededStreamsAreReproducible() {
+        RandomGenerator first = MCMCRandomStreams.streamFor(20240117L, 3);
+        RandomGenerator second = MCMCRandomStreams.streamFor(20240117L, 3);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @Test
+    void streamKeysGiveDistinctStreams() {
+        RandomGenerator block1 = MCMCRandomStreams.streamFor(20240117L, 1);
+        RandomGenerator block2 = MCMCRandomStreams.streamFor(20240117L, 2);
+        RandomGenerator block1Chain0 = MCMCRandomStreams.streamFor(20240117L, 1, 0);
+        long draw = block1.nextLong();
+        assertNotEquals(draw, block2.nextLong());
+        assertNotEquals(draw, block1Chain0.nextLong());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.mathUtilities.streamingStatistics;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingMomentsTest {
+
+    @Test
+    void momentsMatchDescriptiveStatistics() {
+        Random random = new Random(11L);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1.0e6 + random.nextGaussian() * 1.0e-3;
+        }
+        StreamingMoments streamingMoments = StreamingMoments.of(values);
+        DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics(values);
+
+        assertEquals(values.length, streamingMoments.getN());
+        assertEquals(descriptiveStatistics.getMean(), streamingMoments.getMean(), 1.0e-12 * 1.0e6);
+        assertEquals(descriptiveStatistics.getVariance(), streamingMoments.getVariance(), 1.0e-6 * descriptiveStatistics.getVariance());
+        assertEquals(descriptiveStatistics.getStandardDeviation() / Math.sqrt(values.length), streamingMoments.getStandardError(), 1.0e-12);
+    }
+
+    @Test
+    void emptyAndSingleValueMomentsMatchDescriptiveStatistics() {
+        StreamingMoments streamingMoments = new StreamingMoments();
+        assertTrue(Double.isNaN(streamingMoments.getMean()));
+        assertTrue(Double.isNaN(streamingMoments.getVariance()));
+
+        streamingMoments.add(3.5);
+        assertEquals(3.5, streamingMoments.getMean(), 0.0);
+        assertEquals(0.0, streamingMoments.getVariance(), 0.0);
+    }
+
+    @Test
+    void mergedAndRemovedMomentsMatchSinglePass() {
+        Random random = new Random(5L);
+        double[] values = new double[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 4.0 - 2.0;
+        }
+        StreamingMoments singlePass = StreamingMoments.of(values);
+
+        StreamingMoments merged = new StreamingMoments();
+        for (int from = 0; from < values.length; from += 137) {
+            StreamingMoments partial = new StreamingMoments();
+            partial.addAll(values, from, Math.min(from + 137, values.length));
+            merged.merge(partial);
+        }
+        merged.merge(new StreamingMoments());
+        assertEquals(singlePass.getN(), merged.getN());
+        assertEquals(singlePass.getMean(), merged.getMean(), 1.0e-12);
+        assertEquals(singlePass.getVariance(), merged.getVariance(), 1.0e-10);
+
+        StreamingMoments removed = StreamingMoments.of(values);
+        for (int i = 500; i < values.length; i++) {
+            assertTrue(removed.remove(values[i]));
+        }
+        StreamingMoments firstHalf = new StreamingMoments();
+        firstHalf.addAll(values, 0, 500);
+        assertEquals(firstHalf.getMean(), removed.getMean(), 1.0e-12);
+        assertEquals(firstHalf.getVariance(), removed.getVariance(), 1.0e-10);
+        assertFalse(removed.remove(Double.NaN));
+    }
+
+    @Test
+    void weightedMomentsMatchInverseVarianceWeightedMean() {
+        double[] means = {1.0, 1.2, 0.9, 1.05};
+        double[] sigmas = {0.1, 0.2, 0.05, 0.1};
+        WeightedStreamingMoments weightedMoments = new WeightedStreamingMoments();
+        WeightedStreamingMoments firstPart = new WeightedStreamingMoments();
+        WeightedStreamingMoments secondPart = new WeightedStreamingMoments();
+        double numerator = 0.0;
+        double denominator = 0.0;
+        for (int i = 0; i < means.length; i++) {
+            double weight = 1.0 / (sigmas[i] * sigmas[i]);
+            numerator += means[i] * weight;
+            denominator += weight;
+            weightedMoments.add(means[i], weight);
+            (i < 2 ? firstPart : secondPart).add(means[i], weight);
+        }
+        double weightedMean = numerator / denominator;
+        double weightedSumOfSquares = 0.0;
+        for (int i = 0; i < means.length; i++) {
+            weightedSumOfSquares += (means[i] - weightedMean) * (means[i] - weightedMean) / (sigmas[i] * sigmas[i]);
+        }
+
+        assertEquals(weightedMean, weightedMoments.getWeightedMean(), 1.0e-14);
+        assertEquals(Math.sqrt(1.0 / denominator), weightedMoments.getStandardErrorOfWeightedMean(), 1.0e-14);
+        assertEquals(weightedSumOfSquares, weightedMoments.getWeightedSumOfSquares(), 1.0e-12);
+
+        firstPart.merge(secondPart);
+        assertEquals(4, firstPart.getN());
+        assertEquals(weightedMean, firstPart.getWeightedMean(), 1.0e-14);
+        assertEquals(weightedSumOfSquares, firstPart.getWeightedSumOfSquares(), 1.0e-12);
+    }
+
+    @Test
+    void p2QuantileEstimatesApproachExactQuantiles() {
+        P2QuantileEstimator smallSample = new P2QuantileEstimator(0.25);
+        for (double value : new double[]{4.0, 1.0, 3.0, 2.0}) {
+            smallSample.add(value);
+        }
+        assertEquals(1.75, smallSample.getEstimate(), 0.0);
+
+        Random random = new Random(3L);
+        double[] values = new double[20_000];
+        P2QuantileEstimator median = new P2QuantileEstimator(0.5);
+        P2QuantileEstimator upperTail = new P2QuantileEstimator(0.975);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+            median.add(values[i]);
+            upperTail.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values[values.length / 2], median.getEstimate(), 0.02);
+        assertEquals(values[(int) (0.975 * values.length)], upperTail.getEstimate(), 0.05);
+
+        assertTrue(Double.isNaN(new P2QuantileEstimator(0.5).getEstimate()));
+        assertThrows(IllegalArgumentException.class, () -> new P2QuantileEstimator(1.0));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2022 James Bowring, Noah McLean, Scott Burdick, and CIRDLES.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.cirdles.tripoli.utilities.stateUtilities;
+
+import org.cirdles.tripoli.utilities.exceptions.TripoliException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentStateWriterTest {
+
+    @Test
+    void burstOfRequestsWritesLatestStateAtomically() throws IOException, TripoliException {
+        Path stateFolder = Files.createTempDirectory("persistentStateWriter");
+        Path stateFile = stateFolder.resolve("state.ser");
+        try {
+            PersistentStateWriter persistentStateWriter = new PersistentStateWriter();
+            ArrayList<String> state = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                state.add("entry " + i);
+                persistentStateWriter.requestWrite(state, stateFile);
+            }
+            // nothing is written on the requesting thread
+            assertFalse(Files.exists(stateFile));
+
+            // the state as requested, not as changed after the request
+            state.add("after the last request");
+            persistentStateWriter.flush();
+            assertEquals(state.subList(0, 100), TripoliSerializer.getSerializedObjectFromFile(stateFile.toString(), true));
+
+            persistentStateWriter.requestWrite(state, stateFile);
+            persistentStateWriter.flush();
+            assertEquals(state, TripoliSerializer.getSerializedObjectFromFile(stateFile.toString(), true));
+            try (Stream<Path> files = Files.list(stateFolder)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(stateFile);
+            Files.delete(stateFolder);
+        }
+    }
+}